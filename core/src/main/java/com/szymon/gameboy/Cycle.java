@@ -0,0 +1,203 @@
+/**
+ * @author 18bilkiewiczs
+ * Class to handle cycling of the system (appropriately ticks the CPU)
+ */
+
+package com.szymon.gameboy;
+
+import com.szymon.gameboy.apu.APU;
+import com.szymon.gameboy.cpu.CPUInterrupts;
+import com.szymon.gameboy.cpu.utils.InterruptType;
+import com.szymon.gameboy.memory.Memory;
+import com.szymon.gameboy.memory.StateArena;
+import com.szymon.gameboy.memory.Timer;
+import com.szymon.gameboy.ppu.DMA;
+import com.szymon.gameboy.ppu.PPU;
+import com.szymon.gameboy.utils.BitOps;
+
+public class Cycle
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private Memory memory;
+	private DMA dma;
+	private CPUInterrupts interrupts;
+	
+	private PPU ppu;
+	
+	//the timer registers are accessed directly, rather than through memory
+	private Timer timer;
+	
+	//the APU is only told how many cycles have passed, and catches up itself
+	private APU apu;
+	
+	//the cycle state is stored in the state arena
+	private StateArena arena;
+	private final int iTICKS_OFFSET = StateArena.iCYCLE_OFFSET;
+	private final int iOVERFLOW_TICKS_OFFSET = StateArena.iCYCLE_OFFSET + 4;
+	private final int iOVERFLOW_OFFSET = StateArena.iCYCLE_OFFSET + 5;
+	private final int iEXECUTE_OVERFLOW_OFFSET = StateArena.iCYCLE_OFFSET + 6;
+	private final int iCURRENT_CYCLES_OFFSET = StateArena.iCYCLE_OFFSET + 7;
+	
+	private final int iCYCLES_PER_FRAME = 69905;
+	private final long lTARGET_TIME = 16;
+	private long lStartTime;
+	private long lCurrTime;
+	//the frame limit can be turned off, e.g. to run as fast as possible, or when something else sets the pace
+	private boolean bFrameLimited = true;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	//must be created with the same memory used by the CPU
+	public Cycle(Memory mem, DMA dmaIn, CPUInterrupts interruptsIn, PPU ppuIn)
+	{
+		reset(mem, dmaIn, interruptsIn, ppuIn);
+	}
+	
+	// ---------------------------------------------
+	// setters
+	// ---------------------------------------------
+	public void setFrameLimited(boolean bLimited)
+	{
+		bFrameLimited = bLimited;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	public void reset(Memory mem, DMA dmaIn, CPUInterrupts interruptsIn, PPU ppuIn)
+	{
+		ppu = ppuIn;
+		
+		memory = mem;
+		dma = dmaIn;
+		interrupts = interruptsIn;
+		
+		arena = memory.getArena();
+		arena.setInt(iTICKS_OFFSET, 0);
+		arena.setByte(iOVERFLOW_TICKS_OFFSET, 0);
+		arena.setBool(iOVERFLOW_OFFSET, false);
+		arena.setBool(iEXECUTE_OVERFLOW_OFFSET, false);
+		
+		timer = memory.getTimer();
+		apu = memory.getAPU();
+		
+		arena.setInt(iCURRENT_CYCLES_OFFSET, 0);
+		lStartTime = System.currentTimeMillis();
+	}
+	
+	//cycles the system for the given number of cycles (machine cycles, which is 1/4 of the actual frequency)
+	public void cycleEmu(int iCycles)
+	{
+		apu.addCycles(iCycles * 4);
+		
+		for (int i = 0; i < iCycles; i++)
+		{
+			for (int j = 0; j < 4; j++)
+			{
+				int iCurrentCycles = arena.getInt(iCURRENT_CYCLES_OFFSET) + 1;
+				arena.setInt(iCURRENT_CYCLES_OFFSET, iCurrentCycles);
+				
+				arena.setInt(iTICKS_OFFSET, arena.getInt(iTICKS_OFFSET) + 1);
+				tickTimer();
+				ppu.tickPPU();
+				
+				if (iCurrentCycles >= iCYCLES_PER_FRAME)
+				{
+					//when the sound is being played, the sound card sets the pace instead
+					boolean bPaced = apu.endFrame();
+					
+					//busy wait until the time for a frame has passed
+					do
+					{
+						lCurrTime = System.currentTimeMillis();
+					} while (bFrameLimited && !bPaced && (lCurrTime - lStartTime) < lTARGET_TIME);
+					
+					arena.setInt(iCURRENT_CYCLES_OFFSET, 0);
+					lStartTime = System.currentTimeMillis();
+				}
+			}
+			
+			dma.tickDMA();
+		}
+	}
+	
+	//update all the timer registers as appropriate
+	private void tickTimer()
+	{
+		memory.incrementDIV();
+		int iTicks = arena.getInt(iTICKS_OFFSET) + 1;
+		arena.setInt(iTICKS_OFFSET, iTicks);
+		
+		int iTAC = timer.getTAC();
+		boolean bUpdateTimer = BitOps.getBit(iTAC, 2);
+		int iUpdateTicks = 0;
+		
+		if (bUpdateTimer)
+		{
+			switch (iTAC & 0b11)
+			{
+			case 0b00:
+				iUpdateTicks = 1024;
+				break;
+			case 0b01:
+				iUpdateTicks = 16;
+				break;
+			case 0b10:
+				iUpdateTicks = 64;
+				break;
+			case 0b11:
+				iUpdateTicks = 256;
+				break;
+			}
+			
+			boolean bOverflow = arena.getBool(iOVERFLOW_OFFSET);
+			
+			if (iTicks % iUpdateTicks == 0)
+			{
+				//only increment if not in overflow mode
+				if (!bOverflow)
+				{
+					timer.setTIMA(timer.getTIMA() + 1);
+				}
+				
+				//check for overflow
+				if (!bOverflow && timer.getTIMA() == 0)
+				{
+					bOverflow = true;
+					arena.setBool(iOVERFLOW_OFFSET, true);
+				}
+			}
+			//if in overflow mode for tima
+			if (bOverflow)
+			{
+				//only request interrupt and set value to tma after 4 cycles
+				int iOverflowTicks = arena.getByte(iOVERFLOW_TICKS_OFFSET) + 1;
+				arena.setByte(iOVERFLOW_TICKS_OFFSET, iOverflowTicks);
+				//only update if tima value hasn't been updated (up until the last cycle)
+				if (iOverflowTicks == 3 && timer.getTIMA() == 0)
+				{
+					arena.setBool(iEXECUTE_OVERFLOW_OFFSET, true);
+				}
+				
+				if (iOverflowTicks == 4 && arena.getBool(iEXECUTE_OVERFLOW_OFFSET))
+				{
+					timer.setTIMA(timer.getTMA());
+					//request interrupt
+					interrupts.requestCPUInterrupt(InterruptType.TIMER);
+					arena.setByte(iOVERFLOW_TICKS_OFFSET, 0);
+					arena.setBool(iOVERFLOW_OFFSET, false);
+					arena.setBool(iEXECUTE_OVERFLOW_OFFSET, false);
+				}
+			}
+			else 
+			{
+				arena.setBool(iOVERFLOW_OFFSET, false);
+				arena.setBool(iEXECUTE_OVERFLOW_OFFSET, false);
+				arena.setByte(iOVERFLOW_TICKS_OFFSET, 0);
+			}
+		}
+	}
+}
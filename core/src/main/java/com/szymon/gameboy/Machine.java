@@ -0,0 +1,198 @@
+/**
+ * Class to build and hold one emulated Game Boy without any output, so it can be run headless
+ * The parts are made in the order they depend on each other, and the emulator's window, the headless runner,
+ * the stream server and the benchmarks all build on this, adding whatever outputs they need
+ */
+
+package com.szymon.gameboy;
+
+import java.io.File;
+
+import com.szymon.gameboy.cpu.CPU;
+import com.szymon.gameboy.cpu.CPUInterrupts;
+import com.szymon.gameboy.joypad.Joypad;
+import com.szymon.gameboy.memory.Cart;
+import com.szymon.gameboy.memory.Memory;
+import com.szymon.gameboy.memory.StateArena;
+import com.szymon.gameboy.ppu.DMA;
+import com.szymon.gameboy.ppu.FrameExchange;
+import com.szymon.gameboy.ppu.LCD;
+import com.szymon.gameboy.ppu.PPU;
+
+public class Machine
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private Cart cart;
+	private StateArena arena;
+	private Joypad joypad;
+	private DMA dma;
+	private LCD lcd;
+	private Memory memory;
+	private CPU cpu;
+	private CPUInterrupts interrupts;
+	private PPU ppu;
+	private Cycle cycle;
+	
+	private boolean bSaveBattery;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public Machine(File rom)
+	{
+		this(new Cart(rom));
+	}
+	
+	//with bMapSave, the cart RAM is mapped over the .sav file, so saves need no writes on the emulator's thread
+	//and it is forced to disk every lForceMillis (ms), or whenever the OS chooses if 0
+	public Machine(File rom, boolean bMapSave, long lForceMillis)
+	{
+		this(new Cart(rom, bMapSave, lForceMillis));
+	}
+	
+	//the cart can be made separately, e.g. to map its save file
+	public Machine(Cart cartIn)
+	{
+		cart = cartIn;
+		//all of the mutable state lives in the one arena
+		arena = new StateArena(cart.getArenaRAMSize());
+		joypad = new Joypad(arena);
+		
+		dma = new DMA(arena);
+		lcd = new LCD(arena);
+		
+		memory = new Memory(arena, cart, dma, lcd, joypad);
+		dma.initDMA(memory);
+		
+		cpu = new CPU(memory);
+		interrupts = cpu.getCPUInterrupts();
+		ppu = new PPU(memory, interrupts, lcd);
+		cycle = new Cycle(memory, dma, interrupts, ppu);
+		cpu.loadCycle(cycle);
+		
+		bSaveBattery = true;
+	}
+	
+	// ---------------------------------------------
+	// setters
+	// ---------------------------------------------
+	//whether the emulator keeps to the Game Boy's speed itself (it does by default)
+	public void setFrameLimited(boolean bLimited)
+	{
+		cycle.setFrameLimited(bLimited);
+	}
+	
+	//whether the cart's battery RAM is saved to its file (it is by default)
+	//emulators running the same ROM side by side would otherwise all write the same save file
+	public void setBatterySaved(boolean bSave)
+	{
+		bSaveBattery = bSave;
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	public Cart getCart()
+	{
+		return cart;
+	}
+	
+	public StateArena getArena()
+	{
+		return arena;
+	}
+	
+	public Joypad getJoypad()
+	{
+		return joypad;
+	}
+	
+	public DMA getDMA()
+	{
+		return dma;
+	}
+	
+	public LCD getLCD()
+	{
+		return lcd;
+	}
+	
+	public Memory getMemory()
+	{
+		return memory;
+	}
+	
+	public CPU getCPU()
+	{
+		return cpu;
+	}
+	
+	public PPU getPPU()
+	{
+		return ppu;
+	}
+	
+	public Cycle getCycle()
+	{
+		return cycle;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//runs the CPU until the PPU has a new frame, which is left in the frame exchange to be taken
+	//the cart's battery RAM is saved once the frame is done, if it has changed (and saving is on)
+	//returns false if the CPU stopped first
+	public boolean runFrame()
+	{
+		FrameExchange exchange = ppu.getFrameExchange();
+		while (!exchange.hasNewFrame())
+		{
+			if (!cpu.stepCPU())
+			{
+				return false;
+			}
+		}
+		
+		saveBattery();
+		return true;
+	}
+	
+	//saves the cart's battery RAM if it has changed, unless saving is off
+	//this is the only place it is saved, so whatever runs the emulator calls it once a frame
+	public void saveBattery()
+	{
+		if (bSaveBattery && cart.getNeedSave())
+		{
+			cart.saveCartBattery();
+		}
+	}
+	
+	//lists the bytes this emulator holds, so the cost of running many at once can be seen
+	//these are the arrays that make up nearly all of it, the objects around them are not counted
+	//called from the thread running the emulator
+	public String getFootprintReport()
+	{
+		long[] lBytes = {arena.getSize(), cart.getROMFootprint(), memory.getVRAM().getFootprint(), ppu.getFootprint(), memory.getAPU().getFootprint()};
+		String[] szNames = {"State arena", "ROM (shared)", "Tile caches", "PPU buffers", "APU buffers"};
+		
+		StringBuilder report = new StringBuilder();
+		long lTotal = 0;
+		for (int i = 0; i < lBytes.length; i++)
+		{
+			report.append(String.format("%-14s %10d%n", szNames[i], lBytes[i]));
+			lTotal += lBytes[i];
+		}
+		report.append(String.format("%-14s %10d%n", "Total", lTotal));
+		return report.toString();
+	}
+	
+	//stops the PPU's render threads, and releases the cart (and its save file)
+	public void close()
+	{
+		ppu.shutdown();
+		cart.closeCart();
+	}
+}
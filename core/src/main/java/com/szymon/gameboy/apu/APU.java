@@ -0,0 +1,447 @@
+/**
+ * Class to emulate the APU (Audio Processing Unit): the two square channels, the wave channel and the noise channel,
+ * along with the frame sequencer that clocks their length counters, volume envelopes and channel 1's sweep
+ */
+
+package com.szymon.gameboy.apu;
+
+import java.util.concurrent.locks.LockSupport;
+
+import com.szymon.gameboy.memory.StateArena;
+
+/**
+ * Rather than being ticked every cycle, the APU is only told how many cycles have passed, and catches up when
+ * it has to: when a sound register is accessed, and at the end of each frame. Catching up jumps straight from one
+ * event (a channel's timer running out, or the frame sequencer) to the next, so a silent APU costs almost nothing.
+ *
+ * When there is an output, every change in the mixed level is added to a band-limited buffer at the exact cycle
+ * it happened, and the samples are moved into a ring buffer for the output to play. If the output paces the
+ * emulator, the end of each frame waits for the ring buffer to drain to its target, and the sample rate is
+ * nudged up or down (by at most 0.5%) to keep it there, so it doesn't underrun (crackle) or fill up (drift).
+ */
+
+public class APU
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	public static final int iCLOCK_RATE = 4194304;
+	private final int iSEQUENCER_PERIOD = 8192;	//the frame sequencer steps at 512Hz
+	private final int iAMPLITUDE = 64;	//the mixed level (0-480) is scaled up by this into a 16 bit sample
+	private final int iMAX_FRAME_CLOCKS = 1 << 16;	//the samples are moved out at least this often
+	private final int iBUFFER_SAMPLES = 4096;
+	private final int iTARGET_LATENCY = 50;	//ms of sound kept in the ring buffer when pacing
+	private final double dMAX_RATE_CHANGE = 0.005;
+	
+	//the bits that always read back as 1, for FF10-FF3F
+	private static final int[] iREAD_MASKS = {
+		0x80, 0x3F, 0x00, 0xFF, 0xBF,	//NR10-NR14
+		0xFF, 0x3F, 0x00, 0xFF, 0xBF,	//unused, NR21-NR24
+		0x7F, 0xFF, 0x9F, 0xFF, 0xBF,	//NR30-NR34
+		0xFF, 0xFF, 0x00, 0x00, 0xBF,	//unused, NR41-NR44
+		0x00, 0x00, 0x70,	//NR50-NR52
+		0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF,	//unused
+		0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00	//wave RAM
+	};
+	
+	//the values the registers are left with by the boot ROM
+	private static final int[] iBOOT_VALUES = {
+		0x80, 0xBF, 0xF3, 0xFF, 0xBF,
+		0xFF, 0x3F, 0x00, 0xFF, 0xBF,
+		0x7F, 0xFF, 0x9F, 0xFF, 0xBF,
+		0xFF, 0xFF, 0x00, 0x00, 0xBF,
+		0x77, 0xF3, 0x80
+	};
+	
+	//the APU state is stored in the state arena, the registers are stored as they were written
+	private final int iREGISTERS_OFFSET = StateArena.iAPU_OFFSET;
+	private final int iNR50_OFFSET = StateArena.iAPU_OFFSET + 0x14;
+	private final int iNR51_OFFSET = StateArena.iAPU_OFFSET + 0x15;
+	private final int iNR52_OFFSET = StateArena.iAPU_OFFSET + 0x16;
+	private final int iSTEP_OFFSET = StateArena.iAPU_OFFSET + 0x30;
+	private final int iSEQUENCER_TIMER_OFFSET = StateArena.iAPU_OFFSET + 0x31;	//16 bit
+	private final int iPENDING_OFFSET = StateArena.iAPU_OFFSET + 0x33;	//32 bit, the cycles that haven't been run yet
+	private final int iCHANNELS_OFFSET = StateArena.iAPU_OFFSET + 0x38;	//16 bytes for each channel
+	
+	private StateArena arena;
+	
+	private SquareChannel square1;
+	private SquareChannel square2;
+	private WaveChannel wave;
+	private NoiseChannel noise;
+	private Channel[] channels;
+	
+	//loaded from the arena while running
+	private boolean bPower;
+	private int iStep;
+	private int iSequencerTimer;
+	
+	//the output isn't emulated state, so it is kept out of the arena
+	private AudioRingBuffer ring;
+	private int iSampleRate;
+	private boolean bPacing;
+	private int iTargetFill;
+	private BandLimitedBuffer left;
+	private BandLimitedBuffer right;
+	private short[] sSamples;
+	private int iFrameClocks;
+	private int iLastLeft;
+	private int iLastRight;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public APU(StateArena arenaIn)
+	{
+		arena = arenaIn;
+		for (int i = 0; i < 0x30; i++)
+		{
+			arena.setByte(iREGISTERS_OFFSET + i, i < iBOOT_VALUES.length ? iBOOT_VALUES[i] : 0);
+		}
+		arena.setByte(iSTEP_OFFSET, 0);
+		arena.setShort(iSEQUENCER_TIMER_OFFSET, iSEQUENCER_PERIOD);
+		arena.setInt(iPENDING_OFFSET, 0);
+		
+		//channel 2 and 4 have no register 0, so their registers start at the unused address before them
+		square1 = new SquareChannel(arena, iREGISTERS_OFFSET, iCHANNELS_OFFSET, true);
+		square2 = new SquareChannel(arena, iREGISTERS_OFFSET + 0x05, iCHANNELS_OFFSET + 0x10, false);
+		wave = new WaveChannel(arena, iREGISTERS_OFFSET + 0x0A, iCHANNELS_OFFSET + 0x20);
+		noise = new NoiseChannel(arena, iREGISTERS_OFFSET + 0x0F, iCHANNELS_OFFSET + 0x30);
+		channels = new Channel[] {square1, square2, wave, noise};
+	}
+	
+	// ---------------------------------------------
+	// setters
+	// ---------------------------------------------
+	//sends the samples into the ring buffer (or stops making samples, if it is null)
+	//if bPacingIn is true, the end of each frame waits for the ring buffer to drain, rather than the emulator keeping its own pace
+	public void setOutput(AudioRingBuffer ringIn, int iSampleRateIn, boolean bPacingIn)
+	{
+		ring = ringIn;
+		iSampleRate = iSampleRateIn;
+		bPacing = bPacingIn;
+		if (ring == null)
+		{
+			return;
+		}
+		
+		iTargetFill = Math.min(iSampleRate * iTARGET_LATENCY / 1000, ring.getCapacity() / 2);
+		left = new BandLimitedBuffer(iBUFFER_SAMPLES);
+		right = new BandLimitedBuffer(iBUFFER_SAMPLES);
+		left.setRates(iCLOCK_RATE, iSampleRate);
+		right.setRates(iCLOCK_RATE, iSampleRate);
+		sSamples = new short[iBUFFER_SAMPLES * 2];
+		iFrameClocks = 0;
+		iLastLeft = 0;
+		iLastRight = 0;
+		
+		load();
+		mix();
+	}
+	
+	//called on a write to FF10-FF3F
+	public void writeAPU(int iAddress, int iValue)
+	{
+		int iIndex = iAddress - 0xFF10;
+		load();
+		runPending();
+		save();
+		
+		if (iAddress >= 0xFF30)
+		{
+			//wave RAM can always be written
+			arena.setByte(iREGISTERS_OFFSET + iIndex, iValue);
+		}
+		else if (iAddress == 0xFF26)
+		{
+			setPower((iValue & 0x80) != 0);
+		}
+		else if (bPower)
+		{
+			//while the power is off, all the other registers are read only
+			arena.setByte(iREGISTERS_OFFSET + iIndex, iValue);
+			if (iIndex < 0x14)
+			{
+				Channel channel = channels[iIndex / 5];
+				channel.load();
+				channel.writeRegister(iIndex % 5, iValue);
+				channel.save();
+			}
+		}
+		
+		mix();
+	}
+	
+	//turning the power off clears all of the registers (apart from wave RAM) and turns off the channels
+	private void setPower(boolean bOn)
+	{
+		if (!bOn && bPower)
+		{
+			for (int i = 0; i < 0x16; i++)
+			{
+				arena.setByte(iREGISTERS_OFFSET + i, 0);
+			}
+			for (Channel channel : channels)
+			{
+				channel.load();
+				channel.disable();
+				channel.save();
+			}
+		}
+		else if (bOn && !bPower)
+		{
+			arena.setByte(iSTEP_OFFSET, 0);
+			arena.setShort(iSEQUENCER_TIMER_OFFSET, iSEQUENCER_PERIOD);
+		}
+		
+		bPower = bOn;
+		arena.setByte(iNR52_OFFSET, bOn ? 0x80 : 0);
+	}
+	
+	//the APU only keeps a count of the cycles that have passed, they are run when needed
+	public void addCycles(int iCycles)
+	{
+		arena.setInt(iPENDING_OFFSET, arena.getInt(iPENDING_OFFSET) + iCycles);
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	//the bytes of the buffers the samples are made in, which are only made once there is an output
+	public long getFootprint()
+	{
+		if (ring == null)
+		{
+			return 0;
+		}
+		return left.getFootprint() + right.getFootprint() + sSamples.length * 2L;
+	}
+	
+	//called on a read from FF10-FF3F
+	public int readAPU(int iAddress)
+	{
+		int iIndex = iAddress - 0xFF10;
+		
+		//NR52 shows which channels are on, so the channels must be up to date
+		if (iAddress == 0xFF26)
+		{
+			load();
+			runPending();
+			save();
+			
+			int iValue = bPower ? 0x80 : 0;
+			for (int i = 0; i < channels.length; i++)
+			{
+				if (channels[i].getEnabled())
+				{
+					iValue |= 1 << i;
+				}
+			}
+			return iValue | iREAD_MASKS[iIndex];
+		}
+		
+		return arena.getByte(iREGISTERS_OFFSET + iIndex) | iREAD_MASKS[iIndex];
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//catches up, and moves the frame's samples to the output
+	//returns true if the output has set the pace (so the emulator doesn't need to wait itself)
+	public boolean endFrame()
+	{
+		load();
+		runPending();
+		save();
+		
+		if (ring == null)
+		{
+			iFrameClocks = 0;
+			return false;
+		}
+		
+		flushSamples();
+		if (!bPacing || ring.getClosed())
+		{
+			return false;
+		}
+		
+		//sleep until the output has played the ring buffer down to the target
+		int iFill;
+		while ((iFill = ring.getFill()) > iTargetFill && !ring.getClosed())
+		{
+			LockSupport.parkNanos((iFill - iTargetFill) * 1000000000L / iSampleRate);
+		}
+		
+		//after waiting, the fill is only under the target if the emulator is falling behind,
+		//in which case a few more samples are made for each frame until it catches up
+		double dError = Math.max(-1, Math.min(1, (double) (iTargetFill - ring.getFill()) / iTargetFill));
+		left.setRates(iCLOCK_RATE, iSampleRate * (1 + dError * dMAX_RATE_CHANGE));
+		right.setRates(iCLOCK_RATE, iSampleRate * (1 + dError * dMAX_RATE_CHANGE));
+		
+		return true;
+	}
+	
+	private void load()
+	{
+		bPower = (arena.getByte(iNR52_OFFSET) & 0x80) != 0;
+		iStep = arena.getByte(iSTEP_OFFSET);
+		iSequencerTimer = arena.getShort(iSEQUENCER_TIMER_OFFSET);
+		for (Channel channel : channels)
+		{
+			channel.load();
+		}
+	}
+	
+	private void save()
+	{
+		arena.setByte(iSTEP_OFFSET, iStep);
+		arena.setShort(iSEQUENCER_TIMER_OFFSET, iSequencerTimer);
+		for (Channel channel : channels)
+		{
+			channel.save();
+		}
+	}
+	
+	private void runPending()
+	{
+		int iCycles = arena.getInt(iPENDING_OFFSET);
+		arena.setInt(iPENDING_OFFSET, 0);
+		run(iCycles);
+	}
+	
+	//runs the APU for the given number of cycles, from one event to the next
+	private void run(int iCycles)
+	{
+		while (iCycles > 0)
+		{
+			int iStepCycles = Math.min(iCycles, iSequencerTimer);
+			if (ring != null)
+			{
+				iStepCycles = Math.min(iStepCycles, iMAX_FRAME_CLOCKS - iFrameClocks);
+			}
+			for (Channel channel : channels)
+			{
+				if (channel.getEnabled())
+				{
+					iStepCycles = Math.min(iStepCycles, channel.getTimer());
+				}
+			}
+			
+			boolean bChanged = false;
+			if (bPower)
+			{
+				for (Channel channel : channels)
+				{
+					if (channel.getEnabled())
+					{
+						bChanged |= channel.advance(iStepCycles);
+					}
+				}
+				
+				iSequencerTimer -= iStepCycles;
+				if (iSequencerTimer == 0)
+				{
+					iSequencerTimer = iSEQUENCER_PERIOD;
+					clockSequencer();
+					bChanged = true;
+				}
+			}
+			
+			iCycles -= iStepCycles;
+			iFrameClocks += iStepCycles;
+			
+			if (bChanged)
+			{
+				mix();
+			}
+			if (ring != null && iFrameClocks >= iMAX_FRAME_CLOCKS)
+			{
+				flushSamples();
+			}
+		}
+	}
+	
+	//lengths on every other step (256Hz), the sweep on steps 2 and 6 (128Hz), and the envelopes on step 7 (64Hz)
+	private void clockSequencer()
+	{
+		if ((iStep & 1) == 0)
+		{
+			for (Channel channel : channels)
+			{
+				channel.clockLength();
+			}
+		}
+		if (iStep == 2 || iStep == 6)
+		{
+			square1.clockSweep();
+		}
+		if (iStep == 7)
+		{
+			square1.clockEnvelope();
+			square2.clockEnvelope();
+			noise.clockEnvelope();
+		}
+		
+		iStep = (iStep + 1) & 7;
+	}
+	
+	//works out the left and right levels from the channels, NR51 (which channel goes to which side) and NR50 (the volume of each side)
+	//any change is added to the band-limited buffers at the current clock
+	private void mix()
+	{
+		if (ring == null)
+		{
+			return;
+		}
+		
+		int iPanning = arena.getByte(iNR51_OFFSET);
+		int iLeft = 0;
+		int iRight = 0;
+		for (int i = 0; i < channels.length; i++)
+		{
+			int iOutput = channels[i].getOutput();
+			if ((iPanning & (0x10 << i)) != 0)
+			{
+				iLeft += iOutput;
+			}
+			if ((iPanning & (1 << i)) != 0)
+			{
+				iRight += iOutput;
+			}
+		}
+		
+		int iVolume = arena.getByte(iNR50_OFFSET);
+		iLeft *= ((iVolume >>> 4) & 0b111) + 1;
+		iRight *= (iVolume & 0b111) + 1;
+		
+		if (iLeft != iLastLeft)
+		{
+			left.addDelta(iFrameClocks, (iLeft - iLastLeft) * iAMPLITUDE);
+			iLastLeft = iLeft;
+		}
+		if (iRight != iLastRight)
+		{
+			right.addDelta(iFrameClocks, (iRight - iLastRight) * iAMPLITUDE);
+			iLastRight = iRight;
+		}
+	}
+	
+	//ends the band-limited buffers' frame, and moves their samples into the ring buffer, waiting if there isn't room
+	private void flushSamples()
+	{
+		left.endFrame(iFrameClocks);
+		right.endFrame(iFrameClocks);
+		iFrameClocks = 0;
+		
+		int iFrames = left.readSamples(sSamples, 0, iBUFFER_SAMPLES, 2);
+		right.readSamples(sSamples, 1, iFrames, 2);
+		
+		int iWritten = ring.write(sSamples, 0, iFrames * 2);
+		while (iWritten < iFrames * 2 && !ring.getClosed())
+		{
+			LockSupport.parkNanos(1000000);
+			iWritten += ring.write(sSamples, iWritten, iFrames * 2 - iWritten);
+		}
+	}
+}
@@ -0,0 +1,100 @@
+/**
+ * Lock-free ring buffer of 16 bit stereo samples, between the APU (the only writer) and an audio output (the only reader)
+ * Each side only ever moves its own position forward, and publishes it with a release store, so neither side has to lock
+ */
+
+package com.szymon.gameboy.apu;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class AudioRingBuffer
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private final short[] sSamples;
+	private final int iMask;
+	
+	//the total number of samples (not frames) written and read so far
+	private final AtomicLong lWritten;
+	private final AtomicLong lRead;
+	
+	private volatile boolean bClosed;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	//iFrames is rounded up to a power of 2, each frame is a left and right sample
+	public AudioRingBuffer(int iFrames)
+	{
+		int iSize = Integer.highestOneBit(Math.max(iFrames, 2) * 2 - 1) << 1;
+		sSamples = new short[iSize];
+		iMask = iSize - 1;
+		lWritten = new AtomicLong();
+		lRead = new AtomicLong();
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	//the number of frames waiting to be read
+	public int getFill()
+	{
+		return (int) (lWritten.get() - lRead.get()) / 2;
+	}
+	
+	public int getCapacity()
+	{
+		return sSamples.length / 2;
+	}
+	
+	//once closed, the reader is going, so the writer shouldn't wait for it
+	public boolean getClosed()
+	{
+		return bClosed;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//writes as many of the iCount samples as there is room for, returning how many were written
+	//nothing more is written once it is closed
+	public int write(short[] sIn, int iStart, int iCount)
+	{
+		if (bClosed)
+		{
+			return 0;
+		}
+		
+		long lWrite = lWritten.get();
+		iCount = Math.min(iCount, sSamples.length - (int) (lWrite - lRead.get())) & ~1;
+		
+		for (int i = 0; i < iCount; i++)
+		{
+			sSamples[(int) (lWrite + i) & iMask] = sIn[iStart + i];
+		}
+		lWritten.lazySet(lWrite + iCount);
+		
+		return iCount;
+	}
+	
+	//reads up to iCount samples, returning how many were read
+	public int read(short[] sOut, int iStart, int iCount)
+	{
+		long lPosition = lRead.get();
+		iCount = Math.min(iCount, (int) (lWritten.get() - lPosition)) & ~1;
+		
+		for (int i = 0; i < iCount; i++)
+		{
+			sOut[iStart + i] = sSamples[(int) (lPosition + i) & iMask];
+		}
+		lRead.lazySet(lPosition + iCount);
+		
+		return iCount;
+	}
+	
+	public void close()
+	{
+		bClosed = true;
+	}
+}
@@ -0,0 +1,146 @@
+/**
+ * Class to turn changes in amplitude at exact clock times into samples at the output rate, without aliasing
+ * Rather than sampling the channels (which aliases the square edges into a harsh buzz), each change is added
+ * as a band-limited step: a windowed sinc impulse, chosen for where the change falls between two samples,
+ * is added to a buffer of deltas, which is integrated as the samples are read out
+ */
+
+package com.szymon.gameboy.apu;
+
+import java.util.Arrays;
+
+public class BandLimitedBuffer
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private static final int iFRACTION_BITS = 32;	//positions are in samples, with a 32 bit fraction
+	private static final int iPHASE_BITS = 5;
+	private static final int iPHASES = 1 << iPHASE_BITS;
+	private static final int iKERNEL_WIDTH = 16;
+	private static final int iKERNEL_BITS = 12;	//each kernel adds up to 1 << iKERNEL_BITS
+	private static final int iBASS_SHIFT = 9;	//how quickly the DC offset is taken out, about 15Hz at 48kHz
+	private static final double dCUTOFF = 0.9;	//the fraction of the Nyquist frequency that is kept
+	
+	private static final int[][] iKERNELS = makeKernels();
+	
+	private final int iCapacity;
+	private final int[] iDeltas;
+	
+	private long lFactor;	//samples per clock
+	private long lOffset;	//the position of the start of the frame
+	private int iIntegrator;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	//iCapacityIn is the most samples that can be waiting to be read
+	public BandLimitedBuffer(int iCapacityIn)
+	{
+		iCapacity = iCapacityIn;
+		iDeltas = new int[iCapacity + iKERNEL_WIDTH];
+	}
+	
+	// ---------------------------------------------
+	// setters
+	// ---------------------------------------------
+	//can be changed between frames, which is how the rate control stretches the output
+	public void setRates(double dClockRate, double dSampleRate)
+	{
+		lFactor = Math.round(dSampleRate / dClockRate * (1L << iFRACTION_BITS));
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	public long getFootprint()
+	{
+		return iDeltas.length * 4L;
+	}
+	
+	//the number of whole samples that can be read
+	public int getAvailable()
+	{
+		return (int) (lOffset >>> iFRACTION_BITS);
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//adds a change in amplitude at the given clock, relative to the start of the frame
+	public void addDelta(int iClock, int iDelta)
+	{
+		long lPosition = lOffset + iClock * lFactor;
+		int iIndex = (int) (lPosition >>> iFRACTION_BITS);
+		int[] iKernel = iKERNELS[(int) (lPosition >>> (iFRACTION_BITS - iPHASE_BITS)) & (iPHASES - 1)];
+		
+		for (int i = 0; i < iKERNEL_WIDTH; i++)
+		{
+			iDeltas[iIndex + i] += iKernel[i] * iDelta;
+		}
+	}
+	
+	//ends the frame after the given number of clocks, making its samples available
+	public void endFrame(int iClocks)
+	{
+		lOffset += iClocks * lFactor;
+	}
+	
+	//reads samples into every iStride'th element of sSamples, and removes them from the buffer
+	public int readSamples(short[] sSamples, int iStart, int iCount, int iStride)
+	{
+		iCount = Math.min(iCount, getAvailable());
+		
+		int iSum = iIntegrator;
+		for (int i = 0; i < iCount; i++)
+		{
+			iSum += iDeltas[i];
+			int iSample = iSum >> iKERNEL_BITS;
+			//the step is slowly pulled back towards 0, so the output has no DC offset
+			iSum -= iSample << (iKERNEL_BITS - iBASS_SHIFT);
+			sSamples[iStart + i * iStride] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, iSample));
+		}
+		iIntegrator = iSum;
+		
+		//the deltas that are still to come are moved to the front
+		int iRemaining = getAvailable() - iCount + iKERNEL_WIDTH;
+		System.arraycopy(iDeltas, iCount, iDeltas, 0, iRemaining);
+		Arrays.fill(iDeltas, iRemaining, iRemaining + iCount, 0);
+		lOffset -= (long) iCount << iFRACTION_BITS;
+		
+		return iCount;
+	}
+	
+	//the kernels for each phase, a windowed sinc centred between taps 7 and 8, offset by the phase
+	private static int[][] makeKernels()
+	{
+		int[][] iKernels = new int[iPHASES][iKERNEL_WIDTH];
+		double[] dTaps = new double[iKERNEL_WIDTH];
+		
+		for (int iPhase = 0; iPhase < iPHASES; iPhase++)
+		{
+			double dSum = 0;
+			for (int i = 0; i < iKERNEL_WIDTH; i++)
+			{
+				double dTime = i - (iKERNEL_WIDTH / 2 - 1) - (double) iPhase / iPHASES;
+				double dSinc = dTime == 0 ? 1 : Math.sin(Math.PI * dCUTOFF * dTime) / (Math.PI * dCUTOFF * dTime);
+				//Blackman window across the width of the kernel
+				double dWindow = (dTime + iKERNEL_WIDTH / 2.0) / iKERNEL_WIDTH;
+				dWindow = 0.42 - 0.5 * Math.cos(2 * Math.PI * dWindow) + 0.08 * Math.cos(4 * Math.PI * dWindow);
+				dTaps[i] = dSinc * dWindow;
+				dSum += dTaps[i];
+			}
+			
+			//each kernel adds up to exactly 1 << iKERNEL_BITS, so a step always settles at the right level
+			int iTotal = 0;
+			for (int i = 0; i < iKERNEL_WIDTH; i++)
+			{
+				iKernels[iPhase][i] = (int) Math.round(dTaps[i] / dSum * (1 << iKERNEL_BITS));
+				iTotal += iKernels[iPhase][i];
+			}
+			iKernels[iPhase][iKERNEL_WIDTH / 2] += (1 << iKERNEL_BITS) - iTotal;
+		}
+		
+		return iKernels;
+	}
+}
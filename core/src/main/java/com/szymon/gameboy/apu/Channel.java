@@ -0,0 +1,180 @@
+/**
+ * Class for what all four sound channels have in common: a length counter, a frequency timer and a DAC
+ * While the APU is running, the channel's state is held in fields, and it is loaded from/saved to the state arena around each run
+ */
+
+package com.szymon.gameboy.apu;
+
+import com.szymon.gameboy.memory.StateArena;
+
+public abstract class Channel
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	//each channel has 16 bytes of state in the arena, the first 7 are the same for every channel
+	private final int iENABLED_OFFSET;
+	private final int iLENGTH_OFFSET;	//16 bit
+	private final int iTIMER_OFFSET;	//32 bit, the cycles until the next step
+	protected final int iSTATE_OFFSET;	//where the rest of the channel's own state starts
+	
+	//the channel's registers (NRx0-NRx4) start here in the arena
+	protected final int iREGISTERS_OFFSET;
+	
+	private final int iMaxLength;
+	
+	protected StateArena arena;
+	
+	protected boolean bEnabled;
+	protected int iLength;
+	protected int iTimer;
+	protected boolean bLengthEnabled;
+	protected boolean bDAC;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public Channel(StateArena arenaIn, int iRegistersOffset, int iStateOffset, int iMaxLengthIn)
+	{
+		arena = arenaIn;
+		iREGISTERS_OFFSET = iRegistersOffset;
+		iENABLED_OFFSET = iStateOffset;
+		iLENGTH_OFFSET = iStateOffset + 1;
+		iTIMER_OFFSET = iStateOffset + 3;
+		iSTATE_OFFSET = iStateOffset + 7;
+		iMaxLength = iMaxLengthIn;
+		
+		arena.setBool(iENABLED_OFFSET, false);
+		arena.setShort(iLENGTH_OFFSET, 0);
+		arena.setInt(iTIMER_OFFSET, 1);
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	public boolean getEnabled()
+	{
+		return bEnabled;
+	}
+	
+	public int getTimer()
+	{
+		return iTimer;
+	}
+	
+	protected int getRegister(int iIndex)
+	{
+		return arena.getByte(iREGISTERS_OFFSET + iIndex);
+	}
+	
+	//the 11 bit frequency from NRx3 and NRx4
+	protected int getFrequency()
+	{
+		return ((getRegister(4) & 0b111) << 8) | getRegister(3);
+	}
+	
+	//the current output, 0-15
+	public abstract int getOutput();
+	
+	//the number of cycles between steps, at the current frequency
+	protected abstract int getPeriod();
+	
+	protected abstract boolean getDACOn();
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	public void load()
+	{
+		bEnabled = arena.getBool(iENABLED_OFFSET);
+		iLength = arena.getShort(iLENGTH_OFFSET);
+		iTimer = arena.getInt(iTIMER_OFFSET);
+		bLengthEnabled = (getRegister(4) & 0x40) != 0;
+		bDAC = getDACOn();
+		loadChannel();
+	}
+	
+	public void save()
+	{
+		arena.setBool(iENABLED_OFFSET, bEnabled);
+		arena.setShort(iLENGTH_OFFSET, iLength);
+		arena.setInt(iTIMER_OFFSET, iTimer);
+		saveChannel();
+	}
+	
+	//runs the frequency timer for the given number of cycles, which is never more than the timer has left
+	//returns true if the channel stepped (so its output may have changed)
+	public boolean advance(int iCycles)
+	{
+		iTimer -= iCycles;
+		if (iTimer > 0)
+		{
+			return false;
+		}
+		
+		iTimer = getPeriod();
+		step();
+		return true;
+	}
+	
+	//clocked by the frame sequencer at 256Hz
+	public void clockLength()
+	{
+		if (bLengthEnabled && iLength > 0)
+		{
+			iLength--;
+			if (iLength == 0)
+			{
+				bEnabled = false;
+			}
+		}
+	}
+	
+	//called after one of the channel's registers has been written (the new value is already in the arena)
+	public void writeRegister(int iIndex, int iValue)
+	{
+		bLengthEnabled = (getRegister(4) & 0x40) != 0;
+		bDAC = getDACOn();
+		
+		if (iIndex == 1)
+		{
+			iLength = iMaxLength - (iValue & (iMaxLength - 1));
+		}
+		else if (iIndex == 4 && (iValue & 0x80) != 0)
+		{
+			trigger();
+		}
+		
+		//turning the DAC off also turns the channel off, but turning it on doesn't turn the channel on
+		if (!bDAC)
+		{
+			bEnabled = false;
+		}
+	}
+	
+	//restarts the channel, when bit 7 of NRx4 is written
+	private void trigger()
+	{
+		bEnabled = bDAC;
+		if (iLength == 0)
+		{
+			iLength = iMaxLength;
+		}
+		iTimer = getPeriod();
+		triggerChannel();
+	}
+	
+	//used when the APU is turned off
+	public void disable()
+	{
+		bEnabled = false;
+	}
+	
+	protected abstract void step();
+	
+	protected abstract void triggerChannel();
+	
+	protected abstract void loadChannel();
+	
+	protected abstract void saveChannel();
+}
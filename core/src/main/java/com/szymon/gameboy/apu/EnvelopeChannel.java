@@ -0,0 +1,92 @@
+/**
+ * Class for the channels that have a volume envelope (the two square channels and the noise channel)
+ */
+
+package com.szymon.gameboy.apu;
+
+import com.szymon.gameboy.memory.StateArena;
+
+public abstract class EnvelopeChannel extends Channel
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private final int iVOLUME_OFFSET;
+	private final int iENVELOPE_TIMER_OFFSET;
+	//where the rest of the channel's own state starts
+	protected final int iENVELOPE_STATE_OFFSET;
+	
+	protected int iVolume;
+	private int iEnvelopeTimer;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public EnvelopeChannel(StateArena arenaIn, int iRegistersOffset, int iStateOffset, int iMaxLength)
+	{
+		super(arenaIn, iRegistersOffset, iStateOffset, iMaxLength);
+		iVOLUME_OFFSET = iSTATE_OFFSET;
+		iENVELOPE_TIMER_OFFSET = iSTATE_OFFSET + 1;
+		iENVELOPE_STATE_OFFSET = iSTATE_OFFSET + 2;
+		
+		arena.setByte(iVOLUME_OFFSET, 0);
+		arena.setByte(iENVELOPE_TIMER_OFFSET, 0);
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	//the DAC is on if any of the top 5 bits of NRx2 (starting volume and direction) are set
+	@Override
+	protected boolean getDACOn()
+	{
+		return (getRegister(2) & 0xF8) != 0;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//clocked by the frame sequencer at 64Hz
+	public void clockEnvelope()
+	{
+		int iPeriod = getRegister(2) & 0b111;
+		if (iPeriod == 0 || --iEnvelopeTimer > 0)
+		{
+			return;
+		}
+		
+		iEnvelopeTimer = iPeriod;
+		if ((getRegister(2) & 0x08) != 0)
+		{
+			if (iVolume < 15)
+			{
+				iVolume++;
+			}
+		}
+		else if (iVolume > 0)
+		{
+			iVolume--;
+		}
+	}
+	
+	@Override
+	protected void triggerChannel()
+	{
+		iVolume = getRegister(2) >>> 4;
+		iEnvelopeTimer = getRegister(2) & 0b111;
+	}
+	
+	@Override
+	protected void loadChannel()
+	{
+		iVolume = arena.getByte(iVOLUME_OFFSET);
+		iEnvelopeTimer = arena.getByte(iENVELOPE_TIMER_OFFSET);
+	}
+	
+	@Override
+	protected void saveChannel()
+	{
+		arena.setByte(iVOLUME_OFFSET, iVolume);
+		arena.setByte(iENVELOPE_TIMER_OFFSET, iEnvelopeTimer);
+	}
+}
@@ -0,0 +1,88 @@
+/**
+ * Class for the noise channel (channel 4), which outputs the low bit of a linear feedback shift register
+ */
+
+package com.szymon.gameboy.apu;
+
+import com.szymon.gameboy.memory.StateArena;
+
+public class NoiseChannel extends EnvelopeChannel
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private static final int[] iDIVISORS = {8, 16, 32, 48, 64, 80, 96, 112};
+	
+	private final int iLFSR_OFFSET;	//16 bit
+	
+	private int iLFSR;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public NoiseChannel(StateArena arenaIn, int iRegistersOffset, int iStateOffset)
+	{
+		super(arenaIn, iRegistersOffset, iStateOffset, 64);
+		iLFSR_OFFSET = iENVELOPE_STATE_OFFSET;
+		
+		arena.setShort(iLFSR_OFFSET, 0x7FFF);
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	//the output is on when the low bit is clear
+	@Override
+	public int getOutput()
+	{
+		if (!bEnabled)
+		{
+			return 0;
+		}
+		
+		return (iLFSR & 1) == 0 ? iVolume : 0;
+	}
+	
+	//NR43 gives the divisor (bits 0-2) and how far it is shifted (bits 4-7)
+	@Override
+	protected int getPeriod()
+	{
+		return iDIVISORS[getRegister(3) & 0b111] << (getRegister(3) >>> 4);
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//the xor of the two low bits is shifted in at the top (and also at bit 6 in 7 bit mode)
+	@Override
+	protected void step()
+	{
+		int iXor = (iLFSR ^ (iLFSR >>> 1)) & 1;
+		iLFSR = (iLFSR >>> 1) | (iXor << 14);
+		if ((getRegister(3) & 0x08) != 0)
+		{
+			iLFSR = (iLFSR & ~0x40) | (iXor << 6);
+		}
+	}
+	
+	@Override
+	protected void triggerChannel()
+	{
+		super.triggerChannel();
+		iLFSR = 0x7FFF;
+	}
+	
+	@Override
+	protected void loadChannel()
+	{
+		super.loadChannel();
+		iLFSR = arena.getShort(iLFSR_OFFSET);
+	}
+	
+	@Override
+	protected void saveChannel()
+	{
+		super.saveChannel();
+		arena.setShort(iLFSR_OFFSET, iLFSR);
+	}
+}
@@ -0,0 +1,156 @@
+/**
+ * Class for the square wave channels (channel 1, which also has the frequency sweep, and channel 2)
+ */
+
+package com.szymon.gameboy.apu;
+
+import com.szymon.gameboy.memory.StateArena;
+
+public class SquareChannel extends EnvelopeChannel
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	//the 8 steps of each duty cycle (12.5%, 25%, 50%, 75%), the lowest bit is step 0
+	private static final int[] iDUTY_PATTERNS = {0b10000000, 0b10000001, 0b11100001, 0b01111110};
+	
+	private final int iDUTY_POSITION_OFFSET;
+	private final int iSWEEP_ENABLED_OFFSET;
+	private final int iSWEEP_TIMER_OFFSET;
+	private final int iSHADOW_OFFSET;	//16 bit, the sweep's copy of the frequency
+	
+	private final boolean bSweep;
+	
+	private int iDutyPosition;
+	private boolean bSweepEnabled;
+	private int iSweepTimer;
+	private int iShadow;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public SquareChannel(StateArena arenaIn, int iRegistersOffset, int iStateOffset, boolean bSweepIn)
+	{
+		super(arenaIn, iRegistersOffset, iStateOffset, 64);
+		iDUTY_POSITION_OFFSET = iENVELOPE_STATE_OFFSET;
+		iSWEEP_ENABLED_OFFSET = iENVELOPE_STATE_OFFSET + 1;
+		iSWEEP_TIMER_OFFSET = iENVELOPE_STATE_OFFSET + 2;
+		iSHADOW_OFFSET = iENVELOPE_STATE_OFFSET + 3;
+		bSweep = bSweepIn;
+		
+		arena.setByte(iDUTY_POSITION_OFFSET, 0);
+		arena.setBool(iSWEEP_ENABLED_OFFSET, false);
+		arena.setByte(iSWEEP_TIMER_OFFSET, 0);
+		arena.setShort(iSHADOW_OFFSET, 0);
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	@Override
+	public int getOutput()
+	{
+		if (!bEnabled)
+		{
+			return 0;
+		}
+		
+		int iDuty = getRegister(1) >>> 6;
+		return ((iDUTY_PATTERNS[iDuty] >>> iDutyPosition) & 1) != 0 ? iVolume : 0;
+	}
+	
+	@Override
+	protected int getPeriod()
+	{
+		return (2048 - getFrequency()) * 4;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	@Override
+	protected void step()
+	{
+		iDutyPosition = (iDutyPosition + 1) & 7;
+	}
+	
+	//clocked by the frame sequencer at 128Hz, only channel 1 has a sweep
+	public void clockSweep()
+	{
+		if (!bSweep || --iSweepTimer > 0)
+		{
+			return;
+		}
+		
+		int iPeriod = (getRegister(0) >>> 4) & 0b111;
+		iSweepTimer = iPeriod == 0 ? 8 : iPeriod;
+		
+		if (bSweepEnabled && iPeriod != 0)
+		{
+			int iFrequency = calculateSweep();
+			if (iFrequency <= 2047 && (getRegister(0) & 0b111) != 0)
+			{
+				//the new frequency is written back to NR13 and NR14
+				iShadow = iFrequency;
+				arena.setByte(iREGISTERS_OFFSET + 3, iFrequency & 0xFF);
+				arena.setByte(iREGISTERS_OFFSET + 4, (getRegister(4) & ~0b111) | (iFrequency >>> 8));
+				
+				//the overflow check is done again with the new frequency
+				calculateSweep();
+			}
+		}
+	}
+	
+	//works out the next frequency of the sweep, turning the channel off if it would overflow
+	private int calculateSweep()
+	{
+		int iShift = getRegister(0) & 0b111;
+		int iChange = iShadow >>> iShift;
+		int iFrequency = (getRegister(0) & 0x08) != 0 ? iShadow - iChange : iShadow + iChange;
+		
+		if (iFrequency > 2047)
+		{
+			bEnabled = false;
+		}
+		return iFrequency;
+	}
+	
+	@Override
+	protected void triggerChannel()
+	{
+		super.triggerChannel();
+		
+		if (bSweep)
+		{
+			int iPeriod = (getRegister(0) >>> 4) & 0b111;
+			int iShift = getRegister(0) & 0b111;
+			iShadow = getFrequency();
+			iSweepTimer = iPeriod == 0 ? 8 : iPeriod;
+			bSweepEnabled = iPeriod != 0 || iShift != 0;
+			if (iShift != 0)
+			{
+				calculateSweep();
+			}
+		}
+	}
+	
+	@Override
+	protected void loadChannel()
+	{
+		super.loadChannel();
+		iDutyPosition = arena.getByte(iDUTY_POSITION_OFFSET);
+		bSweepEnabled = arena.getBool(iSWEEP_ENABLED_OFFSET);
+		iSweepTimer = arena.getByte(iSWEEP_TIMER_OFFSET);
+		iShadow = arena.getShort(iSHADOW_OFFSET);
+	}
+	
+	@Override
+	protected void saveChannel()
+	{
+		super.saveChannel();
+		arena.setByte(iDUTY_POSITION_OFFSET, iDutyPosition);
+		arena.setBool(iSWEEP_ENABLED_OFFSET, bSweepEnabled);
+		arena.setByte(iSWEEP_TIMER_OFFSET, iSweepTimer);
+		arena.setShort(iSHADOW_OFFSET, iShadow);
+	}
+}
@@ -0,0 +1,99 @@
+/**
+ * Class for the wave channel (channel 3), which plays the 32 4 bit samples in wave RAM (FF30-FF3F)
+ */
+
+package com.szymon.gameboy.apu;
+
+import com.szymon.gameboy.memory.StateArena;
+
+public class WaveChannel extends Channel
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	//the right shift of the sample for each volume code (0 is muted)
+	private static final int[] iVOLUME_SHIFTS = {4, 0, 1, 2};
+	
+	private final int iPOSITION_OFFSET;
+	private final int iSAMPLE_OFFSET;
+	
+	//wave RAM is 0x16 bytes after NR30
+	private final int iWAVE_RAM_OFFSET;
+	
+	private int iPosition;
+	private int iSample;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public WaveChannel(StateArena arenaIn, int iRegistersOffset, int iStateOffset)
+	{
+		super(arenaIn, iRegistersOffset, iStateOffset, 256);
+		iPOSITION_OFFSET = iSTATE_OFFSET;
+		iSAMPLE_OFFSET = iSTATE_OFFSET + 1;
+		iWAVE_RAM_OFFSET = iRegistersOffset + 0x16;
+		
+		arena.setByte(iPOSITION_OFFSET, 0);
+		arena.setByte(iSAMPLE_OFFSET, 0);
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	@Override
+	public int getOutput()
+	{
+		if (!bEnabled)
+		{
+			return 0;
+		}
+		
+		return iSample >>> iVOLUME_SHIFTS[(getRegister(2) >>> 5) & 0b11];
+	}
+	
+	@Override
+	protected int getPeriod()
+	{
+		return (2048 - getFrequency()) * 2;
+	}
+	
+	//the DAC is bit 7 of NR30
+	@Override
+	protected boolean getDACOn()
+	{
+		return (getRegister(0) & 0x80) != 0;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//moves on to the next sample, the high nibble of each byte is played first
+	@Override
+	protected void step()
+	{
+		iPosition = (iPosition + 1) & 31;
+		int iByte = arena.getByte(iWAVE_RAM_OFFSET + (iPosition >>> 1));
+		iSample = (iPosition & 1) == 0 ? iByte >>> 4 : iByte & 0x0F;
+	}
+	
+	//the sample buffer isn't refilled on a trigger, so the last sample plays until the first step
+	@Override
+	protected void triggerChannel()
+	{
+		iPosition = 0;
+	}
+	
+	@Override
+	protected void loadChannel()
+	{
+		iPosition = arena.getByte(iPOSITION_OFFSET);
+		iSample = arena.getByte(iSAMPLE_OFFSET);
+	}
+	
+	@Override
+	protected void saveChannel()
+	{
+		arena.setByte(iPOSITION_OFFSET, iPosition);
+		arena.setByte(iSAMPLE_OFFSET, iSample);
+	}
+}
@@ -0,0 +1,261 @@
+/**
+ * Class to handle Game Genie (ROM) and GameShark (RAM) cheats
+ * Game Genie codes are applied through patched copies of only the ROM pages they affect, which are swapped in
+ * when their bank is mapped, so reads from ROM never check for cheats
+ * GameShark codes are all written in one go at the start of VBlank
+ */
+
+package com.szymon.gameboy.cheats;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import com.szymon.gameboy.memory.Cart;
+import com.szymon.gameboy.memory.Memory;
+import com.szymon.gameboy.utils.Unsigned16;
+import com.szymon.gameboy.utils.Unsigned8;
+
+public class CheatEngine
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private final Memory memory;
+	private final Cart cart;
+	
+	private final List<GameGenieCode> romCodes;
+	private final List<GameSharkCode> ramCodes;
+	private boolean bEnabled;
+	
+	//the CPU pages (00-7F) that have a Game Genie code on them, only these are checked on a bank switch
+	private final List<Integer> cheatPages;
+	//the overlay for each (CPU page, ROM page) pair, worked out the first time that ROM page is mapped there
+	//a null value means the page has been checked, and no codes applied to it
+	private final HashMap<Integer, OverlayHandler> overlays;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public CheatEngine(Memory mem, Cart cartIn)
+	{
+		memory = mem;
+		cart = cartIn;
+		
+		romCodes = new ArrayList<GameGenieCode>();
+		ramCodes = new ArrayList<GameSharkCode>();
+		cheatPages = new ArrayList<Integer>();
+		overlays = new HashMap<Integer, OverlayHandler>();
+		bEnabled = false;
+	}
+	
+	// ---------------------------------------------
+	// setters
+	// ---------------------------------------------
+	//turns the cheats on or off, when off memory has no reference to the cheats at all
+	public void setEnabled(boolean bEnable)
+	{
+		bEnabled = bEnable;
+		
+		if (bEnabled)
+		{
+			memory.setCheats(this);
+			updateROMPages();
+		}
+		else
+		{
+			memory.setCheats(null);
+			for (int iPage : cheatPages)
+			{
+				memory.resetBasePageHandler(iPage);
+			}
+		}
+	}
+	
+	//adds a code of either type, returns false if the code isn't valid
+	public boolean addCode(String szCode)
+	{
+		GameGenieCode romCode = GameGenieCode.decode(szCode);
+		if (romCode != null)
+		{
+			romCodes.add(romCode);
+			updateCheatPages();
+			return true;
+		}
+		
+		GameSharkCode ramCode = GameSharkCode.decode(szCode);
+		if (ramCode != null)
+		{
+			ramCodes.add(ramCode);
+			return true;
+		}
+		
+		return false;
+	}
+	
+	public void clearCodes()
+	{
+		romCodes.clear();
+		ramCodes.clear();
+		updateCheatPages();
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	public boolean getEnabled()
+	{
+		return bEnabled;
+	}
+	
+	public int getCodeCount()
+	{
+		return romCodes.size() + ramCodes.size();
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//loads codes from a text file, one code per line, blank lines and lines starting with # are ignored
+	//anything after the code on a line (e.g. a description) is ignored
+	public boolean loadCheats(File file)
+	{
+		List<String> lines;
+		try
+		{
+			lines = Files.readAllLines(file.toPath());
+		}
+		catch (IOException e)
+		{
+			System.out.println("No cheat file!");
+			return false;
+		}
+		
+		for (String szLine : lines)
+		{
+			szLine = szLine.trim();
+			if (szLine.isEmpty() || szLine.startsWith("#"))
+			{
+				continue;
+			}
+			
+			String szCode = szLine.split("\\s+")[0];
+			if (!addCode(szCode))
+			{
+				System.err.println("Invalid cheat code: " + szCode);
+			}
+		}
+		
+		System.out.println("Cheats Loaded: " + romCodes.size() + " Game Genie, " + ramCodes.size() + " GameShark");
+		return true;
+	}
+	
+	//swaps in the overlays for the banks that are currently mapped, called whenever a bank may have changed
+	public void updateROMPages()
+	{
+		if (!bEnabled)
+		{
+			return;
+		}
+		
+		for (int iPage : cheatPages)
+		{
+			OverlayHandler overlay = getOverlay(iPage, cart.getROMIndex(iPage << 8) >> 8);
+			if (overlay != null)
+			{
+				memory.setBasePageHandler(iPage, overlay);
+			}
+			else
+			{
+				memory.resetBasePageHandler(iPage);
+			}
+		}
+	}
+	
+	//writes all of the RAM codes
+	public void applyRAMCodes()
+	{
+		Unsigned16 u16Address = new Unsigned16();
+		Unsigned8 u8Value = new Unsigned8();
+		
+		for (GameSharkCode ramCode : ramCodes)
+		{
+			u16Address.setValue(ramCode.getAddress());
+			u8Value.setValue(ramCode.getValue());
+			memory.writeMemory(u16Address, u8Value);
+		}
+	}
+	
+	//gets the overlay for a ROM page mapped at a CPU page, creating it the first time
+	//this is where the compare values are checked, as the ROM never changes it only needs doing once
+	private OverlayHandler getOverlay(int iCPUPage, int iROMPage)
+	{
+		int iKey = (iCPUPage << 16) | iROMPage;
+		if (overlays.containsKey(iKey))
+		{
+			return overlays.get(iKey);
+		}
+		
+		byte[] u8Page = null;
+		int iPageStart = iROMPage << 8;
+		
+		for (GameGenieCode romCode : romCodes)
+		{
+			int iIndex = iPageStart | (romCode.getAddress() & 0xFF);
+			if (romCode.getAddress() >> 8 != iCPUPage || iIndex >= cart.getROMLength())
+			{
+				continue;
+			}
+			
+			if (romCode.matches(cart.getROMByte(iIndex)))
+			{
+				//copy on write, the page is only copied once a code actually applies to it
+				if (u8Page == null)
+				{
+					u8Page = new byte[0x100];
+					for (int i = 0; i < 0x100 && iPageStart + i < cart.getROMLength(); i++)
+					{
+						u8Page[i] = (byte) cart.getROMByte(iPageStart + i);
+					}
+				}
+				u8Page[iIndex & 0xFF] = (byte) romCode.getValue();
+			}
+		}
+		
+		OverlayHandler overlay = null;
+		if (u8Page != null)
+		{
+			overlay = new OverlayHandler(u8Page, memory.getDefaultPageHandler(iCPUPage));
+		}
+		overlays.put(iKey, overlay);
+		
+		return overlay;
+	}
+	
+	//works out which CPU pages have codes on them, after the codes have changed
+	private void updateCheatPages()
+	{
+		//put back the pages that may no longer have codes
+		for (int iPage : cheatPages)
+		{
+			memory.resetBasePageHandler(iPage);
+		}
+		
+		cheatPages.clear();
+		overlays.clear();
+		
+		for (GameGenieCode romCode : romCodes)
+		{
+			int iPage = romCode.getAddress() >> 8;
+			if (!cheatPages.contains(iPage))
+			{
+				cheatPages.add(iPage);
+			}
+		}
+		
+		updateROMPages();
+	}
+}
@@ -0,0 +1,97 @@
+/**
+ * Class to represent a Game Genie code, which substitutes a byte of ROM
+ * Codes are either ABC-DEF (always substitute) or ABC-DEF-GHI (only substitute if the ROM byte matches the compare value)
+ */
+
+package com.szymon.gameboy.cheats;
+
+public class GameGenieCode
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	public static final int iNO_COMPARE = -1;
+	
+	private final String szCode;
+	private final int iAddress;	//the CPU address (0000-7FFF) that is substituted
+	private final int iValue;	//the new value
+	private final int iCompare;	//the value the ROM must hold for the code to apply, or iNO_COMPARE
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public GameGenieCode(String szCodeIn, int iAddressIn, int iValueIn, int iCompareIn)
+	{
+		szCode = szCodeIn;
+		iAddress = iAddressIn;
+		iValue = iValueIn;
+		iCompare = iCompareIn;
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	public String getCode()
+	{
+		return szCode;
+	}
+	
+	public int getAddress()
+	{
+		return iAddress;
+	}
+	
+	public int getValue()
+	{
+		return iValue;
+	}
+	
+	public int getCompare()
+	{
+		return iCompare;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//checks whether the code applies to a ROM byte
+	public boolean matches(int iROMValue)
+	{
+		return iCompare == iNO_COMPARE || iCompare == iROMValue;
+	}
+	
+	//decodes a code from its text form, returns null if it isn't a valid Game Genie code
+	//for ABC-DEF-GHI: value = AB, address = (F ^ F)CDE, compare = GI rotated right by 2 then XORed with BA (H is unused)
+	public static GameGenieCode decode(String szText)
+	{
+		String szDigits = szText.replace("-", "").toUpperCase();
+		if (!szDigits.matches("[0-9A-F]{6}([0-9A-F]{3})?"))
+		{
+			return null;
+		}
+		
+		int[] iDigits = new int[szDigits.length()];
+		for (int i = 0; i < iDigits.length; i++)
+		{
+			iDigits[i] = Character.digit(szDigits.charAt(i), 16);
+		}
+		
+		int iValue = (iDigits[0] << 4) | iDigits[1];
+		int iAddress = ((iDigits[5] ^ 0xF) << 12) | (iDigits[2] << 8) | (iDigits[3] << 4) | iDigits[4];
+		int iCompare = iNO_COMPARE;
+		
+		//only ROM can be substituted
+		if (iAddress >= 0x8000)
+		{
+			return null;
+		}
+		
+		if (iDigits.length == 9)
+		{
+			int iRaw = (iDigits[6] << 4) | iDigits[8];
+			iCompare = (((iRaw >> 2) | (iRaw << 6)) & 0xFF) ^ 0xBA;
+		}
+		
+		return new GameGenieCode(szText, iAddress, iValue, iCompare);
+	}
+}
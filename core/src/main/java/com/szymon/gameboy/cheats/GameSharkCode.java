@@ -0,0 +1,69 @@
+/**
+ * Class to represent a GameShark code, which writes a value to RAM every frame
+ * Codes are TTVVLLHH: type (bank), value, then the address low byte and high byte
+ */
+
+package com.szymon.gameboy.cheats;
+
+public class GameSharkCode
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private final String szCode;
+	private final int iAddress;
+	private final int iValue;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public GameSharkCode(String szCodeIn, int iAddressIn, int iValueIn)
+	{
+		szCode = szCodeIn;
+		iAddress = iAddressIn;
+		iValue = iValueIn;
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	public String getCode()
+	{
+		return szCode;
+	}
+	
+	public int getAddress()
+	{
+		return iAddress;
+	}
+	
+	public int getValue()
+	{
+		return iValue;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//decodes a code from its text form, returns null if it isn't a valid GameShark code
+	//the type byte only selects the WRAM bank on the Color, so it is ignored here
+	public static GameSharkCode decode(String szText)
+	{
+		String szDigits = szText.toUpperCase();
+		if (!szDigits.matches("[0-9A-F]{8}"))
+		{
+			return null;
+		}
+		
+		int iValue = Integer.parseInt(szDigits.substring(2, 4), 16);
+		int iAddress = Integer.parseInt(szDigits.substring(6, 8) + szDigits.substring(4, 6), 16);
+		
+		//only RAM can be poked
+		if (iAddress < 0x8000)
+		{
+			return null;
+		}
+		
+		return new GameSharkCode(szText, iAddress, iValue);
+	}
+}
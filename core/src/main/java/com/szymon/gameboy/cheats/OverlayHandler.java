@@ -0,0 +1,46 @@
+/**
+ * Page handler for a ROM page that has had Game Genie codes applied to it
+ * Reads come from a patched copy of the page, and writes (MBC control) go to the page's normal handler
+ */
+
+package com.szymon.gameboy.cheats;
+
+import com.szymon.gameboy.memory.PageHandler;
+import com.szymon.gameboy.utils.Unsigned16;
+import com.szymon.gameboy.utils.Unsigned8;
+
+public class OverlayHandler implements PageHandler
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private final byte[] u8Page;	//the patched copy of the page
+	private final PageHandler pageHandler;	//the normal handler for the page
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public OverlayHandler(byte[] page, PageHandler pageHandlerIn)
+	{
+		u8Page = page;
+		pageHandler = pageHandlerIn;
+	}
+	
+	// ---------------------------------------------
+	// setters
+	// ---------------------------------------------
+	@Override
+	public void writePage(Unsigned16 u16Address, Unsigned8 u8Data)
+	{
+		pageHandler.writePage(u16Address, u8Data);
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	@Override
+	public Unsigned8 readPage(Unsigned16 u16Address)
+	{
+		return new Unsigned8(u8Page[u16Address.getValue() & 0xFF]);
+	}
+}
@@ -5,11 +5,14 @@
 
 package com.szymon.gameboy.cpu;
 
+import java.io.File;
+
 import com.szymon.gameboy.Cycle;
 import com.szymon.gameboy.cpu.utils.Log;
 import com.szymon.gameboy.cpu.utils.RegType;
 import com.szymon.gameboy.cpu.utils.BlarggConsole;
 import com.szymon.gameboy.memory.Memory;
+import com.szymon.gameboy.memory.StateArena;
 import com.szymon.gameboy.utils.Unsigned16;
 import com.szymon.gameboy.utils.Unsigned8;
 
@@ -24,15 +27,21 @@ public class CPU
 	private CPUInterrupts interrupts;	//handles any interrupts that are requested
 	private Cycle cycle;	//handles the cycling of the system
 	
-	private boolean bInterruptMasterEnable;	//controls whether any interrupt handlers are called, regardless of the contents of IE
-	private boolean bEnablingIME; //indicates whether IME should be enabled in the next CPU cycle, used for EI instruction
-	private boolean bHalted; //indicates whether the CPU is halted
+	//the CPU's flags are stored in the state arena, after the registers
+	private StateArena arena;
+	private final int iIME_OFFSET = StateArena.iCPU_OFFSET + 12;	//controls whether any interrupt handlers are called, regardless of the contents of IE
+	private final int iENABLING_IME_OFFSET = StateArena.iCPU_OFFSET + 13; //indicates whether IME should be enabled in the next CPU cycle, used for EI instruction
+	private final int iHALTED_OFFSET = StateArena.iCPU_OFFSET + 14; //indicates whether the CPU is halted
 	
 	//addresses of the Interrupt Flag and Interrupt Enable registers
 	//used to check what interrupts have been called, and whether or not they are enabled
 	private final Unsigned16 u16IF_ADDRESS = new Unsigned16(0xFF0F);
 	private final Unsigned16 u16IE_ADDRESS = new Unsigned16(0xFFFF);
 	
+	//why the CPU stopped (e.g. an invalid opcode), or null while it is running
+	//only this emulator stops, so one bad ROM can't take down any others in the same program
+	private String szStopReason;
+	
 	//internal debugging tools
 	//BlarggConsole is to run Blargg test ROMs without actual visual output
 	//log is used to see the CPU states, and can also be used to compare to Gameboy Doctor
@@ -40,6 +49,7 @@ public class CPU
 	private Log log;
 	//if this flag is set, log and blarggConsole are turned on, otherwise they're not used
 	private final boolean bDEBUG = false;
+	private final String szDEFAULT_LOG_PATH = "rsc/debug/log/log1.txt";
 	
 	// ---------------------------------------------
 	// constructors
@@ -64,17 +74,25 @@ public class CPU
 	//only setters which are required are here
 	public void setHalted(boolean bHalt)
 	{
-		bHalted = bHalt;
+		arena.setBool(iHALTED_OFFSET, bHalt);
 	}
 	
 	public void setInterruptMasterEnable(boolean bEnable)
 	{
-		bInterruptMasterEnable = bEnable;
+		arena.setBool(iIME_OFFSET, bEnable);
 	}
 	
 	public void setEnablingIME(boolean bEnable)
 	{
-		bEnablingIME = bEnable;
+		arena.setBool(iENABLING_IME_OFFSET, bEnable);
+	}
+	
+	//logs the CPU state after every instruction to the file, or stops logging if it is null
+	//each emulator has its own log, so several can be logged at once
+	public void setLogFile(File file)
+	{
+		log.close();
+		log = new Log(this, file);
 	}
 	
 	// ---------------------------------------------
@@ -96,6 +114,12 @@ public class CPU
 		return interrupts;
 	}
 	
+	//gets why the CPU stopped, or null if it hasn't
+	public String getStopReason()
+	{
+		return szStopReason;
+	}
+	
 	// ---------------------------------------------
 	// methods
 	// ---------------------------------------------
@@ -103,10 +127,14 @@ public class CPU
 	public void reset(Memory mem)
 	{
 		memory = mem;
-		registers = new CPURegisters();
-		bHalted = false;
+		arena = memory.getArena();
+		registers = new CPURegisters(arena);
+		setHalted(false);
+		setInterruptMasterEnable(false);
+		setEnablingIME(false);
 		blarggConsole = new BlarggConsole(memory, bDEBUG);
-		log = new Log(this, bDEBUG);
+		log = new Log(this, bDEBUG ? new File(szDEFAULT_LOG_PATH) : null);
+		szStopReason = null;
 		interrupts = new CPUInterrupts(this);
 		
 		//set initial register values
@@ -158,15 +186,20 @@ public class CPU
 	}
 	
 	//this is the main CPU method which controls the CPU's operation
+	//returns false once the CPU has stopped, the reason can then be got from getStopReason
 	public boolean stepCPU()
 	{
 		if (processing == null)
 		{
 			return true;
 		}
+		if (szStopReason != null)
+		{
+			return false;
+		}
 		
 		//check if in halted mode
-		if (!bHalted)
+		if (!arena.getBool(iHALTED_OFFSET))
 		{	
 			//internal debugging
 			if (registers.getRegValue(RegType.PC).getValue() == 0x100)
@@ -175,9 +208,19 @@ public class CPU
 			}
 			
 			//fetch, decode, execute
-			processing.fetchInstruction();
-			processing.fetchData();
-			processing.execute();
+			try
+			{
+				processing.fetchInstruction();
+				processing.fetchData();
+				processing.execute();
+			}
+			catch (CPUFault fault)
+			{
+				szStopReason = fault.getMessage();
+				System.err.println("CPU stopped: " + szStopReason);
+				log.close();
+				return false;
+			}
 			
 			//internal debugging
 			log.log();
@@ -190,19 +233,19 @@ public class CPU
 			//the CPU only exits halt mode if an interrupt is called
 			if ((memory.readMemory(u16IF_ADDRESS).getValue() & memory.readMemory(u16IE_ADDRESS).getValue()) != 0)
 			{
-				bHalted = false;
+				setHalted(false);
 			}
 		}
 		
-		if (bInterruptMasterEnable)
+		if (arena.getBool(iIME_OFFSET))
 		{
 			interrupts.handleCPUInterrupts();
-			bEnablingIME = false;
+			setEnablingIME(false);
 		}
 		//enables the IME for interrupts to be handled on the next cycle
-		if (bEnablingIME)
+		if (arena.getBool(iENABLING_IME_OFFSET))
 		{
-			bInterruptMasterEnable = true;
+			setInterruptMasterEnable(true);
 		}
 		
 		return true;
@@ -0,0 +1,22 @@
+/**
+ * Exception thrown when the CPU cannot carry on, such as on an invalid opcode or a STOP instruction
+ * It is caught by the CPU, which stops that emulator (and keeps the reason) rather than the whole program
+ */
+
+package com.szymon.gameboy.cpu;
+
+public class CPUFault extends RuntimeException
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private static final long serialVersionUID = 1L;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public CPUFault(String szMessage)
+	{
+		super(szMessage);
+	}
+}
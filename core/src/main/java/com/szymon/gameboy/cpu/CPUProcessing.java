@@ -77,7 +77,7 @@ public class CPUProcessing
 	//also sets the instruction
 	public void fetchInstruction()
 	{
-		iCurOpcode = memory.readMemory((Unsigned16) registers.getRegValue(RegType.PC)).getValue() & 0xFF;
+		iCurOpcode = memory.fetchOpcode((Unsigned16) registers.getRegValue(RegType.PC)).getValue() & 0xFF;
 		registers.incrementRegister(RegType.PC);
 		curInstruction.setInstruction(iCurOpcode);
 		
@@ -215,10 +215,7 @@ public class CPUProcessing
 			cycle.cycleEmu(1);
 			return;
 		default:
-			System.out.println(curInstruction.getAddrMode());
-			System.err.println("Unkown Addressing Mode!");
-			System.exit(0);
-			return;
+			throw new CPUFault(String.format("Unknown addressing mode %s for opcode %02X", curInstruction.getAddrMode(), iCurOpcode));
 		}
 	}
 	
@@ -239,9 +236,7 @@ public class CPUProcessing
 		switch (curInstruction.getInsType())
 		{
 		case NONE:
-			System.err.println("INVALID INSTRUCTION");
-			System.exit(0);
-			break;
+			throw new CPUFault(String.format("Invalid instruction %02X", iCurOpcode));
 		case NOP:
 			break;
 		case LD:
@@ -533,8 +528,7 @@ public class CPUProcessing
 					iC = BitOps.convertBoolToInt(BitOps.getBit(regVal, 0));
 					break;
 				default:
-					System.err.println("INVALID CB PREFIX INSTRUCTION");
-					System.exit(0);
+					throw new CPUFault(String.format("Invalid CB prefix instruction %02X", op));
 				}
 				break;
 			}
@@ -740,9 +734,8 @@ public class CPUProcessing
 			goToAddr(u16Num, true);
 			break;
 		case STOP:
-			System.out.println("STOPPING!");
-			System.exit(0);
-			break;
+			//this emulator doesn't wake from STOP, so the CPU stops for good
+			throw new CPUFault("STOP instruction");
 		case SUB:
 			iN = 1;
 			
@@ -783,9 +776,7 @@ public class CPUProcessing
 			break;
 		/*
 		default:
-			System.err.println("UNKOWN INSTRUCTION!");
-			System.exit(0);
-			break;*/
+			throw new CPUFault("Unknown instruction");*/
 		}
 		
 		registers.setCPUFlags(iZ, iN, iH, iC);
@@ -812,9 +803,7 @@ public class CPUProcessing
 			memory.writeMemory((Unsigned16) registers.getRegValue(RegType.HL), u8Num);
 			break;
 		default:
-			System.err.println("INVALID REG8: " + regType);
-			System.exit(0);
-			break;
+			throw new CPUFault("Invalid 8 bit register " + regType);
 		}
 	}
 	
@@ -841,9 +830,7 @@ public class CPUProcessing
 			u8Data.setValue(memory.readMemory((Unsigned16) registers.getRegValue(RegType.HL)));
 			break;
 		default:
-			System.err.println("INVALID REG8: " + regType);
-			System.exit(0);
-			break;
+			throw new CPUFault("Invalid 8 bit register " + regType);
 		}
 		
 		return u8Data;
@@ -6,8 +6,7 @@
 package com.szymon.gameboy.cpu;
 
 import com.szymon.gameboy.cpu.utils.RegType;
-import com.szymon.gameboy.cpu.utils.Register16;
-import com.szymon.gameboy.cpu.utils.Register8;
+import com.szymon.gameboy.memory.StateArena;
 import com.szymon.gameboy.utils.BitOps;
 import com.szymon.gameboy.utils.Unsigned;
 import com.szymon.gameboy.utils.Unsigned16;
@@ -18,11 +17,14 @@ public class CPURegisters
 	// ---------------------------------------------
 	// class variables
 	// ---------------------------------------------
-	private Register8[] reg8; // to store all of the 8 bit registers
-	private Register16[] reg16; // to store all of the 16 bit registers
+	// all of the registers are stored in the state arena
+	// the 8 bit registers first (in index order), followed by the 16 bit registers (2 bytes each)
+	private StateArena arena;
 
 	private final int iNUM_REG8 = 8; // the number of 8 bit registers
 	private final int iNUM_REG16 = 2; // the number of 16 bit registers
+	private final int iREG8_OFFSET = StateArena.iCPU_OFFSET;
+	private final int iREG16_OFFSET = StateArena.iCPU_OFFSET + iNUM_REG8;
 
 	// ---------------------------------------------
 	// constructors
@@ -30,23 +32,38 @@ public class CPURegisters
 	// set the appropriate regType to each register
 	// the 8 bit registers are: A, F, B, C, D, E, H, L
 	// the 16 bit registers are: PC, SP
-	public CPURegisters()
+	public CPURegisters(StateArena arenaIn)
 	{
-		reg8 = new Register8[iNUM_REG8];
-		reg16 = new Register16[iNUM_REG16];
-
-		reg8[0] = new Register8(RegType.A);
-		reg8[1] = new Register8(RegType.F);
-		reg8[2] = new Register8(RegType.B);
-		reg8[3] = new Register8(RegType.C);
-		reg8[4] = new Register8(RegType.D);
-		reg8[5] = new Register8(RegType.E);
-		reg8[6] = new Register8(RegType.H);
-		reg8[7] = new Register8(RegType.L);
-
-		reg16[0] = new Register16(RegType.PC);
-		reg16[0].setValue(0x100);
-		reg16[1] = new Register16(RegType.SP);
+		arena = arenaIn;
+
+		for (int i = 0; i < iNUM_REG8; i++)
+		{
+			setReg8(i, 0);
+		}
+
+		setReg16(getReg16Index(RegType.PC), 0x100);
+		setReg16(getReg16Index(RegType.SP), 0);
+	}
+
+	// access to the registers in the arena, by index
+	private int getReg8(int iIndex)
+	{
+		return arena.getByte(iREG8_OFFSET + iIndex);
+	}
+
+	private void setReg8(int iIndex, int iValue)
+	{
+		arena.setByte(iREG8_OFFSET + iIndex, iValue);
+	}
+
+	private int getReg16(int iIndex)
+	{
+		return arena.getShort(iREG16_OFFSET + iIndex * 2);
+	}
+
+	private void setReg16(int iIndex, int iValue)
+	{
+		arena.setShort(iREG16_OFFSET + iIndex * 2, iValue);
 	}
 
 	// ---------------------------------------------
@@ -67,7 +84,7 @@ public class CPURegisters
 		{
 			iIndex = getReg8Index(regType);
 
-			reg8[iIndex].setValue(uValue.getValue());
+			setReg8(iIndex, uValue.getValue());
 		}
 		else
 		{
@@ -76,7 +93,7 @@ public class CPURegisters
 			{
 				iIndex = getReg16Index(regType);
 				
-				reg16[iIndex].setValue(uValue.getValue());
+				setReg16(iIndex, uValue.getValue());
 			}
 			else
 			{
@@ -92,20 +109,20 @@ public class CPURegisters
 		switch (regType)
 		{
 		case AF:
-			reg8[getReg8Index(RegType.A)].setValue(u16Value.getHighByte());
-			reg8[getReg8Index(RegType.F)].setValue(u16Value.getLowByte());
+			setReg8(getReg8Index(RegType.A), u16Value.getHighByte().getValue());
+			setReg8(getReg8Index(RegType.F), u16Value.getLowByte().getValue());
 			break;
 		case BC:
-			reg8[getReg8Index(RegType.B)].setValue(u16Value.getHighByte());
-			reg8[getReg8Index(RegType.C)].setValue(u16Value.getLowByte());
+			setReg8(getReg8Index(RegType.B), u16Value.getHighByte().getValue());
+			setReg8(getReg8Index(RegType.C), u16Value.getLowByte().getValue());
 			break;
 		case DE:
-			reg8[getReg8Index(RegType.D)].setValue(u16Value.getHighByte());
-			reg8[getReg8Index(RegType.E)].setValue(u16Value.getLowByte());
+			setReg8(getReg8Index(RegType.D), u16Value.getHighByte().getValue());
+			setReg8(getReg8Index(RegType.E), u16Value.getLowByte().getValue());
 			break;
 		case HL:
-			reg8[getReg8Index(RegType.H)].setValue(u16Value.getHighByte());
-			reg8[getReg8Index(RegType.L)].setValue(u16Value.getLowByte());
+			setReg8(getReg8Index(RegType.H), u16Value.getHighByte().getValue());
+			setReg8(getReg8Index(RegType.L), u16Value.getLowByte().getValue());
 			break;
 		default:
 			break;
@@ -132,7 +149,7 @@ public class CPURegisters
 		if (check8Bit(regType))
 		{
 			iIndex = getReg8Index(regType);
-			uNum = new Unsigned8(reg8[iIndex]);
+			uNum = new Unsigned8(getReg8(iIndex));
 		}
 		else
 		{
@@ -140,7 +157,7 @@ public class CPURegisters
 			if (regType == RegType.SP || regType == RegType.PC)
 			{
 				iIndex = getReg16Index(regType);
-				uNum = new Unsigned16(reg16[iIndex]);
+				uNum = new Unsigned16(getReg16(iIndex));
 			}
 			else
 			{
@@ -159,20 +176,20 @@ public class CPURegisters
 		switch (regType)
 		{
 		case AF:
-			u16Num.setHighByte(reg8[getReg8Index(RegType.A)]);
-			u16Num.setLowByte(reg8[getReg8Index(RegType.F)]);
+			u16Num.setHighByte(new Unsigned8(getReg8(getReg8Index(RegType.A))));
+			u16Num.setLowByte(new Unsigned8(getReg8(getReg8Index(RegType.F))));
 			break;
 		case BC:
-			u16Num.setHighByte(reg8[getReg8Index(RegType.B)]);
-			u16Num.setLowByte(reg8[getReg8Index(RegType.C)]);
+			u16Num.setHighByte(new Unsigned8(getReg8(getReg8Index(RegType.B))));
+			u16Num.setLowByte(new Unsigned8(getReg8(getReg8Index(RegType.C))));
 			break;
 		case DE:
-			u16Num.setHighByte(reg8[getReg8Index(RegType.D)]);
-			u16Num.setLowByte(reg8[getReg8Index(RegType.E)]);
+			u16Num.setHighByte(new Unsigned8(getReg8(getReg8Index(RegType.D))));
+			u16Num.setLowByte(new Unsigned8(getReg8(getReg8Index(RegType.E))));
 			break;
 		case HL:
-			u16Num.setHighByte(reg8[getReg8Index(RegType.H)]);
-			u16Num.setLowByte(reg8[getReg8Index(RegType.L)]);
+			u16Num.setHighByte(new Unsigned8(getReg8(getReg8Index(RegType.H))));
+			u16Num.setLowByte(new Unsigned8(getReg8(getReg8Index(RegType.L))));
 			break;
 		default:
 			break;
@@ -362,11 +379,11 @@ public class CPURegisters
 	{
 		if (bFlag)
 		{
-			reg8[getReg8Index(RegType.F)].setBit(iZFLAG_BIT);
+			setReg8(getReg8Index(RegType.F), BitOps.setBit(getReg8(getReg8Index(RegType.F)), iZFLAG_BIT));
 		}
 		else
 		{
-			reg8[getReg8Index(RegType.F)].clearBit(iZFLAG_BIT);
+			setReg8(getReg8Index(RegType.F), BitOps.clearBit(getReg8(getReg8Index(RegType.F)), iZFLAG_BIT));
 		}
 	}
 
@@ -374,11 +391,11 @@ public class CPURegisters
 	{
 		if (bFlag)
 		{
-			reg8[getReg8Index(RegType.F)].setBit(iNFLAG_BIT);
+			setReg8(getReg8Index(RegType.F), BitOps.setBit(getReg8(getReg8Index(RegType.F)), iNFLAG_BIT));
 		}
 		else
 		{
-			reg8[getReg8Index(RegType.F)].clearBit(iNFLAG_BIT);
+			setReg8(getReg8Index(RegType.F), BitOps.clearBit(getReg8(getReg8Index(RegType.F)), iNFLAG_BIT));
 		}
 	}
 
@@ -386,11 +403,11 @@ public class CPURegisters
 	{
 		if (bFlag)
 		{
-			reg8[getReg8Index(RegType.F)].setBit(iHFLAG_BIT);
+			setReg8(getReg8Index(RegType.F), BitOps.setBit(getReg8(getReg8Index(RegType.F)), iHFLAG_BIT));
 		}
 		else
 		{
-			reg8[getReg8Index(RegType.F)].clearBit(iHFLAG_BIT);
+			setReg8(getReg8Index(RegType.F), BitOps.clearBit(getReg8(getReg8Index(RegType.F)), iHFLAG_BIT));
 		}
 	}
 
@@ -398,11 +415,11 @@ public class CPURegisters
 	{
 		if (bFlag)
 		{
-			reg8[getReg8Index(RegType.F)].setBit(iCFLAG_BIT);
+			setReg8(getReg8Index(RegType.F), BitOps.setBit(getReg8(getReg8Index(RegType.F)), iCFLAG_BIT));
 		}
 		else
 		{
-			reg8[getReg8Index(RegType.F)].clearBit(iCFLAG_BIT);
+			setReg8(getReg8Index(RegType.F), BitOps.clearBit(getReg8(getReg8Index(RegType.F)), iCFLAG_BIT));
 		}
 	}
 
@@ -411,22 +428,22 @@ public class CPURegisters
 	// ---------------------------------------------
 	public boolean getZFlag()
 	{
-		return reg8[getReg8Index(RegType.F)].getBit(iZFLAG_BIT);
+		return BitOps.getBit(getReg8(getReg8Index(RegType.F)), iZFLAG_BIT);
 	}
 
 	public boolean getNFlag()
 	{
-		return reg8[getReg8Index(RegType.F)].getBit(iNFLAG_BIT);
+		return BitOps.getBit(getReg8(getReg8Index(RegType.F)), iNFLAG_BIT);
 	}
 
 	public boolean getHFlag()
 	{
-		return reg8[getReg8Index(RegType.F)].getBit(iHFLAG_BIT);
+		return BitOps.getBit(getReg8(getReg8Index(RegType.F)), iHFLAG_BIT);
 	}
 
 	public boolean getCFlag()
 	{
-		return reg8[getReg8Index(RegType.F)].getBit(iCFLAG_BIT);
+		return BitOps.getBit(getReg8(getReg8Index(RegType.F)), iCFLAG_BIT);
 	}
 
 	// ---------------------------------------------
@@ -460,7 +477,7 @@ public class CPURegisters
 	
 	public static void main(String[] args)
 	{
-		CPURegisters regs = new CPURegisters();
+		CPURegisters regs = new CPURegisters(new StateArena(0));
 		
 		regs.setRegValue(RegType.A, new Unsigned8(0xF0));
 		System.out.println(regs.getRegValue(RegType.A).getValue());
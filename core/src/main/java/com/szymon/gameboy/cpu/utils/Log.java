@@ -2,6 +2,7 @@
  * @author 18bilkiewiczs
  * This class, if enabled, outputs the state of the CPU every cycle to a txt file
  * This is done in the format specified by Gameboy Doctor to enable the use of that tool
+ * Each CPU has its own log, written to the file it is given
  */
 
 package com.szymon.gameboy.cpu.utils;
@@ -20,7 +21,6 @@ public class Log
 	// ---------------------------------------------
 	// class variables
 	// ---------------------------------------------
-	private final String szFILE_PATH = "rsc/debug/log/log1.txt";
 	private final int iMAX_LINES = 10000000;
 	
 	private CPU cpu;
@@ -33,7 +33,8 @@ public class Log
 	// ---------------------------------------------
 	// constructors
 	// ---------------------------------------------
-	public Log(CPU processor, boolean bLog)
+	//logging is turned off if the file is null
+	public Log(CPU processor, File file)
 	{
 		iCpuTicks = 0;
 		
@@ -41,24 +42,23 @@ public class Log
 		memory = cpu.getMemory();
 		registers = cpu.getCPURegisters();
 		
-		bCheck = bLog;
+		bCheck = file != null;
 		
-		if (bLog)
+		if (bCheck)
 		{
 			//create file and clear it
 			try 
 			{
-				File myFile = new File(szFILE_PATH);
-				
-				writer = new FileWriter(myFile);
+				writer = new FileWriter(file);
 				writer.write("");
 				writer.close();
 				
-				writer = new FileWriter(myFile, true);
+				writer = new FileWriter(file, true);
 			} 
 			catch (IOException e) 
 			{
 				e.printStackTrace();
+				bCheck = false;
 			}
 		}
 	}
@@ -116,11 +116,12 @@ public class Log
 		}
 	}
 	
-	//close the writer
+	//close the writer, nothing more is logged after this
 	public void close()
 	{
 		if (bCheck)
 		{
+			bCheck = false;
 			try 
 			{
 				writer.close();
@@ -0,0 +1,243 @@
+/**
+ * Class to handle memory watchpoints, execution breakpoints and pausing of the emulator
+ * Only the pages that have a watchpoint or breakpoint on them are swapped for a WatchHandler,
+ * so every other page keeps its normal handler and costs nothing extra to access
+ */
+
+package com.szymon.gameboy.debug;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.szymon.gameboy.memory.Memory;
+
+public class Debugger
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private Memory memory;
+	
+	//these are read by the emulator thread and can be changed from any other thread
+	private final List<Watchpoint> watchpoints;
+	private final Set<Integer> breakpoints;
+	private final WatchHandler[] watchHandlers;	//the handler swapped in for each page, or null if the page isn't being watched
+	
+	//pausing is done at instruction boundaries, the emulator thread waits on this object while paused
+	private volatile boolean bPaused;
+	private boolean bStepRequested;
+	private volatile String szLastHit;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public Debugger()
+	{
+		watchpoints = new CopyOnWriteArrayList<Watchpoint>();
+		breakpoints = ConcurrentHashMap.newKeySet();
+		watchHandlers = new WatchHandler[0x100];
+		
+		bPaused = false;
+		bStepRequested = false;
+		szLastHit = "";
+	}
+	
+	// ---------------------------------------------
+	// setters
+	// ---------------------------------------------
+	//attaches the debugger to a (new) memory, any existing watchpoints and breakpoints are kept
+	public synchronized void attachMemory(Memory mem)
+	{
+		memory = mem;
+		
+		for (int i = 0; i < 0x100; i++)
+		{
+			watchHandlers[i] = null;
+			updatePage(i);
+		}
+	}
+	
+	public synchronized void addWatchpoint(Watchpoint watchpoint)
+	{
+		watchpoints.add(watchpoint);
+		updatePage(watchpoint.getAddress() >> 8);
+	}
+	
+	//removes all watchpoints on an address
+	public synchronized void removeWatchpoint(int iAddress)
+	{
+		watchpoints.removeIf(watchpoint -> watchpoint.getAddress() == (iAddress & 0xFFFF));
+		updatePage((iAddress & 0xFFFF) >> 8);
+	}
+	
+	public synchronized void addBreakpoint(int iAddress)
+	{
+		breakpoints.add(iAddress & 0xFFFF);
+		updatePage((iAddress & 0xFFFF) >> 8);
+	}
+	
+	public synchronized void removeBreakpoint(int iAddress)
+	{
+		breakpoints.remove(iAddress & 0xFFFF);
+		updatePage((iAddress & 0xFFFF) >> 8);
+	}
+	
+	//removes all watchpoints and breakpoints, putting every page back to its normal handler
+	public synchronized void clearAll()
+	{
+		watchpoints.clear();
+		breakpoints.clear();
+		
+		for (int i = 0; i < 0x100; i++)
+		{
+			updatePage(i);
+		}
+	}
+	
+	public synchronized void setPaused(boolean bPause)
+	{
+		bPaused = bPause;
+		bStepRequested = false;
+		notifyAll();
+	}
+	
+	public void pause()
+	{
+		setPaused(true);
+	}
+	
+	public void resume()
+	{
+		setPaused(false);
+	}
+	
+	//lets exactly one instruction run, then pauses again
+	public synchronized void step()
+	{
+		if (bPaused)
+		{
+			bStepRequested = true;
+			notifyAll();
+		}
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	public boolean getPaused()
+	{
+		return bPaused;
+	}
+	
+	//gets a description of the last watchpoint or breakpoint that was hit
+	public String getLastHit()
+	{
+		return szLastHit;
+	}
+	
+	public List<Watchpoint> getWatchpoints()
+	{
+		return new ArrayList<Watchpoint>(watchpoints);
+	}
+	
+	public List<Integer> getBreakpoints()
+	{
+		return new ArrayList<Integer>(breakpoints);
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//blocks the emulator thread while paused
+	//returns true if one instruction should be run (a step), or false if the emulator has been resumed
+	public synchronized boolean waitForStep()
+	{
+		while (bPaused && !bStepRequested)
+		{
+			try
+			{
+				wait();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		
+		if (bStepRequested)
+		{
+			bStepRequested = false;
+			return true;
+		}
+		return false;
+	}
+	
+	//called by a WatchHandler for every access to a watched page
+	//the emulator is paused once the current instruction has finished
+	void checkAccess(int iAddress, int iValue, boolean bWrite)
+	{
+		for (Watchpoint watchpoint : watchpoints)
+		{
+			if (watchpoint.matches(iAddress, iValue, bWrite))
+			{
+				szLastHit = String.format("Watchpoint %s hit (%s %02X)", watchpoint, bWrite ? "write" : "read", iValue);
+				System.out.println(szLastHit);
+				pause();
+				return;
+			}
+		}
+	}
+	
+	//called by a WatchHandler before an opcode is fetched from a watched page
+	//the emulator thread is held here, before the instruction has done anything
+	void checkBreakpoint(int iAddress)
+	{
+		if (breakpoints.contains(iAddress))
+		{
+			szLastHit = String.format("Breakpoint %04X hit", iAddress);
+			System.out.println(szLastHit);
+			pause();
+			waitForStep();
+		}
+	}
+	
+	//swaps the handler for a page, depending on whether anything on it is being watched
+	private void updatePage(int iPage)
+	{
+		if (memory == null)
+		{
+			return;
+		}
+		
+		boolean bWatched = false;
+		for (Watchpoint watchpoint : watchpoints)
+		{
+			if (watchpoint.getAddress() >> 8 == iPage)
+			{
+				bWatched = true;
+			}
+		}
+		for (int iBreakpoint : breakpoints)
+		{
+			if (iBreakpoint >> 8 == iPage)
+			{
+				bWatched = true;
+			}
+		}
+		
+		if (bWatched && watchHandlers[iPage] == null)
+		{
+			watchHandlers[iPage] = new WatchHandler(this, memory, iPage);
+			memory.setPageHandler(iPage, watchHandlers[iPage]);
+		}
+		else if (!bWatched && watchHandlers[iPage] != null)
+		{
+			watchHandlers[iPage] = null;
+			memory.resetPageHandler(iPage);
+		}
+	}
+}
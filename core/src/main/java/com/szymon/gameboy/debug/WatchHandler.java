@@ -0,0 +1,62 @@
+/**
+ * Page handler which is swapped in for any page that has a watchpoint or breakpoint on it
+ * It passes every access on to the page's base handler, and reports the access to the debugger
+ */
+
+package com.szymon.gameboy.debug;
+
+import com.szymon.gameboy.memory.Memory;
+import com.szymon.gameboy.memory.PageHandler;
+import com.szymon.gameboy.utils.Unsigned16;
+import com.szymon.gameboy.utils.Unsigned8;
+
+public class WatchHandler implements PageHandler
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private final Debugger debugger;
+	private final Memory memory;
+	private final int iPage;	//the base handler for the page is looked up on each access, as it can change (cheats)
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public WatchHandler(Debugger debuggerIn, Memory mem, int iPageIn)
+	{
+		debugger = debuggerIn;
+		memory = mem;
+		iPage = iPageIn;
+	}
+	
+	// ---------------------------------------------
+	// setters
+	// ---------------------------------------------
+	@Override
+	public void writePage(Unsigned16 u16Address, Unsigned8 u8Data)
+	{
+		memory.getBasePageHandler(iPage).writePage(u16Address, u8Data);
+		debugger.checkAccess(u16Address.getValue(), u8Data.getValue(), true);
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	@Override
+	public Unsigned8 readPage(Unsigned16 u16Address)
+	{
+		Unsigned8 u8Data = memory.getBasePageHandler(iPage).readPage(u16Address);
+		debugger.checkAccess(u16Address.getValue(), u8Data.getValue(), false);
+		return u8Data;
+	}
+	
+	//the breakpoint is checked before the opcode is read, so the emulator stops before the instruction runs
+	@Override
+	public Unsigned8 fetchPage(Unsigned16 u16Address)
+	{
+		debugger.checkBreakpoint(u16Address.getValue());
+		Unsigned8 u8Data = memory.getBasePageHandler(iPage).readPage(u16Address);
+		debugger.checkAccess(u16Address.getValue(), u8Data.getValue(), false);
+		return u8Data;
+	}
+}
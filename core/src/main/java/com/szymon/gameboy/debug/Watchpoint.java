@@ -0,0 +1,83 @@
+/**
+ * Class to represent a single memory watchpoint
+ * It can optionally be given a value, in which case it is only triggered when that value is read/written
+ */
+
+package com.szymon.gameboy.debug;
+
+import com.szymon.gameboy.debug.utils.WatchType;
+
+public class Watchpoint
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	public static final int iANY_VALUE = -1;
+	
+	private final int iAddress;
+	private final WatchType type;
+	private final int iValue;	//the value to trigger on, or iANY_VALUE to trigger on every access
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public Watchpoint(int iAddressIn, WatchType typeIn)
+	{
+		this(iAddressIn, typeIn, iANY_VALUE);
+	}
+	
+	public Watchpoint(int iAddressIn, WatchType typeIn, int iValueIn)
+	{
+		iAddress = iAddressIn & 0xFFFF;
+		type = typeIn;
+		iValue = iValueIn;
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	public int getAddress()
+	{
+		return iAddress;
+	}
+	
+	public WatchType getType()
+	{
+		return type;
+	}
+	
+	public int getValue()
+	{
+		return iValue;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//checks whether an access to an address triggers this watchpoint
+	public boolean matches(int iAccessAddress, int iAccessValue, boolean bWrite)
+	{
+		if (iAccessAddress != iAddress)
+		{
+			return false;
+		}
+		
+		if (type == WatchType.READ && bWrite || type == WatchType.WRITE && !bWrite)
+		{
+			return false;
+		}
+		
+		return iValue == iANY_VALUE || iValue == iAccessValue;
+	}
+	
+	@Override
+	public String toString()
+	{
+		String szWatch = String.format("%s %04X", type, iAddress);
+		if (iValue != iANY_VALUE)
+		{
+			szWatch += String.format(" = %02X", iValue);
+		}
+		return szWatch;
+	}
+}
@@ -0,0 +1,12 @@
+/**
+ * Enum to define which accesses a watchpoint is triggered by
+ */
+
+package com.szymon.gameboy.debug.utils;
+
+public enum WatchType
+{
+	READ,
+	WRITE,
+	ACCESS	//both reads and writes
+}
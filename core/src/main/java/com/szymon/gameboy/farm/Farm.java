@@ -0,0 +1,427 @@
+/**
+ * Class to run many headless emulators on a small, fixed set of carrier threads, a frame at a time
+ * Each carrier has its own queue of instances ready to run, ordered by the time they have had (scaled by their
+ * priority), so the one that has had the least is run next. A carrier with nothing to run steals from the others,
+ * and a busy one takes an instance from another carrier if it has had much less time, so the shares hold across carriers.
+ * Instances held to a speed, or waiting for their consumer to take a frame, wait in a shared queue until their
+ * time comes, so a paced instance costs nothing between its frames and thousands can share a few cores
+ * The carriers can be virtual threads, on JDKs that have them
+ */
+
+package com.szymon.gameboy.farm;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.szymon.gameboy.Machine;
+
+public class Farm
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private static final long lIDLE_PARK = 1000000;	//the longest (ns) an idle carrier sleeps before looking for work to steal
+	private static final long lBACKPRESSURE_RETRY = 1000000;	//how long (ns) an instance waits before checking its consumer again
+	private static final long lMIGRATE_SLACK = 2000000;	//how far (ns of virtual time) another carrier's instance must be behind to be taken
+	
+	private final Carrier[] carriers;
+	private final Thread[] threads;
+	private final boolean bVirtual;
+	private volatile boolean bRunning;
+	
+	private final List<FarmInstance> instances;
+	private final AtomicInteger iNextCarrier;
+	//the least virtual time of the instances being run, which instances that have been waiting are brought up to
+	private final AtomicLong lVirtualFloor;
+	private final AtomicLong lRetired;	//the frames run by instances that have since finished
+	
+	//the instances waiting for their time to come, ordered by when that is
+	private final PriorityQueue<FarmInstance> waiting;
+	
+	//one carrier thread, with the queue of instances it is to run
+	private class Carrier implements Runnable
+	{
+		private final PriorityQueue<FarmInstance> ready = new PriorityQueue<FarmInstance>(Comparator.comparingLong(FarmInstance::getVirtualNanos));
+		private volatile Thread thread;
+		private volatile boolean bIdle;
+		
+		@Override
+		public void run()
+		{
+			thread = Thread.currentThread();
+			while (bRunning)
+			{
+				long lNow = System.nanoTime();
+				long lNextDue = wakeWaiting(this, lNow);
+				
+				FarmInstance instance = poll();
+				if (instance == null)
+				{
+					instance = steal(this);
+				}
+				else
+				{
+					instance = balance(this, instance);
+				}
+				
+				if (instance == null)
+				{
+					//nothing to do, so sleep until the next instance is due (or work is given to this carrier)
+					bIdle = true;
+					LockSupport.parkNanos(this, Math.max(0, Math.min(lNextDue - lNow, lIDLE_PARK)));
+					bIdle = false;
+					continue;
+				}
+				
+				runInstance(this, instance);
+			}
+		}
+		
+		private void push(FarmInstance instance)
+		{
+			synchronized (ready)
+			{
+				ready.add(instance);
+			}
+		}
+		
+		private FarmInstance poll()
+		{
+			synchronized (ready)
+			{
+				return ready.poll();
+			}
+		}
+		
+		private int size()
+		{
+			synchronized (ready)
+			{
+				return ready.size();
+			}
+		}
+		
+		//takes the instance at the head of the queue if it has had less virtual time than given
+		private FarmInstance pollBelow(long lVirtualNanos)
+		{
+			synchronized (ready)
+			{
+				FarmInstance instance = ready.peek();
+				if (instance != null && instance.getVirtualNanos() < lVirtualNanos)
+				{
+					return ready.poll();
+				}
+				return null;
+			}
+		}
+		
+		private void wake()
+		{
+			Thread carrierThread = thread;
+			if (bIdle && carrierThread != null)
+			{
+				LockSupport.unpark(carrierThread);
+			}
+		}
+	}
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	//the carriers are platform threads, unless virtual threads are asked for and the JDK has them
+	public Farm(int iCarriers, boolean bVirtualIn)
+	{
+		bVirtual = bVirtualIn && getVirtualThreadsAvailable();
+		if (bVirtualIn && !bVirtual)
+		{
+			System.err.println("Virtual threads aren't available on this JDK, so the farm is using platform threads");
+		}
+		
+		instances = new CopyOnWriteArrayList<FarmInstance>();
+		iNextCarrier = new AtomicInteger();
+		lVirtualFloor = new AtomicLong();
+		lRetired = new AtomicLong();
+		waiting = new PriorityQueue<FarmInstance>(Comparator.comparingLong(FarmInstance::getDueTime));
+		
+		bRunning = true;
+		carriers = new Carrier[Math.max(1, iCarriers)];
+		threads = new Thread[carriers.length];
+		for (int i = 0; i < carriers.length; i++)
+		{
+			carriers[i] = new Carrier();
+			threads[i] = makeThread(carriers[i], "Farm Carrier " + i, bVirtual);
+			threads[i].start();
+		}
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	//checks if the JDK has virtual threads, which are looked up by reflection so the emulator still builds for Java 11
+	public static boolean getVirtualThreadsAvailable()
+	{
+		try
+		{
+			Thread.class.getMethod("ofVirtual");
+			return true;
+		}
+		catch (NoSuchMethodException e)
+		{
+			return false;
+		}
+	}
+	
+	public boolean getVirtual()
+	{
+		return bVirtual;
+	}
+	
+	public int getCarrierCount()
+	{
+		return carriers.length;
+	}
+	
+	//gets the instances that are still running
+	public List<FarmInstance> getInstances()
+	{
+		return new ArrayList<FarmInstance>(instances);
+	}
+	
+	//gets the frames run by every instance, including those that have finished
+	public long getTotalFrames()
+	{
+		long lFrames = lRetired.get();
+		for (FarmInstance instance : instances)
+		{
+			lFrames += instance.getFrames();
+		}
+		return lFrames;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//adds an emulator to the farm, which owns it from now on and closes it once it finishes
+	//the instance's priority, speed and backpressure can be set at any time, but are best set before it is started
+	public FarmInstance add(Machine machine, String szName)
+	{
+		//the carriers set the pace, not the emulator itself
+		machine.setFrameLimited(false);
+		
+		FarmInstance instance = new FarmInstance(machine, szName);
+		instances.add(instance);
+		return instance;
+	}
+	
+	//starts an added instance, which joins the others on the carrier with the next turn
+	public void start(FarmInstance instance)
+	{
+		instance.catchUpVirtual(lVirtualFloor.get());
+		Carrier carrier = carriers[Math.floorMod(iNextCarrier.getAndIncrement(), carriers.length)];
+		carrier.push(instance);
+		carrier.wake();
+	}
+	
+	//removes an instance, which is stopped and closed once its current frame (if any) is done
+	public void remove(FarmInstance instance)
+	{
+		instance.remove();
+	}
+	
+	//stops the carriers, then closes every instance that is left
+	public void shutdown()
+	{
+		bRunning = false;
+		for (int i = 0; i < threads.length; i++)
+		{
+			LockSupport.unpark(threads[i]);
+		}
+		for (int i = 0; i < threads.length; i++)
+		{
+			try
+			{
+				threads[i].join();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		for (FarmInstance instance : instances)
+		{
+			retire(instance);
+		}
+	}
+	
+	//runs one frame of an instance, then puts it back in the right queue
+	private void runInstance(Carrier carrier, FarmInstance instance)
+	{
+		if (instance.getRemoved())
+		{
+			retire(instance);
+			return;
+		}
+		
+		long lNow = System.nanoTime();
+		if (instance.getConsumerLagging())
+		{
+			//the consumer hasn't kept up, so the instance waits for it rather than making frames that would be dropped
+			instance.heldBack();
+			park(instance, lNow + lBACKPRESSURE_RETRY);
+			return;
+		}
+		
+		lVirtualFloor.accumulateAndGet(instance.getVirtualNanos(), Math::max);
+		boolean bRunning;
+		try
+		{
+			bRunning = instance.runQuantum();
+		}
+		catch (RuntimeException e)
+		{
+			//an emulator bug only ends this instance, rather than the carrier and every instance queued on it
+			System.err.println(instance.getName() + " failed: " + e);
+			e.printStackTrace();
+			retire(instance);
+			return;
+		}
+		if (!bRunning)
+		{
+			System.err.println(instance.getName() + " stopped: " + instance.getMachine().getCPU().getStopReason());
+			retire(instance);
+			return;
+		}
+		
+		lNow = System.nanoTime();
+		long lDue = instance.getNextDue(lNow);
+		if (lDue > lNow)
+		{
+			park(instance, lDue);
+		}
+		else
+		{
+			carrier.push(instance);
+		}
+	}
+	
+	//moves the instances whose time has come onto the carrier's queue
+	//returns when the next waiting instance is due
+	private long wakeWaiting(Carrier carrier, long lNow)
+	{
+		synchronized (waiting)
+		{
+			FarmInstance instance = waiting.peek();
+			while (instance != null && instance.getDueTime() <= lNow)
+			{
+				waiting.poll();
+				instance.catchUpVirtual(lVirtualFloor.get());
+				carrier.push(instance);
+				instance = waiting.peek();
+			}
+			return instance != null ? instance.getDueTime() : lNow + lIDLE_PARK;
+		}
+	}
+	
+	private void park(FarmInstance instance, long lDue)
+	{
+		instance.setDueTime(lDue);
+		synchronized (waiting)
+		{
+			waiting.add(instance);
+		}
+	}
+	
+	//takes an instance from another carrier, starting from a random one so the carriers don't all pick on the same one
+	private FarmInstance steal(Carrier thief)
+	{
+		int iStart = ThreadLocalRandom.current().nextInt(carriers.length);
+		for (int i = 0; i < carriers.length; i++)
+		{
+			Carrier victim = carriers[(iStart + i) % carriers.length];
+			if (victim != thief && victim.size() > 0)
+			{
+				FarmInstance instance = victim.poll();
+				if (instance != null)
+				{
+					return instance;
+				}
+			}
+		}
+		return null;
+	}
+	
+	//compares the carrier's next instance against another carrier's, and swaps it for the other one if that has had
+	//much less time, as each queue is only fair within itself (e.g. when the higher priorities all start on one carrier)
+	private FarmInstance balance(Carrier carrier, FarmInstance instance)
+	{
+		if (carriers.length < 2)
+		{
+			return instance;
+		}
+		
+		int iVictim = ThreadLocalRandom.current().nextInt(carriers.length - 1);
+		Carrier victim = carriers[iVictim < indexOf(carrier) ? iVictim : iVictim + 1];
+		FarmInstance behind = victim.pollBelow(instance.getVirtualNanos() - lMIGRATE_SLACK);
+		if (behind == null)
+		{
+			return instance;
+		}
+		
+		carrier.push(instance);
+		return behind;
+	}
+	
+	private int indexOf(Carrier carrier)
+	{
+		for (int i = 0; i < carriers.length; i++)
+		{
+			if (carriers[i] == carrier)
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	private void retire(FarmInstance instance)
+	{
+		if (instances.remove(instance))
+		{
+			instance.markStopped();
+			lRetired.addAndGet(instance.getFrames());
+			instance.getMachine().close();
+		}
+	}
+	
+	//makes a carrier thread, as a virtual thread if asked for (which has been checked to be available)
+	private static Thread makeThread(Runnable runnable, String szName, boolean bVirtualThread)
+	{
+		if (bVirtualThread)
+		{
+			try
+			{
+				Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+				Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+				builder = builderClass.getMethod("name", String.class).invoke(builder, szName);
+				return (Thread) builderClass.getMethod("unstarted", Runnable.class).invoke(builder, runnable);
+			}
+			catch (ReflectiveOperationException e)
+			{
+				System.err.println("Could not make a virtual thread, using a platform thread: " + e);
+			}
+		}
+		
+		//the carriers are daemons, so that they never keep the program running
+		Thread thread = new Thread(runnable, szName);
+		thread.setDaemon(true);
+		return thread;
+	}
+}
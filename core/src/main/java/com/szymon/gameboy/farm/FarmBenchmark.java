@@ -0,0 +1,129 @@
+/**
+ * Runs many copies of a ROM on a farm for a while, and reports how many frames a second they manage together
+ * Running it with more carriers shows how the farm scales with cores, and -weighted gives every other copy
+ * twice the priority, to check that the time is shared out in proportion
+ */
+
+package com.szymon.gameboy.farm;
+
+import java.io.File;
+import java.util.List;
+
+import com.szymon.gameboy.Machine;
+
+public class FarmBenchmark
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private static final int iDEFAULT_INSTANCES = 100;
+	private static final int iDEFAULT_SECONDS = 10;
+	private static final double dGAME_BOY_FPS = 4194304.0 / 70224;
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//arguments are the options, then the ROM file
+	public static void main(String[] args) throws InterruptedException
+	{
+		int iInstances = iDEFAULT_INSTANCES;
+		int iCarriers = Runtime.getRuntime().availableProcessors();
+		int iSeconds = iDEFAULT_SECONDS;
+		double dSpeed = 0;
+		boolean bVirtual = false;
+		boolean bWeighted = false;
+		File rom = null;
+		for (String arg : args)
+		{
+			if (arg.startsWith("-instances="))
+			{
+				iInstances = Integer.parseInt(arg.substring(11));
+			}
+			else if (arg.startsWith("-carriers="))
+			{
+				iCarriers = Integer.parseInt(arg.substring(10));
+			}
+			else if (arg.startsWith("-seconds="))
+			{
+				iSeconds = Integer.parseInt(arg.substring(9));
+			}
+			else if (arg.startsWith("-speed="))
+			{
+				dSpeed = Double.parseDouble(arg.substring(7));
+			}
+			else if (arg.equals("-virtual"))
+			{
+				bVirtual = true;
+			}
+			else if (arg.equals("-weighted"))
+			{
+				bWeighted = true;
+			}
+			else
+			{
+				rom = new File(arg);
+			}
+		}
+		
+		if (rom == null || !rom.isFile())
+		{
+			System.err.println("Usage: FarmBenchmark [-instances=N] [-carriers=N] [-seconds=N] [-speed=X] [-virtual] [-weighted] rom.gb");
+			return;
+		}
+		
+		Farm farm = new Farm(iCarriers, bVirtual);
+		for (int i = 0; i < iInstances; i++)
+		{
+			Machine machine = new Machine(rom);
+			//the copies all share the one save file, so none of them write it
+			machine.setBatterySaved(false);
+			
+			FarmInstance instance = farm.add(machine, rom.getName() + " #" + i);
+			instance.setSpeed(dSpeed);
+			if (bWeighted && i % 2 == 1)
+			{
+				instance.setPriority(FarmInstance.iDEFAULT_PRIORITY * 2);
+			}
+		}
+		List<FarmInstance> instances = farm.getInstances();
+		
+		System.out.printf("%d instances on %d %s carriers%n", iInstances, farm.getCarrierCount(), farm.getVirtual() ? "virtual" : "platform");
+		long lStart = System.nanoTime();
+		for (FarmInstance instance : instances)
+		{
+			farm.start(instance);
+		}
+		
+		long lLastFrames = 0;
+		for (int i = 1; i <= iSeconds; i++)
+		{
+			Thread.sleep(1000);
+			long lFrames = farm.getTotalFrames();
+			System.out.printf("%3ds %10.0f fps%n", i, (double) (lFrames - lLastFrames));
+			lLastFrames = lFrames;
+		}
+		double dSeconds = (System.nanoTime() - lStart) / 1e9;
+		
+		//the shares are taken before the farm is shut down, while every instance is still counted
+		long[] lGroupFrames = new long[2];
+		long[] lGroupNanos = new long[2];
+		for (FarmInstance instance : instances)
+		{
+			int iGroup = instance.getPriority() > FarmInstance.iDEFAULT_PRIORITY ? 1 : 0;
+			lGroupFrames[iGroup] += instance.getFrames();
+			lGroupNanos[iGroup] += instance.getRunNanos();
+		}
+		long lTotalFrames = farm.getTotalFrames();
+		farm.shutdown();
+		
+		double dFPS = lTotalFrames / dSeconds;
+		System.out.println();
+		System.out.printf("%d frames in %.1fs: %.0f fps in all, %.1f fps (%.2fx Game Boy speed) per instance, %.0f fps per carrier%n",
+				lTotalFrames, dSeconds, dFPS, dFPS / iInstances, dFPS / iInstances / dGAME_BOY_FPS, dFPS / farm.getCarrierCount());
+		if (bWeighted)
+		{
+			System.out.printf("priority x2 got %.2fx the frames and %.2fx the time of priority x1%n",
+					(double) lGroupFrames[1] / Math.max(1, lGroupFrames[0]), (double) lGroupNanos[1] / Math.max(1, lGroupNanos[0]));
+		}
+	}
+}
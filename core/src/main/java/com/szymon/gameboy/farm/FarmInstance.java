@@ -0,0 +1,221 @@
+/**
+ * Class for one emulator run by a farm, along with how it should be scheduled and what it has used
+ * Its share of the carrier threads is in proportion to its priority, and it can be held to a speed (1 is the
+ * Game Boy's own speed) or run as fast as it is given time for. With backpressure on, its frames are left in
+ * the frame exchange for a consumer, and it isn't run again until the consumer has taken the last one
+ */
+
+package com.szymon.gameboy.farm;
+
+import com.szymon.gameboy.Machine;
+import com.szymon.gameboy.ppu.FrameExchange;
+
+public class FarmInstance
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	public static final int iDEFAULT_PRIORITY = 16;
+	
+	private static final double dFRAME_NANOS = 1e9 * 70224 / 4194304;	//the Game Boy's frame time
+	private static final long lMAX_BEHIND = 100000000;	//how far (ns) a paced instance can fall behind before it gives up catching up
+	
+	private final Machine machine;
+	private final FrameExchange exchange;
+	private final String szName;
+	
+	//these can be changed from any thread, and are picked up on the instance's next frame
+	private volatile int iPriority;
+	private volatile double dSpeed;	//0 for as fast as possible
+	private volatile boolean bBackpressure;
+	private volatile boolean bRemoved;
+	private volatile boolean bStopped;
+	
+	//the accounting is only written by the carrier running the instance, and read by anything
+	private volatile long lFrames;
+	private volatile long lRunNanos;
+	private volatile long lHeldBack;	//the times it wasn't run because the consumer hadn't taken its last frame
+	
+	//the scheduling state is only used by the farm, which hands the instance between carriers under a lock
+	private long lVirtualNanos;	//the time it has run for, scaled down by its priority, the lowest is run first
+	private long lDueTime;	//when it is next to be run, if it is waiting for its time
+	private long lPaceStart;
+	private long lPaceFrames;
+	private double dPaceSpeed;	//the speed the pace was started at
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	FarmInstance(Machine machineIn, String szNameIn)
+	{
+		machine = machineIn;
+		exchange = machine.getPPU().getFrameExchange();
+		szName = szNameIn;
+		
+		iPriority = iDEFAULT_PRIORITY;
+		dSpeed = 0;
+		bBackpressure = false;
+		bRemoved = false;
+		bStopped = false;
+		
+		lPaceStart = -1;
+	}
+	
+	// ---------------------------------------------
+	// setters
+	// ---------------------------------------------
+	//a higher priority gets more of the carriers' time, in proportion (an instance at 32 gets twice as much as one at 16)
+	public void setPriority(int iPriorityIn)
+	{
+		iPriority = Math.max(1, iPriorityIn);
+	}
+	
+	//the speed to run at, as a multiple of the Game Boy's speed, or 0 to run as fast as possible
+	public void setSpeed(double dSpeedIn)
+	{
+		dSpeed = Math.max(0, dSpeedIn);
+	}
+	
+	//with backpressure on, frames are left for a consumer to take from the PPU's frame exchange
+	//and the instance waits for each to be taken before running another, rather than getting ahead of it
+	public void setBackpressure(boolean bEnable)
+	{
+		bBackpressure = bEnable;
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	public Machine getMachine()
+	{
+		return machine;
+	}
+	
+	public String getName()
+	{
+		return szName;
+	}
+	
+	public int getPriority()
+	{
+		return iPriority;
+	}
+	
+	public double getSpeed()
+	{
+		return dSpeed;
+	}
+	
+	public long getFrames()
+	{
+		return lFrames;
+	}
+	
+	//the time (ns) spent running this instance on the carriers
+	public long getRunNanos()
+	{
+		return lRunNanos;
+	}
+	
+	public long getHeldBack()
+	{
+		return lHeldBack;
+	}
+	
+	//whether the instance has finished, either because its CPU stopped or it was removed
+	public boolean getStopped()
+	{
+		return bStopped;
+	}
+	
+	boolean getRemoved()
+	{
+		return bRemoved;
+	}
+	
+	//whether the consumer still hasn't taken the last frame
+	boolean getConsumerLagging()
+	{
+		return bBackpressure && exchange.hasNewFrame();
+	}
+	
+	long getVirtualNanos()
+	{
+		return lVirtualNanos;
+	}
+	
+	long getDueTime()
+	{
+		return lDueTime;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	void remove()
+	{
+		bRemoved = true;
+	}
+	
+	void markStopped()
+	{
+		bStopped = true;
+	}
+	
+	void heldBack()
+	{
+		lHeldBack++;
+	}
+	
+	void setDueTime(long lTime)
+	{
+		lDueTime = lTime;
+	}
+	
+	//an instance that has been waiting isn't owed the time it spent waiting, so it starts from the farm's floor
+	void catchUpVirtual(long lFloor)
+	{
+		lVirtualNanos = Math.max(lVirtualNanos, lFloor);
+	}
+	
+	//runs one frame, the farm's quantum, and accounts for the time it took
+	//returns false if the CPU stopped, in which case there is no frame to count or take
+	boolean runQuantum()
+	{
+		long lStart = System.nanoTime();
+		boolean bRunning = machine.runFrame();
+		if (bRunning)
+		{
+			if (!bBackpressure)
+			{
+				exchange.takeFrame();
+			}
+			lFrames++;
+		}
+		long lElapsed = System.nanoTime() - lStart;
+		
+		lRunNanos += lElapsed;
+		lVirtualNanos += lElapsed * iDEFAULT_PRIORITY / iPriority;
+		return bRunning;
+	}
+	
+	//gets when the next frame is due to keep to the speed, which is now if it is unpaced or behind
+	long getNextDue(long lNow)
+	{
+		double dTarget = dSpeed;
+		if (dTarget <= 0)
+		{
+			return lNow;
+		}
+		
+		if (lPaceStart < 0 || dTarget != dPaceSpeed || lNow - (lPaceStart + (long) (lPaceFrames * dFRAME_NANOS / dTarget)) > lMAX_BEHIND)
+		{
+			//the pace is started again if the speed changed, or rather than rushing through a backlog of frames
+			lPaceStart = lNow;
+			lPaceFrames = 0;
+			dPaceSpeed = dTarget;
+		}
+		lPaceFrames++;
+		return lPaceStart + (long) (lPaceFrames * dFRAME_NANOS / dTarget);
+	}
+}
@@ -0,0 +1,265 @@
+/**
+ * Runs a ROM with no window, sound card or other output, as fast as possible, for scripting and CI
+ * The run stops after a number of frames, or once the PC reaches an address or a value is written to an address,
+ * and it can be driven by an input script, with the last frame, the state and the sound saved at the end
+ * A fault in the ROM (e.g. an invalid opcode) only stops the run, and is given as the reason it stopped
+ */
+
+package com.szymon.gameboy.headless;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.zip.CRC32;
+
+import javax.imageio.ImageIO;
+
+import com.szymon.gameboy.Machine;
+import com.szymon.gameboy.cpu.CPU;
+import com.szymon.gameboy.cpu.CPURegisters;
+import com.szymon.gameboy.cpu.utils.RegType;
+import com.szymon.gameboy.debug.Debugger;
+import com.szymon.gameboy.debug.Watchpoint;
+import com.szymon.gameboy.debug.utils.WatchType;
+import com.szymon.gameboy.output.audio.WavFileOutput;
+import com.szymon.gameboy.ppu.FrameExchange;
+import com.szymon.gameboy.ppu.utils.RendererType;
+
+public class HeadlessRunner
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private static final int iDEFAULT_FRAMES = 600;
+	private static final int iWIDTH = 160;
+	private static final int iHEIGHT = 144;
+	private static final String szUSAGE = "Usage: HeadlessRunner [-frames=N] [-until=pc=XXXX|XXXX=YY] [-input=script.txt] "
+			+ "[-screenshot=frame.png] [-state=state.bin] [-wav=sound.wav] [-renderer=scanline|fifo] [-footprint] [-mapsave[=forceMs]] rom.gb";
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//arguments are the options, then the ROM file
+	public static void main(String[] args) throws IOException
+	{
+		int iFrames = iDEFAULT_FRAMES;
+		int iUntilPC = -1;
+		Watchpoint untilWrite = null;
+		File inputFile = null;
+		File screenshotFile = null;
+		File stateFile = null;
+		File wavFile = null;
+		RendererType renderer = null;
+		boolean bFootprint = false;
+		boolean bMapSave = false;
+		long lForceMillis = 0;
+		File rom = null;
+		
+		try
+		{
+			for (String arg : args)
+			{
+				if (arg.startsWith("-frames="))
+				{
+					iFrames = Integer.parseInt(arg.substring(8));
+				}
+				else if (arg.startsWith("-until=pc="))
+				{
+					iUntilPC = Integer.parseInt(arg.substring(10), 16) & 0xFFFF;
+				}
+				else if (arg.startsWith("-until="))
+				{
+					//a write of the value to the address, found with a watchpoint
+					String[] szParts = arg.substring(7).split("=");
+					if (szParts.length != 2)
+					{
+						throw new IllegalArgumentException("bad condition " + arg);
+					}
+					untilWrite = new Watchpoint(Integer.parseInt(szParts[0], 16), WatchType.WRITE, Integer.parseInt(szParts[1], 16) & 0xFF);
+				}
+				else if (arg.startsWith("-input="))
+				{
+					inputFile = new File(arg.substring(7));
+				}
+				else if (arg.startsWith("-screenshot="))
+				{
+					screenshotFile = new File(arg.substring(12));
+				}
+				else if (arg.startsWith("-state="))
+				{
+					stateFile = new File(arg.substring(7));
+				}
+				else if (arg.startsWith("-wav="))
+				{
+					wavFile = new File(arg.substring(5));
+				}
+				else if (arg.startsWith("-renderer="))
+				{
+					renderer = RendererType.valueOf(arg.substring(10).toUpperCase(Locale.ROOT));
+				}
+				else if (arg.equals("-footprint"))
+				{
+					bFootprint = true;
+				}
+				else if (arg.equals("-mapsave"))
+				{
+					bMapSave = true;
+				}
+				else if (arg.startsWith("-mapsave="))
+				{
+					//the save file is mapped, and forced to disk this often (ms)
+					bMapSave = true;
+					lForceMillis = Long.parseLong(arg.substring(9));
+				}
+				else if (arg.startsWith("-"))
+				{
+					throw new IllegalArgumentException("unknown option " + arg);
+				}
+				else
+				{
+					rom = new File(arg);
+				}
+			}
+		}
+		catch (IllegalArgumentException e)
+		{
+			System.err.println(e.getMessage());
+			System.err.println(szUSAGE);
+			return;
+		}
+		
+		if (rom == null)
+		{
+			System.err.println(szUSAGE);
+			return;
+		}
+		if (!rom.isFile())
+		{
+			System.err.println("ROM not found: " + rom);
+			return;
+		}
+		
+		InputScript input = inputFile != null ? new InputScript(inputFile) : null;
+		
+		Machine machine = new Machine(rom, bMapSave, lForceMillis);
+		machine.setFrameLimited(false);
+		if (renderer != null)
+		{
+			machine.getPPU().setRenderer(renderer);
+		}
+		
+		Debugger debugger = null;
+		if (untilWrite != null)
+		{
+			debugger = new Debugger();
+			debugger.attachMemory(machine.getMemory());
+			debugger.addWatchpoint(untilWrite);
+		}
+		
+		WavFileOutput audio = null;
+		if (wavFile != null)
+		{
+			audio = new WavFileOutput(wavFile);
+			audio.start();
+			audio.attach(machine.getMemory().getAPU());
+		}
+		
+		CPU cpu = machine.getCPU();
+		CPURegisters registers = cpu.getCPURegisters();
+		FrameExchange exchange = machine.getPPU().getFrameExchange();
+		byte[] u8Frame = null;
+		String szStopReason = null;
+		
+		//the stop conditions are checked after every instruction, so the run is a frame at a time rather than runFrame
+		long lStart = System.nanoTime();
+		int iFrame = 0;
+		while (szStopReason == null)
+		{
+			if (iFrames > 0 && iFrame >= iFrames)
+			{
+				szStopReason = "frame limit reached";
+				break;
+			}
+			if (input != null)
+			{
+				input.apply(iFrame, machine.getJoypad());
+			}
+			
+			while (!exchange.hasNewFrame())
+			{
+				if (!cpu.stepCPU())
+				{
+					szStopReason = "CPU stopped (" + cpu.getStopReason() + ")";
+					break;
+				}
+				if (iUntilPC >= 0 && registers.getRegValue(RegType.PC).getValue() == iUntilPC)
+				{
+					szStopReason = String.format("PC reached %04X", iUntilPC);
+					break;
+				}
+				if (debugger != null && debugger.getPaused())
+				{
+					szStopReason = debugger.getLastHit();
+					break;
+				}
+			}
+			
+			if (exchange.hasNewFrame())
+			{
+				u8Frame = exchange.takeFrame();
+				iFrame++;
+			}
+			machine.saveBattery();
+		}
+		double dSeconds = (System.nanoTime() - lStart) / 1e9;
+		
+		if (audio != null)
+		{
+			audio.stop();
+		}
+		
+		long lFrameCRC = 0;
+		if (u8Frame != null)
+		{
+			CRC32 crc = new CRC32();
+			crc.update(u8Frame);
+			lFrameCRC = crc.getValue();
+			
+			if (screenshotFile != null)
+			{
+				writeScreenshot(u8Frame, machine.getLCD().getShadeColours(), screenshotFile);
+			}
+		}
+		
+		if (stateFile != null)
+		{
+			Files.write(stateFile.toPath(), machine.getArena().snapshot());
+		}
+		
+		System.out.printf("%s: %s after %d frames in %.2fs (%.1f fps), last frame CRC %08X%n", rom.getName(), szStopReason,
+				iFrame, dSeconds, iFrame / dSeconds, lFrameCRC);
+		if (bFootprint)
+		{
+			System.out.print(machine.getFootprintReport());
+		}
+		
+		machine.close();
+	}
+	
+	//writes the frame as a PNG in the LCD's colours
+	private static void writeScreenshot(byte[] u8Frame, int[] iColours, File file) throws IOException
+	{
+		BufferedImage image = new BufferedImage(iWIDTH, iHEIGHT, BufferedImage.TYPE_INT_RGB);
+		for (int i = 0; i < iWIDTH * iHEIGHT; i++)
+		{
+			image.setRGB(i % iWIDTH, i / iWIDTH, iColours[u8Frame[i] & 0x03]);
+		}
+		
+		if (!ImageIO.write(image, "png", file))
+		{
+			throw new IOException("No PNG writer for " + file);
+		}
+	}
+}
@@ -0,0 +1,117 @@
+/**
+ * Class to read a script of joypad input for the headless runner
+ * Each line is a frame number followed by the buttons held from that frame on, e.g. "120 start" or "300 a+right",
+ * "none" releases every button, and anything after a # is a comment
+ */
+
+package com.szymon.gameboy.headless;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.szymon.gameboy.joypad.Joypad;
+
+public class InputScript
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private static final String[] szBUTTONS = {"a", "b", "start", "select", "up", "down", "left", "right"};
+	
+	//the buttons held from each frame on, one bit per button in the order above
+	private final Map<Integer, Integer> changes;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public InputScript(File file) throws IOException
+	{
+		changes = new TreeMap<Integer, Integer>();
+		
+		List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+		for (int i = 0; i < lines.size(); i++)
+		{
+			String szLine = lines.get(i);
+			int iComment = szLine.indexOf('#');
+			if (iComment >= 0)
+			{
+				szLine = szLine.substring(0, iComment);
+			}
+			szLine = szLine.trim();
+			if (szLine.isEmpty())
+			{
+				continue;
+			}
+			
+			String[] szParts = szLine.split("\\s+");
+			try
+			{
+				if (szParts.length != 2)
+				{
+					throw new IllegalArgumentException("expected a frame and the buttons");
+				}
+				changes.put(Integer.parseInt(szParts[0]), parseButtons(szParts[1]));
+			}
+			catch (IllegalArgumentException e)
+			{
+				throw new IOException(file + " line " + (i + 1) + ": " + e.getMessage());
+			}
+		}
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//sets the joypad if the script changes the buttons on this frame
+	public void apply(int iFrame, Joypad joypad)
+	{
+		Integer iButtons = changes.get(iFrame);
+		if (iButtons == null)
+		{
+			return;
+		}
+		
+		joypad.setA((iButtons & 0x01) != 0);
+		joypad.setB((iButtons & 0x02) != 0);
+		joypad.setStart((iButtons & 0x04) != 0);
+		joypad.setSelect((iButtons & 0x08) != 0);
+		joypad.setUp((iButtons & 0x10) != 0);
+		joypad.setDown((iButtons & 0x20) != 0);
+		joypad.setLeft((iButtons & 0x40) != 0);
+		joypad.setRight((iButtons & 0x80) != 0);
+	}
+	
+	//the buttons are separated by + or ,
+	private static int parseButtons(String szButtons)
+	{
+		if (szButtons.equalsIgnoreCase("none"))
+		{
+			return 0;
+		}
+		
+		int iButtons = 0;
+		for (String szButton : szButtons.split("[+,]"))
+		{
+			int iBit = -1;
+			for (int i = 0; i < szBUTTONS.length; i++)
+			{
+				if (szBUTTONS[i].equalsIgnoreCase(szButton))
+				{
+					iBit = i;
+				}
+			}
+			
+			if (iBit < 0)
+			{
+				throw new IllegalArgumentException("unknown button " + szButton);
+			}
+			iButtons |= 1 << iBit;
+		}
+		return iButtons;
+	}
+}
@@ -0,0 +1,174 @@
+/**
+ * @author 18bilkiewiczs
+ * Class that contains the values of whether certain buttons are pressed or not
+ * Also converts this information as appropriate when being accessed via memory
+ * Note: This register is set to 0xFF typically
+ * When buttons are pressed, the relevant bit is cleared
+ */
+
+package com.szymon.gameboy.joypad;
+
+import com.szymon.gameboy.memory.StateArena;
+import com.szymon.gameboy.utils.BitOps;
+import com.szymon.gameboy.utils.Unsigned8;
+
+public class Joypad 
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	//the state is stored in the state arena, as two bytes
+	//the first stores the two select bits set by the game, deciding whether to read the values of buttons or direction
+	//bit 5 indicates that buttons are not selected (A, B, Start, Select), bit 4 that the directions are not selected
+	//the second stores whether each of the separate buttons on the gameboy is pressed, one bit per button
+	private final int iSELECT_OFFSET = StateArena.iJOYPAD_OFFSET;
+	private final int iBUTTONS_OFFSET = StateArena.iJOYPAD_OFFSET + 1;
+	
+	private final int iSTART_BIT = 0;
+	private final int iSELECT_BIT = 1;
+	private final int iA_BIT = 2;
+	private final int iB_BIT = 3;
+	private final int iLEFT_BIT = 4;
+	private final int iRIGHT_BIT = 5;
+	private final int iUP_BIT = 6;
+	private final int iDOWN_BIT = 7;
+	
+	private StateArena arena;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public Joypad(StateArena arenaIn)
+	{
+		arena = arenaIn;
+		arena.setByte(iSELECT_OFFSET, 0);
+		arena.setByte(iBUTTONS_OFFSET, 0);
+	}
+	
+	// ---------------------------------------------
+	// setters
+	// ---------------------------------------------
+	//used from memory
+	public void setJoypad(Unsigned8 u8Value)
+	{
+		arena.setByte(iSELECT_OFFSET, u8Value.getValue() & 0x30);
+	}
+	
+	public void setStart(boolean start)
+	{
+		setButton(iSTART_BIT, start);
+	}
+	
+	public void setSelect(boolean select)
+	{
+		setButton(iSELECT_BIT, select);
+	}
+	
+	public void setA(boolean a)
+	{
+		setButton(iA_BIT, a);
+	}
+	
+	public void setB(boolean b)
+	{
+		setButton(iB_BIT, b);
+	}
+	
+	public void setLeft(boolean left)
+	{
+		setButton(iLEFT_BIT, left);
+	}
+	
+	public void setRight(boolean right)
+	{
+		setButton(iRIGHT_BIT, right);
+	}
+	
+	public void setUp(boolean up)
+	{
+		setButton(iUP_BIT, up);
+	}
+	
+	public void setDown(boolean down)
+	{
+		setButton(iDOWN_BIT, down);
+	}
+	
+	private void setButton(int iBit, boolean bPressed)
+	{
+		int iButtons = arena.getByte(iBUTTONS_OFFSET);
+		
+		if (bPressed)
+		{
+			arena.setByte(iBUTTONS_OFFSET, BitOps.setBit(iButtons, iBit));
+		}
+		else
+		{
+			arena.setByte(iBUTTONS_OFFSET, BitOps.clearBit(iButtons, iBit));
+		}
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	//used from memory, only clearing bits if the button is pressed, 
+	//and if it has been selected to check if those buttons are being pressed
+	public Unsigned8 getJoypad()
+	{
+		Unsigned8 u8Output = new Unsigned8(0xFF);
+		
+		if (!getSelected(0x20))
+		{
+			u8Output.clearBit(5);
+			if (getButton(iSTART_BIT))
+			{
+				u8Output.clearBit(3);
+			}
+			else if (getButton(iSELECT_BIT))
+			{
+				u8Output.clearBit(2);
+			}
+			else if (getButton(iA_BIT))
+			{
+				u8Output.clearBit(0);
+			}
+			else if (getButton(iB_BIT))
+			{
+				u8Output.clearBit(1);
+			}
+		}
+		
+		if (!getSelected(0x10))
+		{
+			u8Output.clearBit(4);
+			if (getButton(iLEFT_BIT))
+			{
+				u8Output.clearBit(1);
+			}
+			else if (getButton(iRIGHT_BIT))
+			{
+				u8Output.clearBit(0);
+			}
+			else if (getButton(iUP_BIT))
+			{
+				u8Output.clearBit(2);
+			}
+			else if (getButton(iDOWN_BIT))
+			{
+				u8Output.clearBit(3);
+			}
+		}
+		
+		return u8Output;
+	}
+	
+	private boolean getSelected(int iMask)
+	{
+		return BitOps.convertIntToBool(arena.getByte(iSELECT_OFFSET) & iMask);
+	}
+	
+	private boolean getButton(int iBit)
+	{
+		return BitOps.getBit(arena.getByte(iBUTTONS_OFFSET), iBit);
+	}
+}
@@ -6,11 +6,18 @@
 package com.szymon.gameboy.memory;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import com.szymon.gameboy.utils.Unsigned16;
 import com.szymon.gameboy.utils.Unsigned8;
@@ -41,7 +48,8 @@ public class Cart
 	// class variables
 	// ---------------------------------------------
 	//final private String szFILE_PATH = "Resources/ROMs/";
-	private Unsigned8[] u8ROMData;	//the actual data of the ROM
+	private ROMImage romImage;	//the ROM, shared with any other carts running the same game
+	private ByteBuffer bbROMData;	//this cart's read-only view of the ROM data
 	
 	private String szFile;	//the file name of the ROM
 	private String szTitle;	//the title of the ROM
@@ -52,25 +60,40 @@ public class Cart
 	private int iVersion;	//the version of the cart
 	private int iChecksum;	//the checksum (to check the cart is valid)
 	
-	//mbc1 related data
-	private boolean bRAMEnable;
-	private int iROMBank;
-	private int iRAMBank;
-	private boolean bMode;
+	//mbc1 related data (RAM enable, ROM bank, RAM bank, mode), stored in the state arena once attached
+	private final int iRAM_ENABLE_REG = 0;
+	private final int iROM_BANK_REG = 1;
+	private final int iRAM_BANK_REG = 2;
+	private final int iMODE_REG = 3;
+	private ByteBuffer bbMBCRegisters;
 	
 	private int iROMBitMask;
 	
-	private Unsigned8[] u8RAMData;	
+	private ByteBuffer bbRAMData;	//either a heap buffer, or mapped directly over the .sav file
 	
 	//for battery
 	private boolean bBattery;
 	private boolean bNeedSave;
 	
+	//for memory mapped saves
+	private boolean bMappedSave;	//if set, the cart RAM is the .sav file itself, so no explicit saving is needed
+	private long lForceInterval;	//how often (ms) the mapped RAM is forced to disk, 0 leaves it to the OS
+	private FileChannel saveChannel;
+	private ScheduledExecutorService forceScheduler;
+	
 	// ---------------------------------------------
 	// constructors
 	// ---------------------------------------------
 	public Cart(File file)
 	{
+		this(file, false, 0);
+	}
+	
+	//allows for the cart RAM to be mapped over the .sav file, rather than saved explicitly
+	public Cart(File file, boolean bMapSave, long lForceMillis)
+	{
+		bMappedSave = bMapSave;
+		lForceInterval = lForceMillis;
 		resetCart();
 		loadCart(file);
 	}
@@ -91,11 +114,11 @@ public class Cart
 		{
 			if ((u8Data.getValue() & 0xF) == 0xA)
 			{
-				bRAMEnable = true;
+				setMBCRegister(iRAM_ENABLE_REG, 1);
 			}
 			else
 			{
-				bRAMEnable = false;
+				setMBCRegister(iRAM_ENABLE_REG, 0);
 			}
 		}
 		//sets the ROM bank
@@ -103,48 +126,33 @@ public class Cart
 		{
 			if ((u8Data.getValue() & 0b11111) == 0)
 			{
-				iROMBank = 1;
+				setMBCRegister(iROM_BANK_REG, 1);
 			}
 			else
 			{
-				iROMBank = u8Data.getValue() & iROMBitMask;
+				setMBCRegister(iROM_BANK_REG, u8Data.getValue() & iROMBitMask);
 			}
 		}
 		//sets the RAM bank
 		else if (u16Address.getValue() < 0x6000)
 		{
-			iRAMBank = u8Data.getValue() & 0b11;
+			setMBCRegister(iRAM_BANK_REG, u8Data.getValue() & 0b11);
 		}
 		//sets the mode
 		else if (u16Address.getValue() < 0x8000)
 		{
-			bMode = u8Data.getBit(0);
+			setMBCRegister(iMODE_REG, u8Data.getValue() & 0b1);
 		}
 		//writes to RAM
 		else if (u16Address.getValue() >= 0xA000 && u16Address.getValue() < 0xC000)
 		{
-			if (bRAMEnable && u8RAMData.length != 0)
+			if (getMBCRegister(iRAM_ENABLE_REG) != 0 && bbRAMData.capacity() != 0)
 			{
-				int iIndex = 0;
-				
-				if (iRAMSize == 32)
-				{
-					if (bMode)
-					{
-						iIndex = 0x2000 * iRAMBank + (u16Address.getValue() - 0xA000);
-					}
-					else
-					{
-						iIndex = u16Address.getValue() - 0xA000;
-					}
-				}
-				else
-				{
-					iIndex = u16Address.getValue() - 0xA000;
-				}
+				int iIndex = getRAMIndex(u16Address.getValue());
 				
-				bNeedSave = true;
-				u8RAMData[iIndex].setValue(u8Data);
+				//a mapped save is persisted by the OS, so never needs an explicit save
+				bNeedSave = !bMappedSave;
+				bbRAMData.put(iIndex, (byte) u8Data.getValue());
 			}
 		}
 	}
@@ -155,11 +163,53 @@ public class Cart
 	//read values from the cart
 	public Unsigned8 readCart(Unsigned16 u16Address)
 	{
-		int iIndex = 0;
+		if (u16Address.getValue() < 0x8000)
+		{
+			return new Unsigned8(bbROMData.get(getROMIndex(u16Address.getValue())));
+		}
+		else if (u16Address.getValue() >= 0xA000 && u16Address.getValue() < 0xC000)
+		{
+			if (getMBCRegister(iRAM_ENABLE_REG) != 0 && bbRAMData.capacity() != 0)
+			{
+				return new Unsigned8(bbRAMData.get(getRAMIndex(u16Address.getValue())));
+			}
+		}
+		
+		return new Unsigned8(0xFF);
+	}
+	
+	//reads a block of the cart in one go, with the bank being resolved once for the whole block
+	//the block must not cross a bank boundary (e.g. a DMA source page)
+	public void readCartBlock(int iAddress, byte[] dest, int iOffset, int iLength)
+	{
+		if (iAddress < 0x8000)
+		{
+			ByteBuffer bbBlock = bbROMData.duplicate();
+			bbBlock.position(getROMIndex(iAddress));
+			bbBlock.get(dest, iOffset, iLength);
+		}
+		else if (getMBCRegister(iRAM_ENABLE_REG) != 0 && bbRAMData.capacity() != 0)
+		{
+			ByteBuffer bbBlock = bbRAMData.duplicate();
+			bbBlock.position(getRAMIndex(iAddress));
+			bbBlock.get(dest, iOffset, iLength);
+		}
+		else
+		{
+			Arrays.fill(dest, iOffset, iOffset + iLength, (byte) 0xFF);
+		}
+	}
+	
+	//gets the index into the ROM data for an address, based on the current banks
+	//also used by the cheat engine, to find which bank is mapped for an address
+	public int getROMIndex(int iAddress)
+	{
 		int iZeroBank = 0;
 		int iHighBank = 0;
+		int iRAMBank = getMBCRegister(iRAM_BANK_REG);
+		boolean bMode = getMBCRegister(iMODE_REG) != 0;
 		
-		if (u16Address.getValue() < 0x4000)
+		if (iAddress < 0x4000)
 		{
 			if (bMode)
 			{
@@ -172,56 +222,72 @@ public class Cart
 					iZeroBank = iRAMBank << 5;
 				}
 				
-				iIndex = 0x4000 * iZeroBank + u16Address.getValue();
-				
-				return u8ROMData[iIndex];
+				return 0x4000 * iZeroBank + iAddress;
 			}
 			else
 			{
-				return u8ROMData[u16Address.getValue()];
+				return iAddress;
 			}
 		}
-		else if (u16Address.getValue() < 0x8000)
+		
+		iHighBank = getMBCRegister(iROM_BANK_REG);
+		if (iROMSize == 1024)
 		{
-			iHighBank = iROMBank;
-			if (iROMSize == 1024)
-			{
-				iHighBank |= (iRAMBank & 0b1) << 5;
-			}
-			else if (iROMSize == 2048)
-			{
-				iHighBank |= iRAMBank << 5;
-			}
-			
-			iIndex = 0x4000 * iHighBank + (u16Address.getValue() - 0x4000);
-			
-			return u8ROMData[iIndex];
+			iHighBank |= (iRAMBank & 0b1) << 5;
 		}
-		else if (u16Address.getValue() >= 0xA000 && u16Address.getValue() < 0xC000)
+		else if (iROMSize == 2048)
 		{
-			if (bRAMEnable && u8RAMData.length != 0)
-			{
-				if (iRAMSize == 32)
-				{
-					if (bMode)
-					{
-						iIndex = 0x2000 * iRAMBank + (u16Address.getValue() - 0xA000);
-					}
-					else
-					{
-						iIndex = u16Address.getValue() - 0xA000;
-					}
-				}
-				else
-				{
-					iIndex = u16Address.getValue() - 0xA000;
-				}
-				
-				return u8RAMData[iIndex];
-			}
+			iHighBank |= iRAMBank << 5;
 		}
 		
-		return new Unsigned8(0xFF);
+		return 0x4000 * iHighBank + (iAddress - 0x4000);
+	}
+	
+	//gets the index into the RAM data for an address, based on the current bank
+	private int getRAMIndex(int iAddress)
+	{
+		if (iRAMSize == 32 && getMBCRegister(iMODE_REG) != 0)
+		{
+			return 0x2000 * getMBCRegister(iRAM_BANK_REG) + (iAddress - 0xA000);
+		}
+		
+		return iAddress - 0xA000;
+	}
+	
+	//gets the size of the cart RAM that needs to be in the state arena
+	//mapped RAM stays in the save file, so isn't part of the arena
+	public int getArenaRAMSize()
+	{
+		if (bMappedSave)
+		{
+			return 0;
+		}
+		
+		return bbRAMData.capacity();
+	}
+	
+	//gets a byte of ROM data as an unsigned value
+	public int getROMByte(int iIndex)
+	{
+		return bbROMData.get(iIndex) & 0xFF;
+	}
+	
+	//gets the number of bytes of ROM data actually loaded
+	public int getROMLength()
+	{
+		return bbROMData.capacity();
+	}
+	
+	//gets the hash of the ROM's contents, which identifies the game (e.g. in the renderer list)
+	public String getROMHash()
+	{
+		return romImage != null ? romImage.getHash() : "";
+	}
+	
+	//gets this cart's share of the ROM's bytes, as the image is shared between every cart running the same game
+	public long getROMFootprint()
+	{
+		return romImage != null ? romImage.getSize() / Math.max(1, romImage.getReferences()) : 0;
 	}
 	
 	//checks if the cart needs to be saved
@@ -233,7 +299,7 @@ public class Cart
 	//checks if the cart is MBC1
 	public boolean getMBC1()
 	{
-		if (u8ROMData[0x0147].getValue() >= 1 && u8ROMData[0x0147].getValue() <= 3)
+		if (getROMByte(0x0147) >= 1 && getROMByte(0x0147) <= 3)
 		{
 			return true;
 		}
@@ -247,7 +313,7 @@ public class Cart
 	public boolean getBattery()
 	{
 		//MBC1 only for now
-		if (u8ROMData[0x0147].getValue() == 3)
+		if (getROMByte(0x0147) == 3)
 		{
 			return true;
 		}
@@ -394,7 +460,7 @@ public class Cart
 			szLic = "Nintendo";
 			break;
 		case 0x33:
-			String code = Character.toString((char) u8ROMData[0x0144].getValue()) + Character.toString((char) u8ROMData[0x0145].getValue());
+			String code = Character.toString((char) getROMByte(0x0144)) + Character.toString((char) getROMByte(0x0145));
 			getNewLicCode(code);
 			break;
 		default:
@@ -620,16 +686,20 @@ public class Cart
 		szLicCode = "";
 		iVersion = 0;
 		iChecksum = 0;
-		u8ROMData = new Unsigned8[1];
+		romImage = null;
+		bbROMData = ByteBuffer.allocate(1).asReadOnlyBuffer();
+		bbRAMData = ByteBuffer.allocate(0);
+		bbMBCRegisters = ByteBuffer.allocate(4);
 	}
 	
 	//setups cart banking, currently only for MBC1
 	private void setupCartBanking()
 	{
-		bRAMEnable = false;
-		iROMBank = 1;
-		iRAMBank = 0;
-		bMode = false;
+		bbMBCRegisters = ByteBuffer.allocate(4);
+		setMBCRegister(iRAM_ENABLE_REG, 0);
+		setMBCRegister(iROM_BANK_REG, 1);
+		setMBCRegister(iRAM_BANK_REG, 0);
+		setMBCRegister(iMODE_REG, 0);
 		
 		if (iROMSize == 32)
 		{
@@ -656,45 +726,149 @@ public class Cart
 		bNeedSave = false;
 		
 		//check the ram size to determine how many banks
-		if (iRAMSize > 0)
+		int iRAMMultipler = iRAMSize / 8;
+		int iRAMBytes = 0x2000 * iRAMMultipler;
+		
+		if (bBattery && bMappedSave && iRAMBytes > 0 && mapCartBattery(iRAMBytes))
 		{
-			int iRAMMultipler = iRAMSize / 8;
-			u8RAMData = new Unsigned8[0x2000 * iRAMMultipler];
-			
-			//initialise the values
-			for (int i = 0; i < u8RAMData.length; i++)
-			{
-				u8RAMData[i] = new Unsigned8();
-			}
+			return;
 		}
 		
+		bMappedSave = false;
+		bbRAMData = ByteBuffer.allocate(iRAMBytes);
+		
 		if (bBattery)
 		{
 			loadCartBattery();
 		}
 	}
 	
-	//loads any relevant save file for the game
-	private void loadCartBattery()
+	//moves the MBC registers and cart RAM into the state arena, keeping their current values
+	//mapped RAM is left where it is, as it is backed by the save file
+	public void initArena(StateArena arena)
+	{
+		ByteBuffer bbArenaRegisters = arena.getSlice(StateArena.iCART_OFFSET, bbMBCRegisters.capacity());
+		bbArenaRegisters.put(bbMBCRegisters.duplicate().clear());
+		bbMBCRegisters = bbArenaRegisters.clear();
+		
+		if (!bMappedSave)
+		{
+			ByteBuffer bbArenaRAM = arena.getSlice(StateArena.iCART_RAM_OFFSET, bbRAMData.capacity());
+			bbArenaRAM.put(bbRAMData.duplicate().clear());
+			bbRAMData = bbArenaRAM.clear();
+		}
+	}
+	
+	private int getMBCRegister(int iRegister)
+	{
+		return bbMBCRegisters.get(iRegister) & 0xFF;
+	}
+	
+	private void setMBCRegister(int iRegister, int iValue)
+	{
+		bbMBCRegisters.put(iRegister, (byte) iValue);
+	}
+	
+	//gets the name of the save file for the game
+	private String getSaveFile()
 	{
 		//remove the file extension from the file (.gb), and add .sav for a save
 		String szSaveFile = szFile.substring(0, (szFile.length() - 3));
 		szSaveFile += ".sav";
 		
+		return szSaveFile;
+	}
+	
+	//maps the save file as the cart RAM, so that an existing save is used directly rather than parsed
+	//if the file is smaller than the RAM (or doesn't exist), mapping extends it with zeroes
+	private boolean mapCartBattery(int iRAMBytes)
+	{
+		try 
+		{
+			saveChannel = FileChannel.open(Paths.get(getSaveFile()), StandardOpenOption.CREATE,
+					StandardOpenOption.READ, StandardOpenOption.WRITE);
+			bbRAMData = saveChannel.map(FileChannel.MapMode.READ_WRITE, 0, iRAMBytes);
+		} 
+		catch (IOException e) 
+		{
+			System.out.println("Unable to map save file, falling back to normal saves!");
+			closeCartBattery();
+			return false;
+		}
+		
+		//the OS writes back the mapped RAM on its own, forcing only bounds how much could be lost
+		if (lForceInterval > 0)
+		{
+			forceScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> 
+			{
+				Thread thread = new Thread(runnable, "Save Force");
+				thread.setDaemon(true);
+				return thread;
+			});
+			forceScheduler.scheduleAtFixedRate(this::forceCartBattery, lForceInterval, lForceInterval, TimeUnit.MILLISECONDS);
+		}
+		
+		return true;
+	}
+	
+	//forces any mapped RAM writes out to the save file
+	private void forceCartBattery()
+	{
+		if (bbRAMData instanceof MappedByteBuffer)
+		{
+			((MappedByteBuffer) bbRAMData).force();
+		}
+	}
+	
+	//releases the ROM and save file, should be called once the cart is no longer being used
+	public void closeCart()
+	{
+		closeCartBattery();
+		
+		if (romImage != null)
+		{
+			ROMRegistry.releaseImage(romImage);
+			romImage = null;
+		}
+	}
+	
+	//releases the save file
+	private void closeCartBattery()
+	{
+		if (forceScheduler != null)
+		{
+			forceScheduler.shutdown();
+			forceScheduler = null;
+		}
+		
+		if (saveChannel != null)
+		{
+			forceCartBattery();
+			
+			try 
+			{
+				saveChannel.close();
+			} 
+			catch (IOException e) 
+			{
+				e.printStackTrace();
+			}
+			saveChannel = null;
+		}
+	}
+	
+	//loads any relevant save file for the game
+	private void loadCartBattery()
+	{
 		try 
 		{
 			//get the size of the file in bytes
-			Path path = Paths.get(szSaveFile);
+			Path path = Paths.get(getSaveFile());
 			//read all byte data of the file
 			//and load from start address
 			byte[] bytes = Files.readAllBytes(path);
 			
-			int i = 0;
-			while (i < bytes.length && i < u8RAMData.length)
-			{
-				u8RAMData[i].setValue(bytes[i]);
-				i++;
-			}
+			bbRAMData.duplicate().put(bytes, 0, Math.min(bytes.length, bbRAMData.capacity()));
 		} 
 		catch (IOException e) 
 		{
@@ -706,28 +880,18 @@ public class Cart
 	public void saveCartBattery()
 	{
 		bNeedSave = false;
-		//remove the file extension from the file (.gb), and add .sav for a save
-		String szSaveFile = szFile.substring(0, (szFile.length() - 3));
-		szSaveFile += ".sav";
 		
-		FileWriter writer;
+		//mapped saves are already in the file
+		if (bMappedSave)
+		{
+			return;
+		}
 		
-		//create file and clear it
-		try 
+		//write all ram data to the file as raw bytes, replacing any old save
+		try (FileChannel channel = FileChannel.open(Paths.get(getSaveFile()), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
 		{
-			File myFile = new File(szSaveFile);
-			
-			writer = new FileWriter(myFile);
-			writer.write("");
-			writer.close();
-			
-			writer = new FileWriter(myFile, true);
-			
-			//write all ram data to the file
-			for (int i = 0; i < u8RAMData.length; i++)
-			{
-				writer.write(u8RAMData[i].getValue());
-			}
+			channel.write(bbRAMData.duplicate().clear());
 		} 
 		catch (IOException e) 
 		{
@@ -745,12 +909,14 @@ public class Cart
 			Path path = Paths.get(file.getAbsolutePath());
 			//read all byte data of the file
 			//and load from start address
+			//if the same ROM is already loaded, the shared copy is used and this one is dropped
 			byte[] bytes = Files.readAllBytes(path);
-			u8ROMData = new Unsigned8[bytes.length];
-			for (int i = 0; i < bytes.length; i++)
+			if (romImage != null)
 			{
-				u8ROMData[i] = new Unsigned8(bytes[i]);
+				ROMRegistry.releaseImage(romImage);
 			}
+			romImage = ROMRegistry.acquireImage(bytes);
+			bbROMData = romImage.getData();
 		} 
 		catch (IOException e) 
 		{
@@ -762,22 +928,22 @@ public class Cart
 		szTitle = "";
 		for (int i = 0x0134; i <= 0x0143; i++)
 		{
-			String character = Character.toString((char) u8ROMData[i].getValue());
+			String character = Character.toString((char) getROMByte(i));
 			if (character.matches("[a-zA-Z0-9 ]"))
 			{
 				szTitle = szTitle + character;
 			}
 		}
 		//get the type
-		szType = getCartType(u8ROMData[0x0147].getValue());
+		szType = getCartType(getROMByte(0x0147));
 		//get the ROM size
-		iROMSize = 32 * (1 << u8ROMData[0x0148].getValue());
+		iROMSize = 32 * (1 << getROMByte(0x0148));
 		//get the RAM size
-		iRAMSize = getRAMSize(u8ROMData[0x0149].getValue());
+		iRAMSize = getRAMSize(getROMByte(0x0149));
 		//get the LIC code
-		szLicCode = getLicCode(u8ROMData[0x014B].getValue());
+		szLicCode = getLicCode(getROMByte(0x014B));
 		//get the ROM version
-		iVersion = u8ROMData[0x014C].getValue();
+		iVersion = getROMByte(0x014C);
 		
 		//output data
 		System.out.println("Cartridge Loaded:"
@@ -792,10 +958,10 @@ public class Cart
 		iChecksum = 0;
 		for (int i = 0x0134; i <= 0x014C; i++)
 		{
-			iChecksum = iChecksum - u8ROMData[i].getValue() - 1;
+			iChecksum = iChecksum - getROMByte(i) - 1;
 		}
 		System.out.print(" Checksum	: ");
-		if (u8ROMData[0x014D].getValue() != (iChecksum & 0xFF))
+		if (getROMByte(0x014D) != (iChecksum & 0xFF))
 		{
 			System.out.println("Failed");
 			return false;
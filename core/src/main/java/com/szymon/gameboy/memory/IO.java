@@ -5,6 +5,7 @@
 
 package com.szymon.gameboy.memory;
 
+import com.szymon.gameboy.apu.APU;
 import com.szymon.gameboy.joypad.Joypad;
 import com.szymon.gameboy.ppu.DMA;
 import com.szymon.gameboy.ppu.LCD;
@@ -17,10 +18,12 @@ public class IO
 	// class variables
 	// ---------------------------------------------
 	//used for debugging for Blargg test ROMs, not actually implemented
-	private Unsigned8[] u8SerialData;
+	//the serial data (SB and SC) is stored in the state arena
+	private StateArena arena;
 	//all of the areas where register values are stored
 	private Interrupt interrupt;
 	private Timer timer;
+	private APU apu;
 	private DMA dma;
 	private LCD lcd;
 	private Joypad joypad;
@@ -29,16 +32,15 @@ public class IO
 	// constructors
 	// ---------------------------------------------
 	//LCD must be passed in so that the same LCD can be used throughout the code
-	public IO(LCD lcdIn, DMA dmaIn, Joypad joypadIn)
+	public IO(StateArena arenaIn, LCD lcdIn, DMA dmaIn, Joypad joypadIn)
 	{
-		u8SerialData = new Unsigned8[2];
-		for (int i = 0; i < 2; i++)
-		{
-			u8SerialData[i] = new Unsigned8();
-		}
+		arena = arenaIn;
+		arena.setByte(StateArena.iSERIAL_OFFSET, 0);
+		arena.setByte(StateArena.iSERIAL_OFFSET + 1, 0);
 		
-		interrupt = new Interrupt();
-		timer = new Timer();
+		interrupt = new Interrupt(arena);
+		timer = new Timer(arena);
+		apu = new APU(arena);
 		dma = dmaIn;
 		lcd = lcdIn;
 		joypad = joypadIn;
@@ -55,11 +57,11 @@ public class IO
 		}
 		else if (u16Address.getValue() == 0xFF01)
 		{
-			u8SerialData[0] = u8Data;
+			arena.setByte(StateArena.iSERIAL_OFFSET, u8Data.getValue());
 		}
 		else if (u16Address.getValue() == 0xFF02)
 		{
-			u8SerialData[1] = u8Data;
+			arena.setByte(StateArena.iSERIAL_OFFSET + 1, u8Data.getValue());
 		}
 		else if (u16Address.getValue() >= 0xFF04 && u16Address.getValue() <= 0xFF07)
 		{
@@ -71,8 +73,7 @@ public class IO
 		}
 		else if (u16Address.getValue() >= 0xFF10 && u16Address.getValue() <= 0xFF3F)
 		{
-			//sound registers - not implemented
-			return;
+			apu.writeAPU(u16Address.getValue(), u8Data.getValue());
 		}
 		else if (u16Address.getValue() >= 0xFF40 && u16Address.getValue() <= 0xFF4B)
 		{
@@ -104,11 +105,11 @@ public class IO
 		}
 		else if (u16Address.getValue() == 0xFF01)
 		{
-			return (u8SerialData[0]);
+			return new Unsigned8(arena.getByte(StateArena.iSERIAL_OFFSET));
 		}
 		else if (u16Address.getValue() == 0xFF02)
 		{
-			return (u8SerialData[1]);
+			return new Unsigned8(arena.getByte(StateArena.iSERIAL_OFFSET + 1));
 		}
 		else if (u16Address.getValue() >= 0xFF04 && u16Address.getValue() <= 0xFF07)
 		{
@@ -120,8 +121,7 @@ public class IO
 		}
 		else if (u16Address.getValue() >= 0xFF10 && u16Address.getValue() <= 0xFF3F)
 		{
-			//sound registers - not implemented
-			return new Unsigned8(0xFF);
+			return new Unsigned8(apu.readAPU(u16Address.getValue()));
 		}
 		else if (u16Address.getValue() >= 0xFF40 && u16Address.getValue() <= 0xFF4B)
 		{
@@ -147,4 +147,14 @@ public class IO
 	{
 		timer.incrementDIV();
 	}
+	
+	public Timer getTimer()
+	{
+		return timer;
+	}
+	
+	public APU getAPU()
+	{
+		return apu;
+	}
 }
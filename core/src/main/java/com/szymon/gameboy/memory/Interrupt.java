@@ -23,17 +23,20 @@ public class Interrupt
 	// ---------------------------------------------
 	// class variables
 	// ---------------------------------------------
-	//the two relevant interrupt registers
-	private Unsigned8 u8InterruptFlag;
-	private Unsigned8 u8InterruptEnable;
+	//the two relevant interrupt registers are stored in the state arena
+	private final int iFLAG_OFFSET = StateArena.iINTERRUPT_OFFSET;
+	private final int iENABLE_OFFSET = StateArena.iINTERRUPT_OFFSET + 1;
+	
+	private StateArena arena;
 	
 	// ---------------------------------------------
 	// constructors
 	// ---------------------------------------------
-	public Interrupt()
+	public Interrupt(StateArena arenaIn)
 	{
-		u8InterruptEnable = new Unsigned8();
-		u8InterruptFlag = new Unsigned8();
+		arena = arenaIn;
+		arena.setByte(iENABLE_OFFSET, 0);
+		arena.setByte(iFLAG_OFFSET, 0);
 	}
 	
 	// ---------------------------------------------
@@ -41,12 +44,12 @@ public class Interrupt
 	// ---------------------------------------------
 	public void setIntFlag(Unsigned8 u8Data)
 	{
-		u8InterruptFlag.setValue(u8Data);
+		arena.setByte(iFLAG_OFFSET, u8Data.getValue());
 	}
 	
 	public void setIntEnable(Unsigned8 u8Data)
 	{
-		u8InterruptEnable.setValue(u8Data);
+		arena.setByte(iENABLE_OFFSET, u8Data.getValue());
 	}
 	
 	// ---------------------------------------------
@@ -54,11 +57,11 @@ public class Interrupt
 	// ---------------------------------------------
 	public Unsigned8 getIntFlag()
 	{
-		return u8InterruptFlag;
+		return new Unsigned8(arena.getByte(iFLAG_OFFSET));
 	}
 	
 	public Unsigned8 getIntEnable()
 	{
-		return u8InterruptEnable;
+		return new Unsigned8(arena.getByte(iENABLE_OFFSET));
 	}
 }
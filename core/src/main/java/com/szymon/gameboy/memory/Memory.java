@@ -0,0 +1,423 @@
+/**
+ * @author 18bilkiewiczs
+ * Class to allow for access to all of the Game Boy's memory
+ */
+
+package com.szymon.gameboy.memory;
+
+import com.szymon.gameboy.apu.APU;
+import com.szymon.gameboy.cheats.CheatEngine;
+import com.szymon.gameboy.joypad.Joypad;
+import com.szymon.gameboy.ppu.DMA;
+import com.szymon.gameboy.ppu.LCD;
+import com.szymon.gameboy.utils.Unsigned16;
+import com.szymon.gameboy.utils.Unsigned8;
+
+/**
+ * General Memory Map (courtesy of https://gbdev.io/pandocs/Memory_Map.html)
+ * 0000-3FFF ROM bank 00 (from cartridge, usually a fixed bank)
+ * 4000-7FFF ROM bank 01-NN (from cartridge, switchable bank if memory mapper present)
+ * 8000-9FFF Video RAM (VRAM)
+ * A000-BFFF External Ram (From cartridge, switchable bank if any)
+ * C000-CFFF Work RAM (WRAM) (Bank 0)
+ * D000-DFFF Work RAM (WRAM) (Bank 1-7, switchable on Color only)
+ * E000-FDFF Echo RAM (mirror of C000-DDFF, use of this area is prohibited)
+ * FE00-FE9F Object attribute memory (OAM)
+ * FEA0-FEFF Not usable (prohibited)
+ * FF00-FF7F I/0 Registers (Game Boy uses memory mapped I/O)
+ * FF80-FFFE High RAM (HRAM)
+ * FFFF-FFFF Interrupt Enable register (IE)
+ */
+
+public class Memory 
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	//Memory will have all of the relevant memory classes, and simply handles access to the values stored in these classes
+	private Cart cart;
+	private RAM ram;
+	private IO io;
+	private VRAM vram;
+	private DMA dma;
+	//all of the mutable state that memory (and the other components) read and write
+	private StateArena arena;
+	
+	//every access goes through the handler for its 256 byte page (indexed by the high byte of the address)
+	//base handlers are the defaults, or a cheat overlay, and debugging handlers sit on top of them
+	//the default handlers are kept so that any page that has been swapped out can be put back
+	private PageHandler[] pageHandlers;
+	private PageHandler[] baseHandlers;
+	private PageHandler[] defaultHandlers;
+	
+	//only set while cheats are on
+	private CheatEngine cheats;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	//When loading memory, it must be loaded with a game
+	public Memory(StateArena arenaIn, Cart game, DMA dmaIn, LCD lcd, Joypad joypadIn)
+	{
+		loadGame(arenaIn, game, dmaIn, lcd, joypadIn);
+	}
+	
+	// ---------------------------------------------
+	// setters
+	// ---------------------------------------------
+	//handles the access for memory writes to all addresses
+	public void writeMemory(Unsigned16 u16Address, Unsigned8 u8Data)
+	{
+		pageHandlers[u16Address.getValue() >> 8].writePage(u16Address, u8Data);
+	}
+	
+	//replaces the handler for a page, used to instrument single pages for debugging
+	public void setPageHandler(int iPage, PageHandler handler)
+	{
+		pageHandlers[iPage] = handler;
+	}
+	
+	//puts the base handler back for a page
+	public void resetPageHandler(int iPage)
+	{
+		pageHandlers[iPage] = baseHandlers[iPage];
+	}
+	
+	//replaces the base handler for a page, used for cheat overlays
+	//if a debugging handler is on the page it is kept, and passes accesses on to the new base handler
+	public void setBasePageHandler(int iPage, PageHandler handler)
+	{
+		if (pageHandlers[iPage] == baseHandlers[iPage])
+		{
+			pageHandlers[iPage] = handler;
+		}
+		baseHandlers[iPage] = handler;
+	}
+	
+	public void resetBasePageHandler(int iPage)
+	{
+		setBasePageHandler(iPage, defaultHandlers[iPage]);
+	}
+	
+	//turns cheats on (or off, if null)
+	public void setCheats(CheatEngine cheatsIn)
+	{
+		cheats = cheatsIn;
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	//handles memory reads from all addresses
+	public Unsigned8 readMemory(Unsigned16 u16Address)
+	{
+		return pageHandlers[u16Address.getValue() >> 8].readPage(u16Address);
+	}
+	
+	//reads the opcode for the CPU, which is separate from other reads so that breakpoints can be placed on it
+	public Unsigned8 fetchOpcode(Unsigned16 u16Address)
+	{
+		return pageHandlers[u16Address.getValue() >> 8].fetchPage(u16Address);
+	}
+	
+	//gets the base handler for a page, so that a debugging handler can pass accesses on to it
+	public PageHandler getBasePageHandler(int iPage)
+	{
+		return baseHandlers[iPage];
+	}
+	
+	//gets the normal handler for a page, so that a cheat overlay can pass writes (MBC control) on to it
+	public PageHandler getDefaultPageHandler(int iPage)
+	{
+		return defaultHandlers[iPage];
+	}
+	
+	//allows the PPU to read OAM directly (packed, an int per entry), as the DMA bus lockout only applies to the CPU
+	//any bytes that the DMA has transferred so far are revealed first
+	public int[] getPackedOAM()
+	{
+		dma.syncDMA();
+		return vram.getPackedOAM();
+	}
+	
+	public StateArena getArena()
+	{
+		return arena;
+	}
+	
+	public Timer getTimer()
+	{
+		return io.getTimer();
+	}
+	
+	public APU getAPU()
+	{
+		return io.getAPU();
+	}
+	
+	//allows the PPU (and the tile viewer) to use the decoded tile cache
+	public VRAM getVRAM()
+	{
+		return vram;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//allows for a new game/cart to be loaded
+	//TODO - this should act as a reset method, resetting the values of all memory locations
+	public void loadGame(StateArena arenaIn, Cart game, DMA dmaIn, LCD lcd, Joypad joypad)
+	{
+		arena = arenaIn;
+		cart = game;
+		cart.initArena(arena);
+		ram = new RAM(arena);
+		io = new IO(arena, lcd, dmaIn, joypad);
+		vram = new VRAM(arena);
+		dma = dmaIn;
+		
+		initPageHandlers();
+	}
+	
+	//sets up the handler for every page in the memory map
+	private void initPageHandlers()
+	{
+		PageHandler cartHandler = new PageHandler()
+		{
+			@Override
+			public void writePage(Unsigned16 u16Address, Unsigned8 u8Data)
+			{
+				//ROM Data and Cart RAM
+				cart.writeCart(u16Address, u8Data);
+				
+				//writes to ROM can switch banks, which changes which cheats apply
+				if (cheats != null && u16Address.getValue() < 0x8000)
+				{
+					cheats.updateROMPages();
+				}
+			}
+			
+			@Override
+			public Unsigned8 readPage(Unsigned16 u16Address)
+			{
+				return cart.readCart(u16Address);
+			}
+		};
+		
+		PageHandler vramHandler = new PageHandler()
+		{
+			@Override
+			public void writePage(Unsigned16 u16Address, Unsigned8 u8Data)
+			{
+				vram.writeVRAM(u16Address, u8Data);
+			}
+			
+			@Override
+			public Unsigned8 readPage(Unsigned16 u16Address)
+			{
+				return vram.readVRAM(u16Address);
+			}
+		};
+		
+		PageHandler wramHandler = new PageHandler()
+		{
+			@Override
+			public void writePage(Unsigned16 u16Address, Unsigned8 u8Data)
+			{
+				ram.writeWRAM(u16Address, u8Data);
+			}
+			
+			@Override
+			public Unsigned8 readPage(Unsigned16 u16Address)
+			{
+				return ram.readWRAM(u16Address);
+			}
+		};
+		
+		PageHandler echoHandler = new PageHandler()
+		{
+			@Override
+			public void writePage(Unsigned16 u16Address, Unsigned8 u8Data)
+			{
+				Unsigned16 u16MaskAddress = new Unsigned16(u16Address.getValue() - 0x2000);
+				ram.writeWRAM(u16MaskAddress, u8Data);
+			}
+			
+			@Override
+			public Unsigned8 readPage(Unsigned16 u16Address)
+			{
+				Unsigned16 u16MaskAddress = new Unsigned16(u16Address.getValue() - 0x2000);
+				return ram.readWRAM(u16MaskAddress);
+			}
+		};
+		
+		//FE00-FFFF has several small areas, so they are split up here
+		PageHandler highHandler = new PageHandler()
+		{
+			@Override
+			public void writePage(Unsigned16 u16Address, Unsigned8 u8Data)
+			{
+				if (u16Address.getValue() < 0xFEA0)
+				{
+					//OAM
+					vram.writeOAM(u16Address, u8Data);
+				}
+				else if (u16Address.getValue() < 0xFF00)
+				{
+					//not usable
+				}
+				else if (u16Address.getValue() < 0xFF80)
+				{
+					//IO Registers
+					io.writeIO(u16Address, u8Data);
+				}
+				else if (u16Address.getValue() < 0xFFFF)
+				{
+					//HRAM
+					ram.writeHRAM(u16Address, u8Data);
+				}
+				else
+				{
+					//Interrupt Enable Register
+					io.writeIO(u16Address, u8Data);
+				}
+			}
+			
+			@Override
+			public Unsigned8 readPage(Unsigned16 u16Address)
+			{
+				if (u16Address.getValue() < 0xFEA0)
+				{
+					//OAM
+					if (dma.getActive())
+					{
+						return new Unsigned8(0xFF);
+					}
+					return vram.readOAM(u16Address);
+				}
+				else if (u16Address.getValue() < 0xFF00)
+				{
+					//not usable
+					return new Unsigned8();
+				}
+				else if (u16Address.getValue() < 0xFF80)
+				{
+					//IO Registers
+					return io.readIO(u16Address);
+				}
+				else if (u16Address.getValue() < 0xFFFF)
+				{
+					//HRAM
+					return ram.readHRAM(u16Address);
+				}
+				else
+				{
+					//Interrupt Enable Register
+					return io.readIO(u16Address);
+				}
+			}
+		};
+		
+		defaultHandlers = new PageHandler[0x100];
+		for (int i = 0; i < 0x100; i++)
+		{
+			if (i < 0x80 || (i >= 0xA0 && i < 0xC0))
+			{
+				defaultHandlers[i] = cartHandler;
+			}
+			else if (i < 0xA0)
+			{
+				defaultHandlers[i] = vramHandler;
+			}
+			else if (i < 0xE0)
+			{
+				defaultHandlers[i] = wramHandler;
+			}
+			else if (i < 0xFE)
+			{
+				defaultHandlers[i] = echoHandler;
+			}
+			else
+			{
+				defaultHandlers[i] = highHandler;
+			}
+		}
+		
+		baseHandlers = defaultHandlers.clone();
+		pageHandlers = defaultHandlers.clone();
+	}
+	
+	//applies any RAM cheats, called by the PPU at the start of each VBlank
+	public void applyFrameCheats()
+	{
+		if (cheats != null)
+		{
+			cheats.applyRAMCodes();
+		}
+	}
+	
+	//allows for the div register to be incremented, as necessary from the cycle class
+	public void incrementDIV()
+	{
+		io.incrementDIV();
+	}
+	
+	//copies a block of memory in one go, with the source being resolved once for the whole block
+	//the block must lie within one 256 byte page (as used by DMA)
+	public void readBlock(int iAddress, byte[] dest, int iOffset, int iLength)
+	{
+		if (iAddress < 0x8000)
+		{
+			//ROM Data
+			cart.readCartBlock(iAddress, dest, iOffset, iLength);
+		}
+		else if (iAddress < 0xA000)
+		{
+			//VRAM
+			vram.readVRAMBlock(iAddress, dest, iOffset, iLength);
+		}
+		else if (iAddress < 0xC000)
+		{
+			//Cart RAM
+			cart.readCartBlock(iAddress, dest, iOffset, iLength);
+		}
+		else if (iAddress < 0xE000)
+		{
+			//WRAM
+			ram.readWRAMBlock(iAddress, dest, iOffset, iLength);
+		}
+		else
+		{
+			//Echo RAM (DMA from E000-FFFF also reads from WRAM)
+			ram.readWRAMBlock(iAddress - 0x2000, dest, iOffset, iLength);
+		}
+	}
+	
+	//copies a block of memory straight into OAM, used by DMA
+	public void copyToOAM(int iAddress, int iOAMIndex, int iLength)
+	{
+		readBlock(iAddress, arena.getArray(), StateArena.iOAM_OFFSET + iOAMIndex, iLength);
+		vram.repackOAM(iOAMIndex, iLength);
+	}
+	
+	//allows for 2 bytes to be read from memory in one go
+	public Unsigned16 readMemory16(Unsigned16 u16Address)
+	{
+		Unsigned16 u16Num = new Unsigned16();
+		Unsigned16 u16NewAddress = new Unsigned16(u16Address);
+		u16Num.setLowByte(readMemory(u16NewAddress));
+		u16NewAddress.increment();
+		u16Num.setHighByte(readMemory(u16NewAddress));
+		
+		return u16Num;
+	}
+	
+	//allows for 2 bytes to be written to memory in one go
+	public void writeMemory16(Unsigned16 u16Address, Unsigned16 u16Data)
+	{
+		Unsigned16 u16NewAddress = new Unsigned16(u16Address);
+		writeMemory(u16NewAddress, u16Data.getLowByte());
+		u16NewAddress.increment();
+		writeMemory(u16NewAddress, u16Data.getHighByte());
+	}
+}
@@ -0,0 +1,29 @@
+/**
+ * Interface for the handler of one 256 byte page of the memory map
+ * Memory looks up the handler for an address by its high byte, so a page's handler
+ * can be swapped out (e.g. for a debugging handler) without affecting any other page
+ */
+
+package com.szymon.gameboy.memory;
+
+import com.szymon.gameboy.utils.Unsigned16;
+import com.szymon.gameboy.utils.Unsigned8;
+
+public abstract interface PageHandler
+{
+	//---------------------------------------------
+	//setters
+	//---------------------------------------------
+	public void writePage(Unsigned16 u16Address, Unsigned8 u8Data);
+	
+	//---------------------------------------------
+	//getters
+	//---------------------------------------------
+	public Unsigned8 readPage(Unsigned16 u16Address);
+	
+	//reads the opcode of an instruction, which is a normal read unless the page is being debugged
+	public default Unsigned8 fetchPage(Unsigned16 u16Address)
+	{
+		return readPage(u16Address);
+	}
+}
@@ -5,6 +5,8 @@
 
 package com.szymon.gameboy.memory;
 
+import java.util.Arrays;
+
 import com.szymon.gameboy.utils.Unsigned16;
 import com.szymon.gameboy.utils.Unsigned8;
 
@@ -18,25 +20,18 @@ public class RAM
 	final private int iWRAM_START_ADDRESS = 0xC000;
 	final private int iHRAM_START_ADDRESS = 0xFF80;
 	
-	private Unsigned8[] u8WRAM;	//Work RAM, main RAM to be used
-	private Unsigned8[] u8HRAM;	//High RAM, small section of RAM
+	//WRAM (Work RAM, main RAM to be used) and HRAM (High RAM, small section of RAM)
+	//are both stored in the state arena, so that blocks can be copied out in one go (e.g. for DMA)
+	private byte[] u8Arena;
 	
 	// ---------------------------------------------
 	// constructors
 	// ---------------------------------------------
-	public RAM()
+	public RAM(StateArena arena)
 	{
-		u8WRAM = new Unsigned8[iWRAM_SIZE];
-		u8HRAM = new Unsigned8[iHRAM_SIZE];
-		//initialise all the numbers
-		for (int i = 0; i < iWRAM_SIZE; i++)
-		{
-			u8WRAM[i] = new Unsigned8();
-		}
-		for (int i = 0; i < iHRAM_SIZE; i++)
-		{
-			u8HRAM[i] = new Unsigned8();
-		}
+		u8Arena = arena.getArray();
+		Arrays.fill(u8Arena, StateArena.iWRAM_OFFSET, StateArena.iWRAM_OFFSET + iWRAM_SIZE, (byte) 0);
+		Arrays.fill(u8Arena, StateArena.iHRAM_OFFSET, StateArena.iHRAM_OFFSET + iHRAM_SIZE, (byte) 0);
 	}
 	
 	// ---------------------------------------------
@@ -46,14 +41,14 @@ public class RAM
 	{
 		int iAddress = u16Address.getValue();
 		iAddress -= iWRAM_START_ADDRESS;
-		u8WRAM[iAddress].setValue(u8Data);
+		u8Arena[StateArena.iWRAM_OFFSET + iAddress] = (byte) u8Data.getValue();
 	}
 	
 	public void writeHRAM(Unsigned16 u16Address, Unsigned8 u8Data)
 	{
 		int iAddress = u16Address.getValue();
 		iAddress -= iHRAM_START_ADDRESS;
-		u8HRAM[iAddress].setValue(u8Data);;
+		u8Arena[StateArena.iHRAM_OFFSET + iAddress] = (byte) u8Data.getValue();
 	}
 	
 	// ---------------------------------------------
@@ -63,13 +58,22 @@ public class RAM
 	{
 		int iAddress = u16Address.getValue();
 		iAddress -= iWRAM_START_ADDRESS;
-		return (u8WRAM[iAddress]);
+		return new Unsigned8(u8Arena[StateArena.iWRAM_OFFSET + iAddress]);
 	}
 	
 	public Unsigned8 readHRAM(Unsigned16 u16Address)
 	{
 		int iAddress = u16Address.getValue();
 		iAddress -= iHRAM_START_ADDRESS;
-		return (u8HRAM[iAddress]);
+		return new Unsigned8(u8Arena[StateArena.iHRAM_OFFSET + iAddress]);
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//copies a block of WRAM out in one go
+	public void readWRAMBlock(int iAddress, byte[] dest, int iOffset, int iLength)
+	{
+		System.arraycopy(u8Arena, StateArena.iWRAM_OFFSET + iAddress - iWRAM_START_ADDRESS, dest, iOffset, iLength);
 	}
 }
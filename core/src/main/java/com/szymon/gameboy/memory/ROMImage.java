@@ -0,0 +1,69 @@
+/**
+ * Class to represent the data of a ROM, which can be shared between any carts running the same game
+ * The data is never written to, and carts only ever see a read-only view of it
+ */
+
+package com.szymon.gameboy.memory;
+
+import java.nio.ByteBuffer;
+
+public class ROMImage 
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private final String szHash;	//the hash of the ROM's contents, used to find the image in the registry
+	private final byte[] u8Data;	//the actual data of the ROM
+	private int iReferences;	//the number of carts currently using this image
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	//only the registry creates images
+	ROMImage(String szHashIn, byte[] data)
+	{
+		szHash = szHashIn;
+		u8Data = data;
+		iReferences = 0;
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	public String getHash()
+	{
+		return szHash;
+	}
+	
+	public int getSize()
+	{
+		return u8Data.length;
+	}
+	
+	//gets a read-only view of the ROM data, each cart should get its own view
+	public ByteBuffer getData()
+	{
+		return ByteBuffer.wrap(u8Data).asReadOnlyBuffer();
+	}
+	
+	public int getReferences()
+	{
+		return iReferences;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//reference counting is done by the registry, while holding its lock
+	int addReference()
+	{
+		iReferences++;
+		return iReferences;
+	}
+	
+	int removeReference()
+	{
+		iReferences--;
+		return iReferences;
+	}
+}
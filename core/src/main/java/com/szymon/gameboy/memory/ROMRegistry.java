@@ -0,0 +1,96 @@
+/**
+ * Class to share ROM images between all of the emulators in the JVM
+ * Images are keyed by the hash of their contents, so loading the same game many times
+ * only ever keeps one copy of the ROM in memory
+ * Images are reference counted, and removed once the last cart using them is closed
+ */
+
+package com.szymon.gameboy.memory;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+
+public class ROMRegistry 
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private static final HashMap<String, ROMImage> images = new HashMap<String, ROMImage>();
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	private ROMRegistry()
+	{
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	//the number of distinct ROMs currently loaded
+	public static synchronized int getImageCount()
+	{
+		return images.size();
+	}
+	
+	//the number of bytes of ROM currently loaded across all emulators
+	public static synchronized long getLoadedBytes()
+	{
+		long lBytes = 0;
+		for (ROMImage image : images.values())
+		{
+			lBytes += image.getSize();
+		}
+		return lBytes;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//gets the shared image for the given ROM data, adding it if it isn't already loaded
+	//every call must be matched by a call to releaseImage
+	public static synchronized ROMImage acquireImage(byte[] data)
+	{
+		String szHash = hashData(data);
+		ROMImage image = images.get(szHash);
+		
+		if (image == null)
+		{
+			image = new ROMImage(szHash, data);
+			images.put(szHash, image);
+		}
+		
+		image.addReference();
+		return image;
+	}
+	
+	//releases an image, removing it once nothing is using it
+	public static synchronized void releaseImage(ROMImage image)
+	{
+		if (image.removeReference() <= 0)
+		{
+			images.remove(image.getHash());
+		}
+	}
+	
+	//gets the hash of some ROM data as a hex string
+	private static String hashData(byte[] data)
+	{
+		try 
+		{
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(data);
+			StringBuilder szHash = new StringBuilder();
+			for (byte b : hash)
+			{
+				szHash.append(String.format("%02x", b));
+			}
+			return szHash.toString();
+		} 
+		catch (NoSuchAlgorithmException e) 
+		{
+			//every JVM has to provide SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+}
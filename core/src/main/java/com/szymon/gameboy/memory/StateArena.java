@@ -0,0 +1,201 @@
+/**
+ * Class to hold all of the mutable emulated state in one contiguous block of memory
+ * Each subsystem has a fixed offset in the arena, and reads/writes its state through it,
+ * so saving, restoring, hashing and comparing the whole machine are simple bulk operations
+ */
+
+package com.szymon.gameboy.memory;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Arena Layout (offsets are fixed, only the cart RAM at the end varies in size)
+ * 0000-1FFF WRAM
+ * 2000-3FFF VRAM
+ * 4000-409F OAM
+ * 40A0-411F HRAM
+ * 4120-     Timer (DIV (16 bit), TIMA, TMA, TAC)
+ *           Interrupts (IF, IE)
+ *           Serial (SB, SC)
+ *           LCD registers (FF40-FF4B, in address order)
+ *           Joypad (select bits, buttons)
+ *           DMA (active, source page, counter, revealed, start delay)
+ *           CPU registers (A, F, B, C, D, E, H, L, PC (16 bit), SP (16 bit), IME, enabling IME, halted)
+ *           Cycle (ticks (32 bit), overflow ticks, overflow, execute overflow, frame cycles (32 bit))
+ *           PPU (line ticks (16 bit), window line, scanline complete, OAM complete)
+ *           APU (sound registers FF10-FF3F, frame sequencer, the state of each channel, cycles still to be run)
+ *           Cart MBC registers (RAM enable, ROM bank, RAM bank, mode)
+ *           Cart RAM (size depends on the cart, not present if the RAM is mapped over the save file)
+ * Multi-byte values are big-endian
+ */
+
+public class StateArena
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	public static final int iWRAM_OFFSET = 0x0000;
+	public static final int iVRAM_OFFSET = iWRAM_OFFSET + 0x2000;
+	public static final int iOAM_OFFSET = iVRAM_OFFSET + 0x2000;
+	public static final int iHRAM_OFFSET = iOAM_OFFSET + 0xA0;
+	public static final int iTIMER_OFFSET = iHRAM_OFFSET + 0x80;
+	public static final int iINTERRUPT_OFFSET = iTIMER_OFFSET + 5;
+	public static final int iSERIAL_OFFSET = iINTERRUPT_OFFSET + 2;
+	public static final int iLCD_OFFSET = iSERIAL_OFFSET + 2;
+	public static final int iJOYPAD_OFFSET = iLCD_OFFSET + 12;
+	public static final int iDMA_OFFSET = iJOYPAD_OFFSET + 2;
+	public static final int iCPU_OFFSET = iDMA_OFFSET + 5;
+	public static final int iCYCLE_OFFSET = iCPU_OFFSET + 15;
+	public static final int iPPU_OFFSET = iCYCLE_OFFSET + 11;
+	public static final int iAPU_OFFSET = iPPU_OFFSET + 5;
+	public static final int iCART_OFFSET = iAPU_OFFSET + 0x78;
+	public static final int iCART_RAM_OFFSET = iCART_OFFSET + 4;
+	
+	private final byte[] u8Arena;
+	private final ByteBuffer bbArena;	//view of the arena, used for multi-byte values
+	
+	//called after a restore, for components that keep state derived from the arena (e.g. caches)
+	private final List<Runnable> restoreListeners;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	//the size of the cart RAM must be known up front, as it is the only part that varies
+	public StateArena(int iCartRAMSize)
+	{
+		u8Arena = new byte[iCART_RAM_OFFSET + iCartRAMSize];
+		bbArena = ByteBuffer.wrap(u8Arena);
+		restoreListeners = new CopyOnWriteArrayList<Runnable>();
+	}
+	
+	// ---------------------------------------------
+	// setters
+	// ---------------------------------------------
+	public void setByte(int iOffset, int iValue)
+	{
+		u8Arena[iOffset] = (byte) iValue;
+	}
+	
+	public void setBool(int iOffset, boolean bValue)
+	{
+		u8Arena[iOffset] = (byte) (bValue ? 1 : 0);
+	}
+	
+	public void setShort(int iOffset, int iValue)
+	{
+		bbArena.putShort(iOffset, (short) iValue);
+	}
+	
+	public void setInt(int iOffset, int iValue)
+	{
+		bbArena.putInt(iOffset, iValue);
+	}
+	
+	public void addRestoreListener(Runnable listener)
+	{
+		restoreListeners.add(listener);
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	public int getByte(int iOffset)
+	{
+		return u8Arena[iOffset] & 0xFF;
+	}
+	
+	public boolean getBool(int iOffset)
+	{
+		return u8Arena[iOffset] != 0;
+	}
+	
+	public int getShort(int iOffset)
+	{
+		return bbArena.getShort(iOffset) & 0xFFFF;
+	}
+	
+	public int getInt(int iOffset)
+	{
+		return bbArena.getInt(iOffset);
+	}
+	
+	//gives direct access to the arena, for components that copy blocks in and out of it
+	public byte[] getArray()
+	{
+		return u8Arena;
+	}
+	
+	//gets a view of part of the arena, which shares the arena's memory
+	public ByteBuffer getSlice(int iOffset, int iLength)
+	{
+		ByteBuffer bbSlice = bbArena.duplicate();
+		bbSlice.position(iOffset);
+		bbSlice.limit(iOffset + iLength);
+		return bbSlice.slice();
+	}
+	
+	public int getSize()
+	{
+		return u8Arena.length;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//copies the whole state into a new snapshot
+	public byte[] snapshot()
+	{
+		return Arrays.copyOf(u8Arena, u8Arena.length);
+	}
+	
+	//copies the whole state into an existing snapshot, to avoid allocating
+	public void snapshot(byte[] dest)
+	{
+		System.arraycopy(u8Arena, 0, dest, 0, u8Arena.length);
+	}
+	
+	//restores the whole state from a snapshot (which must have come from an arena of the same size)
+	public void restore(byte[] src)
+	{
+		if (src.length != u8Arena.length)
+		{
+			throw new IllegalArgumentException("Snapshot size " + src.length + " does not match arena size " + u8Arena.length);
+		}
+		
+		System.arraycopy(src, 0, u8Arena, 0, u8Arena.length);
+		
+		for (Runnable listener : restoreListeners)
+		{
+			listener.run();
+		}
+	}
+	
+	//hashes the whole state (FNV-1a over 8 bytes at a time)
+	public long hash()
+	{
+		long lHash = 0xcbf29ce484222325L;
+		int i = 0;
+		
+		for (; i + 8 <= u8Arena.length; i += 8)
+		{
+			lHash ^= bbArena.getLong(i);
+			lHash *= 0x100000001b3L;
+		}
+		for (; i < u8Arena.length; i++)
+		{
+			lHash ^= u8Arena[i];
+			lHash *= 0x100000001b3L;
+		}
+		
+		return lHash;
+	}
+	
+	//finds the first offset at which the state differs from a snapshot, or -1 if they are the same
+	public int compare(byte[] snapshot)
+	{
+		return Arrays.mismatch(u8Arena, snapshot);
+	}
+}
@@ -17,17 +17,25 @@ public class Timer
 	private final int iTMA_ADDRESS = 0xFF06;
 	private final int iTAC_ADDRESS = 0xFF07;
 	
-	private Unsigned16 u16DIV;	//incremented at 16384Hz, writing any value resets it to 0x00. Internally, it is a 16 bit register, but when read, the high byte is read
-	private Unsigned8 u8TIMA;	//incremented at the clock frequency specified by TAC, resets to value in TMA when it overflows
-	private Unsigned8 u8TMA;	//when TIMA overflows, reset to this value and an interrupt is requested
-	private Unsigned8 u8TAC;	//bit 2 controls whether tima is incremented, and bits 1 and 0 decide on the frequency
+	//all of the registers are stored in the state arena
+	//DIV: incremented at 16384Hz, writing any value resets it to 0x00. Internally, it is a 16 bit register, but when read, the high byte is read
+	//TIMA: incremented at the clock frequency specified by TAC, resets to value in TMA when it overflows
+	//TMA: when TIMA overflows, reset to this value and an interrupt is requested
+	//TAC: bit 2 controls whether tima is incremented, and bits 1 and 0 decide on the frequency
+	private final int iDIV_OFFSET = StateArena.iTIMER_OFFSET;
+	private final int iTIMA_OFFSET = StateArena.iTIMER_OFFSET + 2;
+	private final int iTMA_OFFSET = StateArena.iTIMER_OFFSET + 3;
+	private final int iTAC_OFFSET = StateArena.iTIMER_OFFSET + 4;
+	
+	private StateArena arena;
 	
 	// ---------------------------------------------
 	// constructors
 	// ---------------------------------------------
 	//must be created with the same memory used by the CPU
-	public Timer()
+	public Timer(StateArena arenaIn)
 	{
+		arena = arenaIn;
 		reset();
 	}
 	
@@ -38,22 +46,28 @@ public class Timer
 	{
 		if (u16Address.getValue() == iDIV_ADDRESS)
 		{
-			u16DIV.setValue(0);
+			arena.setShort(iDIV_OFFSET, 0);
 		}
 		else if (u16Address.getValue() == iTIMA_ADDRESS)
 		{
-			u8TIMA.setValue(u8Data);
+			setTIMA(u8Data.getValue());
 		}
 		else if (u16Address.getValue() == iTMA_ADDRESS)
 		{
-			u8TMA.setValue(u8Data);
+			arena.setByte(iTMA_OFFSET, u8Data.getValue());
 		}
 		else if (u16Address.getValue() == iTAC_ADDRESS)
 		{
-			u8TAC.setValue(u8Data);
+			arena.setByte(iTAC_OFFSET, u8Data.getValue());
 		}
 	}
 	
+	//allows the cycle class to update TIMA directly
+	public void setTIMA(int iValue)
+	{
+		arena.setByte(iTIMA_OFFSET, iValue);
+	}
+	
 	// ---------------------------------------------
 	// getters
 	// ---------------------------------------------
@@ -61,38 +75,54 @@ public class Timer
 	{
 		if (u16Address.getValue() == iDIV_ADDRESS)
 		{
-			return u16DIV.getHighByte();
+			return new Unsigned8(arena.getShort(iDIV_OFFSET) >>> 8);
 		}
 		else if (u16Address.getValue() == iTIMA_ADDRESS)
 		{
-			return u8TIMA;
+			return new Unsigned8(getTIMA());
 		}
 		else if (u16Address.getValue() == iTMA_ADDRESS)
 		{
-			return u8TMA;
+			return new Unsigned8(getTMA());
 		}
 		else if (u16Address.getValue() == iTAC_ADDRESS)
 		{
-			return u8TAC;
+			return new Unsigned8(getTAC());
 		}
 		
 		return new Unsigned8();
 	}
 	
+	//these allow the cycle class to read the registers without going through memory
+	public int getTIMA()
+	{
+		return arena.getByte(iTIMA_OFFSET);
+	}
+	
+	public int getTMA()
+	{
+		return arena.getByte(iTMA_OFFSET);
+	}
+	
+	public int getTAC()
+	{
+		return arena.getByte(iTAC_OFFSET);
+	}
+	
 	// ---------------------------------------------
 	// methods
 	// ---------------------------------------------
 	public void reset()
 	{
-		u16DIV = new Unsigned16(0xABCC);
-		u8TIMA = new Unsigned8();
-		u8TMA = new Unsigned8();
-		u8TAC = new Unsigned8(0xF8);
+		arena.setShort(iDIV_OFFSET, 0xABCC);
+		arena.setByte(iTIMA_OFFSET, 0);
+		arena.setByte(iTMA_OFFSET, 0);
+		arena.setByte(iTAC_OFFSET, 0xF8);
 	}
 	
 	//allows for the div register to be incremented from the cycle class
 	public void incrementDIV()
 	{
-		u16DIV.increment();
+		arena.setShort(iDIV_OFFSET, arena.getShort(iDIV_OFFSET) + 1);
 	}
 }
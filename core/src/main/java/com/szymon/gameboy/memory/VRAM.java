@@ -0,0 +1,241 @@
+/**
+ * @author 18bilkiewiczs
+ * Class to store the relevant graphics memory
+ * (OAM and VRAM)
+ */
+
+package com.szymon.gameboy.memory;
+
+import java.util.Arrays;
+
+import com.szymon.gameboy.ppu.LayerCache;
+import com.szymon.gameboy.utils.Unsigned16;
+import com.szymon.gameboy.utils.Unsigned8;
+
+public class VRAM 
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	final private int iOAM_SIZE = 0xA0;
+	final private int iVRAM_SIZE = 0x2000;
+	final private int iOAM_START_ADDRESS = 0xFE00;
+	final private int iVRAM_START_ADDRESS = 0x8000;
+	final private int iTILE_DATA_SIZE = 0x1800;	//8000-97FF holds the tile data, the rest of VRAM is the tile maps
+	final public static int iTILE_COUNT = 384;
+	
+	//OAM and VRAM are both stored in the state arena, so that blocks can be copied in and out in one go (e.g. for DMA)
+	private byte[] u8Arena;
+	
+	//every tile decoded into colour indices (0-3), 64 bytes per tile with each row of 8 pixels stored in turn (left to right)
+	//the flipped cache holds the same tiles mirrored horizontally, for sprites with x flip
+	//these are kept up to date on every write to tile data, so they never need decoding when drawn
+	private byte[] u8TileCache;
+	private byte[] u8FlippedTileCache;
+	
+	//if the PPU is keeping the background maps pre-rendered, it is told which map cells and tiles change
+	private LayerCache layerCache;
+	//called before VRAM changes, e.g. so that lines waiting to be drawn are drawn from VRAM as it was
+	private Runnable writeListener;
+	//incremented whenever VRAM changes, so the debug viewers know when to redraw
+	//it is read by them without locking, as they only need to see a change eventually
+	private int iVRAMVersion;
+	
+	//each of the 40 OAM entries packed into an int, kept up to date on every OAM write and DMA copy
+	//bits 31-24: Y position, 23-16: X position, 15-8: tile index, 7-0: attributes
+	//Attributes:
+	//Bit 7: Priority: 0 = No, 1 = BG and Window colors 1-3 are drawn over this OBJ
+	//Bit 6: Y flip: 0 = Normal, 1 = Entire OBJ is vertically mirrored
+	//Bit 5: X flip: 0 = Normal, 1 = Entire OBJ is horizontally mirrored
+	//Bit 4: DMG palette [Non CGB Mode only]: 0 = OBP0, 1 = OBP1
+	//Bits 3-0 are CGB only
+	final public static int iOAM_ENTRIES = 40;
+	private int[] iPackedOAM;
+	private int iOAMVersion;	//incremented whenever OAM changes, so the PPU knows when to re-sort the sprites
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public VRAM(StateArena arena)
+	{
+		u8Arena = arena.getArray();
+		Arrays.fill(u8Arena, StateArena.iOAM_OFFSET, StateArena.iOAM_OFFSET + iOAM_SIZE, (byte) 0);
+		Arrays.fill(u8Arena, StateArena.iVRAM_OFFSET, StateArena.iVRAM_OFFSET + iVRAM_SIZE, (byte) 0);
+		
+		iPackedOAM = new int[iOAM_ENTRIES];
+		iOAMVersion = 0;
+		iVRAMVersion = 0;
+		
+		u8TileCache = new byte[iTILE_COUNT * 64];
+		u8FlippedTileCache = new byte[iTILE_COUNT * 64];
+		
+		//the caches are derived from VRAM and OAM, so must be rebuilt if the arena is restored from a snapshot
+		arena.addRestoreListener(this::rebuildTileCache);
+		arena.addRestoreListener(() -> repackOAM(0, iOAM_SIZE));
+	}
+	
+	// ---------------------------------------------
+	// setters
+	// ---------------------------------------------
+	public void writeOAM(Unsigned16 u16Address, Unsigned8 u8Data)
+	{
+		int iAddress = u16Address.getValue();
+		iAddress -= iOAM_START_ADDRESS;
+		u8Arena[StateArena.iOAM_OFFSET + iAddress] = (byte) u8Data.getValue();
+		repackOAM(iAddress, 1);
+	}
+	
+	//turns the layer cache on (or off, if null)
+	public void setLayerCache(LayerCache cache)
+	{
+		layerCache = cache;
+	}
+	
+	public void setWriteListener(Runnable listener)
+	{
+		writeListener = listener;
+	}
+	
+	public void writeVRAM(Unsigned16 u16Address, Unsigned8 u8Data)
+	{
+		int iAddress = u16Address.getValue();
+		iAddress -= iVRAM_START_ADDRESS;
+		
+		//only bytes that have actually changed need the caches updating
+		if (u8Arena[StateArena.iVRAM_OFFSET + iAddress] == (byte) u8Data.getValue())
+		{
+			return;
+		}
+		
+		if (writeListener != null)
+		{
+			writeListener.run();
+		}
+		
+		u8Arena[StateArena.iVRAM_OFFSET + iAddress] = (byte) u8Data.getValue();
+		iVRAMVersion++;
+		
+		if (iAddress < iTILE_DATA_SIZE)
+		{
+			decodeTileRow(iAddress >> 1);
+			if (layerCache != null)
+			{
+				layerCache.markTile(iAddress >> 4);
+			}
+		}
+		else if (layerCache != null)
+		{
+			layerCache.markCell(iAddress - iTILE_DATA_SIZE);
+		}
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	//the bytes of the decoded tile caches and packed OAM, which are kept alongside VRAM in the arena
+	public long getFootprint()
+	{
+		return u8TileCache.length + u8FlippedTileCache.length + iPackedOAM.length * 4L;
+	}
+	
+	public Unsigned8 readOAM(Unsigned16 u16Address)
+	{
+		int iAddress = u16Address.getValue();
+		iAddress -= iOAM_START_ADDRESS;
+		return new Unsigned8(u8Arena[StateArena.iOAM_OFFSET + iAddress]);
+	}
+	
+	public Unsigned8 readVRAM(Unsigned16 u16Address)
+	{
+		int iAddress = u16Address.getValue();
+		iAddress -= iVRAM_START_ADDRESS;
+		return new Unsigned8(u8Arena[StateArena.iVRAM_OFFSET + iAddress]);
+	}
+	
+	//reads a byte of VRAM as an int, for the renderer (e.g. for the tile maps)
+	public int getVRAMByte(int iAddress)
+	{
+		return u8Arena[StateArena.iVRAM_OFFSET + iAddress - iVRAM_START_ADDRESS] & 0xFF;
+	}
+	
+	public int[] getPackedOAM()
+	{
+		return iPackedOAM;
+	}
+	
+	public int getOAMVersion()
+	{
+		return iOAMVersion;
+	}
+	
+	public int getVRAMVersion()
+	{
+		return iVRAMVersion;
+	}
+	
+	public byte[] getTileCache()
+	{
+		return u8TileCache;
+	}
+	
+	public byte[] getFlippedTileCache()
+	{
+		return u8FlippedTileCache;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//copies a block of VRAM out in one go
+	public void readVRAMBlock(int iAddress, byte[] dest, int iOffset, int iLength)
+	{
+		System.arraycopy(u8Arena, StateArena.iVRAM_OFFSET + iAddress - iVRAM_START_ADDRESS, dest, iOffset, iLength);
+	}
+	
+	//packs the OAM entries covering a range of OAM bytes again, used after any OAM write
+	public void repackOAM(int iStart, int iLength)
+	{
+		int iOAMStart = StateArena.iOAM_OFFSET;
+		
+		for (int iEntry = iStart / 4; iEntry <= (iStart + iLength - 1) / 4; iEntry++)
+		{
+			int iByte = iOAMStart + iEntry * 4;
+			iPackedOAM[iEntry] = ((u8Arena[iByte] & 0xFF) << 24) | ((u8Arena[iByte + 1] & 0xFF) << 16)
+					| ((u8Arena[iByte + 2] & 0xFF) << 8) | (u8Arena[iByte + 3] & 0xFF);
+		}
+		
+		iOAMVersion++;
+	}
+	
+	//decodes every tile again, used when VRAM has been changed without going through writeVRAM
+	public void rebuildTileCache()
+	{
+		for (int iRow = 0; iRow < iTILE_COUNT * 8; iRow++)
+		{
+			decodeTileRow(iRow);
+		}
+		iVRAMVersion++;
+		
+		if (layerCache != null)
+		{
+			layerCache.markAll();
+		}
+	}
+	
+	//decodes one row of a tile (2 bytes, numbered across all tiles) into both caches
+	//bit 7 of each byte is the leftmost pixel, with the first byte holding the low bit of the colour index
+	private void decodeTileRow(int iRow)
+	{
+		int iLow = u8Arena[StateArena.iVRAM_OFFSET + iRow * 2] & 0xFF;
+		int iHigh = u8Arena[StateArena.iVRAM_OFFSET + iRow * 2 + 1] & 0xFF;
+		int iStart = iRow * 8;
+		
+		for (int x = 0; x < 8; x++)
+		{
+			int iBit = 7 - x;
+			byte u8Index = (byte) (((iLow >> iBit) & 1) | (((iHigh >> iBit) & 1) << 1));
+			u8TileCache[iStart + x] = u8Index;
+			u8FlippedTileCache[iStart + 7 - x] = u8Index;
+		}
+	}
+}
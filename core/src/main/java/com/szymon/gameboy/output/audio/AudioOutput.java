@@ -0,0 +1,133 @@
+/**
+ * Class for somewhere the APU's samples can be played (or saved), each output has its own thread which takes the
+ * samples out of a ring buffer and writes them, so the emulation thread never blocks on the output itself
+ */
+
+package com.szymon.gameboy.output.audio;
+
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+
+import com.szymon.gameboy.apu.APU;
+import com.szymon.gameboy.apu.AudioRingBuffer;
+
+public abstract class AudioOutput implements Runnable
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	public static final int iSAMPLE_RATE = 48000;
+	private final int iRING_FRAMES = 16384;
+	private final int iCHUNK_FRAMES = 512;	//the most frames written at once
+	
+	private final String szName;
+	private final boolean bPacing;
+	private final AudioRingBuffer ring;
+	
+	private Thread writer;
+	private Thread shutdownHook;
+	private volatile boolean bRunning;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	//bPacingIn is true if the output plays in real time, so the emulator can follow it
+	protected AudioOutput(String szNameIn, boolean bPacingIn)
+	{
+		szName = szNameIn;
+		bPacing = bPacingIn;
+		ring = new AudioRingBuffer(iRING_FRAMES);
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	public void start()
+	{
+		bRunning = true;
+		writer = new Thread(this, szName);
+		writer.setDaemon(true);
+		writer.start();
+		
+		//the output is finished off if the program exits while it is running (e.g. the window is closed)
+		shutdownHook = new Thread(this::stop);
+		Runtime.getRuntime().addShutdownHook(shutdownHook);
+	}
+	
+	//sends the APU's samples to this output, this must be done again when the APU is replaced (on a reset)
+	public void attach(APU apu)
+	{
+		apu.setOutput(ring, iSAMPLE_RATE, bPacing);
+	}
+	
+	//stops taking samples from the APU, writes whatever is left in the ring buffer, then closes the output
+	public synchronized void stop()
+	{
+		if (!bRunning)
+		{
+			return;
+		}
+		bRunning = false;
+		ring.close();
+		
+		try
+		{
+			writer.join();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		
+		if (Thread.currentThread() != shutdownHook)
+		{
+			Runtime.getRuntime().removeShutdownHook(shutdownHook);
+		}
+	}
+	
+	//takes the samples out of the ring buffer as they come, and writes them as 16 bit little-endian
+	@Override
+	public void run()
+	{
+		short[] sSamples = new short[iCHUNK_FRAMES * 2];
+		byte[] u8Bytes = new byte[iCHUNK_FRAMES * 4];
+		
+		try
+		{
+			while (true)
+			{
+				int iCount = ring.read(sSamples, 0, sSamples.length);
+				if (iCount == 0)
+				{
+					if (!bRunning)
+					{
+						break;
+					}
+					LockSupport.parkNanos(1000000);
+					continue;
+				}
+				
+				for (int i = 0; i < iCount; i++)
+				{
+					u8Bytes[i * 2] = (byte) sSamples[i];
+					u8Bytes[i * 2 + 1] = (byte) (sSamples[i] >> 8);
+				}
+				writeBytes(u8Bytes, iCount * 2);
+			}
+			closeOutput();
+		}
+		catch (IOException e)
+		{
+			System.err.println("Could not write the sound: " + e.getMessage());
+		}
+		finally
+		{
+			//the APU mustn't wait for an output that has gone
+			ring.close();
+		}
+	}
+	
+	protected abstract void writeBytes(byte[] u8Bytes, int iLength) throws IOException;
+	
+	protected abstract void closeOutput() throws IOException;
+}
@@ -0,0 +1,64 @@
+/**
+ * Class to play the sound through the sound card, which also sets the emulator's pace
+ */
+
+package com.szymon.gameboy.output.audio;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+public class SoundCardOutput extends AudioOutput
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private static final int iLINE_FRAMES = 2048;	//the size of the sound card's own buffer
+	
+	private final SourceDataLine line;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	private SoundCardOutput(SourceDataLine lineIn)
+	{
+		super("SoundCard", true);
+		line = lineIn;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//opens the default sound device, returning null if there isn't one
+	public static SoundCardOutput open()
+	{
+		AudioFormat format = new AudioFormat(iSAMPLE_RATE, 16, 2, true, false);
+		try
+		{
+			SourceDataLine line = AudioSystem.getSourceDataLine(format);
+			line.open(format, iLINE_FRAMES * 4);
+			line.start();
+			return new SoundCardOutput(line);
+		}
+		catch (LineUnavailableException | IllegalArgumentException | SecurityException e)
+		{
+			System.err.println("No sound device: " + e.getMessage());
+			return null;
+		}
+	}
+	
+	//blocks while the sound card's buffer is full
+	@Override
+	protected void writeBytes(byte[] u8Bytes, int iLength)
+	{
+		line.write(u8Bytes, 0, iLength);
+	}
+	
+	@Override
+	protected void closeOutput()
+	{
+		line.drain();
+		line.close();
+	}
+}
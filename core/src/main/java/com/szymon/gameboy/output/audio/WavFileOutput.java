@@ -0,0 +1,77 @@
+/**
+ * Class to save the sound to a WAV file (16 bit stereo PCM), for when there is no sound card, e.g. when running headless
+ * The file is written as fast as the emulator makes the samples, so it doesn't set the pace
+ */
+
+package com.szymon.gameboy.output.audio;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+public class WavFileOutput extends AudioOutput
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private static final int iHEADER_SIZE = 44;
+	
+	private final FileChannel channel;
+	private long lDataBytes;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public WavFileOutput(File file) throws IOException
+	{
+		super("WavWriter", false);
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		//the sizes in the header are filled in when the file is closed
+		channel.write(makeHeader(0));
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	@Override
+	protected void writeBytes(byte[] u8Bytes, int iLength) throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.wrap(u8Bytes, 0, iLength);
+		while (buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+		lDataBytes += iLength;
+	}
+	
+	@Override
+	protected void closeOutput() throws IOException
+	{
+		channel.write(makeHeader(lDataBytes), 0);
+		channel.close();
+	}
+	
+	//the RIFF header, for the given number of bytes of samples
+	private static ByteBuffer makeHeader(long lDataBytes)
+	{
+		int iDataBytes = (int) Math.min(lDataBytes, Integer.MAX_VALUE - iHEADER_SIZE);
+		ByteBuffer header = ByteBuffer.allocate(iHEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		header.put(new byte[] {'R', 'I', 'F', 'F'});
+		header.putInt(iHEADER_SIZE - 8 + iDataBytes);
+		header.put(new byte[] {'W', 'A', 'V', 'E', 'f', 'm', 't', ' '});
+		header.putInt(16);	//the size of the format chunk
+		header.putShort((short) 1);	//PCM
+		header.putShort((short) 2);	//channels
+		header.putInt(iSAMPLE_RATE);
+		header.putInt(iSAMPLE_RATE * 4);	//bytes per second
+		header.putShort((short) 4);	//bytes per frame
+		header.putShort((short) 16);	//bits per sample
+		header.put(new byte[] {'d', 'a', 't', 'a'});
+		header.putInt(iDataBytes);
+		header.flip();
+		return header;
+	}
+}
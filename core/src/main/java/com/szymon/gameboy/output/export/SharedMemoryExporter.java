@@ -0,0 +1,242 @@
+/**
+ * Class to share the screen and work RAM with other processes through a memory mapped file (in /dev/shm if there is one)
+ * At every VBlank the latest frame, WRAM and HRAM are copied into the file under a seqlock:
+ * the sequence is made odd before writing and even again after, so a reader copies what it needs,
+ * then checks that the sequence was even and unchanged, retrying if not
+ * The emulator never waits for a reader, and readers never lock anything
+ */
+
+package com.szymon.gameboy.output.export;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import com.szymon.gameboy.memory.StateArena;
+import com.szymon.gameboy.ppu.FrameListener;
+import com.szymon.gameboy.ppu.PPU;
+
+/**
+ * File Layout (all numbers are little-endian)
+ * 0000 Magic "GBSM" (4 bytes)
+ * 0004 Version (16 bit)
+ * 0006 Header size (16 bit)
+ * 0008 Sequence (64 bit), odd while the emulator is writing, read it before and after copying anything below
+ * 0010 Frame number (64 bit), counts the frames exported since the file was made
+ * 0018 Status (32 bit), 1 while the emulator is exporting, 0 once it has stopped
+ * 001C Width, height (16 bit each)
+ * 0020 Colour of each of the 4 shades, as 0x00RRGGBB (32 bit each)
+ * 0030 Offsets of the frame, WRAM and HRAM (32 bit each), then 4 reserved bytes
+ * 0040 Frame, the shade (0 is lightest, 3 darkest) of each pixel as a byte, 160 to a row, 144 rows
+ * 5A40 WRAM, C000-DFFF
+ * 7A40 HRAM, FF80-FFFE, followed by IE (FFFF)
+ * 7AC0 End of the file
+ */
+
+public class SharedMemoryExporter implements FrameListener
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	public static final int iMAGIC = 0x4D534247;	//"GBSM" when read as a little-endian int
+	public static final int iVERSION = 1;
+	public static final int iHEADER_SIZE = 0x40;
+	public static final int iSEQUENCE_OFFSET = 0x08;
+	public static final int iFRAME_NUMBER_OFFSET = 0x10;
+	public static final int iSTATUS_OFFSET = 0x18;
+	public static final int iSIZE_OFFSET = 0x1C;
+	public static final int iCOLOURS_OFFSET = 0x20;
+	public static final int iOFFSETS_OFFSET = 0x30;
+	
+	public static final int iWIDTH = 160;
+	public static final int iHEIGHT = 144;
+	public static final int iFRAME_OFFSET = iHEADER_SIZE;
+	public static final int iFRAME_SIZE = iWIDTH * iHEIGHT;
+	public static final int iWRAM_OFFSET = iFRAME_OFFSET + iFRAME_SIZE;
+	public static final int iWRAM_SIZE = 0x2000;
+	public static final int iHRAM_OFFSET = iWRAM_OFFSET + iWRAM_SIZE;
+	public static final int iHRAM_SIZE = 0x80;
+	public static final int iFILE_SIZE = iHRAM_OFFSET + iHRAM_SIZE;
+	
+	public static final int iSTATUS_STOPPED = 0;
+	public static final int iSTATUS_RUNNING = 1;
+	
+	private static final String szDEFAULT_NAME = "gameboy-emu.shm";
+	
+	//the sequence is written with fences, so the other writes can't be seen to move past it
+	private static final VarHandle SEQUENCE = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+	
+	private final File file;
+	private MappedByteBuffer mapped;
+	private ByteBuffer frameSlice;
+	private ByteBuffer wramSlice;
+	private ByteBuffer hramSlice;
+	private long lSequence;
+	private long lFrameNumber;
+	
+	private PPU ppu;
+	private StateArena arena;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	//uses the default file, in /dev/shm if it exists, otherwise the temporary folder
+	public SharedMemoryExporter()
+	{
+		file = getDefaultFile();
+	}
+	
+	public SharedMemoryExporter(File fileIn)
+	{
+		file = fileIn;
+	}
+	
+	// ---------------------------------------------
+	// setters
+	// ---------------------------------------------
+	//exports the frames from the PPU and the RAM from the arena, moving from the last ones (e.g. when the emulator is reset)
+	public synchronized void attach(PPU ppuIn, StateArena arenaIn)
+	{
+		if (ppu != null)
+		{
+			ppu.removeFrameListener(this);
+		}
+		
+		ppu = ppuIn;
+		arena = arenaIn;
+		if (ppu != null && mapped != null)
+		{
+			ppu.addFrameListener(this);
+		}
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	public File getFile()
+	{
+		return file;
+	}
+	
+	//the file used if none is given, /dev/shm is memory backed so the file never goes to disk
+	public static File getDefaultFile()
+	{
+		File shm = new File("/dev/shm");
+		return new File(shm.isDirectory() ? shm : new File(System.getProperty("java.io.tmpdir")), szDEFAULT_NAME);
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//makes and maps the file, then starts exporting
+	public synchronized void start(PPU ppuIn, StateArena arenaIn) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			//the mapping stays valid once the channel is closed
+			mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, iFILE_SIZE);
+		}
+		mapped.order(ByteOrder.LITTLE_ENDIAN);
+		
+		frameSlice = slice(iFRAME_OFFSET, iFRAME_SIZE);
+		wramSlice = slice(iWRAM_OFFSET, iWRAM_SIZE);
+		hramSlice = slice(iHRAM_OFFSET, iHRAM_SIZE);
+		lSequence = 0;
+		lFrameNumber = 0;
+		
+		mapped.putInt(0, iMAGIC);
+		mapped.putShort(4, (short) iVERSION);
+		mapped.putShort(6, (short) iHEADER_SIZE);
+		mapped.putInt(iSTATUS_OFFSET, iSTATUS_RUNNING);
+		mapped.putShort(iSIZE_OFFSET, (short) iWIDTH);
+		mapped.putShort(iSIZE_OFFSET + 2, (short) iHEIGHT);
+		mapped.putInt(iOFFSETS_OFFSET, iFRAME_OFFSET);
+		mapped.putInt(iOFFSETS_OFFSET + 4, iWRAM_OFFSET);
+		mapped.putInt(iOFFSETS_OFFSET + 8, iHRAM_OFFSET);
+		SEQUENCE.setVolatile(mapped, iSEQUENCE_OFFSET, lSequence);
+		
+		attach(ppuIn, arenaIn);
+	}
+	
+	//stops exporting, marking the file as stopped for any readers still attached, then deletes it
+	public synchronized void stop()
+	{
+		if (mapped == null)
+		{
+			return;
+		}
+		attach(null, null);
+		
+		beginWrite();
+		mapped.putInt(iSTATUS_OFFSET, iSTATUS_STOPPED);
+		endWrite();
+		
+		mapped = null;
+		if (!file.delete())
+		{
+			System.err.println("Could not delete " + file);
+		}
+	}
+	
+	//called on the emulation thread at VBlank, copies the frame, colours and RAM under the seqlock
+	@Override
+	public synchronized void frameCompleted(byte[] u8Frame, boolean bChanged)
+	{
+		if (mapped == null)
+		{
+			return;
+		}
+		
+		int[] iColours = ppu.getLCD().getShadeColours();
+		byte[] u8Arena = arena.getArray();
+		lFrameNumber++;
+		
+		beginWrite();
+		mapped.putLong(iFRAME_NUMBER_OFFSET, lFrameNumber);
+		for (int i = 0; i < 4; i++)
+		{
+			mapped.putInt(iCOLOURS_OFFSET + i * 4, iColours[i] & 0xFFFFFF);
+		}
+		
+		frameSlice.clear();
+		frameSlice.put(u8Frame, 0, iFRAME_SIZE);
+		wramSlice.clear();
+		wramSlice.put(u8Arena, StateArena.iWRAM_OFFSET, iWRAM_SIZE);
+		//IE is kept with the interrupts rather than in HRAM, so it is put after it
+		hramSlice.clear();
+		hramSlice.put(u8Arena, StateArena.iHRAM_OFFSET, iHRAM_SIZE - 1);
+		hramSlice.put(u8Arena[StateArena.iINTERRUPT_OFFSET + 1]);
+		endWrite();
+	}
+	
+	//makes the sequence odd, then fences so the writes after it can't be seen before it
+	//(a volatile write only orders the writes before it, not the plain writes that follow)
+	private void beginWrite()
+	{
+		lSequence++;
+		SEQUENCE.setOpaque(mapped, iSEQUENCE_OFFSET, lSequence);
+		VarHandle.storeStoreFence();
+	}
+	
+	//makes the sequence even again, only once all of the writes before it can be seen
+	private void endWrite()
+	{
+		lSequence++;
+		SEQUENCE.setRelease(mapped, iSEQUENCE_OFFSET, lSequence);
+	}
+	
+	private ByteBuffer slice(int iOffset, int iLength)
+	{
+		ByteBuffer duplicate = mapped.duplicate();
+		duplicate.position(iOffset);
+		duplicate.limit(iOffset + iLength);
+		return duplicate.slice();
+	}
+}
@@ -0,0 +1,157 @@
+/**
+ * Class for another Java process to read the state exported by the SharedMemoryExporter
+ * Each read copies out a consistent frame, WRAM and HRAM, retrying if the emulator wrote to them during the copy
+ * Run on its own, it follows the default file (or the one given), printing what it reads once a second
+ */
+
+package com.szymon.gameboy.output.export;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+public class SharedMemoryReader
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private static final VarHandle SEQUENCE = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+	//how long (ns) a read keeps trying before giving up, a write only takes microseconds so this is only reached if the emulator died mid-write
+	private final long lMAX_READ_NANOS = 100000000L;
+	
+	private final MappedByteBuffer mapped;
+	private final int[] iColours = new int[4];
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public SharedMemoryReader(File file) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			if (channel.size() < SharedMemoryExporter.iFILE_SIZE)
+			{
+				throw new IOException(file + " is too small to be an exported state");
+			}
+			mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, SharedMemoryExporter.iFILE_SIZE);
+		}
+		mapped.order(ByteOrder.LITTLE_ENDIAN);
+		
+		if (mapped.getInt(0) != SharedMemoryExporter.iMAGIC || mapped.getShort(4) != SharedMemoryExporter.iVERSION)
+		{
+			throw new IOException(file + " is not an exported state this reader understands");
+		}
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	//whether the emulator is still exporting, once stopped the last frame stays readable
+	public boolean getRunning()
+	{
+		return mapped.getInt(SharedMemoryExporter.iSTATUS_OFFSET) == SharedMemoryExporter.iSTATUS_RUNNING;
+	}
+	
+	//the sequence changes whenever anything is written, so polling this is a cheap way to wait for a new frame
+	public long getSequence()
+	{
+		return (long) SEQUENCE.getAcquire(mapped, SharedMemoryExporter.iSEQUENCE_OFFSET);
+	}
+	
+	//the colours of each shade as of the last read
+	public int[] getColours()
+	{
+		return iColours;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//copies the latest frame (160 x 144 shades), WRAM (8KB) and HRAM (128 bytes, ending with IE), any of which can be null if not wanted
+	//returns the frame number of what was copied, or -1 if a consistent copy couldn't be made
+	public long read(byte[] u8Frame, byte[] u8WRAM, byte[] u8HRAM)
+	{
+		long lDeadline = System.nanoTime() + lMAX_READ_NANOS;
+		while (System.nanoTime() < lDeadline)
+		{
+			long lStart = getSequence();
+			if ((lStart & 1) != 0)
+			{
+				Thread.onSpinWait();
+				continue;
+			}
+			
+			long lFrameNumber = mapped.getLong(SharedMemoryExporter.iFRAME_NUMBER_OFFSET);
+			for (int i = 0; i < 4; i++)
+			{
+				iColours[i] = mapped.getInt(SharedMemoryExporter.iCOLOURS_OFFSET + i * 4);
+			}
+			copy(SharedMemoryExporter.iFRAME_OFFSET, u8Frame, SharedMemoryExporter.iFRAME_SIZE);
+			copy(SharedMemoryExporter.iWRAM_OFFSET, u8WRAM, SharedMemoryExporter.iWRAM_SIZE);
+			copy(SharedMemoryExporter.iHRAM_OFFSET, u8HRAM, SharedMemoryExporter.iHRAM_SIZE);
+			
+			//the copies must all be done before the sequence is checked again
+			VarHandle.loadLoadFence();
+			if (getSequence() == lStart)
+			{
+				return lFrameNumber;
+			}
+		}
+		
+		return -1;
+	}
+	
+	private void copy(int iOffset, byte[] u8Dest, int iLength)
+	{
+		if (u8Dest != null)
+		{
+			ByteBuffer source = mapped.duplicate();
+			source.position(iOffset);
+			source.get(u8Dest, 0, iLength);
+		}
+	}
+	
+	//follows the exported state until the emulator stops, printing the frame rate and a checksum of the screen and RAM
+	public static void main(String[] args) throws IOException, InterruptedException
+	{
+		File file = args.length > 0 ? new File(args[0]) : SharedMemoryExporter.getDefaultFile();
+		SharedMemoryReader reader = new SharedMemoryReader(file);
+		
+		byte[] u8Frame = new byte[SharedMemoryExporter.iFRAME_SIZE];
+		byte[] u8WRAM = new byte[SharedMemoryExporter.iWRAM_SIZE];
+		byte[] u8HRAM = new byte[SharedMemoryExporter.iHRAM_SIZE];
+		CRC32 crc = new CRC32();
+		long lLastFrame = reader.read(null, null, null);
+		
+		while (reader.getRunning())
+		{
+			Thread.sleep(1000);
+			
+			long lFrameNumber = reader.read(u8Frame, u8WRAM, u8HRAM);
+			if (lFrameNumber < 0)
+			{
+				System.out.println("Could not get a consistent read");
+				continue;
+			}
+			
+			crc.reset();
+			crc.update(u8Frame);
+			long lFrameCRC = crc.getValue();
+			crc.reset();
+			crc.update(u8WRAM);
+			crc.update(u8HRAM);
+			
+			System.out.printf("frame %d (%d fps), screen %08x, RAM %08x%n", lFrameNumber, lFrameNumber - lLastFrame, lFrameCRC, crc.getValue());
+			lLastFrame = lFrameNumber;
+		}
+		
+		System.out.println("The emulator has stopped exporting");
+	}
+}
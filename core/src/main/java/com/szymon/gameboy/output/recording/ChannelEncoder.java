@@ -0,0 +1,76 @@
+/**
+ * Base class for the formats written to a single file
+ * Each record is written as a gathering write of several buffers (e.g. a header and the frame's pixels),
+ * so the pixels never have to be copied into one buffer with the header first
+ */
+
+package com.szymon.gameboy.output.recording;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+public abstract class ChannelEncoder implements FrameEncoder
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	protected static final int iWIDTH = 160;
+	protected static final int iHEIGHT = 144;
+	
+	private FileChannel channel;
+	private long lBytesWritten;
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	@Override
+	public long getBytesWritten()
+	{
+		return lBytesWritten;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//opens the file, replacing anything already there, and writes the header
+	@Override
+	public void open(File file) throws IOException
+	{
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		lBytesWritten = 0;
+		writeHeader();
+	}
+	
+	@Override
+	public void close() throws IOException
+	{
+		if (channel != null)
+		{
+			channel.close();
+			channel = null;
+		}
+	}
+	
+	//writes anything that goes at the start of the file
+	protected abstract void writeHeader() throws IOException;
+	
+	//writes all of the buffers in order, a gathering write may not write them all at once
+	protected void writeBuffers(ByteBuffer... buffers) throws IOException
+	{
+		long lRemaining = 0;
+		for (ByteBuffer buffer : buffers)
+		{
+			lRemaining += buffer.remaining();
+		}
+		
+		while (lRemaining > 0)
+		{
+			long lWritten = channel.write(buffers);
+			lRemaining -= lWritten;
+			lBytesWritten += lWritten;
+		}
+	}
+}
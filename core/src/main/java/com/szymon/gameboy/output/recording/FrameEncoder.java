@@ -0,0 +1,29 @@
+/**
+ * Interface for a format the video recorder can write
+ * Each distinct frame is given once, along with how many frames in a row it was shown for,
+ * so formats that can store the repeats as a count don't have to write the frame again
+ */
+
+package com.szymon.gameboy.output.recording;
+
+import java.io.File;
+import java.io.IOException;
+
+public abstract interface FrameEncoder
+{
+	//---------------------------------------------
+	//getters
+	//---------------------------------------------
+	//the number of bytes written so far
+	public long getBytesWritten();
+	
+	//---------------------------------------------
+	//methods
+	//---------------------------------------------
+	public void open(File file) throws IOException;
+	
+	//u8Frame holds the shade of each pixel, and iColours the RGB colour of each shade when the frame was shown
+	public void writeFrame(byte[] u8Frame, int[] iColours, int iRepeats) throws IOException;
+	
+	public void close() throws IOException;
+}
@@ -0,0 +1,119 @@
+/**
+ * Writes each distinct frame as a 2-bit indexed PNG in a folder, numbered in order
+ * The folder also holds "frames.txt", listing each PNG with the number of frames it was shown for,
+ * so the timing can be rebuilt without storing the repeated frames
+ */
+
+package com.szymon.gameboy.output.recording;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+import javax.imageio.ImageIO;
+
+public class PNGEncoder implements FrameEncoder
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private final int iWIDTH = 160;
+	private final int iHEIGHT = 144;
+	private final String szLIST_FILE = "frames.txt";
+	
+	private File folder;
+	private FileChannel listChannel;
+	private int iFrameNumber;
+	private long lBytesWritten;
+	
+	private final int[] iShades = new int[iWIDTH * iHEIGHT];
+	private final ByteArrayOutputStream pngBytes = new ByteArrayOutputStream();
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	@Override
+	public long getBytesWritten()
+	{
+		return lBytesWritten;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//the file is the folder to write to, which is made if it doesn't exist
+	@Override
+	public void open(File file) throws IOException
+	{
+		folder = file;
+		if (!folder.isDirectory() && !folder.mkdirs())
+		{
+			throw new IOException("Could not make folder " + folder);
+		}
+		
+		listChannel = FileChannel.open(new File(folder, szLIST_FILE).toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		iFrameNumber = 0;
+		lBytesWritten = 0;
+	}
+	
+	@Override
+	public void writeFrame(byte[] u8Frame, int[] iColours, int iRepeats) throws IOException
+	{
+		//the image's palette is the colour of each shade, so the shades are the pixel values
+		byte[] u8R = new byte[4];
+		byte[] u8G = new byte[4];
+		byte[] u8B = new byte[4];
+		for (int i = 0; i < 4; i++)
+		{
+			u8R[i] = (byte) (iColours[i] >> 16);
+			u8G[i] = (byte) (iColours[i] >> 8);
+			u8B[i] = (byte) iColours[i];
+		}
+		BufferedImage image = new BufferedImage(iWIDTH, iHEIGHT, BufferedImage.TYPE_BYTE_BINARY, new IndexColorModel(2, 4, u8R, u8G, u8B));
+		
+		for (int i = 0; i < iShades.length; i++)
+		{
+			iShades[i] = u8Frame[i];
+		}
+		WritableRaster raster = image.getRaster();
+		raster.setPixels(0, 0, iWIDTH, iHEIGHT, iShades);
+		
+		iFrameNumber++;
+		String szName = String.format("frame_%06d.png", iFrameNumber);
+		pngBytes.reset();
+		ImageIO.write(image, "png", pngBytes);
+		
+		try (FileChannel channel = FileChannel.open(new File(folder, szName).toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			writeAll(channel, ByteBuffer.wrap(pngBytes.toByteArray()));
+		}
+		writeAll(listChannel, ByteBuffer.wrap((szName + " " + iRepeats + "\n").getBytes(StandardCharsets.US_ASCII)));
+	}
+	
+	@Override
+	public void close() throws IOException
+	{
+		if (listChannel != null)
+		{
+			listChannel.close();
+			listChannel = null;
+		}
+	}
+	
+	private void writeAll(FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		while (buffer.hasRemaining())
+		{
+			lBytesWritten += channel.write(buffer);
+		}
+	}
+}
@@ -0,0 +1,146 @@
+/**
+ * Class to pack frames of shades 4 pixels to a byte, and compress them against the frame before
+ * The packed frame is XORed with the last one, so unchanged areas become runs of zeros,
+ * then the result is run-length encoded in the style of PackBits:
+ * a control byte of 0 to 127 is followed by that many plus 1 bytes to copy,
+ * and a control byte of -1 to -127 is followed by one byte to repeat 1 minus that many times
+ * The same encoding is used for single rows by the stream server
+ * The decoding methods are kept here too, so the format is defined in one place
+ */
+
+package com.szymon.gameboy.output.recording;
+
+public class PackedCodec
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	public static final int iPACKED_SIZE = 160 * 144 / 4;
+	//the most a packed frame can compress to, if no bytes repeat
+	public static final int iMAX_COMPRESSED_SIZE = iPACKED_SIZE + (iPACKED_SIZE + 127) / 128 + 1;
+	private static final int iMAX_RUN = 128;
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//packs the shades 4 to a byte, the leftmost pixel in the top 2 bits
+	public static void pack(byte[] u8Shades, byte[] u8Packed)
+	{
+		for (int i = 0; i < iPACKED_SIZE; i++)
+		{
+			int iShade = i * 4;
+			u8Packed[i] = (byte) ((u8Shades[iShade] << 6) | (u8Shades[iShade + 1] << 4) | (u8Shades[iShade + 2] << 2) | u8Shades[iShade + 3]);
+		}
+	}
+	
+	public static void unpack(byte[] u8Packed, byte[] u8Shades)
+	{
+		for (int i = 0; i < iPACKED_SIZE; i++)
+		{
+			int iShade = i * 4;
+			u8Shades[iShade] = (byte) ((u8Packed[i] >> 6) & 0b11);
+			u8Shades[iShade + 1] = (byte) ((u8Packed[i] >> 4) & 0b11);
+			u8Shades[iShade + 2] = (byte) ((u8Packed[i] >> 2) & 0b11);
+			u8Shades[iShade + 3] = (byte) (u8Packed[i] & 0b11);
+		}
+	}
+	
+	//compresses the packed frame against the previous packed frame (which should be all zeros for a key frame)
+	//returns the number of bytes written to the output, which must hold at least iMAX_COMPRESSED_SIZE
+	public static int compress(byte[] u8Packed, byte[] u8Previous, byte[] u8Output)
+	{
+		return compress(u8Packed, u8Previous, 0, iPACKED_SIZE, u8Output, 0);
+	}
+	
+	//compresses the packed bytes from iStart up to iEnd (e.g. one row), writing from iOut in the output
+	//returns where the output ends
+	public static int compress(byte[] u8Packed, byte[] u8Previous, int iStart, int iEnd, byte[] u8Output, int iOut)
+	{
+		int i = iStart;
+		while (i < iEnd)
+		{
+			//a run is only worth encoding if it is at least 3 bytes, otherwise it joins the literals
+			int iRun = runLength(u8Packed, u8Previous, i, iEnd);
+			if (iRun >= 3)
+			{
+				u8Output[iOut++] = (byte) (1 - iRun);
+				u8Output[iOut++] = (byte) (u8Packed[i] ^ u8Previous[i]);
+				i += iRun;
+				continue;
+			}
+			
+			int iLiteralStart = i;
+			while (i < iEnd && i - iLiteralStart < iMAX_RUN && runLength(u8Packed, u8Previous, i, iEnd) < 3)
+			{
+				i++;
+			}
+			
+			u8Output[iOut++] = (byte) (i - iLiteralStart - 1);
+			for (int j = iLiteralStart; j < i; j++)
+			{
+				u8Output[iOut++] = (byte) (u8Packed[j] ^ u8Previous[j]);
+			}
+		}
+		
+		return iOut;
+	}
+	
+	//reverses compress, changing the previous packed frame into this one
+	//returns false if the data is not a whole frame
+	public static boolean decompress(byte[] u8Input, int iLength, byte[] u8Packed)
+	{
+		return decompress(u8Input, 0, iLength, u8Packed, 0, iPACKED_SIZE);
+	}
+	
+	//reverses compress for the input from iIn up to iInEnd, which must exactly fill the packed bytes from iStart up to iEnd
+	public static boolean decompress(byte[] u8Input, int iIn, int iInEnd, byte[] u8Packed, int iStart, int iEnd)
+	{
+		int i = iStart;
+		while (iIn < iInEnd)
+		{
+			int iControl = u8Input[iIn++];
+			if (iControl >= 0)
+			{
+				if (i + iControl + 1 > iEnd || iIn + iControl + 1 > iInEnd)
+				{
+					return false;
+				}
+				for (int j = 0; j <= iControl; j++)
+				{
+					u8Packed[i++] ^= u8Input[iIn++];
+				}
+			}
+			else if (iControl > -iMAX_RUN)
+			{
+				if (i + 1 - iControl > iEnd || iIn >= iInEnd)
+				{
+					return false;
+				}
+				byte u8Value = u8Input[iIn++];
+				for (int j = 0; j < 1 - iControl; j++)
+				{
+					u8Packed[i++] ^= u8Value;
+				}
+			}
+			else
+			{
+				return false;
+			}
+		}
+		
+		return i == iEnd;
+	}
+	
+	//the number of bytes from i with the same XORed value, up to the longest run
+	private static int runLength(byte[] u8Packed, byte[] u8Previous, int i, int iEnd)
+	{
+		byte u8Value = (byte) (u8Packed[i] ^ u8Previous[i]);
+		int iRunEnd = Math.min(i + iMAX_RUN, iEnd);
+		int j = i + 1;
+		while (j < iRunEnd && (byte) (u8Packed[j] ^ u8Previous[j]) == u8Value)
+		{
+			j++;
+		}
+		return j - i;
+	}
+}
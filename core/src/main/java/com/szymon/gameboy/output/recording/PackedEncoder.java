@@ -0,0 +1,85 @@
+/**
+ * Writes each frame packed 4 pixels to a byte, and compressed against the frame before (see PackedCodec)
+ * The file starts with a 16 byte header: "GBVP", the version (2 bytes), the width and height (2 bytes each),
+ * how many records apart key frames are (2 bytes) and 4 reserved bytes
+ * Each record is then a flags byte (bit 0 set for a key frame, which is compressed against a blank frame rather than the last frame),
+ * the number of frames it was shown for (4 bytes), the RGB colour of each of the 4 shades (4 bytes each),
+ * the length of the compressed data (4 bytes) and the data
+ * All numbers are big-endian
+ */
+
+package com.szymon.gameboy.output.recording;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class PackedEncoder extends ChannelEncoder
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	public static final int iMAGIC = 0x47425650;	//"GBVP"
+	public static final int iVERSION = 1;
+	public static final int iKEY_FRAME = 0b1;
+	private final int iHEADER_SIZE = 16;
+	private final int iRECORD_HEADER_SIZE = 1 + 4 + 4 * 4 + 4;
+	//a key frame every so often means a damaged or cut short file can still be read from the next one
+	private final int iKEY_INTERVAL = 600;
+	
+	private final ByteBuffer recordHeader = ByteBuffer.allocate(iRECORD_HEADER_SIZE);
+	private final byte[] u8Packed = new byte[PackedCodec.iPACKED_SIZE];
+	private final byte[] u8Previous = new byte[PackedCodec.iPACKED_SIZE];
+	private final byte[] u8Blank = new byte[PackedCodec.iPACKED_SIZE];
+	private final byte[] u8Compressed = new byte[PackedCodec.iMAX_COMPRESSED_SIZE];
+	private final byte[] u8KeyCompressed = new byte[PackedCodec.iMAX_COMPRESSED_SIZE];
+	private int iRecords;
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	@Override
+	protected void writeHeader() throws IOException
+	{
+		iRecords = 0;
+		
+		ByteBuffer header = ByteBuffer.allocate(iHEADER_SIZE);
+		header.putInt(iMAGIC).putShort((short) iVERSION).putShort((short) iWIDTH).putShort((short) iHEIGHT).putShort((short) iKEY_INTERVAL);
+		header.clear();
+		writeBuffers(header);
+	}
+	
+	@Override
+	public void writeFrame(byte[] u8Frame, int[] iColours, int iRepeats) throws IOException
+	{
+		PackedCodec.pack(u8Frame, u8Packed);
+		
+		//a frame is also made a key frame if it compresses better on its own (e.g. when the whole screen scrolls)
+		byte[] u8Data = u8KeyCompressed;
+		int iLength = PackedCodec.compress(u8Packed, u8Blank, u8KeyCompressed);
+		boolean bKeyFrame = true;
+		if (iRecords % iKEY_INTERVAL != 0)
+		{
+			int iDeltaLength = PackedCodec.compress(u8Packed, u8Previous, u8Compressed);
+			if (iDeltaLength < iLength)
+			{
+				u8Data = u8Compressed;
+				iLength = iDeltaLength;
+				bKeyFrame = false;
+			}
+		}
+		System.arraycopy(u8Packed, 0, u8Previous, 0, u8Packed.length);
+		iRecords++;
+		
+		recordHeader.clear();
+		recordHeader.put((byte) (bKeyFrame ? iKEY_FRAME : 0));
+		recordHeader.putInt(iRepeats);
+		for (int i = 0; i < 4; i++)
+		{
+			recordHeader.putInt(iColours[i]);
+		}
+		recordHeader.putInt(iLength);
+		recordHeader.flip();
+		
+		writeBuffers(recordHeader, ByteBuffer.wrap(u8Data, 0, iLength));
+	}
+}
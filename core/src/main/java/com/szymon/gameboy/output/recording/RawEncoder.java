@@ -0,0 +1,52 @@
+/**
+ * Writes the shade of each pixel as a byte, exactly as the PPU drew it
+ * The file starts with a 16 byte header: "GBVR", the version (2 bytes), the width and height (2 bytes each) and 6 reserved bytes
+ * Each record is then the number of frames it was shown for (4 bytes), the RGB colour of each of the 4 shades (4 bytes each),
+ * and the 160 x 144 shades, row by row
+ * All numbers are big-endian
+ */
+
+package com.szymon.gameboy.output.recording;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class RawEncoder extends ChannelEncoder
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	public static final int iMAGIC = 0x47425652;	//"GBVR"
+	public static final int iVERSION = 1;
+	private final int iHEADER_SIZE = 16;
+	private final int iRECORD_HEADER_SIZE = 4 + 4 * 4;
+	
+	private final ByteBuffer recordHeader = ByteBuffer.allocate(iRECORD_HEADER_SIZE);
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	@Override
+	protected void writeHeader() throws IOException
+	{
+		ByteBuffer header = ByteBuffer.allocate(iHEADER_SIZE);
+		header.putInt(iMAGIC).putShort((short) iVERSION).putShort((short) iWIDTH).putShort((short) iHEIGHT);
+		header.clear();
+		writeBuffers(header);
+	}
+	
+	//the frame is written straight from the recorder's buffer
+	@Override
+	public void writeFrame(byte[] u8Frame, int[] iColours, int iRepeats) throws IOException
+	{
+		recordHeader.clear();
+		recordHeader.putInt(iRepeats);
+		for (int i = 0; i < 4; i++)
+		{
+			recordHeader.putInt(iColours[i]);
+		}
+		recordHeader.flip();
+		
+		writeBuffers(recordHeader, ByteBuffer.wrap(u8Frame));
+	}
+}
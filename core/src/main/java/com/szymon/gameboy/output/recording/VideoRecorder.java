@@ -0,0 +1,263 @@
+/**
+ * Class to record every frame the PPU completes, without the emulation waiting on the disk
+ * Each frame is copied into a buffer from a pool and queued for a writer thread, which encodes it in the chosen format
+ * Frames that are the same as the one before (with the same colours) aren't queued, but add to the repeat count of the last one
+ * The queue is bounded, and if the writer falls that far behind the emulation waits for it, so no frames are ever dropped
+ */
+
+package com.szymon.gameboy.output.recording;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import com.szymon.gameboy.output.utils.RecordingFormat;
+import com.szymon.gameboy.ppu.FrameListener;
+import com.szymon.gameboy.ppu.PPU;
+
+public class VideoRecorder implements FrameListener
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private final int iFRAME_SIZE = 160 * 144;
+	
+	//a distinct frame, and how many frames in a row it was shown for
+	private static class Record
+	{
+		private byte[] u8Frame;
+		private final int[] iColours = new int[4];
+		private int iRepeats;
+		private boolean bEnd;	//tells the writer that the recording has stopped
+	}
+	
+	private final File file;
+	private final RecordingFormat format;
+	private final FrameEncoder encoder;
+	
+	private final BlockingQueue<Record> queue;
+	private final BlockingQueue<Record> freeRecords;
+	private Record pending;	//the latest frame, which is only queued once a different frame comes (or the recording stops)
+	
+	private PPU ppu;
+	private Thread writer;
+	private Thread shutdownHook;
+	private boolean bStopped;
+	private volatile boolean bFailed;
+	
+	private long lFrames;
+	private long lDistinctFrames;
+	private long lWaits;	//the number of times the emulation had to wait for the writer
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	//iQueueSize is how many distinct frames can be waiting to be written before the emulation waits
+	public VideoRecorder(File fileIn, RecordingFormat formatIn, int iQueueSize)
+	{
+		file = fileIn;
+		format = formatIn;
+		switch (format)
+		{
+			case Y4M:
+				encoder = new Y4MEncoder();
+				break;
+			case RAW:
+				encoder = new RawEncoder();
+				break;
+			case PACKED:
+				encoder = new PackedEncoder();
+				break;
+			default:
+				encoder = new PNGEncoder();
+				break;
+		}
+		
+		//the pool has a buffer for each place in the queue, plus the one pending and the one being written
+		queue = new ArrayBlockingQueue<Record>(iQueueSize + 1);
+		freeRecords = new ArrayBlockingQueue<Record>(iQueueSize + 2);
+		for (int i = 0; i < iQueueSize + 2; i++)
+		{
+			Record record = new Record();
+			record.u8Frame = new byte[iFRAME_SIZE];
+			freeRecords.add(record);
+		}
+	}
+	
+	// ---------------------------------------------
+	// setters
+	// ---------------------------------------------
+	//moves the recording to another PPU (e.g. when the emulator is reset), so the recording carries on
+	public synchronized void attach(PPU ppuIn)
+	{
+		if (ppu != null)
+		{
+			ppu.removeFrameListener(this);
+		}
+		
+		ppu = ppuIn;
+		if (ppu != null && !bStopped)
+		{
+			ppu.addFrameListener(this);
+		}
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	public File getFile()
+	{
+		return file;
+	}
+	
+	public RecordingFormat getFormat()
+	{
+		return format;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//opens the file and starts recording the PPU's frames
+	public void start(PPU ppuIn) throws IOException
+	{
+		encoder.open(file);
+		
+		writer = new Thread(this::writeRecords, "Recorder");
+		writer.start();
+		
+		//the recording is finished off if the program exits while it is running (e.g. the window is closed)
+		shutdownHook = new Thread(this::stop);
+		Runtime.getRuntime().addShutdownHook(shutdownHook);
+		
+		attach(ppuIn);
+	}
+	
+	//stops recording, waiting for every queued frame to be written, and closes the file
+	public synchronized void stop()
+	{
+		if (bStopped || writer == null)
+		{
+			return;
+		}
+		bStopped = true;
+		attach(null);
+		
+		try
+		{
+			if (pending != null)
+			{
+				queue.put(pending);
+				pending = null;
+			}
+			
+			Record end = new Record();
+			end.bEnd = true;
+			queue.put(end);
+			writer.join();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		
+		try
+		{
+			encoder.close();
+		}
+		catch (IOException e)
+		{
+			System.err.println("Could not close recording: " + e.getMessage());
+		}
+		
+		if (Thread.currentThread() != shutdownHook)
+		{
+			Runtime.getRuntime().removeShutdownHook(shutdownHook);
+		}
+		
+		System.out.println("Recorded " + lFrames + " frames (" + lDistinctFrames + " distinct) to " + file + ", " 
+				+ encoder.getBytesWritten() / 1024 + " KB, the emulation waited for the writer " + lWaits + " times");
+	}
+	
+	//called on the emulation thread, copies the frame unless it is a repeat of the last one
+	@Override
+	public synchronized void frameCompleted(byte[] u8Frame, boolean bChanged)
+	{
+		if (bStopped)
+		{
+			return;
+		}
+		lFrames++;
+		
+		int[] iColours = ppu.getLCD().getShadeColours();
+		if (!bChanged && pending != null && Arrays.equals(pending.iColours, iColours))
+		{
+			pending.iRepeats++;
+			return;
+		}
+		
+		try
+		{
+			if (pending != null)
+			{
+				//only waits if the writer has fallen a whole queue behind
+				if (!queue.offer(pending))
+				{
+					lWaits++;
+					queue.put(pending);
+				}
+			}
+			
+			pending = freeRecords.take();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			pending = null;
+			return;
+		}
+		
+		System.arraycopy(u8Frame, 0, pending.u8Frame, 0, iFRAME_SIZE);
+		System.arraycopy(iColours, 0, pending.iColours, 0, 4);
+		pending.iRepeats = 1;
+		lDistinctFrames++;
+	}
+	
+	//run by the writer thread, encodes each record in turn and returns its buffer to the pool
+	//if writing fails, the records are still taken so that the emulation never waits on a writer that has stopped
+	private void writeRecords()
+	{
+		try
+		{
+			while (true)
+			{
+				Record record = queue.take();
+				if (record.bEnd)
+				{
+					return;
+				}
+				
+				if (!bFailed)
+				{
+					try
+					{
+						encoder.writeFrame(record.u8Frame, record.iColours, record.iRepeats);
+					}
+					catch (IOException e)
+					{
+						System.err.println("Recording to " + file + " failed: " + e.getMessage());
+						bFailed = true;
+					}
+				}
+				
+				freeRecords.put(record);
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+}
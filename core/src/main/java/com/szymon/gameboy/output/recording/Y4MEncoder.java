@@ -0,0 +1,74 @@
+/**
+ * Writes a YUV4MPEG2 video, with full resolution colour (4:4:4) at the Game Boy's exact frame rate
+ * The format has no way to repeat a frame, so repeated frames are written again,
+ * but the frame is only converted once and the same buffer is given to the write for each repeat
+ */
+
+package com.szymon.gameboy.output.recording;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class Y4MEncoder extends ChannelEncoder
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	//the Game Boy runs at 4194304 dots a second, with 70224 dots in a frame
+	private final String szHEADER = "YUV4MPEG2 W" + iWIDTH + " H" + iHEIGHT + " F4194304:70224 Ip A1:1 C444\n";
+	private final byte[] u8FRAME_HEADER = "FRAME\n".getBytes(StandardCharsets.US_ASCII);
+	private final int iPLANE_SIZE = iWIDTH * iHEIGHT;
+	private final int iREPEAT_BATCH = 32;
+	
+	//the Y, Cb and Cr planes of the frame, one after another
+	private final byte[] u8Planes = new byte[iPLANE_SIZE * 3];
+	private final int[] iY = new int[4];
+	private final int[] iCb = new int[4];
+	private final int[] iCr = new int[4];
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	@Override
+	protected void writeHeader() throws IOException
+	{
+		writeBuffers(ByteBuffer.wrap(szHEADER.getBytes(StandardCharsets.US_ASCII)));
+	}
+	
+	@Override
+	public void writeFrame(byte[] u8Frame, int[] iColours, int iRepeats) throws IOException
+	{
+		//each shade's colour is converted once (BT.601, studio range), then looked up for each pixel
+		for (int i = 0; i < 4; i++)
+		{
+			int iR = (iColours[i] >> 16) & 0xFF;
+			int iG = (iColours[i] >> 8) & 0xFF;
+			int iB = iColours[i] & 0xFF;
+			iY[i] = 16 + ((66 * iR + 129 * iG + 25 * iB + 128) >> 8);
+			iCb[i] = 128 + ((-38 * iR - 74 * iG + 112 * iB + 128) >> 8);
+			iCr[i] = 128 + ((112 * iR - 94 * iG - 18 * iB + 128) >> 8);
+		}
+		
+		for (int i = 0; i < iPLANE_SIZE; i++)
+		{
+			int iShade = u8Frame[i];
+			u8Planes[i] = (byte) iY[iShade];
+			u8Planes[iPLANE_SIZE + i] = (byte) iCb[iShade];
+			u8Planes[2 * iPLANE_SIZE + i] = (byte) iCr[iShade];
+		}
+		
+		//long runs of repeats are written a batch at a time
+		for (int iWritten = 0; iWritten < iRepeats; iWritten += iREPEAT_BATCH)
+		{
+			int iBatch = Math.min(iRepeats - iWritten, iREPEAT_BATCH);
+			ByteBuffer[] buffers = new ByteBuffer[iBatch * 2];
+			for (int i = 0; i < iBatch; i++)
+			{
+				buffers[i * 2] = ByteBuffer.wrap(u8FRAME_HEADER);
+				buffers[i * 2 + 1] = ByteBuffer.wrap(u8Planes);
+			}
+			writeBuffers(buffers);
+		}
+	}
+}
@@ -0,0 +1,175 @@
+/**
+ * Class holding the layout of the frame stream, shared by the stream server and client
+ * On connecting, the server sends a hello: "GBST", the version (16 bit), and the width and height (16 bit each)
+ * After that, each message in either direction is a type (byte), the length of the rest of the message (32 bit) and the rest
+ * Server to client:
+ *   FRAME: flags (bit 0 set for a key frame), frame number (32 bit), the colour of each of the 4 shades (32 bit each),
+ *   a bitmap of which of the 144 rows are in the message (18 bytes, row 0 is the top bit of the first byte),
+ *   then for each of those rows, the length of its data (byte) and the data:
+ *   the row packed 4 pixels to a byte, XORed with the row in the last frame (or nothing, for a key frame),
+ *   and run-length encoded as in PackedCodec
+ *   ROLE: whether this client's input controls the game (1) or it is a spectator (0)
+ * Client to server:
+ *   INPUT: the buttons held down (byte, see the iBUTTON bits), only used from the player
+ * All numbers are big-endian
+ */
+
+package com.szymon.gameboy.output.stream;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import com.szymon.gameboy.output.recording.PackedCodec;
+
+public final class StreamProtocol
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	public static final int iMAGIC = 0x47425354;	//"GBST"
+	public static final int iVERSION = 1;
+	public static final int iHELLO_SIZE = 10;
+	public static final int iMESSAGE_HEADER_SIZE = 5;
+	
+	public static final int iWIDTH = 160;
+	public static final int iHEIGHT = 144;
+	public static final int iROW_BYTES = iWIDTH / 4;
+	public static final int iBITMAP_BYTES = iHEIGHT / 8;
+	//the largest row data, if no bytes repeat
+	public static final int iMAX_ROW_DATA = iROW_BYTES + 1;
+	public static final int iMAX_FRAME_MESSAGE = iMESSAGE_HEADER_SIZE + 1 + 4 + 16 + iBITMAP_BYTES + iHEIGHT * (1 + iMAX_ROW_DATA);
+	
+	//server to client message types
+	public static final int iFRAME = 1;
+	public static final int iROLE = 2;
+	//client to server message types
+	public static final int iINPUT = 1;
+	
+	public static final int iKEY_FRAME = 0b1;
+	public static final int iROLE_SPECTATOR = 0;
+	public static final int iROLE_PLAYER = 1;
+	
+	public static final int iBUTTON_A = 0b00000001;
+	public static final int iBUTTON_B = 0b00000010;
+	public static final int iBUTTON_SELECT = 0b00000100;
+	public static final int iBUTTON_START = 0b00001000;
+	public static final int iBUTTON_RIGHT = 0b00010000;
+	public static final int iBUTTON_LEFT = 0b00100000;
+	public static final int iBUTTON_UP = 0b01000000;
+	public static final int iBUTTON_DOWN = 0b10000000;
+	
+	private static final byte[] u8BLANK = new byte[PackedCodec.iPACKED_SIZE];
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	private StreamProtocol()
+	{
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	public static ByteBuffer makeHello()
+	{
+		ByteBuffer hello = ByteBuffer.allocate(iHELLO_SIZE);
+		hello.putInt(iMAGIC).putShort((short) iVERSION).putShort((short) iWIDTH).putShort((short) iHEIGHT);
+		hello.flip();
+		return hello;
+	}
+	
+	//a message with a one byte body (ROLE and INPUT)
+	public static ByteBuffer makeByteMessage(int iType, int iValue)
+	{
+		ByteBuffer message = ByteBuffer.allocate(iMESSAGE_HEADER_SIZE + 1);
+		message.put((byte) iType).putInt(1).put((byte) iValue);
+		message.flip();
+		return message;
+	}
+	
+	//writes a FRAME message for the packed frame into the output (which must hold iMAX_FRAME_MESSAGE bytes), returning its length
+	//only the rows that differ from the previous packed frame are included, or every row if there is no previous frame (a key frame)
+	public static int encodeFrame(byte[] u8Packed, byte[] u8Previous, int[] iColours, long lFrameNumber, byte[] u8Output)
+	{
+		boolean bKeyFrame = u8Previous == null;
+		byte[] u8Against = bKeyFrame ? u8BLANK : u8Previous;
+		
+		ByteBuffer output = ByteBuffer.wrap(u8Output);
+		output.put((byte) iFRAME).putInt(0);
+		output.put((byte) (bKeyFrame ? iKEY_FRAME : 0)).putInt((int) lFrameNumber);
+		for (int i = 0; i < 4; i++)
+		{
+			output.putInt(iColours[i]);
+		}
+		
+		int iBitmapStart = output.position();
+		Arrays.fill(u8Output, iBitmapStart, iBitmapStart + iBITMAP_BYTES, (byte) 0);
+		int iOut = iBitmapStart + iBITMAP_BYTES;
+		
+		for (int iRow = 0; iRow < iHEIGHT; iRow++)
+		{
+			int iStart = iRow * iROW_BYTES;
+			int iEnd = iStart + iROW_BYTES;
+			if (!bKeyFrame && Arrays.mismatch(u8Packed, iStart, iEnd, u8Previous, iStart, iEnd) < 0)
+			{
+				continue;
+			}
+			
+			u8Output[iBitmapStart + iRow / 8] |= 0x80 >> (iRow % 8);
+			int iEndOut = PackedCodec.compress(u8Packed, u8Against, iStart, iEnd, u8Output, iOut + 1);
+			u8Output[iOut] = (byte) (iEndOut - iOut - 1);
+			iOut = iEndOut;
+		}
+		
+		output.putInt(1, iOut - iMESSAGE_HEADER_SIZE);
+		return iOut;
+	}
+	
+	//applies the body of a FRAME message (after the type and length) to the packed frame, and reads its colours
+	//returns the frame number, or -1 if the message is malformed
+	public static long decodeFrame(byte[] u8Body, int iLength, byte[] u8Packed, int[] iColours)
+	{
+		int iHeader = 1 + 4 + 16 + iBITMAP_BYTES;
+		if (iLength < iHeader)
+		{
+			return -1;
+		}
+		
+		ByteBuffer body = ByteBuffer.wrap(u8Body, 0, iLength);
+		boolean bKeyFrame = (body.get() & iKEY_FRAME) != 0;
+		long lFrameNumber = body.getInt() & 0xFFFFFFFFL;
+		for (int i = 0; i < 4; i++)
+		{
+			iColours[i] = body.getInt();
+		}
+		
+		//a key frame has every row, and is not XORed with anything
+		if (bKeyFrame)
+		{
+			Arrays.fill(u8Packed, (byte) 0);
+		}
+		
+		int iBitmapStart = body.position();
+		int iIn = iHeader;
+		for (int iRow = 0; iRow < iHEIGHT; iRow++)
+		{
+			if ((u8Body[iBitmapStart + iRow / 8] & (0x80 >> (iRow % 8))) == 0)
+			{
+				continue;
+			}
+			
+			if (iIn >= iLength)
+			{
+				return -1;
+			}
+			int iRowLength = u8Body[iIn++] & 0xFF;
+			if (iIn + iRowLength > iLength || !PackedCodec.decompress(u8Body, iIn, iIn + iRowLength, u8Packed, iRow * iROW_BYTES, (iRow + 1) * iROW_BYTES))
+			{
+				return -1;
+			}
+			iIn += iRowLength;
+		}
+		
+		return lFrameNumber;
+	}
+}
@@ -0,0 +1,545 @@
+/**
+ * Class to stream the emulator's frames to any number of clients over TCP, and take the joypad input back from one of them
+ * Each changed frame is sent as the rows that differ from the last one, packed and run-length encoded (see StreamProtocol),
+ * with a key frame of every row every so often
+ * Everything on the network is done by one thread with non-blocking channels, so a slow client never holds up the emulator
+ * or the other clients: if it falls too far behind, it misses frames and is sent a key frame once it has caught up
+ * The first client to connect is the player, and the rest are spectators, with the oldest spectator taking over if the player leaves
+ * Run on its own, it runs a ROM headless at the Game Boy's speed and streams it
+ */
+
+package com.szymon.gameboy.output.stream;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import com.szymon.gameboy.Machine;
+import com.szymon.gameboy.joypad.Joypad;
+import com.szymon.gameboy.output.audio.WavFileOutput;
+import com.szymon.gameboy.output.recording.PackedCodec;
+import com.szymon.gameboy.ppu.FrameExchange;
+import com.szymon.gameboy.ppu.FrameListener;
+import com.szymon.gameboy.ppu.PPU;
+
+public class StreamServer implements FrameListener, Runnable
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	public static final int iDEFAULT_PORT = 5544;
+	private final int iKEY_INTERVAL = 300;	//how many sent frames apart the key frames are
+	private final int iMAX_QUEUED = 64 * 1024;	//how many bytes can wait for a client before it starts missing frames
+	//the socket's own buffer is kept small too, otherwise a slow client could be seconds behind before it was noticed
+	private final int iSEND_BUFFER = 32 * 1024;
+	private final int iMAX_INPUT = 64;	//the most a client's messages can be, anything larger is not from a real client
+	private static final double dFRAME_NANOS = 1e9 * 70224 / 4194304;	//the Game Boy's frame time
+	
+	//the state of each connected client, only used by the network thread
+	private static class Client
+	{
+		private SocketChannel channel;
+		private SelectionKey key;
+		private final ArrayDeque<ByteBuffer> outgoing = new ArrayDeque<ByteBuffer>();
+		private int iQueuedBytes;
+		private boolean bNeedsKey;	//set when the client has missed frames (or just joined), so can only be sent a key frame
+		private final ByteBuffer input = ByteBuffer.allocate(64);
+		private boolean bPlayer;
+		private String szAddress;
+	}
+	
+	private Selector selector;
+	private ServerSocketChannel serverChannel;
+	private Thread networkThread;
+	private volatile boolean bRunning;
+	private final List<Client> clients;
+	
+	//the latest changed frame, handed from the emulation thread to the network thread
+	private final byte[] u8Latest;
+	private final int[] iLatestColours;
+	private boolean bNewFrame;
+	
+	//the buttons held by the player, applied to the joypad on the emulation thread
+	private volatile int iButtons;
+	private PPU ppu;
+	private Joypad joypad;
+	
+	//the last frame sent, which the next frame's rows are compared against
+	private final byte[] u8Shades;
+	private final byte[] u8Packed;
+	private final byte[] u8SentPacked;
+	private final int[] iSentColours;
+	private final byte[] u8Message;
+	private ByteBuffer keyFrame;	//the key frame of the last frame sent, only made when needed
+	private long lFramesSent;
+	private volatile long lBytesSent;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public StreamServer()
+	{
+		clients = new ArrayList<Client>();
+		u8Latest = new byte[StreamProtocol.iWIDTH * StreamProtocol.iHEIGHT];
+		iLatestColours = new int[4];
+		u8Shades = new byte[u8Latest.length];
+		u8Packed = new byte[PackedCodec.iPACKED_SIZE];
+		u8SentPacked = new byte[PackedCodec.iPACKED_SIZE];
+		iSentColours = new int[4];
+		u8Message = new byte[StreamProtocol.iMAX_FRAME_MESSAGE];
+	}
+	
+	// ---------------------------------------------
+	// setters
+	// ---------------------------------------------
+	//streams the frames from the PPU, and sends the player's input to the joypad, moving from the last ones (e.g. when the emulator is reset)
+	public synchronized void attach(PPU ppuIn, Joypad joypadIn)
+	{
+		if (ppu != null)
+		{
+			ppu.removeFrameListener(this);
+		}
+		
+		ppu = ppuIn;
+		joypad = joypadIn;
+		if (ppu != null)
+		{
+			ppu.addFrameListener(this);
+		}
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	public long getBytesSent()
+	{
+		return lBytesSent;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//listens on the port (on every interface) and starts the network thread
+	public void start(PPU ppuIn, Joypad joypadIn, int iPort) throws IOException
+	{
+		selector = Selector.open();
+		serverChannel = ServerSocketChannel.open();
+		serverChannel.bind(new InetSocketAddress(iPort));
+		serverChannel.configureBlocking(false);
+		serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+		
+		attach(ppuIn, joypadIn);
+		
+		bRunning = true;
+		networkThread = new Thread(this, "StreamServer");
+		networkThread.setDaemon(true);
+		networkThread.start();
+	}
+	
+	//disconnects every client and stops listening
+	public void stop()
+	{
+		attach(null, null);
+		bRunning = false;
+		selector.wakeup();
+		
+		try
+		{
+			networkThread.join();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	//called on the emulation thread, applies the player's input, and hands the frame over if it has changed
+	@Override
+	public void frameCompleted(byte[] u8Frame, boolean bChanged)
+	{
+		int iHeld = iButtons;
+		Joypad pad;
+		int[] iColours;
+		synchronized (this)
+		{
+			if (ppu == null)
+			{
+				return;
+			}
+			pad = joypad;
+			iColours = ppu.getLCD().getShadeColours();
+			if (!bChanged && Arrays.equals(iColours, iLatestColours))
+			{
+				iColours = null;
+			}
+			else
+			{
+				System.arraycopy(u8Frame, 0, u8Latest, 0, u8Latest.length);
+				System.arraycopy(iColours, 0, iLatestColours, 0, 4);
+				bNewFrame = true;
+			}
+		}
+		
+		if (iColours != null)
+		{
+			selector.wakeup();
+		}
+		
+		pad.setA((iHeld & StreamProtocol.iBUTTON_A) != 0);
+		pad.setB((iHeld & StreamProtocol.iBUTTON_B) != 0);
+		pad.setSelect((iHeld & StreamProtocol.iBUTTON_SELECT) != 0);
+		pad.setStart((iHeld & StreamProtocol.iBUTTON_START) != 0);
+		pad.setRight((iHeld & StreamProtocol.iBUTTON_RIGHT) != 0);
+		pad.setLeft((iHeld & StreamProtocol.iBUTTON_LEFT) != 0);
+		pad.setUp((iHeld & StreamProtocol.iBUTTON_UP) != 0);
+		pad.setDown((iHeld & StreamProtocol.iBUTTON_DOWN) != 0);
+	}
+	
+	//the network thread, which sends each new frame and handles the clients' connections and input
+	@Override
+	public void run()
+	{
+		try
+		{
+			while (bRunning)
+			{
+				selector.select();
+				sendNewFrame();
+				
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext())
+				{
+					SelectionKey key = keys.next();
+					keys.remove();
+					
+					if (!key.isValid())
+					{
+						continue;
+					}
+					if (key.isAcceptable())
+					{
+						accept();
+						continue;
+					}
+					
+					Client client = (Client) key.attachment();
+					if (key.isReadable())
+					{
+						read(client);
+					}
+					if (key.isValid() && key.isWritable())
+					{
+						flush(client);
+					}
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			System.err.println("Stream server stopped: " + e.getMessage());
+		}
+		
+		for (Client client : new ArrayList<Client>(clients))
+		{
+			disconnect(client);
+		}
+		try
+		{
+			serverChannel.close();
+			selector.close();
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+	
+	//encodes the latest frame against the last one sent, and queues it for every client that is keeping up
+	private void sendNewFrame()
+	{
+		synchronized (this)
+		{
+			if (!bNewFrame)
+			{
+				return;
+			}
+			System.arraycopy(u8Latest, 0, u8Shades, 0, u8Shades.length);
+			System.arraycopy(iLatestColours, 0, iSentColours, 0, 4);
+			bNewFrame = false;
+		}
+		
+		PackedCodec.pack(u8Shades, u8Packed);
+		boolean bKeyFrame = lFramesSent % iKEY_INTERVAL == 0;
+		int iLength = StreamProtocol.encodeFrame(u8Packed, bKeyFrame ? null : u8SentPacked, iSentColours, lFramesSent, u8Message);
+		ByteBuffer message = ByteBuffer.wrap(Arrays.copyOf(u8Message, iLength));
+		
+		System.arraycopy(u8Packed, 0, u8SentPacked, 0, u8Packed.length);
+		keyFrame = bKeyFrame ? message : null;
+		lFramesSent++;
+		
+		for (Client client : new ArrayList<Client>(clients))
+		{
+			//a client that has fallen behind misses this frame, and needs a key frame once it has caught up
+			if (client.iQueuedBytes > iMAX_QUEUED)
+			{
+				client.bNeedsKey = true;
+			}
+			
+			if (!client.bNeedsKey)
+			{
+				queue(client, message.duplicate());
+			}
+			flush(client);
+		}
+	}
+	
+	private void accept() throws IOException
+	{
+		SocketChannel channel = serverChannel.accept();
+		if (channel == null)
+		{
+			return;
+		}
+		channel.configureBlocking(false);
+		channel.socket().setTcpNoDelay(true);
+		channel.socket().setSendBufferSize(iSEND_BUFFER);
+		
+		Client client = new Client();
+		client.channel = channel;
+		client.key = channel.register(selector, SelectionKey.OP_READ, client);
+		client.szAddress = String.valueOf(channel.getRemoteAddress());
+		client.bNeedsKey = true;
+		clients.add(client);
+		
+		queue(client, StreamProtocol.makeHello());
+		if (clients.size() == 1)
+		{
+			client.bPlayer = true;
+		}
+		queue(client, StreamProtocol.makeByteMessage(StreamProtocol.iROLE, client.bPlayer ? StreamProtocol.iROLE_PLAYER : StreamProtocol.iROLE_SPECTATOR));
+		System.out.println("Stream client connected from " + client.szAddress + (client.bPlayer ? " as the player" : " as a spectator"));
+		
+		flush(client);
+	}
+	
+	//reads the client's messages, only the player's input is used
+	private void read(Client client)
+	{
+		try
+		{
+			if (client.channel.read(client.input) < 0)
+			{
+				disconnect(client);
+				return;
+			}
+		}
+		catch (IOException e)
+		{
+			disconnect(client);
+			return;
+		}
+		
+		ByteBuffer input = client.input;
+		input.flip();
+		while (input.remaining() >= StreamProtocol.iMESSAGE_HEADER_SIZE)
+		{
+			int iType = input.get(input.position());
+			int iLength = input.getInt(input.position() + 1);
+			if (iLength < 0 || iLength > iMAX_INPUT - StreamProtocol.iMESSAGE_HEADER_SIZE)
+			{
+				System.err.println("Bad message from stream client " + client.szAddress);
+				input.clear();
+				disconnect(client);
+				return;
+			}
+			if (input.remaining() < StreamProtocol.iMESSAGE_HEADER_SIZE + iLength)
+			{
+				break;
+			}
+			
+			input.position(input.position() + StreamProtocol.iMESSAGE_HEADER_SIZE);
+			if (iType == StreamProtocol.iINPUT && iLength >= 1 && client.bPlayer)
+			{
+				iButtons = input.get(input.position()) & 0xFF;
+			}
+			input.position(input.position() + iLength);
+		}
+		input.compact();
+	}
+	
+	private void queue(Client client, ByteBuffer message)
+	{
+		client.outgoing.add(message);
+		client.iQueuedBytes += message.remaining();
+	}
+	
+	//writes as much as the client will take without blocking, only waiting to write again if some is left
+	//once it has caught up, a client that needs a key frame is sent one
+	private void flush(Client client)
+	{
+		try
+		{
+			while (true)
+			{
+				if (client.outgoing.isEmpty() && client.bNeedsKey && lFramesSent > 0)
+				{
+					client.bNeedsKey = false;
+					queue(client, getKeyFrame());
+				}
+				
+				ByteBuffer message = client.outgoing.peek();
+				if (message == null)
+				{
+					break;
+				}
+				
+				int iWritten = client.channel.write(message);
+				client.iQueuedBytes -= iWritten;
+				lBytesSent += iWritten;
+				if (message.hasRemaining())
+				{
+					break;
+				}
+				client.outgoing.poll();
+			}
+		}
+		catch (IOException e)
+		{
+			disconnect(client);
+			return;
+		}
+		
+		int iOps = client.outgoing.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE;
+		if (client.key.isValid() && client.key.interestOps() != iOps)
+		{
+			client.key.interestOps(iOps);
+		}
+	}
+	
+	//the key frame for the last frame sent, made once however many clients need it
+	private ByteBuffer getKeyFrame()
+	{
+		if (keyFrame == null)
+		{
+			int iLength = StreamProtocol.encodeFrame(u8SentPacked, null, iSentColours, lFramesSent - 1, u8Message);
+			keyFrame = ByteBuffer.wrap(Arrays.copyOf(u8Message, iLength));
+		}
+		return keyFrame.duplicate();
+	}
+	
+	//closes the client's connection, if it was the player the oldest spectator takes over
+	private void disconnect(Client client)
+	{
+		if (!clients.remove(client))
+		{
+			return;
+		}
+		
+		client.key.cancel();
+		try
+		{
+			client.channel.close();
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+		System.out.println("Stream client " + client.szAddress + " disconnected");
+		
+		if (client.bPlayer)
+		{
+			iButtons = 0;
+			if (!clients.isEmpty() && bRunning)
+			{
+				Client player = clients.get(0);
+				player.bPlayer = true;
+				queue(player, StreamProtocol.makeByteMessage(StreamProtocol.iROLE, StreamProtocol.iROLE_PLAYER));
+				flush(player);
+			}
+		}
+	}
+	
+	//runs the ROM headless, at the Game Boy's speed, streaming it on the port
+	//arguments are optionally -mapsave[=forceMs] to map the save file, then the ROM file, then optionally the port,
+	//then optionally a WAV file to save the sound to
+	public static void main(String[] args) throws IOException
+	{
+		boolean bMapSave = false;
+		long lForceMillis = 0;
+		List<String> szArgs = new ArrayList<String>();
+		for (String arg : args)
+		{
+			if (arg.equals("-mapsave"))
+			{
+				bMapSave = true;
+			}
+			else if (arg.startsWith("-mapsave="))
+			{
+				bMapSave = true;
+				lForceMillis = Long.parseLong(arg.substring(9));
+			}
+			else
+			{
+				szArgs.add(arg);
+			}
+		}
+		
+		if (szArgs.size() < 1)
+		{
+			System.err.println("Usage: StreamServer [-mapsave[=forceMs]] rom.gb [port [sound.wav]]");
+			return;
+		}
+		int iPort = szArgs.size() > 1 ? Integer.parseInt(szArgs.get(1)) : iDEFAULT_PORT;
+		
+		Machine machine = new Machine(new File(szArgs.get(0)), bMapSave, lForceMillis);
+		//the pace is set below, without the busy wait
+		machine.setFrameLimited(false);
+		
+		//there is no sound card on a headless server, so the sound can only be saved
+		WavFileOutput audio = null;
+		if (szArgs.size() > 2)
+		{
+			audio = new WavFileOutput(new File(szArgs.get(2)));
+			audio.start();
+			audio.attach(machine.getMemory().getAPU());
+		}
+		
+		StreamServer server = new StreamServer();
+		server.start(machine.getPPU(), machine.getJoypad(), iPort);
+		System.out.println("Streaming " + szArgs.get(0) + " on port " + iPort);
+		
+		//each frame waits for its time to come, so the game runs at the Game Boy's speed however fast the emulator is
+		FrameExchange exchange = machine.getPPU().getFrameExchange();
+		long lStart = System.nanoTime();
+		long lFrames = 0;
+		while (machine.runFrame())
+		{
+			exchange.takeFrame();
+			lFrames++;
+			
+			long lWait = lStart + (long) (lFrames * dFRAME_NANOS) - System.nanoTime();
+			if (lWait > 0)
+			{
+				LockSupport.parkNanos(lWait);
+			}
+		}
+		
+		server.stop();
+		if (audio != null)
+		{
+			audio.stop();
+		}
+		machine.close();
+	}
+}
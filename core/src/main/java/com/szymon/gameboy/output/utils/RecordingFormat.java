@@ -0,0 +1,33 @@
+/**
+ * Enum to represent the formats the video recorder can write
+ * Each stores its name for the menu, and the extension of the file (the PNG sequence is written to a folder instead)
+ */
+
+package com.szymon.gameboy.output.utils;
+
+public enum RecordingFormat 
+{
+	Y4M("Y4M Video", ".y4m"),			//uncompressed YCbCr video, which most video tools can read
+	RAW("Raw Indexed", ".gbraw"),		//the shade of each pixel as a byte, with each frame's colours
+	PACKED("Packed 4-Colour", ".gbpak"),	//4 pixels to a byte, compressed against the last frame
+	PNG("PNG Sequence", "");			//a 2-bit indexed PNG for each distinct frame, with a list of how long each is shown
+	
+	private final String szName;
+	private final String szExtension;
+	
+	private RecordingFormat(String szNameIn, String szExtensionIn)
+	{
+		szName = szNameIn;
+		szExtension = szExtensionIn;
+	}
+	
+	public String getName()
+	{
+		return szName;
+	}
+	
+	public String getExtension()
+	{
+		return szExtension;
+	}
+}
@@ -0,0 +1,116 @@
+/**
+ * @author 18bilkiewiczs
+ * Class that adds DMA (Direct Memory Access) functionality
+ * This is used as a quick way to copy data into VRAM
+ */
+
+package com.szymon.gameboy.ppu;
+
+import com.szymon.gameboy.memory.Memory;
+import com.szymon.gameboy.memory.StateArena;
+import com.szymon.gameboy.utils.Unsigned8;
+
+/**
+ * Rather than copying one byte through the memory bus every cycle, the DMA only counts
+ * the bytes that would have been transferred, and copies them into OAM in bulk when they
+ * are needed (either when the PPU reads OAM, or when the transfer is complete).
+ * The timing (and so the CPU's OAM lockout) is still the same as a byte per cycle.
+ */
+
+public class DMA 
+{
+    // ---------------------------------------------
+ 	// class variables
+ 	// ---------------------------------------------
+	private final int iTRANSFER_LENGTH = 0xA0;
+	
+	//the DMA state is stored in the state arena
+	private final int iACTIVE_OFFSET = StateArena.iDMA_OFFSET;	//indicates whether DMA mode is active
+	private final int iSOURCE_OFFSET = StateArena.iDMA_OFFSET + 1;	//the page the source starts at
+	private final int iCOUNTER_OFFSET = StateArena.iDMA_OFFSET + 2;	//the number of bytes that have been transferred so far (in terms of timing)
+	private final int iREVEALED_OFFSET = StateArena.iDMA_OFFSET + 3;	//the number of bytes that have actually been copied into OAM
+	private final int iSTART_DELAY_OFFSET = StateArena.iDMA_OFFSET + 4;
+	
+	private StateArena arena;
+	private Memory memory;
+	
+    // ---------------------------------------------
+ 	// constructors
+ 	// ---------------------------------------------
+	public DMA(StateArena arenaIn)
+	{
+		arena = arenaIn;
+		arena.setBool(iACTIVE_OFFSET, false);
+		arena.setByte(iSOURCE_OFFSET, 0);
+		arena.setByte(iCOUNTER_OFFSET, 0);
+		arena.setByte(iREVEALED_OFFSET, 0);
+		arena.setByte(iSTART_DELAY_OFFSET, 0);
+	}
+	
+    // ---------------------------------------------
+ 	// getters
+ 	// ---------------------------------------------
+	public boolean getActive()
+	{
+		return arena.getBool(iACTIVE_OFFSET);
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	public void initDMA(Memory mem)
+	{
+		memory = mem;
+	}
+	
+	//starts DMA mode, with the starting address represented by u8Start
+	public void startDMA(Unsigned8 u8Start)
+	{
+		//finish copying anything from a transfer that is being restarted
+		syncDMA();
+		
+		arena.setBool(iACTIVE_OFFSET, true);
+		arena.setByte(iCOUNTER_OFFSET, 0);
+		arena.setByte(iREVEALED_OFFSET, 0);
+		arena.setByte(iSTART_DELAY_OFFSET, 2);
+		arena.setByte(iSOURCE_OFFSET, u8Start.getValue());
+	}
+	
+	//this is run every cycle, ensuring DMA is ran when needed
+	public void tickDMA()
+	{
+		if (!getActive())
+		{
+			return;
+		}
+		
+		int iStartDelay = arena.getByte(iSTART_DELAY_OFFSET);
+		if (iStartDelay > 0)
+		{
+			arena.setByte(iSTART_DELAY_OFFSET, iStartDelay - 1);
+			return;
+		}
+		
+		int iCounter = arena.getByte(iCOUNTER_OFFSET) + 1;
+		arena.setByte(iCOUNTER_OFFSET, iCounter);
+		
+		if (iCounter >= iTRANSFER_LENGTH)
+		{
+			syncDMA();
+			arena.setBool(iACTIVE_OFFSET, false);
+		}
+	}
+	
+	//copies all of the bytes transferred so far (but not yet copied) into OAM, in order
+	public void syncDMA()
+	{
+		int iCounter = arena.getByte(iCOUNTER_OFFSET);
+		int iRevealed = arena.getByte(iREVEALED_OFFSET);
+		
+		if (iRevealed < iCounter)
+		{
+			memory.copyToOAM(arena.getByte(iSOURCE_OFFSET) * 0x100 + iRevealed, iRevealed, iCounter - iRevealed);
+			arena.setByte(iREVEALED_OFFSET, iCounter);
+		}
+	}
+}
@@ -0,0 +1,235 @@
+/**
+ * Class to draw scanlines on a pool of worker threads, rather than on the emulation thread
+ * The PPU captures a record for each line as it reaches mode 3, and the lines build up until
+ * either VRAM is about to change or the frame ends. The waiting lines are then handed to the workers in bands,
+ * along with a copy of the tiles and tile maps as they were, so the emulation can carry on (and change VRAM) meanwhile
+ * A frame is only published once all of its bands have been drawn
+ */
+
+package com.szymon.gameboy.ppu;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.szymon.gameboy.memory.StateArena;
+import com.szymon.gameboy.memory.VRAM;
+
+public class DeferredRenderer
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private final int iY_RES = 144;
+	private final int iMAPS_SIZE = 0x800;	//9800-9FFF
+	private final int iMAPS_ARENA_OFFSET = StateArena.iVRAM_OFFSET + 0x1800;
+	//runs of lines shorter than this are drawn straight away on the emulation thread, as copying VRAM would cost more
+	private final int iMIN_DEFERRED_LINES = 8;
+	
+	private final VRAM vram;
+	private final byte[] u8Arena;
+	
+	private final ExecutorService workers;
+	private final int iBands;	//how many pieces a run of lines is split into
+	
+	//a record for every visible line, filled in by the PPU
+	private final LineRecord[] records;
+	//shared by every renderer, as it holds no state
+	private final LineCompositor compositor;
+	//draws from the live VRAM, for short runs of lines
+	private final LineRenderer liveRenderer;
+	
+	//the frame being drawn, and the run of lines waiting to be drawn (iPendingStart up to iPendingEnd)
+	private byte[] frameBuffer;
+	private int iPendingStart;
+	private int iPendingEnd;
+	
+	//the bands in progress for this frame, and the VRAM copies they are drawing from
+	private final List<Future<?>> tasks;
+	private final List<Snapshot> usedSnapshots;
+	private final ArrayDeque<Snapshot> freeSnapshots;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public DeferredRenderer(VRAM vramIn, StateArena arena, int iThreads)
+	{
+		vram = vramIn;
+		u8Arena = arena.getArray();
+		
+		//the workers are daemons, so that they never keep the program running
+		workers = Executors.newFixedThreadPool(iThreads, runnable ->
+		{
+			Thread thread = new Thread(runnable, "Scanline Renderer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		iBands = iThreads;
+		
+		records = new LineRecord[iY_RES];
+		for (int i = 0; i < iY_RES; i++)
+		{
+			records[i] = new LineRecord();
+		}
+		compositor = LineCompositor.create();
+		liveRenderer = new LineRenderer(vram.getTileCache(), vram.getFlippedTileCache(), u8Arena, iMAPS_ARENA_OFFSET, compositor);
+		
+		frameBuffer = null;
+		iPendingStart = 0;
+		iPendingEnd = 0;
+		
+		tasks = new ArrayList<Future<?>>();
+		usedSnapshots = new ArrayList<Snapshot>();
+		freeSnapshots = new ArrayDeque<Snapshot>();
+	}
+	
+	// ---------------------------------------------
+	// setters
+	// ---------------------------------------------
+	//sets the buffer that the lines are drawn into, which must only be changed between frames
+	public void setFrameBuffer(byte[] buffer)
+	{
+		frameBuffer = buffer;
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	//the bytes of the copies of VRAM the workers draw from, called from the emulator thread
+	public long getFootprint()
+	{
+		int iSnapshots = usedSnapshots.size() + freeSnapshots.size();
+		return iSnapshots * (2L * VRAM.iTILE_COUNT * 64 + iMAPS_SIZE);
+	}
+	
+	//gets the record for a line, to be filled in before the line is added
+	public LineRecord getRecord(int iLY)
+	{
+		return records[iLY];
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//adds a line (whose record has been captured) to the lines waiting to be drawn
+	public void addLine(int iLY)
+	{
+		//lines are normally added in order, but if not (e.g. the LCD was turned off and on) the old run is drawn first
+		if (iPendingEnd > iPendingStart && iLY != iPendingEnd)
+		{
+			flush();
+		}
+		
+		if (iPendingEnd == iPendingStart)
+		{
+			iPendingStart = iLY;
+		}
+		iPendingEnd = iLY + 1;
+	}
+	
+	//starts drawing the waiting lines, called before VRAM changes and at the end of the frame
+	public void flush()
+	{
+		int iCount = iPendingEnd - iPendingStart;
+		if (iCount == 0)
+		{
+			return;
+		}
+		
+		if (iCount < iMIN_DEFERRED_LINES || workers.isShutdown())
+		{
+			drawLines(liveRenderer, iPendingStart, iPendingEnd);
+		}
+		else
+		{
+			//the workers draw from a copy, as VRAM may change before they are finished
+			Snapshot snapshot = freeSnapshots.isEmpty() ? new Snapshot() : freeSnapshots.poll();
+			snapshot.copy();
+			usedSnapshots.add(snapshot);
+			
+			int iBandSize = (iCount + iBands - 1) / iBands;
+			for (int iStart = iPendingStart; iStart < iPendingEnd; iStart += iBandSize)
+			{
+				int iBandStart = iStart;
+				int iBandEnd = Math.min(iStart + iBandSize, iPendingEnd);
+				byte[] target = frameBuffer;
+				try
+				{
+					tasks.add(workers.submit(() -> drawLines(snapshot.renderer, iBandStart, iBandEnd, target)));
+				}
+				catch (RejectedExecutionException e)
+				{
+					drawLines(snapshot.renderer, iBandStart, iBandEnd, target);
+				}
+			}
+		}
+		
+		iPendingStart = iPendingEnd;
+	}
+	
+	//draws any waiting lines, and waits for every band of the frame to be drawn
+	public void finishFrame()
+	{
+		flush();
+		
+		for (Future<?> task : tasks)
+		{
+			try
+			{
+				task.get();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			catch (ExecutionException e)
+			{
+				System.err.println("Error drawing scanlines: " + e.getCause());
+			}
+		}
+		tasks.clear();
+		
+		freeSnapshots.addAll(usedSnapshots);
+		usedSnapshots.clear();
+	}
+	
+	//stops the workers, once they have finished what they have been given
+	public void shutdown()
+	{
+		workers.shutdown();
+	}
+	
+	private void drawLines(LineRenderer renderer, int iStart, int iEnd)
+	{
+		drawLines(renderer, iStart, iEnd, frameBuffer);
+	}
+	
+	private void drawLines(LineRenderer renderer, int iStart, int iEnd, byte[] target)
+	{
+		for (int i = iStart; i < iEnd; i++)
+		{
+			renderer.renderLine(records[i], target);
+		}
+	}
+	
+	//a copy of the decoded tiles and the tile maps, with a renderer that draws from it
+	private class Snapshot
+	{
+		private final byte[] u8Tiles = new byte[VRAM.iTILE_COUNT * 64];
+		private final byte[] u8FlippedTiles = new byte[VRAM.iTILE_COUNT * 64];
+		private final byte[] u8Maps = new byte[iMAPS_SIZE];
+		private final LineRenderer renderer = new LineRenderer(u8Tiles, u8FlippedTiles, u8Maps, 0, compositor);
+		
+		private void copy()
+		{
+			System.arraycopy(vram.getTileCache(), 0, u8Tiles, 0, u8Tiles.length);
+			System.arraycopy(vram.getFlippedTileCache(), 0, u8FlippedTiles, 0, u8FlippedTiles.length);
+			System.arraycopy(u8Arena, iMAPS_ARENA_OFFSET, u8Maps, 0, iMAPS_SIZE);
+		}
+	}
+}
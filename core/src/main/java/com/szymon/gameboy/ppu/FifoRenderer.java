@@ -0,0 +1,435 @@
+/**
+ * Class to draw each visible line a pixel at a time, through a background pixel FIFO fed by a tile fetcher
+ * Mode 3 lasts as long as it does on the real PPU: 172 dots, plus the pixels discarded for the fine scroll (SCX % 8),
+ * plus the fetcher restarting for the window, plus a pause for each sprite fetched
+ * The registers and palettes are read as each pixel is drawn, so changes made during mode 3 affect the rest of the line
+ * This is much slower than the scanline renderer, so is only meant for the games that need it
+ */
+
+package com.szymon.gameboy.ppu;
+
+import com.szymon.gameboy.memory.Memory;
+import com.szymon.gameboy.memory.StateArena;
+import com.szymon.gameboy.memory.VRAM;
+import com.szymon.gameboy.ppu.utils.FetchState;
+
+public class FifoRenderer implements Renderer
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private final int iX_RES = 160;
+	private final int iMAX_SPRITES = 10;
+	private final int iSTEP_DOTS = 2;	//each step of fetching a tile takes 2 dots
+	private final int iFIRST_FETCH_DOTS = 6;	//the first fetch of each line is thrown away
+	private final int iSPRITE_FETCH_DOTS = 6;
+	
+	//the registers are read straight from the state arena, as they are read on every dot
+	private final int iLCDC_OFFSET = StateArena.iLCD_OFFSET;
+	private final int iSCROLL_Y_OFFSET = StateArena.iLCD_OFFSET + 2;
+	private final int iSCROLL_X_OFFSET = StateArena.iLCD_OFFSET + 3;
+	private final int iLY_OFFSET = StateArena.iLCD_OFFSET + 4;
+	private final int iWIN_Y_OFFSET = StateArena.iLCD_OFFSET + 10;
+	private final int iWIN_X_OFFSET = StateArena.iLCD_OFFSET + 11;
+	private final int iMAPS_OFFSET = StateArena.iVRAM_OFFSET + 0x1800;
+	
+	private final StateArena arena;
+	private final byte[] u8Arena;
+	private final LCD lcd;
+	private final VRAM vram;
+	
+	private byte[] frameBuffer;
+	
+	//the line being drawn, and the next pixel of it to be drawn
+	private int iLY;
+	private int iLX;
+	private int iDiscard;	//the pixels still to be thrown away at the start of the line (for the fine scroll or window)
+	
+	//the background FIFO, which the fetcher only pushes a tile's row into once it is empty
+	private final byte[] u8BGFifo;
+	private int iBGFifoCount;
+	private int iBGFifoPos;
+	
+	//the fetcher, and the row of the tile it has fetched
+	private FetchState fetchState;
+	private int iFetchDots;
+	private int iFetcherX;	//the tile across the background or window being fetched
+	private int iTileNum;
+	private final byte[] u8FetchedRow;
+	
+	private boolean bWindowActive;
+	private int iWindowLine;
+	
+	//the sprites on the line in OAM order, which are fetched as the pixels reach them
+	private final int[] iSprites;
+	private final boolean[] bSpriteFetched;
+	private int iSpriteCount;
+	private int iPendingSprite;
+	private int iSpriteDots;	//the dots left of the sprite fetch in progress
+	
+	//the sprite pixels for the line, once fetched, with 0 being transparent
+	//earlier sprites keep their pixels, so later ones only fill in the transparent ones
+	private final byte[] u8SpriteColours;
+	private final byte[] u8SpriteAttributes;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public FifoRenderer(Memory memory, LCD lcdIn)
+	{
+		arena = memory.getArena();
+		u8Arena = arena.getArray();
+		lcd = lcdIn;
+		vram = memory.getVRAM();
+		
+		frameBuffer = null;
+		
+		u8BGFifo = new byte[8];
+		u8FetchedRow = new byte[8];
+		fetchState = FetchState.SLEEP;
+		
+		iSprites = new int[iMAX_SPRITES];
+		bSpriteFetched = new boolean[iMAX_SPRITES];
+		u8SpriteColours = new byte[iX_RES];
+		u8SpriteAttributes = new byte[iX_RES];
+	}
+	
+	// ---------------------------------------------
+	// setters
+	// ---------------------------------------------
+	@Override
+	public void setFrameBuffer(byte[] buffer)
+	{
+		frameBuffer = buffer;
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	@Override
+	public boolean getWindowShown()
+	{
+		return bWindowActive;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//resets the FIFO and the fetcher, and finds the sprites on the line
+	@Override
+	public void startLine(int iWindowLineIn)
+	{
+		iLY = arena.getByte(iLY_OFFSET);
+		iLX = 0;
+		iDiscard = arena.getByte(iSCROLL_X_OFFSET) & 7;
+		
+		iBGFifoCount = 0;
+		iBGFifoPos = 0;
+		
+		fetchState = FetchState.SLEEP;
+		iFetchDots = 0;
+		iFetcherX = 0;
+		
+		bWindowActive = false;
+		iWindowLine = iWindowLineIn;
+		
+		iSpriteDots = 0;
+		findSprites();
+	}
+	
+	@Override
+	public boolean tickTransfer(int iLineTicks)
+	{
+		if (iLX >= iX_RES)
+		{
+			return true;
+		}
+		
+		//a sprite fetch pauses the fetcher and the pixels
+		if (iSpriteDots > 0)
+		{
+			iSpriteDots--;
+			if (iSpriteDots == 0)
+			{
+				fetchSprite(iPendingSprite);
+			}
+			return false;
+		}
+		
+		//once the pixels reach a sprite, the fetcher finishes the tile it is on and then fetches the sprite
+		int iSprite = findSpriteAt(iLX);
+		if (iSprite >= 0)
+		{
+			if (fetchState != FetchState.PUSH)
+			{
+				stepFetcher();
+				return false;
+			}
+			
+			bSpriteFetched[iSprite] = true;
+			iPendingSprite = iSprite;
+			iSpriteDots = iSPRITE_FETCH_DOTS - 1;
+			return false;
+		}
+		
+		//the window starts by emptying the FIFO and restarting the fetcher on the window's tiles
+		if (!bWindowActive && iDiscard == 0 && getWindowStartsAt(iLX))
+		{
+			bWindowActive = true;
+			iBGFifoCount = 0;
+			fetchState = FetchState.TILE;
+			iFetchDots = 0;
+			iFetcherX = 0;
+			
+			//if the window starts to the left of the screen (WX < 7), the part off screen is thrown away
+			iDiscard = Math.max(7 - arena.getByte(iWIN_X_OFFSET), 0);
+		}
+		
+		stepFetcher();
+		
+		if (iBGFifoCount > 0)
+		{
+			int iBGIndex = u8BGFifo[iBGFifoPos++];
+			iBGFifoCount--;
+			
+			if (iDiscard > 0)
+			{
+				iDiscard--;
+			}
+			else
+			{
+				drawPixel(iBGIndex);
+				iLX++;
+			}
+		}
+		
+		return iLX >= iX_RES;
+	}
+	
+	@Override
+	public boolean startVBlank()
+	{
+		return true;
+	}
+	
+	@Override
+	public boolean finishFrame()
+	{
+		return false;
+	}
+	
+	@Override
+	public void shutdown()
+	{
+	}
+	
+	//advances the fetcher by a dot
+	//it fetches the tile number, then the low and high bytes of the tile's row, then waits until the FIFO is empty to push the row
+	private void stepFetcher()
+	{
+		switch (fetchState)
+		{
+		case SLEEP:
+			//the first fetch of the line, which is thrown away
+			if (++iFetchDots == iFIRST_FETCH_DOTS)
+			{
+				fetchState = FetchState.TILE;
+				iFetchDots = 0;
+			}
+			break;
+		case TILE:
+			if (++iFetchDots == iSTEP_DOTS)
+			{
+				iTileNum = fetchTileNum();
+				fetchState = FetchState.DATALOW;
+				iFetchDots = 0;
+			}
+			break;
+		case DATALOW:
+			if (++iFetchDots == iSTEP_DOTS)
+			{
+				fetchState = FetchState.DATAHIGH;
+				iFetchDots = 0;
+			}
+			break;
+		case DATAHIGH:
+			//the tiles are already decoded, so the whole row is read once both bytes would have been
+			if (++iFetchDots == iSTEP_DOTS)
+			{
+				System.arraycopy(vram.getTileCache(), iTileNum * 64 + getTileLine() * 8, u8FetchedRow, 0, 8);
+				fetchState = FetchState.PUSH;
+				iFetchDots = 0;
+			}
+			break;
+		case PUSH:
+			if (iBGFifoCount == 0)
+			{
+				System.arraycopy(u8FetchedRow, 0, u8BGFifo, 0, 8);
+				iBGFifoCount = 8;
+				iBGFifoPos = 0;
+				iFetcherX++;
+				fetchState = FetchState.TILE;
+			}
+			break;
+		}
+	}
+	
+	//gets the tile number (as an index into all 384 tiles) from the background or window map
+	private int fetchTileNum()
+	{
+		int iLCDC = arena.getByte(iLCDC_OFFSET);
+		int iMapStart;
+		int iMapX;
+		int iMapY;
+		
+		if (bWindowActive)
+		{
+			iMapStart = (iLCDC & 0x40) != 0 ? 0x400 : 0;
+			iMapX = iFetcherX & 31;
+			iMapY = iWindowLine;
+		}
+		else
+		{
+			iMapStart = (iLCDC & 0x08) != 0 ? 0x400 : 0;
+			iMapX = ((arena.getByte(iSCROLL_X_OFFSET) >> 3) + iFetcherX) & 31;
+			iMapY = (iLY + arena.getByte(iSCROLL_Y_OFFSET)) & 0xFF;
+		}
+		
+		int iTile = u8Arena[iMAPS_OFFSET + iMapStart + (iMapY / 8) * 32 + iMapX] & 0xFF;
+		if ((iLCDC & 0x10) == 0)
+		{
+			iTile = 256 + (byte) iTile;
+		}
+		return iTile;
+	}
+	
+	//gets the line within the tile being fetched
+	private int getTileLine()
+	{
+		if (bWindowActive)
+		{
+			return iWindowLine % 8;
+		}
+		return ((iLY + arena.getByte(iSCROLL_Y_OFFSET)) & 0xFF) % 8;
+	}
+	
+	//checks if the window is enabled and starts at this pixel
+	private boolean getWindowStartsAt(int iX)
+	{
+		int iLCDC = arena.getByte(iLCDC_OFFSET);
+		if ((iLCDC & 0x21) != 0x21 || arena.getByte(iWIN_Y_OFFSET) > iLY)
+		{
+			return false;
+		}
+		
+		return Math.max(arena.getByte(iWIN_X_OFFSET) - 7, 0) == iX;
+	}
+	
+	//mixes the background pixel with any sprite pixel, and writes its shade to the frame buffer
+	private void drawPixel(int iBGIndex)
+	{
+		int iLCDC = arena.getByte(iLCDC_OFFSET);
+		
+		//with the background and window off, the background is white
+		if ((iLCDC & 0x01) == 0)
+		{
+			iBGIndex = 0;
+		}
+		int iShade = (iLCDC & 0x01) != 0 ? lcd.getBGShades()[iBGIndex] : 0;
+		
+		int iSpriteIndex = u8SpriteColours[iLX];
+		if ((iLCDC & 0x02) != 0 && iSpriteIndex != 0)
+		{
+			int iAttributes = u8SpriteAttributes[iLX];
+			
+			//sprites behind the background only show over background colour 0
+			if ((iAttributes & 0x80) == 0 || iBGIndex == 0)
+			{
+				int[] iPalette = (iAttributes & 0x10) != 0 ? lcd.getSP2Shades() : lcd.getSP1Shades();
+				iShade = iPalette[iSpriteIndex];
+			}
+		}
+		
+		frameBuffer[iLY * iX_RES + iLX] = (byte) iShade;
+	}
+	
+	//finds the first 10 sprites in OAM that cover this line, as the OAM scan does
+	private void findSprites()
+	{
+		int[] iPackedOAM = vram.getPackedOAM();
+		int iHeight = (arena.getByte(iLCDC_OFFSET) & 0x04) != 0 ? 16 : 8;
+		
+		iSpriteCount = 0;
+		for (int i = 0; i < iPackedOAM.length && iSpriteCount < iMAX_SPRITES; i++)
+		{
+			int iYPos = (iPackedOAM[i] >>> 24) - 16;
+			if (iLY >= iYPos && iLY < iYPos + iHeight)
+			{
+				iSprites[iSpriteCount] = iPackedOAM[i];
+				bSpriteFetched[iSpriteCount] = false;
+				iSpriteCount++;
+			}
+		}
+		
+		for (int i = 0; i < iX_RES; i++)
+		{
+			u8SpriteColours[i] = 0;
+		}
+	}
+	
+	//finds the first sprite (in OAM order) that starts at or before this pixel and hasn't been fetched, or -1 if there isn't one
+	//sprites aren't fetched at all while they are turned off
+	private int findSpriteAt(int iX)
+	{
+		if ((arena.getByte(iLCDC_OFFSET) & 0x02) == 0)
+		{
+			return -1;
+		}
+		
+		for (int i = 0; i < iSpriteCount; i++)
+		{
+			if (!bSpriteFetched[i] && ((iSprites[i] >> 16) & 0xFF) <= iX + 8)
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	//fetches a row of a sprite into the sprite pixels, only filling in pixels that no earlier sprite has
+	private void fetchSprite(int iSprite)
+	{
+		int iEntry = iSprites[iSprite];
+		int iHeight = (arena.getByte(iLCDC_OFFSET) & 0x04) != 0 ? 16 : 8;
+		int iTileIndex = (iEntry >> 8) & 0xFF;
+		int iLine = iLY - ((iEntry >>> 24) - 16);
+		
+		//in 8x16 mode, ignore bit 0 of tile index
+		if (iHeight == 16)
+		{
+			iTileIndex &= ~0b1;
+		}
+		
+		if ((iEntry & 0x40) != 0)
+		{
+			iLine = iHeight - iLine - 1;
+		}
+		
+		//the flipped cache already has the row mirrored, and tiles are stored in order so 8x16 runs on into the next tile
+		byte[] u8Tiles = (iEntry & 0x20) != 0 ? vram.getFlippedTileCache() : vram.getTileCache();
+		int iSrc = iTileIndex * 64 + (iLine & (iHeight - 1)) * 8;
+		int iXPos = ((iEntry >> 16) & 0xFF) - 8;
+		
+		for (int i = 0; i < 8; i++)
+		{
+			int iPixelX = iXPos + i;
+			if (iPixelX < 0 || iPixelX >= iX_RES || u8SpriteColours[iPixelX] != 0 || u8Tiles[iSrc + i] == 0)
+			{
+				continue;
+			}
+			
+			u8SpriteColours[iPixelX] = u8Tiles[iSrc + i];
+			u8SpriteAttributes[iPixelX] = (byte) iEntry;
+		}
+	}
+}
@@ -0,0 +1,135 @@
+/**
+ * Class to pass completed frames from the PPU to one consumer (e.g. the screen) without locking or copying
+ * It is a triple buffer: the PPU draws into the back buffer, the consumer reads the front buffer,
+ * and the middle buffer holds the latest completed frame, with buffers being swapped by index atomically
+ * Each buffer also carries a version for each of its lines, which the producer changes whenever the line's pixels change,
+ * so the consumer can tell which lines differ from the last frame it showed, however many frames it skipped
+ */
+
+package com.szymon.gameboy.ppu;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+public class FrameExchange
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private final int iNEW_FRAME = 0b100;	//set alongside the middle index when it holds a frame the consumer hasn't taken
+	private final int iINDEX_MASK = 0b11;
+	
+	private final byte[][] buffers;
+	private final long[][] lineVersions;	//the line versions of each buffer, which travel with it as it is swapped
+	private int iBackIndex;	//only used by the producer
+	private int iFrontIndex;	//only used by the consumer
+	private final AtomicInteger middle;	//the middle index, and the new frame flag
+	
+	private volatile long lFrameCount;	//the number of frames published
+	private volatile Thread waiter;	//the consumer thread, if it is waiting for a frame
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public FrameExchange(int iFrameSize, int iLines)
+	{
+		buffers = new byte[3][iFrameSize];
+		lineVersions = new long[3][iLines];
+		iBackIndex = 0;
+		iFrontIndex = 1;
+		middle = new AtomicInteger(2);
+		lFrameCount = 0;
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	//gets the buffer the producer should draw into, this changes every time a frame is published
+	public byte[] getBackBuffer()
+	{
+		return buffers[iBackIndex];
+	}
+	
+	//gets the line versions of the back buffer, to be filled in by the producer before publishing
+	public long[] getBackLineVersions()
+	{
+		return lineVersions[iBackIndex];
+	}
+	
+	//gets the line versions of the frame last returned by takeFrame
+	public long[] getFrontLineVersions()
+	{
+		return lineVersions[iFrontIndex];
+	}
+	
+	//checks if a frame has been published since the consumer last took one
+	public boolean hasNewFrame()
+	{
+		return (middle.get() & iNEW_FRAME) != 0;
+	}
+	
+	public long getFrameCount()
+	{
+		return lFrameCount;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//called by the producer once the back buffer holds a complete frame
+	//swaps it with the middle buffer, and returns the new back buffer to draw into
+	public byte[] publish()
+	{
+		iBackIndex = middle.getAndSet(iBackIndex | iNEW_FRAME) & iINDEX_MASK;
+		lFrameCount++;
+		
+		Thread consumer = waiter;
+		if (consumer != null)
+		{
+			LockSupport.unpark(consumer);
+		}
+		
+		return buffers[iBackIndex];
+	}
+	
+	//called by the consumer to get the latest complete frame
+	//the frame belongs to the consumer until it next calls this, if no new frame is ready the last one is returned again
+	public byte[] takeFrame()
+	{
+		if (hasNewFrame())
+		{
+			iFrontIndex = middle.getAndSet(iFrontIndex) & iINDEX_MASK;
+		}
+		
+		return buffers[iFrontIndex];
+	}
+	
+	//blocks the consumer until a new frame is ready, or the timeout (ms) passes
+	//returns whether a new frame is ready
+	public boolean waitForFrame(long lTimeoutMillis)
+	{
+		long lDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lTimeoutMillis);
+		waiter = Thread.currentThread();
+		
+		try
+		{
+			//the flag is checked after setting the waiter, so a frame published in between isn't missed
+			while (!hasNewFrame())
+			{
+				long lRemaining = lDeadline - System.nanoTime();
+				if (lRemaining <= 0 || Thread.currentThread().isInterrupted())
+				{
+					return false;
+				}
+				LockSupport.parkNanos(this, lRemaining);
+			}
+			
+			return true;
+		}
+		finally
+		{
+			waiter = null;
+		}
+	}
+}
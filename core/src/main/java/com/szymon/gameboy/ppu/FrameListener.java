@@ -0,0 +1,16 @@
+/**
+ * Interface for anything that must see every completed frame (e.g. a recorder), rather than just the latest one
+ * It is called on the emulation thread as each frame is published, so should only copy what it needs and return
+ */
+
+package com.szymon.gameboy.ppu;
+
+public abstract interface FrameListener
+{
+	//---------------------------------------------
+	//methods
+	//---------------------------------------------
+	//u8Frame holds the shade of each pixel, and is only valid until this returns
+	//bChanged is false if the frame's pixels are the same as the last frame's
+	public void frameCompleted(byte[] u8Frame, boolean bChanged);
+}
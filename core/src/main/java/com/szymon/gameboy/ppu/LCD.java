@@ -0,0 +1,197 @@
+/**
+ * @author 18bilkiewiczs
+ * Class that stores the LCD registers, and the palettes that come as a result
+ * Each palette is also kept as the ARGB colours it gives, using this instance's colours for each shade
+ */
+
+package com.szymon.gameboy.ppu;
+
+import com.szymon.gameboy.memory.StateArena;
+import com.szymon.gameboy.ppu.utils.DisplayColour;
+import com.szymon.gameboy.utils.Unsigned16;
+import com.szymon.gameboy.utils.Unsigned8;
+
+public class LCD 
+{
+    // ---------------------------------------------
+ 	// class variables
+ 	// ---------------------------------------------
+	//each palette maps a colour index to a shade (0 is white, 3 is black)
+	private int[] iBGShades;
+	private int[] iSP1Shades;
+	private int[] iSP2Shades;
+	
+	//the ARGB colour of each shade, which can be changed per emulator
+	private int[] iShadeColours;
+	//each palette maps a colour index straight to an ARGB colour, recomputed when the palette or shade colours change
+	private int[] iBGColours;
+	private int[] iSP1Colours;
+	private int[] iSP2Colours;
+	//incremented whenever the palettes or shade colours change, so the debug viewers know when to redraw
+	private int iPaletteVersion;
+	
+	private LCDRegisters lcdRegisters;
+	
+    // ---------------------------------------------
+ 	// constructors
+ 	// ---------------------------------------------
+	public LCD(StateArena arena)
+	{	
+		reset(arena);
+	}
+	
+	public void reset(StateArena arena)
+	{
+		lcdRegisters = new LCDRegisters(arena);
+		
+		iBGShades = new int[4];
+		iSP1Shades = new int[4];
+		iSP2Shades = new int[4];
+		
+		iShadeColours = new int[4];
+		iBGColours = new int[4];
+		iSP1Colours = new int[4];
+		iSP2Colours = new int[4];
+		
+		for (int i = 0; i < 4; i++)
+		{
+			iBGShades[i] = i;
+			iSP1Shades[i] = i;
+			iSP2Shades[i] = i;
+			
+			iShadeColours[i] = 0xFF000000 | DisplayColour.fromShade(i).getRGB();
+		}
+		updateColours();
+		
+		//the palettes are derived from the palette registers, so must be recomputed if the arena is restored from a snapshot
+		arena.addRestoreListener(() -> 
+		{
+			for (int i = 0; i < 3; i++)
+			{
+				updatePalette(lcdRegisters.readMemory(new Unsigned16(0xFF47 + i)), i);
+			}
+		});
+	}
+	
+    // ---------------------------------------------
+ 	// setters
+ 	// ---------------------------------------------
+	public void writeRegisters(Unsigned16 u16Address, Unsigned8 u8Data)
+	{
+		lcdRegisters.writeMemory(u16Address, u8Data);
+		
+		//if a palette register has been updated, update the store palette
+		if (u16Address.getValue() >= 0xFF47 && u16Address.getValue() <= 0xFF49)
+		{
+			int iPalletteNum = u16Address.getValue() - 0xFF47;
+			updatePalette(u8Data, iPalletteNum);
+		}
+	}
+	
+	//sets the ARGB colour used for a shade (0 is white, 3 is black) by this emulator
+	public void setShadeColour(int iShade, int iARGB)
+	{
+		iShadeColours[iShade] = 0xFF000000 | iARGB;
+		updateColours();
+	}
+	
+    // ---------------------------------------------
+ 	// getters
+ 	// ---------------------------------------------
+	//the palettes are returned directly, so that a colour index can be looked up with one array index
+	//the arrays are updated in place, so references to them stay valid
+	public int[] getBGShades()
+	{
+		return iBGShades;
+	}
+	
+	public int[] getSP1Shades()
+	{
+		return iSP1Shades;
+	}
+	
+	public int[] getSP2Shades()
+	{
+		return iSP2Shades;
+	}
+	
+	public int[] getShadeColours()
+	{
+		return iShadeColours;
+	}
+	
+	public int[] getBGColours()
+	{
+		return iBGColours;
+	}
+	
+	public int[] getSP1Colours()
+	{
+		return iSP1Colours;
+	}
+	
+	public int[] getSP2Colours()
+	{
+		return iSP2Colours;
+	}
+	
+	public int getPaletteVersion()
+	{
+		return iPaletteVersion;
+	}
+	
+	public LCDRegisters getRegisters()
+	{
+		return lcdRegisters;
+	}
+	
+	public Unsigned8 readRegisters(Unsigned16 u16Address)
+	{
+		return lcdRegisters.readMemory(u16Address);
+	}
+	
+    // ---------------------------------------------
+ 	// methods
+ 	// ---------------------------------------------
+	//updates a palette based on its number
+	public void updatePalette(Unsigned8 u8Data, int iPalletteNum)
+	{
+		switch (iPalletteNum)
+		{
+		case 0:
+			iBGShades = updateSpecificPalette(iBGShades, u8Data);
+			break;
+		case 1:
+			iSP1Shades = updateSpecificPalette(iSP1Shades, u8Data);
+			break;
+		case 2:
+			iSP2Shades = updateSpecificPalette(iSP2Shades, u8Data);
+			break;
+		}
+		
+		updateColours();
+	}
+	
+	//recomputes the ARGB colours of each palette
+	private void updateColours()
+	{
+		for (int i = 0; i < 4; i++)
+		{
+			iBGColours[i] = iShadeColours[iBGShades[i]];
+			iSP1Colours[i] = iShadeColours[iSP1Shades[i]];
+			iSP2Colours[i] = iShadeColours[iSP2Shades[i]];
+		}
+		iPaletteVersion++;
+	}
+	
+	//updates the values for a specific palette
+	private int[] updateSpecificPalette(int[] palette, Unsigned8 u8Data)
+	{
+		palette[0] = u8Data.getValue() & 0b11;
+		palette[1] = (u8Data.getValue() >>> 2) & 0b11;
+		palette[2] = (u8Data.getValue() >>> 4) & 0b11;
+		palette[3] = (u8Data.getValue() >>> 6) & 0b11;
+		
+		return palette;
+	}
+}
@@ -5,8 +5,10 @@
 
 package com.szymon.gameboy.ppu;
 
+import com.szymon.gameboy.memory.StateArena;
 import com.szymon.gameboy.ppu.utils.PPUMode;
 import com.szymon.gameboy.ppu.utils.STATSrc;
+import com.szymon.gameboy.utils.BitOps;
 import com.szymon.gameboy.utils.Unsigned16;
 import com.szymon.gameboy.utils.Unsigned8;
 
@@ -15,36 +17,41 @@ public class LCDRegisters
     // ---------------------------------------------
  	// class variables
  	// ---------------------------------------------
-	private Unsigned8 u8LCDC;
-	private Unsigned8 u8LCDS;
-	private Unsigned8 u8ScrollY;
-	private Unsigned8 u8ScrollX;
-	private Unsigned8 u8LY;
-	private Unsigned8 u8LYCompare;
-	private Unsigned8 u8DMA;
-	private Unsigned8 u8BGPalette;
-	private Unsigned8 u8OBJPalette1;
-	private Unsigned8 u8OBJPalette2;
-	private Unsigned8 u8WinY;
-	private Unsigned8 u8WinX;
+	//all of the registers (FF40-FF4B) are stored in the state arena, in address order
+	private final int iLCDC = 0xFF40;
+	private final int iLCDS = 0xFF41;
+	private final int iSCROLL_Y = 0xFF42;
+	private final int iSCROLL_X = 0xFF43;
+	private final int iLY = 0xFF44;
+	private final int iLY_COMPARE = 0xFF45;
+	private final int iDMA = 0xFF46;
+	private final int iBG_PALETTE = 0xFF47;
+	private final int iOBJ_PALETTE_1 = 0xFF48;
+	private final int iOBJ_PALETTE_2 = 0xFF49;
+	private final int iWIN_Y = 0xFF4A;
+	private final int iWIN_X = 0xFF4B;
+	
+	private StateArena arena;
 	
     // ---------------------------------------------
  	// constructors
  	// ---------------------------------------------
-	public LCDRegisters()
+	public LCDRegisters(StateArena arenaIn)
 	{
-		u8LCDC = new Unsigned8(0x91);
-		u8LCDS = new Unsigned8(0x81);
-		u8ScrollY = new Unsigned8();
-		u8ScrollX = new Unsigned8();
-		u8LY = new Unsigned8(0x91);
-		u8LYCompare = new Unsigned8();
-		u8DMA = new Unsigned8(0xFF);
-		u8BGPalette = new Unsigned8(0xFC);
-		u8OBJPalette1 = new Unsigned8(0xFF);
-		u8OBJPalette2 = new Unsigned8(0xFF);
-		u8WinY = new Unsigned8();
-		u8WinX = new Unsigned8();
+		arena = arenaIn;
+		
+		setRegister(iLCDC, 0x91);
+		setRegister(iLCDS, 0x81);
+		setRegister(iSCROLL_Y, 0);
+		setRegister(iSCROLL_X, 0);
+		setRegister(iLY, 0x91);
+		setRegister(iLY_COMPARE, 0);
+		setRegister(iDMA, 0xFF);
+		setRegister(iBG_PALETTE, 0xFC);
+		setRegister(iOBJ_PALETTE_1, 0xFF);
+		setRegister(iOBJ_PALETTE_2, 0xFF);
+		setRegister(iWIN_Y, 0);
+		setRegister(iWIN_X, 0);
 	}
 	
     // ---------------------------------------------
@@ -54,112 +61,87 @@ public class LCDRegisters
 	{
 		switch (u16Address.getValue())
 		{
-		case 0xFF40:
-			u8LCDC.setValue(u8Data);
-			break;
 		case 0xFF41:
 			//bits 0, 1, 2 are read only
-			Unsigned8 u8Masked = new Unsigned8();
-			u8Masked.setValue(u8Data.getValue() & 0b11111000);
-			u8LCDS.setValue(u8Masked);
-			break;
-		case 0xFF42:
-			u8ScrollY.setValue(u8Data);
-			break;
-		case 0xFF43:
-			u8ScrollX.setValue(u8Data);
+			setRegister(iLCDS, u8Data.getValue() & 0b11111000);
 			break;
 		case 0xFF44:
 			//READ-ONLY
 			break;
-		case 0xFF45:
-			u8LYCompare.setValue(u8Data);
-			break;
-		case 0xFF46:
-			u8DMA.setValue(u8Data);
-			break;
-		case 0xFF47:
-			u8BGPalette.setValue(u8Data);
-			break;
-		case 0xFF48:
-			u8OBJPalette1.setValue(u8Data);
-			break;
-		case 0xFF49:
-			u8OBJPalette2.setValue(u8Data);
-			break;
-		case 0xFF4A:
-			u8WinY.setValue(u8Data);
-			break;
-		case 0xFF4B:
-			u8WinX.setValue(u8Data);
+		default:
+			setRegister(u16Address.getValue(), u8Data.getValue());
 			break;
 		}
 	}
 	
+	private void setRegister(int iAddress, int iValue)
+	{
+		arena.setByte(StateArena.iLCD_OFFSET + (iAddress - iLCDC), iValue);
+	}
+	
     // ---------------------------------------------
  	// getters
  	// ---------------------------------------------	
 	public Unsigned8 readMemory(Unsigned16 u16Address)
 	{
-		switch (u16Address.getValue())
+		if (u16Address.getValue() >= iLCDC && u16Address.getValue() <= iWIN_X)
 		{
-		case 0xFF40:
-			return u8LCDC;
-		case 0xFF41:
-			return u8LCDS;
-		case 0xFF42:
-			return u8ScrollY;
-		case 0xFF43:
-			return u8ScrollX;
-		case 0xFF44:
-			return u8LY;
-		case 0xFF45:
-			return u8LYCompare;
-		case 0xFF46:
-			return u8DMA;
-		case 0xFF47:
-			return u8BGPalette;
-		case 0xFF48:
-			return u8OBJPalette1;
-		case 0xFF49:
-			return u8OBJPalette2;
-		case 0xFF4A:
-			return u8WinY;
-		case 0xFF4B:
-			return u8WinX;
+			return new Unsigned8(getRegister(u16Address.getValue()));
 		}
 		
 		return new Unsigned8();
 	}
 	
+	private int getRegister(int iAddress)
+	{
+		return arena.getByte(StateArena.iLCD_OFFSET + (iAddress - iLCDC));
+	}
+	
+	private boolean getRegisterBit(int iAddress, int iBit)
+	{
+		return BitOps.getBit(getRegister(iAddress), iBit);
+	}
+	
+	private void setRegisterBit(int iAddress, int iBit, boolean bBit)
+	{
+		if (bBit)
+		{
+			setRegister(iAddress, BitOps.setBit(getRegister(iAddress), iBit));
+		}
+		else
+		{
+			setRegister(iAddress, BitOps.clearBit(getRegister(iAddress), iBit));
+		}
+	}
+	
 	public Unsigned8 getLY()
 	{
-		return u8LY;
+		return new Unsigned8(getRegister(iLY));
 	}
 	
 	public Unsigned8 getScrollY()
 	{
-		return u8ScrollY;
+		return new Unsigned8(getRegister(iSCROLL_Y));
 	}
 	
 	public Unsigned8 getScrollX()
 	{
-		return u8ScrollX;
+		return new Unsigned8(getRegister(iSCROLL_X));
 	}
 	
 	public Unsigned8 getWinY()
 	{
-		return u8WinY;
+		return new Unsigned8(getRegister(iWIN_Y));
 	}
 	
 	public Unsigned8 getWinX()
 	{
-		return u8WinX;
+		return new Unsigned8(getRegister(iWIN_X));
 	}
 	
 	public Unsigned8 getLYCompare()
 	{
-		return u8LYCompare;
+		return new Unsigned8(getRegister(iLY_COMPARE));
 	}
 	
     // ---------------------------------------------
@@ -167,12 +149,12 @@ public class LCDRegisters
  	// ---------------------------------------------
 	public void incrementLY()
 	{
-		u8LY.increment();
+		setRegister(iLY, getRegister(iLY) + 1);
 	}
 	
 	public void resetLY()
 	{
-		u8LY.setValue(0);
+		setRegister(iLY, 0);
 	}
 	
 	//LCDC
@@ -186,14 +168,14 @@ public class LCDRegisters
 	//0-BG & Window enable / priority [Different meaning in CGB Mode]: 0 = Off; 1 = On
 	public boolean getLCDEnable()
 	{
-		return u8LCDC.getBit(7);
+		return getRegisterBit(iLCDC, 7);
 	}
 	
 	public Unsigned16 getWindowTileMapStart()
 	{
 		Unsigned16 u16Address = new Unsigned16();
 		
-		if (u8LCDC.getBit(6))
+		if (getRegisterBit(iLCDC, 6))
 		{
 			u16Address.setValue(0x9C00);
 		}
@@ -207,14 +189,14 @@ public class LCDRegisters
 	
 	public boolean getWindowEnable()
 	{
-		return u8LCDC.getBit(5);
+		return getRegisterBit(iLCDC, 5);
 	}
 	
 	public Unsigned16 getBGWindowTileDataStart()
 	{
 		Unsigned16 u16Address = new Unsigned16();
 		
-		if (u8LCDC.getBit(4))
+		if (getRegisterBit(iLCDC, 4))
 		{
 			u16Address.setValue(0x8000);
 		}
@@ -230,7 +212,7 @@ public class LCDRegisters
 	{
 		Unsigned16 u16Address = new Unsigned16();
 		
-		if (u8LCDC.getBit(3))
+		if (getRegisterBit(iLCDC, 3))
 		{
 			u16Address.setValue(0x9C00);
 		}
@@ -246,7 +228,7 @@ public class LCDRegisters
 	{
 		int iHeight = 8;
 		
-		if (u8LCDC.getBit(2))
+		if (getRegisterBit(iLCDC, 2))
 		{
 			iHeight = 16;
 		}
@@ -256,12 +238,12 @@ public class LCDRegisters
 	
 	public boolean getObjEnable()
 	{
-		return u8LCDC.getBit(1);
+		return getRegisterBit(iLCDC, 1);
 	}
 	
 	public boolean getBGWindowEnable()
 	{
-		return u8LCDC.getBit(0);
+		return getRegisterBit(iLCDC, 0);
 	}
 	
 	//LCDS
@@ -277,22 +259,22 @@ public class LCDRegisters
 	
 	public boolean checkSTATInterrupt(STATSrc src)
 	{
-		if (u8LCDS.getBit(6) && src == STATSrc.LYC)
+		if (getRegisterBit(iLCDS, 6) && src == STATSrc.LYC)
 		{
 			return true;
 		}
 		
-		if (u8LCDS.getBit(5) && src == STATSrc.OAM)
+		if (getRegisterBit(iLCDS, 5) && src == STATSrc.OAM)
 		{
 			return true;
 		}
 		
-		if (u8LCDS.getBit(4) && src == STATSrc.VBLANK)
+		if (getRegisterBit(iLCDS, 4) && src == STATSrc.VBLANK)
 		{
 			return true;
 		}
 		
-		if (u8LCDS.getBit(3) && src == STATSrc.HBLANK)
+		if (getRegisterBit(iLCDS, 3) && src == STATSrc.HBLANK)
 		{
 			return true;
 		}
@@ -302,24 +284,17 @@ public class LCDRegisters
 	
 	public boolean getLYCFromLCDS()
 	{
-		return u8LCDS.getBit(2);
+		return getRegisterBit(iLCDS, 2);
 	}
 	
 	protected void setLYCFromLCDS(boolean bBit)
 	{
-		if (bBit)
-		{
-			u8LCDS.setBit(2);
-		}
-		else 
-		{
-			u8LCDS.clearBit(2);
-		}
+		setRegisterBit(iLCDS, 2, bBit);
 	}
 	
 	public PPUMode getPPUMode()
 	{
-		int iMode = u8LCDS.getValue() & 0b11;
+		int iMode = getRegister(iLCDS) & 0b11;
 		PPUMode mode = PPUMode.VBLANK;
 		
 		switch (iMode)
@@ -346,20 +321,20 @@ public class LCDRegisters
 		switch (mode)
 		{
 		case HBLANK:
-			u8LCDS.clearBit(0);
-			u8LCDS.clearBit(1);
+			setRegisterBit(iLCDS, 0, false);
+			setRegisterBit(iLCDS, 1, false);
 			break;
 		case VBLANK:
-			u8LCDS.setBit(0);
-			u8LCDS.clearBit(1);
+			setRegisterBit(iLCDS, 0, true);
+			setRegisterBit(iLCDS, 1, false);
 			break;
 		case OAM:
-			u8LCDS.clearBit(0);
-			u8LCDS.setBit(1);
+			setRegisterBit(iLCDS, 0, false);
+			setRegisterBit(iLCDS, 1, true);
 			break;
 		case TRANSFER:
-			u8LCDS.setBit(0);
-			u8LCDS.setBit(1);
+			setRegisterBit(iLCDS, 0, true);
+			setRegisterBit(iLCDS, 1, true);
 			break;
 		}
 	}
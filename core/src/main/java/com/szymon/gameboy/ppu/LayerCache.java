@@ -0,0 +1,143 @@
+/**
+ * Class to keep both background maps (9800 and 9C00) rendered out as 256x256 bitmaps of colour indices
+ * VRAM marks the map cells and tiles that are written to, and only those cells are redrawn before the next line is rendered,
+ * so a line of background is just copied out of the bitmap at the scroll position
+ */
+
+package com.szymon.gameboy.ppu;
+
+import java.util.Arrays;
+
+import com.szymon.gameboy.memory.VRAM;
+
+public class LayerCache
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private final int iLAYER_SIZE = 256;
+	private final int iMAP_CELLS = 32 * 32;
+	
+	private final VRAM vram;
+	
+	//layer 0 is the map at 9800, layer 1 is the map at 9C00
+	private final byte[][] layers;
+	
+	//cells are numbered as in VRAM, from 9800 (0) to 9FFF (2047)
+	private final boolean[] bDirtyCells;
+	private final boolean[] bDirtyTiles;
+	private boolean bDirty;	//set if anything is marked at all
+	
+	private boolean bSigned;	//the tile addressing mode the layers were drawn with
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public LayerCache(VRAM vramIn)
+	{
+		vram = vramIn;
+		
+		layers = new byte[2][iLAYER_SIZE * iLAYER_SIZE];
+		bDirtyCells = new boolean[iMAP_CELLS * 2];
+		bDirtyTiles = new boolean[VRAM.iTILE_COUNT];
+		bSigned = false;
+		
+		markAll();
+	}
+	
+	// ---------------------------------------------
+	// setters
+	// ---------------------------------------------
+	//called by VRAM when a tile map entry changes
+	public void markCell(int iCell)
+	{
+		bDirtyCells[iCell] = true;
+		bDirty = true;
+	}
+	
+	//called by VRAM when a tile's data changes
+	public void markTile(int iTile)
+	{
+		bDirtyTiles[iTile] = true;
+		bDirty = true;
+	}
+	
+	//marks everything to be redrawn (e.g. after the VRAM has been restored)
+	public void markAll()
+	{
+		Arrays.fill(bDirtyCells, true);
+		bDirty = true;
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	//the bytes of the pre-rendered layers and their dirty flags
+	public long getFootprint()
+	{
+		return 2L * iLAYER_SIZE * iLAYER_SIZE + bDirtyCells.length + bDirtyTiles.length;
+	}
+	
+	//gets the layer for a tile map, each row of 256 pixels is stored in turn
+	public byte[] getLayer(int iMapStart)
+	{
+		return layers[iMapStart == 0x9C00 ? 1 : 0];
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//redraws any cells that have changed, must be called before the layers are used
+	public void update(boolean bSignedMode)
+	{
+		if (bSignedMode != bSigned)
+		{
+			//every cell now points at a different tile
+			bSigned = bSignedMode;
+			markAll();
+		}
+		
+		if (!bDirty)
+		{
+			return;
+		}
+		
+		for (int iCell = 0; iCell < bDirtyCells.length; iCell++)
+		{
+			int iTile = getTile(iCell);
+			if (bDirtyCells[iCell] || bDirtyTiles[iTile])
+			{
+				drawCell(iCell, iTile);
+				bDirtyCells[iCell] = false;
+			}
+		}
+		
+		Arrays.fill(bDirtyTiles, false);
+		bDirty = false;
+	}
+	
+	//gets the tile (out of all 384) that a map cell uses
+	private int getTile(int iCell)
+	{
+		int iTile = vram.getVRAMByte(0x9800 + iCell);
+		if (bSigned)
+		{
+			iTile = 256 + (byte) iTile;
+		}
+		return iTile;
+	}
+	
+	//copies a tile from the tile cache into its cell in the layer
+	private void drawCell(int iCell, int iTile)
+	{
+		byte[] u8Tiles = vram.getTileCache();
+		byte[] u8Layer = layers[iCell / iMAP_CELLS];
+		int iMapCell = iCell % iMAP_CELLS;
+		int iDest = (iMapCell / 32) * 8 * iLAYER_SIZE + (iMapCell % 32) * 8;
+		
+		for (int iRow = 0; iRow < 8; iRow++)
+		{
+			System.arraycopy(u8Tiles, iTile * 64 + iRow * 8, u8Layer, iDest + iRow * iLAYER_SIZE, 8);
+		}
+	}
+}
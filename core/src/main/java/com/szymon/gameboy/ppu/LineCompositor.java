@@ -0,0 +1,43 @@
+/**
+ * Interface for the per-pixel work of drawing a line: applying the palette to the background,
+ * blending sprites over it and turning shades into ARGB colours
+ * The scalar version always works, and a vector version (using jdk.incubator.vector) is used instead
+ * when the JDK running the emulator has it
+ */
+
+package com.szymon.gameboy.ppu;
+
+public abstract interface LineCompositor
+{
+	//---------------------------------------------
+	//methods
+	//---------------------------------------------
+	//maps iLength colour indices to shades through the palette, writing them to u8Dest from iDestStart
+	public void mapPalette(byte[] u8Indices, int iStart, int[] iPalette, byte[] u8Dest, int iDestStart, int iLength);
+	
+	//draws one row of a sprite (8 colour indices from u8Tiles at iSrc) onto a line, starting at iXPos (which may be partly off screen)
+	//colour index 0 is transparent, and if bBehindBG is set the sprite is only drawn over pixels with shade 0
+	public void blendSprite(byte[] u8Tiles, int iSrc, int[] iPalette, boolean bBehindBG, byte[] u8Line, int iRowStart, int iXPos);
+	
+	//maps iLength shades to ARGB colours, writing them to iDest from iDestStart
+	public void mapColours(byte[] u8Shades, int iStart, int[] iColours, int[] iDest, int iDestStart, int iLength);
+	
+	//uses the vector compositor if the module is available (it must be added with --add-modules jdk.incubator.vector),
+	//otherwise the scalar one
+	public static LineCompositor create()
+	{
+		if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent())
+		{
+			try
+			{
+				return (LineCompositor) Class.forName("com.szymon.gameboy.ppu.VectorCompositor").getDeclaredConstructor().newInstance();
+			}
+			catch (ReflectiveOperationException | LinkageError e)
+			{
+				System.err.println("Vector compositor unavailable, using scalar: " + e);
+			}
+		}
+		
+		return new ScalarCompositor();
+	}
+}
@@ -0,0 +1,179 @@
+/**
+ * Class to hold everything needed to draw one scanline, captured when the line enters mode 3
+ * The registers, palettes and sprites can change between lines (e.g. for raster effects),
+ * so a line drawn later from its record still comes out as it would have at the time
+ */
+
+package com.szymon.gameboy.ppu;
+
+public class LineRecord
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private int iLY;
+	
+	//from LCDC
+	private boolean bBGWindowEnable;
+	private boolean bObjEnable;
+	private int iObjHeight;
+	private int iBGMapStart;
+	private int iWindowMapStart;
+	private boolean bSigned;	//set if the tile data is addressed from 8800 with signed tile numbers
+	
+	private int iScrollX;
+	private int iScrollY;
+	private int iWindowX;	//WX - 7, wrapped to a byte
+	private int iWindowStart;	//the first pixel covered by the window, or 160 if it isn't shown on this line
+	private int iWindowLine;	//the line of the window to draw, as this only advances on lines it is shown on
+	
+	//copies of the palettes, mapping colour index to shade
+	private int[] iBGShades;
+	private int[] iSP1Shades;
+	private int[] iSP2Shades;
+	
+	//the packed OAM entries of the sprites on this line, in drawing order
+	private int[] iSprites;
+	private int iSpriteCount;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public LineRecord()
+	{
+		iBGShades = new int[4];
+		iSP1Shades = new int[4];
+		iSP2Shades = new int[4];
+		iSprites = new int[10];
+		iSpriteCount = 0;
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	public int getLY()
+	{
+		return iLY;
+	}
+	
+	public boolean getBGWindowEnable()
+	{
+		return bBGWindowEnable;
+	}
+	
+	public boolean getObjEnable()
+	{
+		return bObjEnable;
+	}
+	
+	public int getObjHeight()
+	{
+		return iObjHeight;
+	}
+	
+	public int getBGMapStart()
+	{
+		return iBGMapStart;
+	}
+	
+	public int getWindowMapStart()
+	{
+		return iWindowMapStart;
+	}
+	
+	public boolean getSigned()
+	{
+		return bSigned;
+	}
+	
+	public int getScrollX()
+	{
+		return iScrollX;
+	}
+	
+	public int getScrollY()
+	{
+		return iScrollY;
+	}
+	
+	public int getWindowX()
+	{
+		return iWindowX;
+	}
+	
+	public int getWindowStart()
+	{
+		return iWindowStart;
+	}
+	
+	public int getWindowLine()
+	{
+		return iWindowLine;
+	}
+	
+	public int[] getBGShades()
+	{
+		return iBGShades;
+	}
+	
+	public int[] getSP1Shades()
+	{
+		return iSP1Shades;
+	}
+	
+	public int[] getSP2Shades()
+	{
+		return iSP2Shades;
+	}
+	
+	public int[] getSprites()
+	{
+		return iSprites;
+	}
+	
+	public int getSpriteCount()
+	{
+		return iSpriteCount;
+	}
+	
+	//checks whether the window is drawn on this line, in which case the window line must be advanced
+	public boolean getWindowShown()
+	{
+		return bBGWindowEnable && iWindowStart < 160;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//captures the state of the current line from the registers, palettes and the sprites selected for the line
+	public void capture(LCDRegisters lcdRegisters, LCD lcd, int iWindowLineIn, int[] iLineSprites, int iFirst, int iCount)
+	{
+		iLY = lcdRegisters.getLY().getValue();
+		
+		bBGWindowEnable = lcdRegisters.getBGWindowEnable();
+		bObjEnable = lcdRegisters.getObjEnable();
+		iObjHeight = lcdRegisters.getObjHeight();
+		iBGMapStart = lcdRegisters.getBGTileMapStart().getValue();
+		iWindowMapStart = lcdRegisters.getWindowTileMapStart().getValue();
+		bSigned = lcdRegisters.getBGWindowTileDataStart().getValue() == 0x8800;
+		
+		iScrollX = lcdRegisters.getScrollX().getValue();
+		iScrollY = lcdRegisters.getScrollY().getValue();
+		iWindowX = (lcdRegisters.getWinX().getValue() - 7) & 0xFF;
+		
+		//the window covers the rest of the line from where it starts
+		iWindowStart = 160;
+		if (lcdRegisters.getWinY().getValue() <= iLY && lcdRegisters.getWindowEnable())
+		{
+			iWindowStart = Math.min(iWindowX, 160);
+		}
+		iWindowLine = iWindowLineIn;
+		
+		System.arraycopy(lcd.getBGShades(), 0, iBGShades, 0, 4);
+		System.arraycopy(lcd.getSP1Shades(), 0, iSP1Shades, 0, 4);
+		System.arraycopy(lcd.getSP2Shades(), 0, iSP2Shades, 0, 4);
+		
+		System.arraycopy(iLineSprites, iFirst, iSprites, 0, iCount);
+		iSpriteCount = iCount;
+	}
+}
@@ -0,0 +1,206 @@
+/**
+ * Class to draw scanlines into a frame buffer from their line records
+ * It reads the tiles and tile maps from the arrays it is given, which can either be the live VRAM
+ * or a copy of it, so lines can be drawn on another thread after the emulation has moved on
+ */
+
+package com.szymon.gameboy.ppu;
+
+import java.util.Arrays;
+
+public class LineRenderer
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private final int iX_RES = 160;
+	private final int iMAP_START_ADDRESS = 0x9800;
+	
+	//the decoded tiles (normal and mirrored), as kept by VRAM
+	private final byte[] u8Tiles;
+	private final byte[] u8FlippedTiles;
+	//the tile maps (9800-9FFF), starting at iMapsOffset
+	private final byte[] u8Maps;
+	private final int iMapsOffset;
+	
+	//optionally, the background is copied out of the pre-rendered layers (only when drawing from the live VRAM)
+	private LayerCache layerCache;
+	
+	//does the per-pixel work, which may be vectorised
+	//it holds no state, so lines can be drawn from several threads at once
+	private final LineCompositor compositor;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public LineRenderer(byte[] u8TilesIn, byte[] u8FlippedTilesIn, byte[] u8MapsIn, int iMapsOffsetIn, LineCompositor compositorIn)
+	{
+		u8Tiles = u8TilesIn;
+		u8FlippedTiles = u8FlippedTilesIn;
+		u8Maps = u8MapsIn;
+		iMapsOffset = iMapsOffsetIn;
+		
+		layerCache = null;
+		compositor = compositorIn;
+	}
+	
+	// ---------------------------------------------
+	// setters
+	// ---------------------------------------------
+	//turns the layer cache on (or off, if null)
+	public void setLayerCache(LayerCache cache)
+	{
+		layerCache = cache;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//draws a line into the frame buffer
+	public void renderLine(LineRecord record, byte[] frameBuffer)
+	{
+		if (record.getBGWindowEnable())
+		{
+			renderTiles(record, frameBuffer);
+		}
+		else
+		{
+			//with the background and window off the line is white, the buffer may hold an old frame so this must be drawn
+			int iRowStart = record.getLY() * iX_RES;
+			Arrays.fill(frameBuffer, iRowStart, iRowStart + iX_RES, (byte) 0);
+		}
+		
+		if (record.getObjEnable())
+		{
+			renderSprites(record, frameBuffer);
+		}
+	}
+	
+	//renders background/window tiles to the screen
+	//the line is split into a background part and (if the window is showing) a window part
+	//the colour indices are first put in the line in the frame buffer, then the palette is applied to the whole line at once
+	private void renderTiles(LineRecord record, byte[] frameBuffer)
+	{
+		int iWindowStart = record.getWindowStart();
+		int iRowStart = record.getLY() * iX_RES;
+		
+		if (layerCache != null)
+		{
+			copyLayerLine(record, frameBuffer, iRowStart);
+		}
+		else
+		{
+			copyTileSpan(record, frameBuffer, iRowStart, record.getBGMapStart(), (record.getLY() + record.getScrollY()) & 0xFF, record.getScrollX(), 0, iWindowStart);
+			
+			if (iWindowStart < iX_RES)
+			{
+				copyTileSpan(record, frameBuffer, iRowStart, record.getWindowMapStart(), record.getWindowLine(), -record.getWindowX(), iWindowStart, iX_RES);
+			}
+		}
+		
+		compositor.mapPalette(frameBuffer, iRowStart, record.getBGShades(), frameBuffer, iRowStart, iX_RES);
+	}
+	
+	//copies the colour indices for the background/window of a line out of the pre-rendered layers
+	//the background wraps around at 256 pixels, so takes at most 2 copies, and the window takes 1
+	private void copyLayerLine(LineRecord record, byte[] frameBuffer, int iRowStart)
+	{
+		int iScrollX = record.getScrollX();
+		int iWindowStart = record.getWindowStart();
+		
+		layerCache.update(record.getSigned());
+		
+		byte[] u8Layer = layerCache.getLayer(record.getBGMapStart());
+		int iLayerRow = ((record.getLY() + record.getScrollY()) & 0xFF) * 256;
+		int iFirstCopy = Math.min(iWindowStart, 256 - iScrollX);
+		System.arraycopy(u8Layer, iLayerRow + iScrollX, frameBuffer, iRowStart, iFirstCopy);
+		if (iFirstCopy < iWindowStart)
+		{
+			System.arraycopy(u8Layer, iLayerRow, frameBuffer, iRowStart + iFirstCopy, iWindowStart - iFirstCopy);
+		}
+		
+		if (iWindowStart < iX_RES)
+		{
+			u8Layer = layerCache.getLayer(record.getWindowMapStart());
+			System.arraycopy(u8Layer, record.getWindowLine() * 256 + iWindowStart - record.getWindowX(), frameBuffer, iRowStart + iWindowStart, iX_RES - iWindowStart);
+		}
+	}
+	
+	//copies the colour indices of the pixels from iStart up to iEnd of the line, from a tile map
+	//iY is the line within the (256x256) map, and iXOffset is added to the pixel's position to get its position in the map
+	private void copyTileSpan(LineRecord record, byte[] frameBuffer, int iRowStart, int iMapStart, int iY, int iXOffset, int iStart, int iEnd)
+	{
+		boolean bSigned = record.getSigned();
+		
+		int iMapRow = iMapsOffset + iMapStart - iMAP_START_ADDRESS + (iY / 8) * 32;
+		int iTileLine = (iY % 8) * 8;
+		
+		int iPixel = iStart;
+		while (iPixel < iEnd)
+		{
+			int iX = (iPixel + iXOffset) & 0xFF;
+			
+			//get tile identity num, as an index into all 384 tiles
+			int iTileNum = u8Maps[iMapRow + iX / 8] & 0xFF;
+			if (bSigned)
+			{
+				iTileNum = 256 + (byte) iTileNum;
+			}
+			
+			//copy as much of the tile's row as is needed
+			int iSrc = iTileNum * 64 + iTileLine + (iX % 8);
+			int iCount = Math.min(8 - (iX % 8), iEnd - iPixel);
+			System.arraycopy(u8Tiles, iSrc, frameBuffer, iRowStart + iPixel, iCount);
+			
+			iPixel += iCount;
+		}
+	}
+	
+	private void renderSprites(LineRecord record, byte[] frameBuffer)
+	{
+		int iYPos = 0;
+		int iXPos = 0;
+		int iTileIndex = 0;
+		
+		int iLY = record.getLY();
+		
+		int iYSize = record.getObjHeight();
+		
+		int iLine = 0;
+		int iRowStart = iLY * iX_RES;
+		
+		int[] iSprites = record.getSprites();
+		int[] iSP1Palette = record.getSP1Shades();
+		int[] iSP2Palette = record.getSP2Shades();
+		int iEntry = 0;
+		
+		for (int i = 0; i < record.getSpriteCount(); i++)
+		{
+			iEntry = iSprites[i];
+			iYPos = (iEntry >>> 24) - 16;
+			iXPos = ((iEntry >> 16) & 0xFF) - 8;
+			iTileIndex = (iEntry >> 8) & 0xFF;
+			
+			iLine = iLY - iYPos;
+			
+			//in 8x16 mode, ignore bit 0 of tile index
+			if (iYSize == 16)
+			{
+				iTileIndex &= ~0b1;
+			}
+			
+			if ((iEntry & 0x40) != 0)
+			{
+				iLine = iYSize - iLine - 1;
+			}
+			
+			//palette bit selects OBP1 or OBP0
+			int[] iPalette = (iEntry & 0x10) != 0 ? iSP2Palette : iSP1Palette;
+			
+			//the flipped cache already has the row mirrored, and tiles are stored in order so 8x16 runs on into the next tile
+			byte[] u8SpriteTiles = (iEntry & 0x20) != 0 ? u8FlippedTiles : u8Tiles;
+			
+			compositor.blendSprite(u8SpriteTiles, iTileIndex * 64 + iLine * 8, iPalette, (iEntry & 0x80) != 0, frameBuffer, iRowStart, iXPos);
+		}
+	}
+}
@@ -0,0 +1,434 @@
+/**
+ * @author 18bilkiewiczs
+ * This class puts together the display related functionality
+ * It acts as a state machine, transitioning between different states
+ * and peforming the appropriate functions
+ */
+
+package com.szymon.gameboy.ppu;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.szymon.gameboy.cpu.CPUInterrupts;
+import com.szymon.gameboy.cpu.utils.InterruptType;
+import com.szymon.gameboy.memory.Memory;
+import com.szymon.gameboy.memory.StateArena;
+import com.szymon.gameboy.memory.VRAM;
+import com.szymon.gameboy.ppu.utils.PPUMode;
+import com.szymon.gameboy.ppu.utils.RendererType;
+import com.szymon.gameboy.ppu.utils.STATSrc;
+
+public class PPU 
+{
+    // ---------------------------------------------
+ 	// class variables
+ 	// ---------------------------------------------
+	private final int iLINES_PER_FRAME = 154;
+	private final int iTICKS_PER_LINE = 456;
+	private final int iY_RES = 144;
+	private final int iX_RES = 160;
+	
+	//the shade (0 is white, 3 is black) of each pixel, stored row by row
+	//this is the back buffer of the frame exchange, so is swapped for a new buffer every VBlank
+	private byte[] frameBuffer;
+	private FrameExchange frameExchange;
+	//any other consumers get their own exchange, and have each frame copied into it
+	private List<FrameExchange> extraExchanges;
+	//listeners see every frame, as they are called before it is published
+	private List<FrameListener> frameListeners;
+	
+	//the last published frame, which each new frame is compared against line by line
+	//a line's version is set to the frame's number whenever it differs, so consumers can skip redrawing lines that haven't changed
+	private byte[] u8LastFrame;
+	private long[] lLineVersions;
+	private long lFrameNumber;
+	
+	//the visible lines are drawn by a renderer, either the scanline renderer (which is always kept, so its settings stay)
+	//or the pixel FIFO renderer, which is only made if it is chosen
+	//a change of renderer is only made between frames
+	private Renderer renderer;
+	private ScanlineRenderer scanlineRenderer;
+	private FifoRenderer fifoRenderer;
+	private RendererType requestedType;
+	
+	private LCD lcd;
+	private LCDRegisters lcdRegisters;
+	private Memory memory;
+	private CPUInterrupts interrupts;
+	
+	//the sprites for each line
+	private SpriteIndex spriteIndex;
+	
+	//the timing state is stored in the state arena, the sprites for the line and the video buffer are derived from it
+	private StateArena arena;
+	private final int iLINE_TICKS_OFFSET = StateArena.iPPU_OFFSET;
+	private final int iWINDOW_LINE_OFFSET = StateArena.iPPU_OFFSET + 2;
+	private final int iSCANLINE_COMPLETE_OFFSET = StateArena.iPPU_OFFSET + 3;
+	private final int iOAM_COMPLETE_OFFSET = StateArena.iPPU_OFFSET + 4;
+	
+    // ---------------------------------------------
+ 	// constructors
+ 	// ---------------------------------------------
+	public PPU(Memory mem, CPUInterrupts interruptsIn, LCD lcdIn)
+	{
+		initPPU(mem, interruptsIn, lcdIn);
+	}
+	
+    // ---------------------------------------------
+ 	// setters
+ 	// ---------------------------------------------
+	//adds another consumer of completed frames (e.g. a recorder)
+	public void addFrameExchange(FrameExchange exchange)
+	{
+		extraExchanges.add(exchange);
+	}
+	
+	public void removeFrameExchange(FrameExchange exchange)
+	{
+		extraExchanges.remove(exchange);
+	}
+	
+	//adds a listener that is given every completed frame on the emulation thread (e.g. a recorder)
+	public void addFrameListener(FrameListener listener)
+	{
+		frameListeners.add(listener);
+	}
+	
+	public void removeFrameListener(FrameListener listener)
+	{
+		frameListeners.remove(listener);
+	}
+	
+	//turns on/off the pre-rendered background layers (used by the scanline renderer)
+	public void setLayerCacheEnabled(boolean bEnable)
+	{
+		scanlineRenderer.setLayerCacheEnabled(bEnable);
+	}
+	
+	//turns on/off the scanline renderer drawing the lines on worker threads, with frames published at the end of VBlank once they are drawn
+	public void setDeferredRendering(boolean bEnable, int iThreads)
+	{
+		//if the frame was being held back, it must be published now as the sooner publish at VBlank has already been missed
+		if (scanlineRenderer.setDeferredRendering(bEnable, iThreads) && renderer == scanlineRenderer)
+		{
+			publishFrame();
+		}
+	}
+	
+	//chooses the renderer, which takes over from the start of the next frame
+	public void setRenderer(RendererType type)
+	{
+		requestedType = type;
+	}
+	
+	//stops any worker threads, called when the emulator is finished with
+	public void shutdown()
+	{
+		scanlineRenderer.shutdown();
+		if (fifoRenderer != null)
+		{
+			fifoRenderer.shutdown();
+		}
+	}
+	
+    // ---------------------------------------------
+ 	// getters
+ 	// ---------------------------------------------
+	//an estimate of the bytes of buffers held for drawing and handing over frames, called from the emulator thread
+	public long getFootprint()
+	{
+		long lExchange = 3L * (iX_RES * iY_RES + iY_RES * 8);
+		long lBytes = lExchange * (1 + extraExchanges.size());
+		lBytes += u8LastFrame.length + lLineVersions.length * 8L;
+		lBytes += scanlineRenderer.getFootprint();
+		return lBytes;
+	}
+	
+	//gets the frame buffer currently being drawn, one byte per pixel holding its shade, with each row of 160 pixels stored in turn
+	//completed frames should be taken from the frame exchange instead
+	public byte[] getFrameBuffer()
+	{
+		return frameBuffer;
+	}
+	
+	//gets the LCD, which holds the palettes and the colours the shades are shown in
+	public LCD getLCD()
+	{
+		return lcd;
+	}
+	
+	public RendererType getRenderer()
+	{
+		return renderer == fifoRenderer ? RendererType.FIFO : RendererType.SCANLINE;
+	}
+	
+	//gets the exchange that completed frames are published to (used by the screen)
+	public FrameExchange getFrameExchange()
+	{
+		return frameExchange;
+	}
+	
+    // ---------------------------------------------
+ 	// methods
+ 	// ---------------------------------------------
+	public void initPPU(Memory mem, CPUInterrupts interruptsIn, LCD lcdIn)
+	{
+		memory = mem;
+		interrupts = interruptsIn;
+		
+		arena = memory.getArena();
+		arena.setShort(iLINE_TICKS_OFFSET, 0);
+		frameExchange = new FrameExchange(iX_RES * iY_RES, iY_RES);
+		extraExchanges = new CopyOnWriteArrayList<FrameExchange>();
+		frameListeners = new CopyOnWriteArrayList<FrameListener>();
+		frameBuffer = frameExchange.getBackBuffer();
+		
+		u8LastFrame = new byte[iX_RES * iY_RES];
+		lLineVersions = new long[iY_RES];
+		lFrameNumber = 0;
+		
+		lcd = lcdIn;
+		lcdRegisters = lcd.getRegisters();
+		
+		lcdRegisters.setPPUMode(PPUMode.VBLANK);
+		
+		spriteIndex = new SpriteIndex();
+		
+		scanlineRenderer = new ScanlineRenderer(memory, lcd, spriteIndex);
+		scanlineRenderer.setFrameBuffer(frameBuffer);
+		fifoRenderer = null;
+		renderer = scanlineRenderer;
+		requestedType = RendererType.SCANLINE;
+		
+		arena.setBool(iSCANLINE_COMPLETE_OFFSET, false);
+		arena.setBool(iOAM_COMPLETE_OFFSET, false);
+		
+		arena.setByte(iWINDOW_LINE_OFFSET, 0);
+	}
+	
+	//called every cycle
+	public void tickPPU()
+	{
+		arena.setShort(iLINE_TICKS_OFFSET, arena.getShort(iLINE_TICKS_OFFSET) + 1);
+		
+		switch (lcdRegisters.getPPUMode())
+		{
+		case HBLANK:
+			modeHBlank();
+			break;
+		case OAM:
+			modeOAM();
+			break;
+		case TRANSFER:
+			modeTransfer();
+			break;
+		case VBLANK:
+			modeVBlank();
+			break;
+		}
+	}
+	
+	//this incrementes LY, and ensures that LYC is set if LY = LYCompare, and calls an interrupt if requested
+	private void incrementLY()
+	{
+		lcdRegisters.incrementLY();
+		
+		if (lcdRegisters.getLY().getValue() == lcdRegisters.getLYCompare().getValue())
+		{
+			lcdRegisters.setLYCFromLCDS(true);
+			
+			if (lcdRegisters.checkSTATInterrupt(STATSrc.LYC))
+			{
+				interrupts.requestCPUInterrupt(InterruptType.LCD_STAT);
+			}
+		}
+		else
+		{
+			lcdRegisters.setLYCFromLCDS(false);
+		}
+	}
+	
+	private void resetLY()
+	{
+		lcdRegisters.resetLY();
+	}
+	
+	//on the first run of OAM it loads in all of the objects for the current line
+	private void modeOAM()
+	{
+		if (arena.getShort(iLINE_TICKS_OFFSET) >= 80)
+		{
+			arena.setBool(iOAM_COMPLETE_OFFSET, false);
+			lcdRegisters.setPPUMode(PPUMode.TRANSFER);
+		}
+		
+		if (!arena.getBool(iOAM_COMPLETE_OFFSET))
+		{
+			arena.setBool(iOAM_COMPLETE_OFFSET, true);
+			loadOAM();
+		}
+	}
+	
+	//on the first run of transfer, the renderer starts the line, and it is then told of every dot until it says mode 3 is over
+	private void modeTransfer()
+	{	
+		if (!arena.getBool(iSCANLINE_COMPLETE_OFFSET))
+		{
+			arena.setBool(iSCANLINE_COMPLETE_OFFSET, true);
+			renderer.startLine(arena.getByte(iWINDOW_LINE_OFFSET));
+		}
+		
+		if (renderer.tickTransfer(arena.getShort(iLINE_TICKS_OFFSET)))
+		{
+			arena.setBool(iSCANLINE_COMPLETE_OFFSET, false);
+			lcdRegisters.setPPUMode(PPUMode.HBLANK);
+			
+			//the window line only advances on lines the window was drawn on
+			if (renderer.getWindowShown())
+			{
+				arena.setByte(iWINDOW_LINE_OFFSET, arena.getByte(iWINDOW_LINE_OFFSET) + 1);
+			}
+			
+			if (lcdRegisters.checkSTATInterrupt(STATSrc.HBLANK))
+			{
+				interrupts.requestCPUInterrupt(InterruptType.LCD_STAT);
+			}
+		}
+	}
+	
+	private void modeVBlank()
+	{
+		arena.setByte(iWINDOW_LINE_OFFSET, 0);
+		if (arena.getShort(iLINE_TICKS_OFFSET) >= iTICKS_PER_LINE)
+		{
+			incrementLY();
+			
+			if (lcdRegisters.getLY().getValue() >= iLINES_PER_FRAME)
+			{
+				lcdRegisters.setPPUMode(PPUMode.OAM);
+				resetLY();
+				
+				if (renderer.finishFrame())
+				{
+					publishFrame();
+				}
+				
+				//a change of renderer takes over from the start of the frame
+				if (requestedType != getRenderer())
+				{
+					changeRenderer();
+				}
+			}
+			
+			arena.setShort(iLINE_TICKS_OFFSET, 0);
+		}
+	}
+	
+	private void modeHBlank()
+	{
+		if (arena.getShort(iLINE_TICKS_OFFSET) >= iTICKS_PER_LINE)
+		{
+			incrementLY();
+			
+			if (lcdRegisters.getLY().getValue() >= iY_RES)
+			{
+				lcdRegisters.setPPUMode(PPUMode.VBLANK);
+				interrupts.requestCPUInterrupt(InterruptType.VBLANK);
+				memory.applyFrameCheats();
+				
+				//the renderer may hold the frame back until the end of VBlank (e.g. if it is being drawn on other threads)
+				if (renderer.startVBlank())
+				{
+					publishFrame();
+				}
+				
+				if (lcdRegisters.checkSTATInterrupt(STATSrc.VBLANK))
+				{
+					interrupts.requestCPUInterrupt(InterruptType.LCD_STAT);
+				}
+			}
+			else
+			{
+				lcdRegisters.setPPUMode(PPUMode.OAM);
+			}
+			
+			arena.setShort(iLINE_TICKS_OFFSET, 0);
+		}
+	}
+	
+	//passes the completed frame on to the consumers, and starts drawing into a new buffer
+	private void publishFrame()
+	{
+		boolean bChanged = markChangedLines();
+		
+		for (FrameListener listener : frameListeners)
+		{
+			listener.frameCompleted(frameBuffer, bChanged);
+		}
+		
+		for (FrameExchange exchange : extraExchanges)
+		{
+			System.arraycopy(frameBuffer, 0, exchange.getBackBuffer(), 0, frameBuffer.length);
+			System.arraycopy(lLineVersions, 0, exchange.getBackLineVersions(), 0, iY_RES);
+			exchange.publish();
+		}
+		
+		System.arraycopy(lLineVersions, 0, frameExchange.getBackLineVersions(), 0, iY_RES);
+		frameBuffer = frameExchange.publish();
+		renderer.setFrameBuffer(frameBuffer);
+	}
+	
+	//switches to the requested renderer, making the pixel FIFO renderer if it hasn't been used yet
+	private void changeRenderer()
+	{
+		if (requestedType == RendererType.FIFO)
+		{
+			if (fifoRenderer == null)
+			{
+				fifoRenderer = new FifoRenderer(memory, lcd);
+			}
+			renderer = fifoRenderer;
+		}
+		else
+		{
+			renderer = scanlineRenderer;
+		}
+		
+		renderer.setFrameBuffer(frameBuffer);
+	}
+	
+	//compares each line of the completed frame with the last frame, updating the versions of the lines that differ
+	//the first frame is always number 1, so every line is marked as changed from the start
+	//returns whether any line changed
+	private boolean markChangedLines()
+	{
+		lFrameNumber++;
+		boolean bChanged = false;
+		
+		for (int iLine = 0; iLine < iY_RES; iLine++)
+		{
+			int iStart = iLine * iX_RES;
+			int iEnd = iStart + iX_RES;
+			
+			if (lFrameNumber == 1 || Arrays.mismatch(frameBuffer, iStart, iEnd, u8LastFrame, iStart, iEnd) >= 0)
+			{
+				System.arraycopy(frameBuffer, iStart, u8LastFrame, iStart, iX_RES);
+				lLineVersions[iLine] = lFrameNumber;
+				bChanged = true;
+			}
+		}
+		
+		return bChanged;
+	}
+	
+	//find the up to 10 sprites for each line
+	//the index is only rebuilt if OAM or the object height has changed since the last line
+	private void loadOAM()
+	{
+		VRAM vram = memory.getVRAM();
+		
+		spriteIndex.update(memory.getPackedOAM(), vram.getOAMVersion(), lcdRegisters.getObjHeight());
+	}
+}
@@ -0,0 +1,42 @@
+/**
+ * Interface for the part of the PPU that draws the visible lines during mode 3
+ * The PPU handles the timing of the other modes and the interrupts, and asks the renderer when mode 3 is over,
+ * so a renderer can either draw a whole line at once with a fixed length mode 3 (the scanline renderer)
+ * or draw it a pixel at a time with the length depending on the scroll, window and sprites (the pixel FIFO renderer)
+ */
+
+package com.szymon.gameboy.ppu;
+
+public abstract interface Renderer
+{
+	//---------------------------------------------
+	//setters
+	//---------------------------------------------
+	//sets the buffer that the lines are drawn into, called each time the PPU publishes a frame
+	public void setFrameBuffer(byte[] buffer);
+	
+	//---------------------------------------------
+	//getters
+	//---------------------------------------------
+	//checks whether the window was drawn on the line just finished, in which case the window line must be advanced
+	public boolean getWindowShown();
+	
+	//---------------------------------------------
+	//methods
+	//---------------------------------------------
+	//called on the first dot of mode 3, iWindowLine is the line of the window to draw if it is shown
+	public void startLine(int iWindowLine);
+	
+	//called on every dot of mode 3 (including the first, after startLine), iLineTicks being the dots since the line started
+	//returns whether mode 3 has finished
+	public boolean tickTransfer(int iLineTicks);
+	
+	//called when the last visible line has finished, returns whether the frame is complete and can be published now
+	public boolean startVBlank();
+	
+	//called at the end of VBlank, returns whether the frame was held back (e.g. to be drawn by other threads) and must be published now
+	public boolean finishFrame();
+	
+	//stops any threads the renderer uses, called once it is finished with
+	public void shutdown();
+}
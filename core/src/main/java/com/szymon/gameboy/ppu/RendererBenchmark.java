@@ -0,0 +1,176 @@
+/**
+ * Runs each ROM given with both the scanline and FIFO renderers, headless and as fast as possible
+ * Reports the speed of each, and how many frames match between them, along with renderer list lines
+ * for the ROMs whose output differs, so they can be checked and added to rsc/renderers.txt
+ */
+
+package com.szymon.gameboy.ppu;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import com.szymon.gameboy.Machine;
+import com.szymon.gameboy.memory.Cart;
+import com.szymon.gameboy.ppu.utils.RendererType;
+
+public class RendererBenchmark
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private static final int iDEFAULT_FRAMES = 600;
+	private static final int iWARMUP_FRAMES = 120;
+	
+	//the result of running one ROM with one renderer
+	private static class Run
+	{
+		private long[] lFrameCRCs;
+		private double dFPS;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//arguments are the ROM files, optionally preceded by -frames=N
+	public static void main(String[] args) throws IOException
+	{
+		int iFrames = iDEFAULT_FRAMES;
+		List<File> roms = new ArrayList<File>();
+		for (String arg : args)
+		{
+			if (arg.startsWith("-frames="))
+			{
+				iFrames = Integer.parseInt(arg.substring(8));
+			}
+			else
+			{
+				roms.add(new File(arg));
+			}
+		}
+		
+		if (roms.isEmpty())
+		{
+			System.err.println("Usage: RendererBenchmark [-frames=N] rom.gb...");
+			return;
+		}
+		
+		List<String> listLines = new ArrayList<String>();
+		StringBuilder report = new StringBuilder();
+		report.append(String.format("%-24s %12s %12s %8s %14s %14s%n", "ROM", "scanline fps", "FIFO fps", "cost", "frames match", "first differs"));
+		
+		for (File rom : roms)
+		{
+			if (!rom.isFile())
+			{
+				System.err.println("ROM not found: " + rom);
+				continue;
+			}
+			
+			//the JIT is warmed up on both renderers first, so neither is timed while still interpreted
+			runROM(rom, RendererType.SCANLINE, iWARMUP_FRAMES);
+			runROM(rom, RendererType.FIFO, iWARMUP_FRAMES);
+			
+			Run scanline = runROM(rom, RendererType.SCANLINE, iFrames);
+			Run fifo = runROM(rom, RendererType.FIFO, iFrames);
+			
+			int iMatching = 0;
+			int iFirstDiffers = -1;
+			for (int i = 0; i < iFrames; i++)
+			{
+				if (scanline.lFrameCRCs[i] == fifo.lFrameCRCs[i])
+				{
+					iMatching++;
+				}
+				else if (iFirstDiffers < 0)
+				{
+					iFirstDiffers = i + 1;
+				}
+			}
+			
+			report.append(String.format("%-24s %12.1f %12.1f %7.0f%% %7d / %-4d %14s%n", rom.getName(), scanline.dFPS, fifo.dFPS,
+					(scanline.dFPS / fifo.dFPS - 1) * 100, iMatching, iFrames, iFirstDiffers < 0 ? "-" : Integer.toString(iFirstDiffers)));
+			
+			if (iFirstDiffers >= 0)
+			{
+				listLines.add(hashROM(rom) + " FIFO\t# " + rom.getName() + ", differs from frame " + iFirstDiffers);
+			}
+		}
+		
+		System.out.println();
+		System.out.print(report);
+		
+		if (!listLines.isEmpty())
+		{
+			System.out.println();
+			System.out.println("# ROMs whose output depends on the renderer, check these before adding them to rsc/renderers.txt");
+			for (String szLine : listLines)
+			{
+				System.out.println(szLine);
+			}
+		}
+	}
+	
+	//runs the ROM from a copy, so that its save file is not touched, and keeps the CRC of each frame
+	private static Run runROM(File rom, RendererType type, int iFrames) throws IOException
+	{
+		Path dir = Files.createTempDirectory("renderers");
+		File copy = dir.resolve(rom.getName()).toFile();
+		Files.copy(rom.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		
+		Machine machine = new Machine(copy);
+		machine.getPPU().setRenderer(type);
+		//the emulator runs as fast as it can, rather than at the Game Boy's speed
+		machine.setFrameLimited(false);
+		
+		Run run = new Run();
+		run.lFrameCRCs = new long[iFrames];
+		FrameExchange exchange = machine.getPPU().getFrameExchange();
+		CRC32 crc = new CRC32();
+		
+		//the renderer is only changed at the end of a frame, so the first frame is not counted
+		long lStart = System.nanoTime();
+		int iFrame = -1;
+		while (iFrame < iFrames && machine.runFrame())
+		{
+			byte[] u8Frame = exchange.takeFrame();
+			if (iFrame >= 0)
+			{
+				crc.reset();
+				crc.update(u8Frame);
+				run.lFrameCRCs[iFrame] = crc.getValue();
+			}
+			else
+			{
+				lStart = System.nanoTime();
+			}
+			iFrame++;
+		}
+		run.dFPS = iFrames / ((System.nanoTime() - lStart) / 1e9);
+		
+		machine.close();
+		
+		File[] files = dir.toFile().listFiles();
+		for (int i = 0; files != null && i < files.length; i++)
+		{
+			files[i].delete();
+		}
+		dir.toFile().delete();
+		
+		return run;
+	}
+	
+	//the hash the renderer list uses for the ROM
+	private static String hashROM(File rom)
+	{
+		Cart cart = new Cart(rom);
+		String szHash = cart.getROMHash();
+		cart.closeCart();
+		return szHash;
+	}
+}
@@ -0,0 +1,80 @@
+/**
+ * Class to hold which renderer each ROM should use, so that the slower pixel FIFO renderer
+ * is only used for the games that need it
+ * The list is a text file with one ROM per line: the hash of the ROM (as printed by the renderer benchmark)
+ * followed by the renderer's name (SCANLINE or FIFO), blank lines and lines starting with # are ignored
+ * Any ROM not in the list uses the scanline renderer
+ */
+
+package com.szymon.gameboy.ppu;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+
+import com.szymon.gameboy.ppu.utils.RendererType;
+
+public class RendererList
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private final HashMap<String, RendererType> renderers;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public RendererList()
+	{
+		renderers = new HashMap<String, RendererType>();
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	//gets the renderer for a ROM, from the hash of its contents
+	public RendererType getRenderer(String szROMHash)
+	{
+		return renderers.getOrDefault(szROMHash.toLowerCase(), RendererType.SCANLINE);
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//loads the list from a text file, anything after the renderer on a line (e.g. the game's name) is ignored
+	public boolean loadList(File file)
+	{
+		List<String> lines;
+		try
+		{
+			lines = Files.readAllLines(file.toPath());
+		}
+		catch (IOException e)
+		{
+			return false;
+		}
+		
+		for (String szLine : lines)
+		{
+			szLine = szLine.trim();
+			if (szLine.isEmpty() || szLine.startsWith("#"))
+			{
+				continue;
+			}
+			
+			String[] szParts = szLine.split("\\s+");
+			try
+			{
+				renderers.put(szParts[0].toLowerCase(), RendererType.valueOf(szParts[1].toUpperCase()));
+			}
+			catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e)
+			{
+				System.err.println("Invalid renderer list entry: " + szLine);
+			}
+		}
+		
+		return true;
+	}
+}
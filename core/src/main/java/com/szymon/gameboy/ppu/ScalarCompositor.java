@@ -0,0 +1,65 @@
+/**
+ * Class to do the per-pixel work of drawing a line one pixel at a time
+ * This works on every JDK, and is what the vector compositor falls back to
+ */
+
+package com.szymon.gameboy.ppu;
+
+public class ScalarCompositor implements LineCompositor
+{
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	@Override
+	public void mapPalette(byte[] u8Indices, int iStart, int[] iPalette, byte[] u8Dest, int iDestStart, int iLength)
+	{
+		for (int i = 0; i < iLength; i++)
+		{
+			u8Dest[iDestStart + i] = (byte) iPalette[u8Indices[iStart + i]];
+		}
+	}
+	
+	@Override
+	public void blendSprite(byte[] u8Tiles, int iSrc, int[] iPalette, boolean bBehindBG, byte[] u8Line, int iRowStart, int iXPos)
+	{
+		int iColourIndex = 0;
+		int iPixelX = 0;
+		
+		//read data in from left to right
+		for (int iTilePixel = 0; iTilePixel < 8; iTilePixel++)
+		{
+			iColourIndex = u8Tiles[iSrc + iTilePixel];
+			
+			//colour index 0 is ignored
+			if (iColourIndex == 0)
+			{
+				continue;
+			}
+			
+			iPixelX = iXPos + iTilePixel;
+			
+			//make sure on screen!
+			if (iPixelX < 0 || iPixelX > 159)
+			{
+				continue;
+			}
+			
+			//check if pixel is hidden behind background
+			if (bBehindBG && u8Line[iRowStart + iPixelX] != 0)
+			{
+				continue;
+			}
+			
+			u8Line[iRowStart + iPixelX] = (byte) iPalette[iColourIndex];
+		}
+	}
+	
+	@Override
+	public void mapColours(byte[] u8Shades, int iStart, int[] iColours, int[] iDest, int iDestStart, int iLength)
+	{
+		for (int i = 0; i < iLength; i++)
+		{
+			iDest[iDestStart + i] = iColours[u8Shades[iStart + i]];
+		}
+	}
+}
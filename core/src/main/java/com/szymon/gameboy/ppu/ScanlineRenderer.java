@@ -0,0 +1,224 @@
+/**
+ * Class to draw each visible line all at once, at the end of a fixed length mode 3
+ * The state of the line is captured into a record, and the line is either drawn from it straight away
+ * or (if enabled) later on by the deferred renderer's worker threads
+ * This is the fast renderer, and is right for any game that doesn't depend on the exact timing of mode 3
+ */
+
+package com.szymon.gameboy.ppu;
+
+import com.szymon.gameboy.memory.Memory;
+import com.szymon.gameboy.memory.StateArena;
+import com.szymon.gameboy.memory.VRAM;
+
+public class ScanlineRenderer implements Renderer
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private final int iTRANSFER_END = 80 + 172;	//mode 3 always ends this many dots into the line
+	
+	private final Memory memory;
+	private final LCD lcd;
+	private final SpriteIndex spriteIndex;
+	private final StateArena arena;
+	
+	private byte[] frameBuffer;
+	
+	//optionally, the background maps are kept pre-rendered, and lines are copied out of them
+	private LayerCache layerCache;
+	
+	private LineRecord lineRecord;
+	private LineRenderer lineRenderer;
+	private DeferredRenderer deferredRenderer;
+	private boolean bFrameHeld;	//set if the frame is being finished by the deferred renderer, so is published at the end of VBlank
+	
+	private int iWindowLine;
+	private boolean bWindowShown;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public ScanlineRenderer(Memory mem, LCD lcdIn, SpriteIndex spriteIndexIn)
+	{
+		memory = mem;
+		lcd = lcdIn;
+		spriteIndex = spriteIndexIn;
+		arena = memory.getArena();
+		
+		frameBuffer = null;
+		layerCache = null;
+		
+		VRAM vram = memory.getVRAM();
+		lineRecord = new LineRecord();
+		lineRenderer = new LineRenderer(vram.getTileCache(), vram.getFlippedTileCache(), arena.getArray(), StateArena.iVRAM_OFFSET + 0x1800, LineCompositor.create());
+		deferredRenderer = null;
+		bFrameHeld = false;
+		
+		iWindowLine = 0;
+		bWindowShown = false;
+	}
+	
+	// ---------------------------------------------
+	// setters
+	// ---------------------------------------------
+	@Override
+	public void setFrameBuffer(byte[] buffer)
+	{
+		frameBuffer = buffer;
+		
+		if (deferredRenderer != null)
+		{
+			deferredRenderer.setFrameBuffer(frameBuffer);
+		}
+	}
+	
+	//turns on/off the pre-rendered background layers
+	public void setLayerCacheEnabled(boolean bEnable)
+	{
+		if (bEnable)
+		{
+			layerCache = new LayerCache(memory.getVRAM());
+		}
+		else
+		{
+			layerCache = null;
+		}
+		memory.getVRAM().setLayerCache(layerCache);
+		lineRenderer.setLayerCache(layerCache);
+	}
+	
+	//turns on/off drawing the lines on worker threads, with frames published at the end of VBlank once they are drawn
+	//the layer cache isn't used by the workers, as it can't be copied cheaply
+	//returns whether a frame that was being held back has been finished, and must be published now
+	public boolean setDeferredRendering(boolean bEnable, int iThreads)
+	{
+		VRAM vram = memory.getVRAM();
+		boolean bPublish = false;
+		
+		if (deferredRenderer != null)
+		{
+			//finish the current frame, publishing it if the sooner publish at VBlank has already been missed
+			vram.setWriteListener(null);
+			deferredRenderer.finishFrame();
+			deferredRenderer.shutdown();
+			deferredRenderer = null;
+			
+			bPublish = bFrameHeld;
+			bFrameHeld = false;
+		}
+		
+		if (bEnable)
+		{
+			deferredRenderer = new DeferredRenderer(vram, arena, iThreads);
+			deferredRenderer.setFrameBuffer(frameBuffer);
+			
+			//any lines waiting must be drawn from VRAM as it was before the write
+			vram.setWriteListener(deferredRenderer::flush);
+		}
+		
+		return bPublish;
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	//the bytes of the layer cache and the deferred renderer's copies of VRAM, if they are used
+	public long getFootprint()
+	{
+		long lBytes = 0;
+		if (layerCache != null)
+		{
+			lBytes += layerCache.getFootprint();
+		}
+		if (deferredRenderer != null)
+		{
+			lBytes += deferredRenderer.getFootprint();
+		}
+		return lBytes;
+	}
+	
+	@Override
+	public boolean getWindowShown()
+	{
+		return bWindowShown;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	@Override
+	public void startLine(int iWindowLineIn)
+	{
+		iWindowLine = iWindowLineIn;
+	}
+	
+	//the line is drawn as mode 3 ends, with the registers as they are then
+	@Override
+	public boolean tickTransfer(int iLineTicks)
+	{
+		if (iLineTicks < iTRANSFER_END)
+		{
+			return false;
+		}
+		
+		drawLine();
+		return true;
+	}
+	
+	//the state of the line is captured, then it is either drawn straight away or left for the deferred renderer
+	private void drawLine()
+	{
+		LCDRegisters lcdRegisters = lcd.getRegisters();
+		int iLY = lcdRegisters.getLY().getValue();
+		LineRecord record = deferredRenderer != null ? deferredRenderer.getRecord(iLY) : lineRecord;
+		
+		record.capture(lcdRegisters, lcd, iWindowLine, spriteIndex.getLineSprites(), iLY * spriteIndex.getMaxPerLine(), spriteIndex.getCount(iLY));
+		bWindowShown = record.getWindowShown();
+		
+		if (deferredRenderer != null)
+		{
+			deferredRenderer.addLine(iLY);
+		}
+		else
+		{
+			lineRenderer.renderLine(record, frameBuffer);
+		}
+	}
+	
+	//when deferred, the frame is published once it has been drawn, by the end of VBlank
+	@Override
+	public boolean startVBlank()
+	{
+		if (deferredRenderer != null)
+		{
+			deferredRenderer.flush();
+			bFrameHeld = true;
+			return false;
+		}
+		
+		return true;
+	}
+	
+	@Override
+	public boolean finishFrame()
+	{
+		if (deferredRenderer != null)
+		{
+			deferredRenderer.finishFrame();
+		}
+		
+		boolean bPublish = bFrameHeld;
+		bFrameHeld = false;
+		return bPublish;
+	}
+	
+	@Override
+	public void shutdown()
+	{
+		if (deferredRenderer != null)
+		{
+			deferredRenderer.shutdown();
+		}
+	}
+}
@@ -0,0 +1,141 @@
+/**
+ * Class to keep the sprites that are visible on each scanline, already in drawing order
+ * The lists are built from the packed OAM for all 144 lines at once, and only rebuilt
+ * when OAM or the object height changes, so selecting the sprites for a line is just a lookup
+ */
+
+package com.szymon.gameboy.ppu;
+
+public class SpriteIndex
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	final private int iLINES = 144;
+	final private int iMAX_PER_LINE = 10;
+	
+	//packed OAM entries for each line (iMAX_PER_LINE per line), in the order they are drawn
+	private int[] iLineSprites;
+	private int[] iLineCounts;
+	
+	//what the lists were built from, so they can be rebuilt when either changes
+	private int iBuiltVersion;
+	private int iBuiltHeight;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public SpriteIndex()
+	{
+		iLineSprites = new int[iLINES * iMAX_PER_LINE];
+		iLineCounts = new int[iLINES];
+		
+		//forces a build on first use
+		iBuiltVersion = -1;
+		iBuiltHeight = 0;
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	//the packed entries for all lines, a line's sprites start at iLY * 10
+	public int[] getLineSprites()
+	{
+		return iLineSprites;
+	}
+	
+	public int getCount(int iLY)
+	{
+		return iLineCounts[iLY];
+	}
+	
+	public int getMaxPerLine()
+	{
+		return iMAX_PER_LINE;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//rebuilds the lists if OAM or the object height has changed since they were last built
+	public void update(int[] iPackedOAM, int iVersion, int iHeight)
+	{
+		if (iVersion == iBuiltVersion && iHeight == iBuiltHeight)
+		{
+			return;
+		}
+		
+		iBuiltVersion = iVersion;
+		iBuiltHeight = iHeight;
+		
+		for (int i = 0; i < iLINES; i++)
+		{
+			iLineCounts[i] = 0;
+		}
+		
+		//add each sprite to the lines it covers, in OAM order, so each line keeps the first 10 it finds
+		for (int i = 0; i < iPackedOAM.length; i++)
+		{
+			int iYPos = (iPackedOAM[i] >>> 24) - 16;
+			int iFirst = Math.max(iYPos, 0);
+			int iLast = Math.min(iYPos + iHeight, iLINES);
+			
+			for (int iLine = iFirst; iLine < iLast; iLine++)
+			{
+				if (iLineCounts[iLine] < iMAX_PER_LINE)
+				{
+					iLineSprites[iLine * iMAX_PER_LINE + iLineCounts[iLine]] = iPackedOAM[i];
+					iLineCounts[iLine]++;
+				}
+			}
+		}
+		
+		for (int iLine = 0; iLine < iLINES; iLine++)
+		{
+			sortLine(iLine);
+		}
+	}
+	
+	//sort a line's list back to front, so that the priority objects are drawn last
+	//this ensures that they appear on top
+	//also, consider x-coordinates
+	//if two objects overlap, the one with the smaller x-coordinate takes priority
+	private void sortLine(int iLine)
+	{
+		int iStart = iLine * iMAX_PER_LINE;
+		int iCount = iLineCounts[iLine];
+		
+		for (int i = 0; i < iCount / 2; i++)
+		{
+			int iTemp = iLineSprites[iStart + i];
+			iLineSprites[iStart + i] = iLineSprites[iStart + iCount - 1 - i];
+			iLineSprites[iStart + iCount - 1 - i] = iTemp;
+		}
+		
+		int iEntry = 0;
+		int iXPos1 = 0;
+		int iXPos2 = 0;
+		int j = 0;
+		for (int i = 1; i < iCount; i++)
+		{
+			iEntry = iLineSprites[iStart + i];
+			j = i - 1;
+			
+			iXPos1 = getXPos(iLineSprites[iStart + j]);
+			iXPos2 = getXPos(iLineSprites[iStart + i]);
+			while (j >= 0 && iXPos2 > iXPos1 && iXPos2 <= (iXPos1 + 8))
+			{
+				iXPos1 = getXPos(iLineSprites[iStart + j]);
+				iXPos2 = getXPos(iLineSprites[iStart + i]);
+				iLineSprites[iStart + j + 1] = iLineSprites[iStart + j];
+				j--;
+			}
+			iLineSprites[iStart + j + 1] = iEntry;
+		}
+	}
+	
+	private int getXPos(int iPacked)
+	{
+		return (iPacked >> 16) & 0xFF;
+	}
+}
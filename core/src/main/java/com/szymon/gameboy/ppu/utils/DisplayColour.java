@@ -0,0 +1,35 @@
+/**
+ * @author 18bilkiewiczs
+ * Enum to represent the 4 possible output colours
+ * These colours also store their default RGB values, which each emulator's LCD starts with
+ */
+
+package com.szymon.gameboy.ppu.utils;
+
+public enum DisplayColour 
+{
+	BLACK(0x000000),
+	DARK(0x555555),
+	LIGHT(0xAAAAAA),
+	WHITE(0xFFFFFF);
+	
+	//the colours in order of shade, as stored in the frame buffer and selected by the palette registers
+	private static final DisplayColour[] SHADES = {WHITE, LIGHT, DARK, BLACK};
+	
+	private final int iRGB;
+	
+	private DisplayColour(int iVal)
+	{
+		iRGB = iVal;
+	}
+	
+	public int getRGB()
+	{
+		return iRGB;
+	}
+	
+	public static DisplayColour fromShade(int iShade)
+	{
+		return SHADES[iShade];
+	}
+}
@@ -0,0 +1,13 @@
+/**
+ * Enum to represent the renderers the PPU can use to draw the visible lines
+ * The scanline renderer is fast and suits most games, the pixel FIFO renderer
+ * is slower but times mode 3 (and any mid-line changes) like the real PPU
+ */
+
+package com.szymon.gameboy.ppu.utils;
+
+public enum RendererType 
+{
+	SCANLINE,
+	FIFO;
+}
@@ -0,0 +1,121 @@
+/**
+ * @author 18bilkiewiczs
+ * Class for comparing the log file outputs between two log files
+ * Going to be used to compare old code logs with the new code logs
+ * due to any issues that have arisen when rewriting the code
+ * The result is returned rather than ending the program, so it can be used from other code
+ */
+
+package com.szymon.gameboy.utils;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Scanner;
+
+public class LogCompare {
+	
+	final private static String szPATH = "rsc/debug/log/";
+	
+	private Scanner scannerLog1;
+	private Scanner scannerLog2;
+	
+	private String szLineLog1;
+	private String szLineLog2;
+	private String szPrevLine;
+	
+	private long lLineNo;
+	
+	//compares the two logs written by default
+	public LogCompare()
+	{
+		this(new File(szPATH + "log1.txt"), new File(szPATH + "log2.txt"));
+	}
+	
+	public LogCompare(File log1, File log2)
+	{
+		szLineLog1 = "";
+		szLineLog2 = "";
+		szPrevLine = "";
+		lLineNo = 0;
+		
+		try 
+		{
+			scannerLog1 = new Scanner(log1);
+			scannerLog2 = new Scanner(log2);
+		} 
+		catch (FileNotFoundException e) 
+		{
+			e.printStackTrace();
+		}
+	}
+	
+	//compares the next line of each log
+	//returns true if the logs matched and either has ended, false if they didn't match, or null to carry on
+	private Boolean compareLines()
+	{
+		if (scannerLog1.hasNext() && scannerLog2.hasNext())
+		{
+			szLineLog1 = scannerLog1.nextLine();
+			szLineLog2 = scannerLog2.nextLine();
+		}
+		else 
+		{
+			return reportNoIssue();
+		}
+		lLineNo++;
+		
+		if (!szLineLog1.equals(szLineLog2))
+		{
+			return reportMismatch();
+		}
+		szPrevLine = szLineLog1;
+		return null;
+	}
+	
+	private boolean reportMismatch()
+	{
+		closeScanners();
+		System.out.println("Mismatch on line: " + lLineNo);
+		System.out.println("LOG1: " + szLineLog1);
+		System.out.println("LOG2: " + szLineLog2);
+		System.out.println();
+		System.out.println("PREV: " + szPrevLine);
+		return false;
+	}
+	
+	private boolean reportNoIssue()
+	{
+		closeScanners();
+		System.out.println("Logs matched for: " + lLineNo + " lines!");
+		return true;
+	}
+	
+	private void closeScanners()
+	{
+		scannerLog1.close();
+		scannerLog2.close();
+	}
+	
+	//returns whether the logs matched
+	public boolean run()
+	{
+		if (scannerLog1 == null || scannerLog2 == null)
+		{
+			return false;
+		}
+		
+		Boolean bResult = null;
+		while (bResult == null)
+		{
+			bResult = compareLines();
+		}
+		return bResult;
+	}
+	
+	//arguments are optionally the two logs to compare, otherwise the default ones are used
+	public static void main(String[] args) 
+	{
+		LogCompare compare = args.length >= 2 ? new LogCompare(new File(args[0]), new File(args[1])) : new LogCompare();
+		compare.run();
+	}
+}
@@ -0,0 +1,148 @@
+/**
+ * Class to compare the scalar and vector compositors on the same lines
+ * Each operation is warmed up, then timed over a whole frame many times, and the outputs are checked to match
+ * Run with "gradle benchmarkCompositor"
+ */
+
+package com.szymon.gameboy.ppu;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class CompositorBenchmark
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private static final int iX_RES = 160;
+	private static final int iY_RES = 144;
+	private static final int iWARMUP_FRAMES = 20000;
+	private static final int iTIMED_FRAMES = 20000;
+	private static final int iSPRITES_PER_LINE = 10;
+	
+	private final byte[] u8Indices;
+	private final byte[] u8Tiles;
+	private final int[] iPalette = {0, 3, 1, 2};
+	private final int[] iColours = {0xFFFFFFFF, 0xFFAAAAAA, 0xFF555555, 0xFF000000};
+	private final int[] iSpriteX;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public CompositorBenchmark()
+	{
+		//random colour indices and tiles, with sprites both fully on and partly off the screen
+		Random random = new Random(1);
+		u8Indices = new byte[iX_RES * iY_RES];
+		for (int i = 0; i < u8Indices.length; i++)
+		{
+			u8Indices[i] = (byte) random.nextInt(4);
+		}
+		
+		u8Tiles = new byte[384 * 64];
+		for (int i = 0; i < u8Tiles.length; i++)
+		{
+			u8Tiles[i] = (byte) random.nextInt(4);
+		}
+		
+		iSpriteX = new int[iY_RES * iSPRITES_PER_LINE];
+		for (int i = 0; i < iSpriteX.length; i++)
+		{
+			iSpriteX[i] = random.nextInt(iX_RES + 8) - 8;
+		}
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	public static void main(String[] args)
+	{
+		CompositorBenchmark benchmark = new CompositorBenchmark();
+		LineCompositor scalar = new ScalarCompositor();
+		LineCompositor vector = new VectorCompositor();
+		
+		byte[] u8ScalarFrame = benchmark.drawFrame(scalar, new byte[iX_RES * iY_RES]);
+		byte[] u8VectorFrame = benchmark.drawFrame(vector, new byte[iX_RES * iY_RES]);
+		int[] iScalarColours = benchmark.colourFrame(scalar, u8ScalarFrame, new int[iX_RES * iY_RES]);
+		int[] iVectorColours = benchmark.colourFrame(vector, u8VectorFrame, new int[iX_RES * iY_RES]);
+		System.out.println("Outputs match: " + (Arrays.equals(u8ScalarFrame, u8VectorFrame) && Arrays.equals(iScalarColours, iVectorColours)));
+		
+		double dScalarPalette = benchmark.timeDraw(scalar, true, false);
+		double dVectorPalette = benchmark.timeDraw(vector, true, false);
+		double dScalarSprites = benchmark.timeDraw(scalar, false, true);
+		double dVectorSprites = benchmark.timeDraw(vector, false, true);
+		double dScalarColour = benchmark.timeColour(scalar, u8ScalarFrame);
+		double dVectorColour = benchmark.timeColour(vector, u8VectorFrame);
+		
+		System.out.printf("Background palette:  scalar %.1f us/frame, vector %.1f us/frame (%.2fx)%n", dScalarPalette, dVectorPalette, dScalarPalette / dVectorPalette);
+		System.out.printf("Sprite blending:     scalar %.1f us/frame, vector %.1f us/frame (%.2fx)%n", dScalarSprites, dVectorSprites, dScalarSprites / dVectorSprites);
+		System.out.printf("Shades to ARGB:      scalar %.1f us/frame, vector %.1f us/frame (%.2fx)%n", dScalarColour, dVectorColour, dScalarColour / dVectorColour);
+	}
+	
+	//applies the palette to every line, then blends 10 sprites onto it (half of them behind the background)
+	private byte[] drawFrame(LineCompositor compositor, byte[] u8Frame)
+	{
+		return drawFrame(compositor, u8Frame, true, true);
+	}
+	
+	private byte[] drawFrame(LineCompositor compositor, byte[] u8Frame, boolean bPalette, boolean bSprites)
+	{
+		for (int iLine = 0; iLine < iY_RES; iLine++)
+		{
+			int iRowStart = iLine * iX_RES;
+			if (bPalette)
+			{
+				compositor.mapPalette(u8Indices, iRowStart, iPalette, u8Frame, iRowStart, iX_RES);
+			}
+			
+			for (int i = 0; bSprites && i < iSPRITES_PER_LINE; i++)
+			{
+				int iSprite = iLine * iSPRITES_PER_LINE + i;
+				compositor.blendSprite(u8Tiles, (iSprite % 384) * 64 + (iLine % 8) * 8, iPalette, (i & 1) != 0, u8Frame, iRowStart, iSpriteX[iSprite]);
+			}
+		}
+		return u8Frame;
+	}
+	
+	private int[] colourFrame(LineCompositor compositor, byte[] u8Frame, int[] iPixels)
+	{
+		for (int iLine = 0; iLine < iY_RES; iLine++)
+		{
+			compositor.mapColours(u8Frame, iLine * iX_RES, iColours, iPixels, iLine * iX_RES, iX_RES);
+		}
+		return iPixels;
+	}
+	
+	//gives the average time per frame in microseconds
+	private double timeDraw(LineCompositor compositor, boolean bPalette, boolean bSprites)
+	{
+		byte[] u8Frame = new byte[iX_RES * iY_RES];
+		for (int i = 0; i < iWARMUP_FRAMES; i++)
+		{
+			drawFrame(compositor, u8Frame, bPalette, bSprites);
+		}
+		
+		long lStart = System.nanoTime();
+		for (int i = 0; i < iTIMED_FRAMES; i++)
+		{
+			drawFrame(compositor, u8Frame, bPalette, bSprites);
+		}
+		return (System.nanoTime() - lStart) / 1000.0 / iTIMED_FRAMES;
+	}
+	
+	private double timeColour(LineCompositor compositor, byte[] u8Frame)
+	{
+		int[] iPixels = new int[iX_RES * iY_RES];
+		for (int i = 0; i < iWARMUP_FRAMES; i++)
+		{
+			colourFrame(compositor, u8Frame, iPixels);
+		}
+		
+		long lStart = System.nanoTime();
+		for (int i = 0; i < iTIMED_FRAMES; i++)
+		{
+			colourFrame(compositor, u8Frame, iPixels);
+		}
+		return (System.nanoTime() - lStart) / 1000.0 / iTIMED_FRAMES;
+	}
+}
@@ -0,0 +1,99 @@
+/**
+ * Class to do the per-pixel work of drawing a line with the Vector API (jdk.incubator.vector)
+ * This is compiled separately for a newer JDK, and only loaded by LineCompositor.create() if the module is present
+ * Palette lookups are done by comparing the colour indices against each of the 4 values, and blending in the palette entries
+ */
+
+package com.szymon.gameboy.ppu;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+public class VectorCompositor implements LineCompositor
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private static final VectorSpecies<Byte> LINE_SPECIES = ByteVector.SPECIES_PREFERRED;
+	private static final VectorSpecies<Byte> SPRITE_SPECIES = ByteVector.SPECIES_64;	//a sprite row is 8 pixels
+	private static final VectorSpecies<Integer> COLOUR_SPECIES = IntVector.SPECIES_256;
+	private static final VectorSpecies<Byte> SHADE_SPECIES = ByteVector.SPECIES_64;	//the same number of lanes as COLOUR_SPECIES
+	
+	//the sprite path is only vectorised for sprites that are fully on screen
+	private final ScalarCompositor scalar;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public VectorCompositor()
+	{
+		scalar = new ScalarCompositor();
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	@Override
+	public void mapPalette(byte[] u8Indices, int iStart, int[] iPalette, byte[] u8Dest, int iDestStart, int iLength)
+	{
+		int i = 0;
+		for (; i <= iLength - LINE_SPECIES.length(); i += LINE_SPECIES.length())
+		{
+			//the lookup is written out in full each time, as the vectors must not be passed to a method that isn't inlined
+			ByteVector indices = ByteVector.fromArray(LINE_SPECIES, u8Indices, iStart + i);
+			ByteVector.broadcast(LINE_SPECIES, (byte) iPalette[0])
+					.blend((byte) iPalette[1], indices.compare(VectorOperators.EQ, (byte) 1))
+					.blend((byte) iPalette[2], indices.compare(VectorOperators.EQ, (byte) 2))
+					.blend((byte) iPalette[3], indices.compare(VectorOperators.EQ, (byte) 3))
+					.intoArray(u8Dest, iDestStart + i);
+		}
+		
+		scalar.mapPalette(u8Indices, iStart + i, iPalette, u8Dest, iDestStart + i, iLength - i);
+	}
+	
+	@Override
+	public void blendSprite(byte[] u8Tiles, int iSrc, int[] iPalette, boolean bBehindBG, byte[] u8Line, int iRowStart, int iXPos)
+	{
+		if (iXPos < 0 || iXPos > 160 - 8)
+		{
+			scalar.blendSprite(u8Tiles, iSrc, iPalette, bBehindBG, u8Line, iRowStart, iXPos);
+			return;
+		}
+		
+		ByteVector indices = ByteVector.fromArray(SPRITE_SPECIES, u8Tiles, iSrc);
+		ByteVector line = ByteVector.fromArray(SPRITE_SPECIES, u8Line, iRowStart + iXPos);
+		
+		//colour index 0 is transparent, and sprites behind the background only show over shade 0
+		VectorMask<Byte> mask = indices.compare(VectorOperators.NE, (byte) 0);
+		if (bBehindBG)
+		{
+			mask = mask.and(line.compare(VectorOperators.EQ, (byte) 0));
+		}
+		
+		ByteVector shades = ByteVector.broadcast(SPRITE_SPECIES, (byte) iPalette[0])
+				.blend((byte) iPalette[1], indices.compare(VectorOperators.EQ, (byte) 1))
+				.blend((byte) iPalette[2], indices.compare(VectorOperators.EQ, (byte) 2))
+				.blend((byte) iPalette[3], indices.compare(VectorOperators.EQ, (byte) 3));
+		line.blend(shades, mask).intoArray(u8Line, iRowStart + iXPos);
+	}
+	
+	@Override
+	public void mapColours(byte[] u8Shades, int iStart, int[] iColours, int[] iDest, int iDestStart, int iLength)
+	{
+		int i = 0;
+		for (; i <= iLength - COLOUR_SPECIES.length(); i += COLOUR_SPECIES.length())
+		{
+			IntVector shades = (IntVector) ByteVector.fromArray(SHADE_SPECIES, u8Shades, iStart + i).castShape(COLOUR_SPECIES, 0);
+			IntVector.broadcast(COLOUR_SPECIES, iColours[0])
+					.blend(iColours[1], shades.compare(VectorOperators.EQ, 1))
+					.blend(iColours[2], shades.compare(VectorOperators.EQ, 2))
+					.blend(iColours[3], shades.compare(VectorOperators.EQ, 3))
+					.intoArray(iDest, iDestStart + i);
+		}
+		
+		scalar.mapColours(u8Shades, iStart + i, iColours, iDest, iDestStart + i, iLength - i);
+	}
+}
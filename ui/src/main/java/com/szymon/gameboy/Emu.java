@@ -0,0 +1,285 @@
+/**
+ * @author 18bilkiewiczs
+ * This is the main class that links together all of the other classes
+ */
+package com.szymon.gameboy;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.szymon.gameboy.cheats.CheatEngine;
+import com.szymon.gameboy.debug.Debugger;
+import com.szymon.gameboy.memory.Memory;
+import com.szymon.gameboy.memory.StateArena;
+import com.szymon.gameboy.output.Screen;
+import com.szymon.gameboy.output.audio.AudioOutput;
+import com.szymon.gameboy.output.audio.SoundCardOutput;
+import com.szymon.gameboy.output.debug.DebugViewers;
+import com.szymon.gameboy.output.export.SharedMemoryExporter;
+import com.szymon.gameboy.ppu.LCD;
+import com.szymon.gameboy.ppu.PPU;
+import com.szymon.gameboy.ppu.RendererList;
+
+public class Emu 
+{
+    // ---------------------------------------------
+ 	// class variables
+ 	// ---------------------------------------------
+	private boolean bRunning;
+	
+	//the debugger also handles pausing, so it is kept across resets
+	private Debugger debugger;
+	
+	private String szFile;
+	
+	//the emulated Game Boy itself, everything else here is the window and outputs around it
+	private Machine machine;
+	
+	private CheatEngine cheats;
+	
+	//the debug viewers are kept across resets, so their windows aren't made again
+	private DebugViewers debugViewers;
+	private Screen screen;
+	
+	private int iScaleFactor;
+	private final int iDEBUG_VIEWER_RATE = 30;	//the most times a second the debug viewers check for changes
+	private final int iSTOPPED_WAIT = 100;	//how long (ms) to wait between checks for another ROM once the CPU has stopped
+	
+	private RendererList rendererList;
+	private final String szRENDERER_LIST = "rsc/renderers.txt";
+	
+	//optionally, the screen and RAM are shared with other processes, this carries on across resets
+	private SharedMemoryExporter exporter;
+	
+	//the sound card is opened once, and sets the pace of the emulator while the sound is playing
+	private AudioOutput audio;
+	
+	//optionally, each ROM's cart RAM is mapped over its save file, and forced to disk this often (ms, 0 leaves it to the OS)
+	private boolean bMapSave;
+	private long lForceMillis;
+	
+    // ---------------------------------------------
+ 	// constructors
+ 	// ---------------------------------------------
+	public Emu(File file, int iSF)
+	{
+		this(file, iSF, false, 0);
+	}
+	
+	public Emu(File file, int iSF, boolean bMapSaveIn, long lForceMillisIn)
+	{
+		bMapSave = bMapSaveIn;
+		lForceMillis = lForceMillisIn;
+		debugger = new Debugger();
+		
+		//the few games that need the pixel FIFO renderer are listed by ROM hash
+		rendererList = new RendererList();
+		rendererList.loadList(new File(szRENDERER_LIST));
+		
+		audio = SoundCardOutput.open();
+		if (audio != null)
+		{
+			audio.start();
+		}
+		
+		reset(file, iSF);
+	}
+	
+	public void reset(File file, int iSF) 
+	{	
+		bRunning = true;
+		
+		szFile = file.getName();
+		
+		iScaleFactor = iSF;
+		
+		//release the old cart (and its save file), and stop the old PPU's render threads, before loading a new one
+		if (machine != null)
+		{
+			machine.close();
+		}
+		
+		machine = new Machine(file, bMapSave, lForceMillis);
+		Memory memory = machine.getMemory();
+		LCD lcd = machine.getLCD();
+		PPU ppu = machine.getPPU();
+		debugger.attachMemory(memory);
+		
+		//cheats are loaded from a .cht file next to the ROM, if there is one
+		cheats = new CheatEngine(memory, machine.getCart());
+		File cheatFile = new File(file.getAbsolutePath().replaceFirst("\\.[^.\\\\/]*$", "") + ".cht");
+		if (cheatFile.exists() && cheats.loadCheats(cheatFile))
+		{
+			cheats.setEnabled(cheats.getCodeCount() > 0);
+		}
+		
+		ppu.setRenderer(rendererList.getRenderer(machine.getCart().getROMHash()));
+		ppu.setLayerCacheEnabled(true);
+		//if there are cores to spare, lines are drawn on them rather than on the emulation thread
+		int iSpareCores = Runtime.getRuntime().availableProcessors() - 1;
+		if (iSpareCores > 0)
+		{
+			ppu.setDeferredRendering(true, Math.min(iSpareCores, 4));
+		}
+		
+		if (exporter != null)
+		{
+			exporter.attach(ppu, machine.getArena());
+		}
+		
+		if (audio != null)
+		{
+			audio.attach(memory.getAPU());
+		}
+		
+		if (debugViewers != null)
+		{
+			debugViewers.reset(memory, lcd);
+		}
+		else
+		{
+			debugViewers = new DebugViewers(memory, lcd, iScaleFactor, iDEBUG_VIEWER_RATE);
+		}
+		
+		if (screen != null)
+		{
+			screen.reset(this, ppu, machine.getJoypad(), debugViewers);
+		}
+		else
+		{
+			screen = new Screen(this, ppu, machine.getJoypad(), debugViewers, iScaleFactor);
+		}
+	}
+	
+    // ---------------------------------------------
+ 	// setters
+ 	// ---------------------------------------------
+	public void setPaused(boolean paused)
+	{
+		debugger.setPaused(paused);
+	}
+	
+	//turns on/off sharing the screen and RAM through a memory mapped file, returns false if the file couldn't be made
+	public boolean setSharedMemoryExport(boolean bEnable)
+	{
+		if (exporter != null)
+		{
+			exporter.stop();
+			exporter = null;
+		}
+		
+		if (bEnable)
+		{
+			SharedMemoryExporter newExporter = new SharedMemoryExporter();
+			try
+			{
+				newExporter.start(machine.getPPU(), machine.getArena());
+			}
+			catch (IOException e)
+			{
+				System.err.println("Could not export to " + newExporter.getFile() + ": " + e.getMessage());
+				return false;
+			}
+			exporter = newExporter;
+			System.out.println("Exporting to " + exporter.getFile());
+		}
+		
+		return true;
+	}
+	
+    // ---------------------------------------------
+ 	// getters
+ 	// ---------------------------------------------
+	public Memory getMemory()
+	{
+		return machine.getMemory();
+	}
+	
+	//the arena can be snapshotted and restored between instructions
+	public StateArena getArena()
+	{
+		return machine.getArena();
+	}
+	
+	public Debugger getDebugger()
+	{
+		return debugger;
+	}
+	
+	public CheatEngine getCheats()
+	{
+		return cheats;
+	}
+	
+    // ---------------------------------------------
+ 	// methods
+ 	// ---------------------------------------------
+	public void emuRun()
+	{
+		//set the title of the screen to the title of the ROM
+		screen.setName(szFile);
+		
+		long lSavedFrame = -1;
+		while (bRunning)
+		{	
+			//wait while paused, only running an instruction if a single step was requested
+			if (debugger.getPaused() && !debugger.waitForStep())
+			{
+				continue;
+			}
+			
+			//this runs the CPU, and if false is returned, it has stopped
+			//only this ROM is stopped, the window stays open until another ROM is chosen
+			if (!machine.getCPU().stepCPU())
+			{
+				try
+				{
+					Thread.sleep(iSTOPPED_WAIT);
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					return;
+				}
+				continue;
+			}
+			
+			screen.updateJoypad();
+			
+			//the battery RAM is saved once a frame at most, rather than after every write to it
+			long lFrameCount = machine.getPPU().getFrameExchange().getFrameCount();
+			if (lFrameCount != lSavedFrame)
+			{
+				lSavedFrame = lFrameCount;
+				machine.saveBattery();
+			}
+		}
+	}
+	
+	//the arguments are optionally -mapsave[=forceMs] to map the save files, then optionally the ROM to start with
+	public static void main(String[] args)
+	{
+		boolean bMapSave = false;
+		long lForceMillis = 0;
+		File file = new File("roms/tetris.gb");
+		for (String arg : args)
+		{
+			if (arg.equals("-mapsave"))
+			{
+				bMapSave = true;
+			}
+			else if (arg.startsWith("-mapsave="))
+			{
+				bMapSave = true;
+				lForceMillis = Long.parseLong(arg.substring(9));
+			}
+			else
+			{
+				file = new File(arg);
+			}
+		}
+		
+		Emu emu = new Emu(file, 3, bMapSave, lForceMillis);
+		emu.emuRun();
+	}
+}
@@ -0,0 +1,831 @@
+/**
+ * @author 18bilkiewiczs
+ * Class to output the screen of the Game Boy
+ */
+
+package com.szymon.gameboy.output;
+
+import javax.swing.*;
+import javax.swing.event.PopupMenuEvent;
+import javax.swing.event.PopupMenuListener;
+
+import com.szymon.gameboy.Emu;
+import com.szymon.gameboy.joypad.Joypad;
+import com.szymon.gameboy.output.debug.DebugViewer;
+import com.szymon.gameboy.output.debug.DebugViewers;
+import com.szymon.gameboy.output.filters.Filter;
+import com.szymon.gameboy.output.filters.FilterPipeline;
+import com.szymon.gameboy.output.filters.GhostingFilter;
+import com.szymon.gameboy.output.filters.LCDMaskFilter;
+import com.szymon.gameboy.output.filters.ScaleNxFilter;
+import com.szymon.gameboy.output.filters.XBRFilter;
+import com.szymon.gameboy.output.recording.VideoRecorder;
+import com.szymon.gameboy.output.utils.MaskType;
+import com.szymon.gameboy.output.utils.RecordingFormat;
+import com.szymon.gameboy.ppu.FrameExchange;
+import com.szymon.gameboy.ppu.LCD;
+import com.szymon.gameboy.ppu.LineCompositor;
+import com.szymon.gameboy.ppu.PPU;
+
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class Screen extends JPanel implements Runnable
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private static final long serialVersionUID = 7544296288989856095L;
+
+	private Thread mainThread = new Thread(this);	//runs in a separate thread to the main code
+	
+	//emu so that it can update the game that is selected
+	private Emu emu;
+	//this class needs the frames from the PPU, and needs the joypad 
+	//as this is where it is updated from the keyboard
+	private volatile PPU ppu;
+	private Joypad joypad;
+	private DebugViewers debugViewers;
+	
+	//GUI output
+	private JFrame frame;
+	
+	private JPopupMenu popupMenu;
+	private JMenuItem fileItem;
+	private JMenu debugMenu;
+	private JMenuItem changeDisplayColour;
+	private JMenu filterMenu;
+	private JCheckBoxMenuItem ghostingItem;
+	private JMenu recordMenu;
+	private JMenuItem stopRecordingItem;
+	private JCheckBoxMenuItem exportItem;
+	private JFileChooser fileChooser;
+	private JFileChooser recordingChooser;
+	private int iFileResult;
+	
+	//two images are made once at the Game Boy's resolution (or the filters' output size), and their pixels are written to directly
+	//one is shown while the next frame is written into the other, and the finished one is then handed to the event thread
+	//through image, so a frame is never drawn while it is being written. They are scaled up when drawn, rather than made at the scaled size
+	private volatile BufferedImage image;
+	private final BufferedImage[] images = new BufferedImage[2];
+	private final int[][] iImagePixels = new int[2][];
+	private int iShownImage;
+	private int iScaleFactor;
+	private int iWidth;
+	private int iHeight;
+	//screen width and height of the actual gameboy screen
+	private final int iSCREEN_WIDTH = 160;
+	private final int iSCREEN_HEIGHT = 144;
+	//joypad input
+	private boolean bStart;
+	private boolean bSelect;
+	private boolean bA;
+	private boolean bB;
+	private boolean bLeft;
+	private boolean bRight;
+	private boolean bUp;
+	private boolean bDown;
+	//maps each shade to the RGB value to be output, copied from the LCD every frame as the colours can be changed
+	private final int[] iShadeRGB = new int[4];
+	private LineCompositor compositor;	//maps the shades to colours a line at a time, vectorised if possible
+	
+	//optionally, each frame is run through a chain of filters (on their own threads) before being shown
+	private volatile FilterPipeline filterPipeline;
+	private String szFilter;
+	private volatile boolean bGhosting;	//ghosting changes the image every frame until it settles, even if the lines haven't changed
+	
+	//the line versions of the frame in each image, so only the lines that have changed since are converted and repainted
+	//an image is stale if all of it must be converted again (e.g. the colours have changed)
+	private FrameExchange shownExchange;
+	private final long[][] lImageVersions = new long[2][144];
+	private final boolean[] bImageStale = new boolean[2];
+	private final boolean[] bDirtyLines = new boolean[144];
+	private volatile boolean bRedrawAll;	//set when something other than the frame changes what is shown (e.g. the filters)
+	
+	//if set, the screen is drawn straight to a canvas with a buffer strategy, rather than through repaint
+	//this is turned on with -Dgameboy.activeRendering=true, and is read once when the window is made
+	private final String szACTIVE_RENDERING_PROPERTY = "gameboy.activeRendering";
+	private boolean bActiveRendering;
+	private Canvas canvas;
+	private BufferStrategy bufferStrategy;
+	
+	//every frame can be recorded to disk, the recording carries on across resets
+	private VideoRecorder recorder;
+	private final int iRECORDING_QUEUE = 120;	//how many distinct frames can wait to be written before the emulation waits
+	
+	private volatile boolean bShown;
+	private final long lFRAME_TIMEOUT = 100;	//how long (ms) to wait for a frame before checking again
+
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+    public Screen(Emu emuIn, PPU ppuIn, Joypad joypadIn, DebugViewers debugViewersIn, int iSF) 
+    {
+    	iScaleFactor = iSF;
+    	debugViewers = debugViewersIn;
+    	setupScreen();
+    	reset(emuIn, ppuIn, joypadIn, debugViewersIn);
+    	mainThread.start();
+    }
+    
+    //sets up the main GUI elements
+    public void setupScreen()
+    {	
+    	bShown = true;
+    	
+    	iWidth = iSCREEN_WIDTH * iScaleFactor;
+    	iHeight = iSCREEN_HEIGHT * iScaleFactor;
+    	
+    	makeImages(iSCREEN_WIDTH, iSCREEN_HEIGHT);
+    	compositor = LineCompositor.create();
+    	filterPipeline = null;
+    	szFilter = "None";
+    	bGhosting = false;
+    	shownExchange = null;
+    	bRedrawAll = true;
+    	
+    	frame = new JFrame("Screen");
+        this.setPreferredSize(new Dimension(iWidth, iHeight));
+        frame.setFocusable(true);
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.getContentPane().add(this);
+        
+        bActiveRendering = Boolean.getBoolean(szACTIVE_RENDERING_PROPERTY);
+        if (bActiveRendering)
+        {
+        	//the canvas is heavyweight, so the popup menu must be too for it to show on top
+        	JPopupMenu.setDefaultLightWeightPopupEnabled(false);
+        	canvas = new Canvas();
+        	canvas.setPreferredSize(new Dimension(iWidth, iHeight));
+        	canvas.setIgnoreRepaint(true);
+        	canvas.setFocusable(false);
+        	this.setLayout(new BorderLayout());
+        	this.add(canvas);
+        }
+         
+        //set up popup menu
+        fileChooser = new JFileChooser("rsc/roms/");
+        popupMenu = new JPopupMenu();
+        fileItem = new JMenuItem("Choose ROM");
+        fileItem.addActionListener(new ActionListener() 
+        {
+        	public void actionPerformed(ActionEvent e) 
+ 			{
+        		iFileResult = fileChooser.showOpenDialog(frame);
+ 				
+ 				if (iFileResult == JFileChooser.APPROVE_OPTION)
+ 		    	{
+ 		    		emu.reset(fileChooser.getSelectedFile(), iScaleFactor);
+ 		    	}
+ 			}
+ 		});
+         
+        //a toggle for each of the debug viewers
+        debugMenu = new JMenu("Debug Viewers");
+        for (DebugViewer viewer : debugViewers.getViewers())
+        {
+        	JMenuItem toggleViewer = new JMenuItem("Toggle " + viewer.getTitle());
+        	toggleViewer.addActionListener(new ActionListener() 
+        	{
+        		public void actionPerformed(ActionEvent e) 
+        		{
+        			viewer.setShown(!viewer.getShown());
+        		}
+        	});
+        	debugMenu.add(toggleViewer);
+        }
+         
+        changeDisplayColour = new JMenuItem("Change Display Colours");
+        changeDisplayColour.addActionListener(new ActionListener() 
+        {
+ 			public void actionPerformed(ActionEvent e) 
+ 			{
+ 				//the colours only apply to this emulator's LCD, in shade order
+ 				LCD lcd = ppu.getLCD();
+ 				String szWhite = JOptionPane.showInputDialog("Enter White Hex Color: ");
+ 				lcd.setShadeColour(0, Integer.parseInt(szWhite, 16));
+ 				String szLight = JOptionPane.showInputDialog("Enter Light Hex Color: ");
+ 				lcd.setShadeColour(1, Integer.parseInt(szLight, 16));
+ 				String szDark = JOptionPane.showInputDialog("Enter Dark Hex Color: ");
+ 				lcd.setShadeColour(2, Integer.parseInt(szDark, 16));
+ 				String szBlack = JOptionPane.showInputDialog("Enter Black Hex Color: ");
+ 				lcd.setShadeColour(3, Integer.parseInt(szBlack, 16));
+ 			}
+ 		});
+         
+        //each choice of filters, the ghosting can be added to any of them
+        filterMenu = new JMenu("Filters");
+        ButtonGroup filterGroup = new ButtonGroup();
+        for (String szName : new String[] {"None", "Scale2x", "Scale3x", "2xBR", "LCD Grid", "Scanlines", "2xBR + Scanlines"})
+        {
+        	JRadioButtonMenuItem filterItem = new JRadioButtonMenuItem(szName, szName.equals(szFilter));
+        	filterItem.addActionListener(new ActionListener() 
+        	{
+        		public void actionPerformed(ActionEvent e) 
+        		{
+        			szFilter = szName;
+        			updateFilters();
+        		}
+        	});
+        	filterGroup.add(filterItem);
+        	filterMenu.add(filterItem);
+        }
+        filterMenu.addSeparator();
+        ghostingItem = new JCheckBoxMenuItem("LCD Ghosting");
+        ghostingItem.addActionListener(new ActionListener() 
+        {
+        	public void actionPerformed(ActionEvent e) 
+        	{
+        		updateFilters();
+        	}
+        });
+        filterMenu.add(ghostingItem);
+        
+        //a start item for each recording format, and one to stop
+        recordingChooser = new JFileChooser("rsc/recordings/");
+        recordMenu = new JMenu("Record");
+        for (RecordingFormat format : RecordingFormat.values())
+        {
+        	JMenuItem recordItem = new JMenuItem("Record " + format.getName() + "...");
+        	recordItem.addActionListener(new ActionListener() 
+        	{
+        		public void actionPerformed(ActionEvent e) 
+        		{
+        			startRecording(format);
+        		}
+        	});
+        	recordMenu.add(recordItem);
+        }
+        recordMenu.addSeparator();
+        stopRecordingItem = new JMenuItem("Stop Recording");
+        stopRecordingItem.setEnabled(false);
+        stopRecordingItem.addActionListener(new ActionListener() 
+        {
+        	public void actionPerformed(ActionEvent e) 
+        	{
+        		stopRecording();
+        	}
+        });
+        recordMenu.add(stopRecordingItem);
+        
+        //shares the screen and RAM with other processes
+        exportItem = new JCheckBoxMenuItem("Export to Shared Memory");
+        exportItem.addActionListener(new ActionListener() 
+        {
+        	public void actionPerformed(ActionEvent e) 
+        	{
+        		if (!emu.setSharedMemoryExport(exportItem.isSelected()))
+        		{
+        			exportItem.setSelected(false);
+        		}
+        	}
+        });
+        
+        popupMenu.add(fileItem);
+        popupMenu.add(debugMenu);
+        popupMenu.add(changeDisplayColour);
+        popupMenu.add(filterMenu);
+        popupMenu.add(recordMenu);
+        popupMenu.add(exportItem);
+        MouseListener popupListener = new MouseListener() 
+        {
+ 			@Override
+ 			public void mouseReleased(MouseEvent e) {}
+ 			
+ 			@Override
+ 			public void mousePressed(MouseEvent e) 
+ 			{
+ 				if (SwingUtilities.isRightMouseButton(e))
+ 				{
+ 					popupMenu.show(e.getComponent(), e.getX(), e.getY());
+ 				}
+ 			}
+ 			
+ 			@Override
+ 			public void mouseExited(MouseEvent e) {}
+ 			
+ 			@Override
+ 			public void mouseEntered(MouseEvent e) {}
+ 			
+ 			@Override
+ 			public void mouseClicked(MouseEvent e) {}
+ 		};
+        frame.addMouseListener(popupListener);
+        if (canvas != null)
+        {
+        	canvas.addMouseListener(popupListener);
+        }
+         
+        popupMenu.addPopupMenuListener(new PopupMenuListener() 
+        {
+ 			@Override
+ 			public void popupMenuWillBecomeVisible(PopupMenuEvent e)
+ 			{
+ 				emu.setPaused(true);
+ 			}
+ 			
+ 			@Override
+ 			public void popupMenuWillBecomeInvisible(PopupMenuEvent e) 
+ 			{
+ 				emu.setPaused(false);
+ 			}
+ 			
+ 			@Override
+ 			public void popupMenuCanceled(PopupMenuEvent e) {}
+ 		});
+         
+        frame.pack();
+        frame.setResizable(false);
+        frame.setLocationRelativeTo(null);
+        frame.setVisible(true);
+        
+        //the buffer strategy can only be made once the canvas is showing
+        if (canvas != null)
+        {
+        	canvas.createBufferStrategy(2);
+        	bufferStrategy = canvas.getBufferStrategy();
+        }
+    }
+    
+    //sets the values for the class variables
+    public void reset(Emu emuIn, PPU ppuIn, Joypad joypadIn, DebugViewers debugViewersIn)
+    {
+    	emu = emuIn;
+    	ppu = ppuIn;
+    	joypad = joypadIn;
+    	
+    	debugViewers = debugViewersIn;
+    	bRedrawAll = true;
+    	
+    	if (recorder != null)
+    	{
+    		recorder.attach(ppu);
+    	}
+    	
+    	bStart = false;
+    	bSelect = false;
+    	bA = false;
+    	bB = false;
+    	bLeft = false;
+    	bRight = false;
+    	bUp = false;
+    	bDown = false;
+        
+        //dealing with keyboard input
+        //TODO - allow keybinds to be changed
+        frame.addKeyListener(new KeyListener() 
+        {
+			@Override
+			public void keyTyped(KeyEvent e) 
+			{
+			}
+			
+			@Override
+			public void keyReleased(KeyEvent e) 
+			{
+				if (e.getKeyCode() == KeyEvent.VK_W)
+				{
+					bUp = false;
+				}
+				else if (e.getKeyCode() == KeyEvent.VK_A)
+				{
+					bLeft = false;
+				}
+				else if (e.getKeyCode() == KeyEvent.VK_S)
+				{
+					bDown = false;
+				}
+				else if (e.getKeyCode() == KeyEvent.VK_D)
+				{
+					bRight = false;
+				}
+				else if (e.getKeyCode() == KeyEvent.VK_O)
+				{
+					bB = false;
+				}
+				else if (e.getKeyCode() == KeyEvent.VK_P)
+				{
+					bA = false;
+				}
+				else if (e.getKeyCode() == KeyEvent.VK_K)
+				{
+					bSelect = false;
+				}
+				else if (e.getKeyCode() == KeyEvent.VK_L)
+				{
+					bStart = false;
+				}
+			}
+			
+			@Override
+			public void keyPressed(KeyEvent e) 
+			{
+				if (e.getKeyCode() == KeyEvent.VK_W)
+				{
+					bUp = true;
+				}
+				else if (e.getKeyCode() == KeyEvent.VK_A)
+				{
+					bLeft = true;
+				}
+				else if (e.getKeyCode() == KeyEvent.VK_S)
+				{
+					bDown = true;
+				}
+				else if (e.getKeyCode() == KeyEvent.VK_D)
+				{
+					bRight = true;
+				}
+				else if (e.getKeyCode() == KeyEvent.VK_O)
+				{
+					bB = true;
+				}
+				else if (e.getKeyCode() == KeyEvent.VK_P)
+				{
+					bA = true;
+				}
+				else if (e.getKeyCode() == KeyEvent.VK_K)
+				{
+					bSelect = true;
+				}
+				else if (e.getKeyCode() == KeyEvent.VK_L)
+				{
+					bStart = true;
+				}
+			}
+		});
+    	
+        if (fileChooser.getSelectedFile() != null)
+        {
+        	setName(fileChooser.getSelectedFile().getName());
+        }
+    }
+    
+	// ---------------------------------------------
+	// setters
+	// ---------------------------------------------
+    //set whether it should be shown
+    public void setShown(boolean bShow)
+    {
+    	bShown = bShow;
+    }
+    
+    //set the name of the window
+    public void setName(String szName)
+    {
+    	frame.setTitle(szName);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) 
+    {
+        super.paintComponent(g);
+        
+        //the image is held while it is drawn, so the screen's thread can't start writing the next frame into it
+        BufferedImage shown = image;
+        synchronized (shown)
+        {
+        	drawScaled(g, shown);
+        }
+    }
+    
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+    //gets the data to be outputted to the screen, writing it into the image that isn't being shown, which is then shown
+    //only the lines that differ from that image are converted, and the lines that differ from the one shown are marked in bDirtyLines
+    //returns whether anything needs to be redrawn
+    public boolean getVideoData()
+    {
+    	//the latest complete frame, which won't be written to while it is being read
+    	FrameExchange exchange = ppu.getFrameExchange();
+    	byte[] frameBuffer = exchange.takeFrame();
+    	long[] lVersions = exchange.getFrontLineVersions();
+    	
+    	//everything is redrawn for a new PPU (whose versions start again), or if the colours have changed
+    	int[] iColours = ppu.getLCD().getShadeColours();
+    	if (bRedrawAll || exchange != shownExchange || !Arrays.equals(iColours, 0, 4, iShadeRGB, 0, 4))
+    	{
+    		Arrays.fill(bImageStale, true);
+    	}
+    	bRedrawAll = false;
+    	shownExchange = exchange;
+    	System.arraycopy(iColours, 0, iShadeRGB, 0, 4);
+    	
+    	//a change of size makes new images, which are both stale
+    	FilterPipeline pipeline = filterPipeline;
+    	if (pipeline != null)
+    	{
+    		setImageSize(pipeline.getOutputWidth(), pipeline.getOutputHeight());
+    	}
+    	else
+    	{
+    		setImageSize(iSCREEN_WIDTH, iSCREEN_HEIGHT);
+    	}
+    	
+    	int iBack = 1 - iShownImage;
+    	long[] lShownVersions = lImageVersions[iShownImage];
+    	boolean bChanged = false;
+    	for (int iRow = 0; iRow < iSCREEN_HEIGHT; iRow++)
+    	{
+    		bDirtyLines[iRow] = bImageStale[iShownImage] || lVersions[iRow] != lShownVersions[iRow];
+    		bChanged |= bDirtyLines[iRow];
+    	}
+    	
+    	//the filters look at neighbouring pixels, so the whole image is redone if anything has changed
+    	if (!bChanged && !(pipeline != null && bGhosting))
+    	{
+    		return false;
+    	}
+    	
+    	int[] iFiltered = null;
+    	if (pipeline != null)
+    	{
+    		//this runs on the screen's thread (not the emulation thread), with the filtering itself spread over the pipeline's workers
+    		iFiltered = pipeline.process(frameBuffer, iShadeRGB);
+    		if (iFiltered == null)
+    		{
+    			//the frame was skipped to keep the filters in budget, so the last filtered frame is still shown
+    			//the next frame is filtered even if nothing changes, so a game that stops on this frame isn't left showing an older one
+    			bRedrawAll = true;
+    			return false;
+    		}
+    	}
+    	
+    	BufferedImage backImage = images[iBack];
+    	int[] iPixels = iImagePixels[iBack];
+    	long[] lBackVersions = lImageVersions[iBack];
+    	synchronized (backImage)
+    	{
+    		if (iFiltered != null)
+    		{
+    			System.arraycopy(iFiltered, 0, iPixels, 0, Math.min(iFiltered.length, iPixels.length));
+    			Arrays.fill(bDirtyLines, true);
+    		}
+    		else
+    		{
+    			for (int iRow = 0; iRow < iSCREEN_HEIGHT; iRow++)
+    			{
+    				if (bImageStale[iBack] || lVersions[iRow] != lBackVersions[iRow])
+    				{
+    					compositor.mapColours(frameBuffer, iRow * iSCREEN_WIDTH, iShadeRGB, iPixels, iRow * iSCREEN_WIDTH, iSCREEN_WIDTH);
+    				}
+    			}
+    		}
+    	}
+    	System.arraycopy(lVersions, 0, lBackVersions, 0, iSCREEN_HEIGHT);
+    	bImageStale[iBack] = false;
+    	
+    	//the finished image is handed over, and the one that was shown is written to next
+    	iShownImage = iBack;
+    	image = backImage;
+    	return true;
+    }
+    
+    //makes new images if the size of the frames being shown has changed, both of which must then be filled in
+    private void setImageSize(int iImageWidth, int iImageHeight)
+    {
+    	if (images[0].getWidth() != iImageWidth || images[0].getHeight() != iImageHeight)
+    	{
+    		makeImages(iImageWidth, iImageHeight);
+    	}
+    }
+    
+    //makes both images, the old image (if any) is still shown until a frame has been written to one of them
+    private void makeImages(int iImageWidth, int iImageHeight)
+    {
+    	for (int i = 0; i < images.length; i++)
+    	{
+    		images[i] = new BufferedImage(iImageWidth, iImageHeight, BufferedImage.TYPE_INT_RGB);
+    		iImagePixels[i] = ((DataBufferInt) images[i].getRaster().getDataBuffer()).getData();
+    		bImageStale[i] = true;
+    	}
+    	iShownImage = 0;
+    	if (image == null)
+    	{
+    		image = images[0];
+    	}
+    }
+    
+    //sets up the chain of filters for the chosen option, starting the pipeline if it is needed
+    private void updateFilters()
+    {
+    	List<Filter> filters = new ArrayList<Filter>();
+    	
+    	//ghosting is done first, as it works on the Game Boy's own pixels
+    	bGhosting = ghostingItem.isSelected();
+    	if (bGhosting)
+    	{
+    		filters.add(new GhostingFilter(0.5));
+    	}
+    	bRedrawAll = true;
+    	
+    	switch (szFilter)
+    	{
+    	case "Scale2x":
+    		filters.add(new ScaleNxFilter(2));
+    		break;
+    	case "Scale3x":
+    		filters.add(new ScaleNxFilter(3));
+    		break;
+    	case "2xBR":
+    		filters.add(new XBRFilter());
+    		break;
+    	case "LCD Grid":
+    		filters.add(new LCDMaskFilter(3, MaskType.GRID, 0.7));
+    		break;
+    	case "Scanlines":
+    		filters.add(new LCDMaskFilter(3, MaskType.SCANLINES, 0.6));
+    		break;
+    	case "2xBR + Scanlines":
+    		filters.add(new XBRFilter());
+    		filters.add(new LCDMaskFilter(2, MaskType.SCANLINES, 0.6));
+    		break;
+    	}
+    	
+    	if (filters.isEmpty())
+    	{
+    		filterPipeline = null;
+    		return;
+    	}
+    	
+    	if (filterPipeline == null)
+    	{
+    		FilterPipeline pipeline = new FilterPipeline(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    		pipeline.setFilters(filters);
+    		filterPipeline = pipeline;
+    	}
+    	else
+    	{
+    		filterPipeline.setFilters(filters);
+    	}
+    }
+    
+    //asks where to save, then starts recording in the chosen format, replacing any recording already running
+    private void startRecording(RecordingFormat format)
+    {
+    	//the PNG sequence is written to a folder
+    	recordingChooser.setFileSelectionMode(format == RecordingFormat.PNG ? JFileChooser.DIRECTORIES_ONLY : JFileChooser.FILES_ONLY);
+    	if (recordingChooser.showSaveDialog(frame) != JFileChooser.APPROVE_OPTION)
+    	{
+    		return;
+    	}
+    	
+    	File file = recordingChooser.getSelectedFile();
+    	if (!file.getName().endsWith(format.getExtension()))
+    	{
+    		file = new File(file.getPath() + format.getExtension());
+    	}
+    	
+    	stopRecording();
+    	
+    	VideoRecorder newRecorder = new VideoRecorder(file, format, iRECORDING_QUEUE);
+    	try
+    	{
+    		newRecorder.start(ppu);
+    	}
+    	catch (IOException e)
+    	{
+    		JOptionPane.showMessageDialog(frame, "Could not start recording: " + e.getMessage());
+    		return;
+    	}
+    	
+    	recorder = newRecorder;
+    	stopRecordingItem.setEnabled(true);
+    }
+    
+    //stops the recording, once all of its frames have been written
+    private void stopRecording()
+    {
+    	if (recorder != null)
+    	{
+    		recorder.stop();
+    		recorder = null;
+    	}
+    	stopRecordingItem.setEnabled(false);
+    }
+    
+    //render method
+    //renders the current frame in video memory
+    public void render()
+    {
+    	//if nothing has changed (e.g. a static menu) there is nothing to draw
+    	if (!getVideoData())
+    	{
+    		return;
+    	}
+    	
+    	if (bufferStrategy == null)
+    	{
+    		repaintDirtyBands();
+    		return;
+    	}
+    	
+    	//draw straight to the canvas, redrawing if the buffer was lost while drawing
+    	do
+    	{
+    		do
+    		{
+    			Graphics g = bufferStrategy.getDrawGraphics();
+    			drawScaled(g, image);
+    			g.dispose();
+    		} while (bufferStrategy.contentsRestored());
+    		
+    		bufferStrategy.show();
+    	} while (bufferStrategy.contentsLost());
+    }
+    
+    //repaints only the bands of the window covering the lines that have changed
+    //Swing merges these into one region, which is painted on the next pass of the event thread
+    private void repaintDirtyBands()
+    {
+    	int iRow = 0;
+    	while (iRow < iSCREEN_HEIGHT)
+    	{
+    		if (!bDirtyLines[iRow])
+    		{
+    			iRow++;
+    			continue;
+    		}
+    		
+    		int iBandStart = iRow;
+    		while (iRow < iSCREEN_HEIGHT && bDirtyLines[iRow])
+    		{
+    			iRow++;
+    		}
+    		
+    		//the band is scaled to the window, rounding outwards so no part of a line is missed
+    		int iTop = iBandStart * iHeight / iSCREEN_HEIGHT;
+    		int iBottom = (iRow * iHeight + iSCREEN_HEIGHT - 1) / iSCREEN_HEIGHT;
+    		repaint(0, iTop, iWidth, iBottom - iTop);
+    	}
+    }
+    
+    //draws an image scaled up to the size of the window, using nearest neighbour so the pixels stay sharp
+    private void drawScaled(Graphics g, BufferedImage shown)
+    {
+    	Graphics2D g2 = (Graphics2D) g;
+    	g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+    	g2.drawImage(shown, 0, 0, iWidth, iHeight, null);
+    }
+    
+    //updates the joypad
+    public void updateJoypad()
+    {
+    	joypad.setA(bA);
+    	joypad.setB(bB);
+    	joypad.setDown(bDown);
+    	joypad.setLeft(bLeft);
+    	joypad.setRight(bRight);
+    	joypad.setSelect(bSelect);
+    	joypad.setStart(bStart);
+    	joypad.setUp(bUp);
+    }
+    
+    @Override
+    public void run()
+    {
+    	while (true)
+    	{
+    		//wait for the PPU to complete a frame, rather than redrawing the same frame over and over
+    		//the timeout allows for the PPU being replaced when a new game is loaded
+    		if (!ppu.getFrameExchange().waitForFrame(lFRAME_TIMEOUT))
+    		{
+    			continue;
+    		}
+    		
+    		if (bShown)
+    		{
+    			if (!frame.isVisible())
+    			{
+    				frame.setVisible(true);
+    			}
+    			
+    			render();
+    		}
+    		else
+    		{
+    			if (frame.isVisible())
+    			{
+    				frame.setVisible(false);
+    			}
+    			
+    			//the frame is still taken, so that the next wait is for a new one
+    			ppu.getFrameExchange().takeFrame();
+			}
+    	}
+    }
+}
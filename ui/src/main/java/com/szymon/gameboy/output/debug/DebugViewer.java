@@ -0,0 +1,174 @@
+/**
+ * Base class for the debug viewers, each of which shows some part of the video state in its own window
+ * Rather than redrawing constantly, a viewer checks the version counters of what it shows (VRAM, OAM, palettes)
+ * on a Swing timer, and only redraws when one has changed since it was last drawn
+ * The timer only runs while the window is open, so a closed viewer costs nothing
+ */
+
+package com.szymon.gameboy.output.debug;
+
+import javax.swing.*;
+
+import com.szymon.gameboy.memory.Memory;
+import com.szymon.gameboy.ppu.LCD;
+
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+public abstract class DebugViewer extends JPanel
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private static final long serialVersionUID = -3650241584129036416L;
+	
+	//the memory and LCD being shown, which are replaced when a new game is loaded
+	protected volatile Memory memory;
+	protected volatile LCD lcd;
+	
+	private JFrame frame;
+	private Timer refreshTimer;
+	
+	//the image is drawn at its own size, then scaled up when painted
+	private BufferedImage image;
+	private int[] iPixels;
+	protected int iScaleFactor;
+	
+	//the version that the image was last drawn from, -1 forces a redraw
+	private long lDrawnVersion;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public DebugViewer(String szTitle, Memory mem, LCD lcdIn, int iImageWidth, int iImageHeight, int iSF, int iMaxRate)
+	{
+		memory = mem;
+		lcd = lcdIn;
+		iScaleFactor = iSF;
+		lDrawnVersion = -1;
+		
+		image = new BufferedImage(iImageWidth, iImageHeight, BufferedImage.TYPE_INT_RGB);
+		iPixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		
+		frame = new JFrame(szTitle);
+		this.setPreferredSize(new Dimension(iImageWidth * iScaleFactor, iImageHeight * iScaleFactor));
+		frame.setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+		frame.addWindowListener(new WindowAdapter()
+		{
+			@Override
+			public void windowClosing(WindowEvent e)
+			{
+				setShown(false);
+			}
+		});
+		
+		frame.getContentPane().add(this);
+		frame.pack();
+		frame.setResizable(false);
+		frame.setVisible(false);
+		
+		//the timer fires on the event thread, so the image is only ever drawn and painted there
+		refreshTimer = new Timer(1000 / iMaxRate, e -> refresh());
+		refreshTimer.setCoalesce(true);
+	}
+	
+	//shows a different memory and LCD, e.g. when a new game is loaded
+	public void reset(Memory mem, LCD lcdIn)
+	{
+		memory = mem;
+		lcd = lcdIn;
+		lDrawnVersion = -1;
+	}
+	
+	// ---------------------------------------------
+	// setters
+	// ---------------------------------------------
+	//opens or closes the window, starting or stopping the refresh timer with it
+	public void setShown(boolean bShow)
+	{
+		SwingUtilities.invokeLater(() ->
+		{
+			frame.setVisible(bShow);
+			
+			if (bShow)
+			{
+				lDrawnVersion = -1;
+				refresh();
+				refreshTimer.start();
+			}
+			else
+			{
+				refreshTimer.stop();
+			}
+		});
+	}
+	
+	//sets the most times a second that the viewer checks for changes
+	public void setMaxRate(int iMaxRate)
+	{
+		refreshTimer.setDelay(1000 / iMaxRate);
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	public boolean getShown()
+	{
+		return frame.isVisible();
+	}
+	
+	//gets the title, for the menu that toggles the viewer
+	public String getTitle()
+	{
+		return frame.getTitle();
+	}
+	
+	//gets a number that changes whenever anything this viewer shows has changed
+	//the versions of each part are combined, so a change to any of them changes the result
+	protected abstract long getVersion();
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//draws the viewer's image, with each pixel an RGB colour and rows stored in turn
+	protected abstract void drawImage(int[] iPixels, int iImageWidth);
+	
+	//draws anything on top of the scaled image (e.g. text), by default nothing
+	protected void drawOverlay(Graphics2D g)
+	{
+	}
+	
+	//redraws the image if anything has changed since it was last drawn
+	private void refresh()
+	{
+		long lVersion = getVersion();
+		if (lVersion == lDrawnVersion)
+		{
+			return;
+		}
+		
+		lDrawnVersion = lVersion;
+		drawImage(iPixels, image.getWidth());
+		repaint();
+	}
+	
+	@Override
+	protected void paintComponent(Graphics g)
+	{
+		super.paintComponent(g);
+		
+		Graphics2D g2 = (Graphics2D) g;
+		g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+		g2.drawImage(image, 0, 0, image.getWidth() * iScaleFactor, image.getHeight() * iScaleFactor, null);
+		drawOverlay(g2);
+	}
+	
+	//combines the version of another part into a version
+	protected static long combine(long lVersion, int iPart)
+	{
+		return lVersion * 31 + iPart;
+	}
+}
@@ -0,0 +1,61 @@
+/**
+ * Class to hold the set of debug viewers (tiles, tile maps, OAM and palettes)
+ * They are made once and kept across resets, being pointed at the new memory and LCD instead
+ */
+
+package com.szymon.gameboy.output.debug;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.szymon.gameboy.memory.Memory;
+import com.szymon.gameboy.ppu.LCD;
+
+public class DebugViewers
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private final List<DebugViewer> viewers;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	//iMaxRate is the most times a second that each viewer checks for changes
+	public DebugViewers(Memory mem, LCD lcd, int iSF, int iMaxRate)
+	{
+		viewers = Collections.unmodifiableList(Arrays.asList(
+				new TileViewer(mem, lcd, iSF, iMaxRate),
+				new MapViewer(mem, lcd, iSF, iMaxRate),
+				new OAMViewer(mem, lcd, iSF, iMaxRate),
+				new PaletteViewer(mem, lcd, iSF, iMaxRate)));
+	}
+	
+	public void reset(Memory mem, LCD lcd)
+	{
+		for (DebugViewer viewer : viewers)
+		{
+			viewer.reset(mem, lcd);
+		}
+	}
+	
+	// ---------------------------------------------
+	// setters
+	// ---------------------------------------------
+	public void setMaxRate(int iMaxRate)
+	{
+		for (DebugViewer viewer : viewers)
+		{
+			viewer.setMaxRate(iMaxRate);
+		}
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	public List<DebugViewer> getViewers()
+	{
+		return viewers;
+	}
+}
@@ -0,0 +1,155 @@
+/**
+ * Outputs both background tile maps (9800 and 9C00) side by side, drawn from the decoded tiles in VRAM
+ * The part of the background currently on screen is outlined, wrapping around the edges as it does on the Game Boy,
+ * and so is the part of the window that is shown
+ */
+
+package com.szymon.gameboy.output.debug;
+
+import com.szymon.gameboy.memory.Memory;
+import com.szymon.gameboy.memory.VRAM;
+import com.szymon.gameboy.ppu.LCD;
+import com.szymon.gameboy.ppu.LCDRegisters;
+
+import java.awt.*;
+
+public class MapViewer extends DebugViewer
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private static final long serialVersionUID = -2716548325412519068L;
+	
+	private static final int iMAP_SIZE = 256;
+	private static final int iGAP = 8;	//between the two maps
+	private final int iSCREEN_WIDTH = 160;
+	private final int iSCREEN_HEIGHT = 144;
+	private final int[] iMAP_ADDRESSES = {0x9800, 0x9C00};
+	
+	//the registers the image was drawn with, so the outlines match it
+	private int iBGMap;
+	private int iWindowMap;
+	private int iScrollX;
+	private int iScrollY;
+	private int iWindowX;
+	private int iWindowY;
+	private boolean bWindowEnable;
+	
+	// ---------------------------------------------
+	// constructor
+	// ---------------------------------------------
+	//the maps are large, so are shown at half the scale of the other viewers
+	public MapViewer(Memory mem, LCD lcdIn, int sf, int iMaxRate)
+	{
+		super("MapViewer", mem, lcdIn, iMAP_SIZE * 2 + iGAP, iMAP_SIZE, Math.max(1, sf / 2), iMaxRate);
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	//as well as VRAM and the palettes, the maps depend on the registers that choose the tile data and scroll
+	@Override
+	protected long getVersion()
+	{
+		LCDRegisters registers = lcd.getRegisters();
+		
+		long lVersion = combine(memory.getVRAM().getVRAMVersion(), lcd.getPaletteVersion());
+		lVersion = combine(lVersion, registers.getBGTileMapStart().getValue() ^ (registers.getWindowTileMapStart().getValue() << 1)
+				^ registers.getBGWindowTileDataStart().getValue() ^ (registers.getWindowEnable() ? 1 : 0));
+		lVersion = combine(lVersion, registers.getScrollX().getValue() | (registers.getScrollY().getValue() << 8));
+		lVersion = combine(lVersion, registers.getWinX().getValue() | (registers.getWinY().getValue() << 8));
+		return lVersion;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	@Override
+	protected void drawImage(int[] iPixels, int iImageWidth)
+	{
+		LCDRegisters registers = lcd.getRegisters();
+		iBGMap = registers.getBGTileMapStart().getValue();
+		iWindowMap = registers.getWindowTileMapStart().getValue();
+		iScrollX = registers.getScrollX().getValue();
+		iScrollY = registers.getScrollY().getValue();
+		iWindowX = registers.getWinX().getValue() - 7;
+		iWindowY = registers.getWinY().getValue();
+		bWindowEnable = registers.getWindowEnable();
+		boolean bSigned = registers.getBGWindowTileDataStart().getValue() == 0x8800;
+		
+		VRAM vram = memory.getVRAM();
+		byte[] u8Tiles = vram.getTileCache();
+		int[] iColours = lcd.getBGColours();
+		
+		for (int iMap = 0; iMap < 2; iMap++)
+		{
+			int iMapX = iMap * (iMAP_SIZE + iGAP);
+			
+			//32 x 32 tiles, each 8 x 8
+			for (int iCell = 0; iCell < 32 * 32; iCell++)
+			{
+				int iTileNum = vram.getVRAMByte(iMAP_ADDRESSES[iMap] + iCell);
+				if (bSigned)
+				{
+					iTileNum = 256 + (byte) iTileNum;
+				}
+				
+				int iTileX = iMapX + (iCell % 32) * 8;
+				int iTileY = (iCell / 32) * 8;
+				for (int y = 0; y < 8; y++)
+				{
+					for (int x = 0; x < 8; x++)
+					{
+						iPixels[(iTileY + y) * iImageWidth + iTileX + x] = iColours[u8Tiles[iTileNum * 64 + y * 8 + x]];
+					}
+				}
+			}
+		}
+		
+		//the gap is left black
+		for (int y = 0; y < iMAP_SIZE; y++)
+		{
+			for (int x = iMAP_SIZE; x < iMAP_SIZE + iGAP; x++)
+			{
+				iPixels[y * iImageWidth + x] = 0;
+			}
+		}
+	}
+	
+	//outlines the screen's viewport on the background map, and the shown part of the window on the window map
+	@Override
+	protected void drawOverlay(Graphics2D g)
+	{
+		g.setColor(Color.RED);
+		int iBGMapX = mapX(iBGMap);
+		//the viewport wraps around, so it is drawn in each position it could overlap the map from
+		for (int iWrapX = -iMAP_SIZE; iWrapX <= 0; iWrapX += iMAP_SIZE)
+		{
+			for (int iWrapY = -iMAP_SIZE; iWrapY <= 0; iWrapY += iMAP_SIZE)
+			{
+				outline(g, iBGMapX, iScrollX + iWrapX, iScrollY + iWrapY, iSCREEN_WIDTH, iSCREEN_HEIGHT);
+			}
+		}
+		
+		if (bWindowEnable && iWindowX < iSCREEN_WIDTH && iWindowY < iSCREEN_HEIGHT)
+		{
+			g.setColor(Color.BLUE);
+			outline(g, mapX(iWindowMap), 0, 0, iSCREEN_WIDTH - Math.max(iWindowX, 0), iSCREEN_HEIGHT - iWindowY);
+		}
+	}
+	
+	//draws the outline of a rectangle within a map, clipped to the map
+	private void outline(Graphics2D g, int iMapX, int x, int y, int iRectWidth, int iRectHeight)
+	{
+		Shape oldClip = g.getClip();
+		g.clipRect(iMapX * iScaleFactor, 0, iMAP_SIZE * iScaleFactor, iMAP_SIZE * iScaleFactor);
+		g.drawRect((iMapX + x) * iScaleFactor, y * iScaleFactor, iRectWidth * iScaleFactor - 1, iRectHeight * iScaleFactor - 1);
+		g.setClip(oldClip);
+	}
+	
+	//gets the x position of a map in the image
+	private int mapX(int iAddress)
+	{
+		return iAddress == iMAP_ADDRESSES[0] ? 0 : iMAP_SIZE + iGAP;
+	}
+}
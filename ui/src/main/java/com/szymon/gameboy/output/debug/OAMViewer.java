@@ -0,0 +1,122 @@
+/**
+ * Outputs the 40 sprites in OAM, each drawn from the decoded tiles with its own palette and flips,
+ * along with its position, tile number and attributes
+ */
+
+package com.szymon.gameboy.output.debug;
+
+import com.szymon.gameboy.memory.Memory;
+import com.szymon.gameboy.memory.VRAM;
+import com.szymon.gameboy.ppu.LCD;
+
+import java.awt.*;
+
+public class OAMViewer extends DebugViewer
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private static final long serialVersionUID = 8031127466259208873L;
+	
+	//the sprites are shown in a grid, each cell holding the sprite with its details below
+	private static final int iCOLUMNS = 8;
+	private static final int iROWS = VRAM.iOAM_ENTRIES / iCOLUMNS;
+	private static final int iCELL_WIDTH = 24;
+	private static final int iCELL_HEIGHT = 32;
+	private final int iSPRITE_X = 8;	//where the sprite is drawn in its cell
+	private final int iSPRITE_Y = 2;
+	private final int iTEXT_Y = 20;	//where the details start in the cell
+	private final int iCELL_COLOUR = 0x303030;
+	private final int iTRANSPARENT_COLOUR = 0x808080;
+	
+	//the entries the image was drawn from, so the details match it
+	private int[] iEntries;
+	
+	// ---------------------------------------------
+	// constructor
+	// ---------------------------------------------
+	public OAMViewer(Memory mem, LCD lcdIn, int sf, int iMaxRate)
+	{
+		super("OAMViewer", mem, lcdIn, iCOLUMNS * iCELL_WIDTH, iROWS * iCELL_HEIGHT, sf, iMaxRate);
+		iEntries = new int[VRAM.iOAM_ENTRIES];
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	//the sprites depend on OAM, the tiles in VRAM, the palettes and the sprite height
+	@Override
+	protected long getVersion()
+	{
+		VRAM vram = memory.getVRAM();
+		
+		long lVersion = combine(vram.getOAMVersion(), vram.getVRAMVersion());
+		lVersion = combine(lVersion, lcd.getPaletteVersion());
+		return combine(lVersion, lcd.getRegisters().getObjHeight());
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	@Override
+	protected void drawImage(int[] iPixels, int iImageWidth)
+	{
+		//the packed entries are read straight from VRAM, as going through memory would also finish any DMA
+		VRAM vram = memory.getVRAM();
+		System.arraycopy(vram.getPackedOAM(), 0, iEntries, 0, VRAM.iOAM_ENTRIES);
+		int iHeight = lcd.getRegisters().getObjHeight();
+		
+		for (int i = 0; i < iPixels.length; i++)
+		{
+			iPixels[i] = iCELL_COLOUR;
+		}
+		
+		for (int iSprite = 0; iSprite < VRAM.iOAM_ENTRIES; iSprite++)
+		{
+			int iEntry = iEntries[iSprite];
+			int iTileIndex = (iEntry >> 8) & 0xFF;
+			//in 8x16 mode, ignore bit 0 of tile index
+			if (iHeight == 16)
+			{
+				iTileIndex &= ~0b1;
+			}
+			
+			//palette bit selects OBP1 or OBP0, and the flipped cache already has the rows mirrored
+			int[] iColours = (iEntry & 0x10) != 0 ? lcd.getSP2Colours() : lcd.getSP1Colours();
+			byte[] u8Tiles = (iEntry & 0x20) != 0 ? vram.getFlippedTileCache() : vram.getTileCache();
+			boolean bYFlip = (iEntry & 0x40) != 0;
+			
+			int iX = (iSprite % iCOLUMNS) * iCELL_WIDTH + iSPRITE_X;
+			int iY = (iSprite / iCOLUMNS) * iCELL_HEIGHT + iSPRITE_Y;
+			for (int y = 0; y < iHeight; y++)
+			{
+				int iLine = bYFlip ? iHeight - y - 1 : y;
+				for (int x = 0; x < 8; x++)
+				{
+					//colour 0 is transparent for sprites
+					int iColour = u8Tiles[iTileIndex * 64 + iLine * 8 + x];
+					iPixels[(iY + y) * iImageWidth + iX + x] = iColour == 0 ? iTRANSPARENT_COLOUR : iColours[iColour];
+				}
+			}
+		}
+	}
+	
+	//writes each sprite's position, tile and attributes below it
+	@Override
+	protected void drawOverlay(Graphics2D g)
+	{
+		g.setColor(Color.WHITE);
+		g.setFont(new Font(Font.MONOSPACED, Font.PLAIN, Math.max(8, iScaleFactor * 3)));
+		int iLineHeight = g.getFontMetrics().getHeight();
+		
+		for (int iSprite = 0; iSprite < VRAM.iOAM_ENTRIES; iSprite++)
+		{
+			int iEntry = iEntries[iSprite];
+			int iX = (iSprite % iCOLUMNS) * iCELL_WIDTH * iScaleFactor + 2;
+			int iY = ((iSprite / iCOLUMNS) * iCELL_HEIGHT + iTEXT_Y) * iScaleFactor + iLineHeight;
+			
+			g.drawString(String.format("%3d,%3d", (iEntry >> 16) & 0xFF, iEntry >>> 24), iX, iY);
+			g.drawString(String.format("T%02X A%02X", (iEntry >> 8) & 0xFF, iEntry & 0xFF), iX, iY + iLineHeight);
+		}
+	}
+}
@@ -0,0 +1,92 @@
+/**
+ * Outputs the colour of each shade, and the background and both sprite palettes
+ * Each palette shows the colour of each colour index, labelled with the shade it maps to
+ */
+
+package com.szymon.gameboy.output.debug;
+
+import com.szymon.gameboy.memory.Memory;
+import com.szymon.gameboy.ppu.LCD;
+
+import java.awt.*;
+
+public class PaletteViewer extends DebugViewer
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private static final long serialVersionUID = -6094514230378218702L;
+	
+	private static final int iLABEL_WIDTH = 32;
+	private static final int iSWATCH_SIZE = 16;
+	private static final int iROWS = 4;
+	private final String[] szLABELS = {"Shades", "BGP", "OBP0", "OBP1"};
+	
+	//the shade of each colour index in each row, so the labels match the image
+	private int[][] iShades;
+	
+	// ---------------------------------------------
+	// constructor
+	// ---------------------------------------------
+	public PaletteViewer(Memory mem, LCD lcdIn, int sf, int iMaxRate)
+	{
+		super("PaletteViewer", mem, lcdIn, iLABEL_WIDTH + 4 * iSWATCH_SIZE, iROWS * iSWATCH_SIZE, sf, iMaxRate);
+		iShades = new int[iROWS][4];
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	@Override
+	protected long getVersion()
+	{
+		return lcd.getPaletteVersion();
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	@Override
+	protected void drawImage(int[] iPixels, int iImageWidth)
+	{
+		int[][] iColours = {lcd.getShadeColours(), lcd.getBGColours(), lcd.getSP1Colours(), lcd.getSP2Colours()};
+		int[][] iPaletteShades = {{0, 1, 2, 3}, lcd.getBGShades(), lcd.getSP1Shades(), lcd.getSP2Shades()};
+		
+		for (int iRow = 0; iRow < iROWS; iRow++)
+		{
+			System.arraycopy(iPaletteShades[iRow], 0, iShades[iRow], 0, 4);
+			
+			for (int y = 0; y < iSWATCH_SIZE; y++)
+			{
+				int iLineStart = (iRow * iSWATCH_SIZE + y) * iImageWidth;
+				for (int x = 0; x < iImageWidth; x++)
+				{
+					iPixels[iLineStart + x] = x < iLABEL_WIDTH ? 0 : iColours[iRow][(x - iLABEL_WIDTH) / iSWATCH_SIZE] & 0xFFFFFF;
+				}
+			}
+		}
+	}
+	
+	//labels each row, and each colour with its shade
+	@Override
+	protected void drawOverlay(Graphics2D g)
+	{
+		g.setFont(new Font(Font.MONOSPACED, Font.PLAIN, Math.max(8, iScaleFactor * 3)));
+		int iTextOffset = (iSWATCH_SIZE * iScaleFactor + g.getFontMetrics().getAscent()) / 2;
+		
+		for (int iRow = 0; iRow < iROWS; iRow++)
+		{
+			int iY = iRow * iSWATCH_SIZE * iScaleFactor + iTextOffset;
+			
+			g.setColor(Color.WHITE);
+			g.drawString(szLABELS[iRow], 2, iY);
+			
+			for (int i = 0; i < 4; i++)
+			{
+				//the text is drawn in the opposite shade, so that it shows up
+				g.setColor(iShades[iRow][i] < 2 ? Color.BLACK : Color.WHITE);
+				g.drawString(Integer.toString(iShades[iRow][i]), (iLABEL_WIDTH + i * iSWATCH_SIZE + iSWATCH_SIZE / 2) * iScaleFactor - 2, iY);
+			}
+		}
+	}
+}
@@ -0,0 +1,65 @@
+/**
+ * @author 18bilkiewiczs
+ * Outputs all of the tile data in memory
+ */
+
+package com.szymon.gameboy.output.debug;
+
+import com.szymon.gameboy.memory.Memory;
+import com.szymon.gameboy.ppu.LCD;
+
+public class TileViewer extends DebugViewer
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private static final long serialVersionUID = 5100989573626011395L;
+	
+	private static final int iTILE_VIEWER_WIDTH = 16 * 8;
+	private static final int iTILE_VIEWER_HEIGHT = 24 * 8;
+	
+	// ---------------------------------------------
+	// constructor
+	// ---------------------------------------------
+    public TileViewer(Memory mem, LCD lcdIn, int sf, int iMaxRate)
+    {
+    	super("TileViewer", mem, lcdIn, iTILE_VIEWER_WIDTH, iTILE_VIEWER_HEIGHT, sf, iMaxRate);
+    }
+
+    // ---------------------------------------------
+ 	// getters
+ 	// ---------------------------------------------
+    //the tiles only change with VRAM, and the shade colours with the palettes
+    @Override
+    protected long getVersion()
+    {
+    	return combine(memory.getVRAM().getVRAMVersion(), lcd.getPaletteVersion());
+    }
+
+    // ---------------------------------------------
+ 	// methods
+ 	// ---------------------------------------------
+    //copies the tiles out of the VRAM tile cache, which already has them decoded
+    @Override
+    protected void drawImage(int[] iPixels, int iImageWidth)
+    {
+    	byte[] u8Tiles = memory.getVRAM().getTileCache();
+    	int[] iShadeColours = lcd.getShadeColours();
+
+    	//384 tiles, 16 x 24
+    	//each tile is 8 x 8
+    	for (int iTile = 0; iTile < 384; iTile++)
+    	{
+    		int iTileX = (iTile % 16) * 8;
+    		int iTileY = (iTile / 16) * 8;
+
+    		for (int y = 0; y < 8; y++)
+    		{
+    			for (int x = 0; x < 8; x++)
+    			{
+    				iPixels[(iTileY + y) * iImageWidth + iTileX + x] = iShadeColours[u8Tiles[iTile * 64 + y * 8 + x]];
+    			}
+    		}
+    	}
+    }
+}
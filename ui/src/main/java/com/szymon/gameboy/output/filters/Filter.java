@@ -0,0 +1,23 @@
+/**
+ * Interface for one stage of the filter pipeline, which works on frames of ARGB pixels
+ * A filter may scale the frame up by a whole number, and is given a band of rows of its input at a time,
+ * so that the bands of a frame can be filtered on different threads at once
+ */
+
+package com.szymon.gameboy.output.filters;
+
+public abstract interface Filter
+{
+	//---------------------------------------------
+	//getters
+	//---------------------------------------------
+	//how many times larger (in each direction) the output is than the input
+	public int getScale();
+	
+	//---------------------------------------------
+	//methods
+	//---------------------------------------------
+	//filters the input rows iStartRow up to iEndRow, writing the (scaled) rows for them to the output
+	//the whole input can be read (e.g. for neighbouring pixels), but only the output for the band may be written
+	public void apply(int[] iInput, int iWidth, int iHeight, int[] iOutput, int iStartRow, int iEndRow);
+}
@@ -0,0 +1,226 @@
+/**
+ * Class to run a chain of filters over each frame, on a pool of worker threads
+ * The frame's shades are first turned into ARGB colours, then each filter is run in turn,
+ * with the rows of its input split into bands that are filtered at the same time
+ * The time taken is measured, and if it goes over the budget (a fraction of the Game Boy's frame time),
+ * frames are skipped so that the filters never take more than their share
+ * This must not be run on the emulation thread, it is meant for the threads that show or send the frames
+ */
+
+package com.szymon.gameboy.output.filters;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.szymon.gameboy.ppu.LineCompositor;
+
+public class FilterPipeline
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private final int iSCREEN_WIDTH = 160;
+	private final int iSCREEN_HEIGHT = 144;
+	private final double dFRAME_NANOS = 1e9 / 59.73;	//the Game Boy's frame time
+	private final double dSMOOTHING = 0.1;	//how quickly the average time follows the latest frame
+	
+	private final ExecutorService workers;
+	private final int iBands;
+	private final LineCompositor compositor;
+	
+	//the filters, and the buffer each one writes to (the first buffer is the frame in colour)
+	private final List<Filter> filters;
+	private final List<int[]> buffers;
+	private int iOutputWidth;
+	private int iOutputHeight;
+	
+	private double dBudget;	//the fraction of a frame's time that can be spent filtering
+	private double dAverageNanos;
+	private int iSkip;	//how many frames to skip between filtered frames
+	private int iSkipped;
+	private long lFramesFiltered;
+	private long lFramesSkipped;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public FilterPipeline(int iThreads)
+	{
+		//the workers are daemons, so that they never keep the program running
+		workers = Executors.newFixedThreadPool(iThreads, runnable ->
+		{
+			Thread thread = new Thread(runnable, "Filter");
+			thread.setDaemon(true);
+			return thread;
+		});
+		iBands = iThreads;
+		compositor = LineCompositor.create();
+		
+		filters = new ArrayList<Filter>();
+		buffers = new ArrayList<int[]>();
+		
+		dBudget = 0.5;
+		setFilters(new ArrayList<Filter>());
+	}
+	
+	// ---------------------------------------------
+	// setters
+	// ---------------------------------------------
+	//replaces the chain of filters, which are run in order, each scaling up the output of the last
+	public synchronized void setFilters(List<Filter> newFilters)
+	{
+		filters.clear();
+		filters.addAll(newFilters);
+		
+		//the buffers are made up front, as each filter's output is a fixed size
+		buffers.clear();
+		iOutputWidth = iSCREEN_WIDTH;
+		iOutputHeight = iSCREEN_HEIGHT;
+		buffers.add(new int[iOutputWidth * iOutputHeight]);
+		for (Filter filter : filters)
+		{
+			iOutputWidth *= filter.getScale();
+			iOutputHeight *= filter.getScale();
+			buffers.add(new int[iOutputWidth * iOutputHeight]);
+		}
+		
+		dAverageNanos = 0;
+		iSkip = 0;
+		iSkipped = 0;
+	}
+	
+	//sets the fraction of the frame time that filtering may take, on average
+	public void setBudget(double dFraction)
+	{
+		dBudget = dFraction;
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	public synchronized int getOutputWidth()
+	{
+		return iOutputWidth;
+	}
+	
+	public synchronized int getOutputHeight()
+	{
+		return iOutputHeight;
+	}
+	
+	//the average time taken to filter a frame, as a fraction of the Game Boy's frame time
+	public double getLoad()
+	{
+		return dAverageNanos / dFRAME_NANOS;
+	}
+	
+	public long getFramesFiltered()
+	{
+		return lFramesFiltered;
+	}
+	
+	public long getFramesSkipped()
+	{
+		return lFramesSkipped;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	//filters a frame of shades, using the given colour for each shade
+	//returns the filtered frame (getOutputWidth() x getOutputHeight()), which is only valid until the next call
+	//returns null if the frame is skipped to stay in budget, in which case the last filtered frame should still be shown
+	public synchronized int[] process(byte[] u8Shades, int[] iShadeColours)
+	{
+		int[] iOutput = buffers.get(buffers.size() - 1);
+		
+		if (iSkipped < iSkip)
+		{
+			iSkipped++;
+			lFramesSkipped++;
+			return null;
+		}
+		iSkipped = 0;
+		
+		long lStart = System.nanoTime();
+		
+		int[] iColours = buffers.get(0);
+		runBands(iSCREEN_HEIGHT, (iStartRow, iEndRow) ->
+		{
+			for (int y = iStartRow; y < iEndRow; y++)
+			{
+				compositor.mapColours(u8Shades, y * iSCREEN_WIDTH, iShadeColours, iColours, y * iSCREEN_WIDTH, iSCREEN_WIDTH);
+			}
+		});
+		
+		int iWidth = iSCREEN_WIDTH;
+		int iHeight = iSCREEN_HEIGHT;
+		for (int i = 0; i < filters.size(); i++)
+		{
+			Filter filter = filters.get(i);
+			int[] iInput = buffers.get(i);
+			int[] iFiltered = buffers.get(i + 1);
+			int iInWidth = iWidth;
+			int iInHeight = iHeight;
+			
+			runBands(iHeight, (iStartRow, iEndRow) -> filter.apply(iInput, iInWidth, iInHeight, iFiltered, iStartRow, iEndRow));
+			
+			iWidth *= filter.getScale();
+			iHeight *= filter.getScale();
+		}
+		
+		//skip enough frames to bring the average back within budget
+		long lTaken = System.nanoTime() - lStart;
+		dAverageNanos = dAverageNanos == 0 ? lTaken : dAverageNanos + (lTaken - dAverageNanos) * dSMOOTHING;
+		iSkip = (int) Math.ceil(dAverageNanos / (dFRAME_NANOS * dBudget)) - 1;
+		lFramesFiltered++;
+		
+		return iOutput;
+	}
+	
+	//stops the workers, once they have finished what they have been given
+	public void shutdown()
+	{
+		workers.shutdown();
+	}
+	
+	//splits iRows into bands, and waits for them all to be run by the workers
+	private void runBands(int iRows, Band band)
+	{
+		int iBandSize = (iRows + iBands - 1) / iBands;
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+		for (int iStart = 0; iStart < iRows; iStart += iBandSize)
+		{
+			int iBandStart = iStart;
+			int iBandEnd = Math.min(iStart + iBandSize, iRows);
+			tasks.add(Executors.callable(() -> band.run(iBandStart, iBandEnd)));
+		}
+		
+		try
+		{
+			for (Future<Object> future : workers.invokeAll(tasks))
+			{
+				future.get();
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch (ExecutionException e)
+		{
+			System.err.println("Error filtering frame: " + e.getCause());
+		}
+	}
+	
+	//a band of rows to be run
+	private interface Band
+	{
+		public void run(int iStartRow, int iEndRow);
+	}
+}
@@ -0,0 +1,70 @@
+/**
+ * Filter to mimic the slow response of the Game Boy's LCD, by blending each frame with the last one shown
+ * Moving objects leave a fading trail, and objects that flicker every other frame appear see-through, as on the real screen
+ */
+
+package com.szymon.gameboy.output.filters;
+
+import java.util.Arrays;
+
+public class GhostingFilter implements Filter
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private final int iPersistence;	//how much (out of 256) of the last frame is kept
+	private int[] iLastFrame;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public GhostingFilter(double dPersistence)
+	{
+		iPersistence = (int) Math.round(Math.min(Math.max(dPersistence, 0), 1) * 256);
+		iLastFrame = new int[0];
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	@Override
+	public int getScale()
+	{
+		return 1;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	@Override
+	public void apply(int[] iInput, int iWidth, int iHeight, int[] iOutput, int iStartRow, int iEndRow)
+	{
+		int[] iLast = lastFrame(iWidth * iHeight);
+		int iCurrent = 256 - iPersistence;
+		
+		for (int i = iStartRow * iWidth; i < iEndRow * iWidth; i++)
+		{
+			int iNew = iInput[i];
+			int iOld = iLast[i];
+			
+			int iR = (((iNew >> 16) & 0xFF) * iCurrent + ((iOld >> 16) & 0xFF) * iPersistence) >> 8;
+			int iG = (((iNew >> 8) & 0xFF) * iCurrent + ((iOld >> 8) & 0xFF) * iPersistence) >> 8;
+			int iB = ((iNew & 0xFF) * iCurrent + (iOld & 0xFF) * iPersistence) >> 8;
+			
+			iOutput[i] = 0xFF000000 | (iR << 16) | (iG << 8) | iB;
+			iLast[i] = iOutput[i];
+		}
+	}
+	
+	//gets the last frame, which is started again if the size of the frames has changed
+	//the bands of a frame can call this at the same time, so only one of them may replace it
+	private synchronized int[] lastFrame(int iSize)
+	{
+		if (iLastFrame.length != iSize)
+		{
+			iLastFrame = new int[iSize];
+			Arrays.fill(iLastFrame, 0xFFFFFFFF);
+		}
+		return iLastFrame;
+	}
+}
@@ -0,0 +1,81 @@
+/**
+ * Filter to scale up with a mask that mimics the screen, by darkening the edges of each pixel
+ * Either a grid between all of the pixels (like the Game Boy's LCD), or just the gaps between rows (scanlines)
+ * This should be the last scaling filter, as it works on whole pixels of its input
+ */
+
+package com.szymon.gameboy.output.filters;
+
+import com.szymon.gameboy.output.utils.MaskType;
+
+public class LCDMaskFilter implements Filter
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private final int iScale;
+	private final MaskType maskType;
+	private final int iBrightness;	//how bright (out of 256) the masked edges are left
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public LCDMaskFilter(int iScaleIn, MaskType type, double dBrightness)
+	{
+		if (iScaleIn < 2)
+		{
+			throw new IllegalArgumentException("The LCD mask needs to scale by at least 2, not " + iScaleIn);
+		}
+		
+		iScale = iScaleIn;
+		maskType = type;
+		iBrightness = (int) Math.round(Math.min(Math.max(dBrightness, 0), 1) * 256);
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	@Override
+	public int getScale()
+	{
+		return iScale;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	@Override
+	public void apply(int[] iInput, int iWidth, int iHeight, int[] iOutput, int iStartRow, int iEndRow)
+	{
+		int iOutWidth = iWidth * iScale;
+		
+		for (int y = iStartRow; y < iEndRow; y++)
+		{
+			for (int iSubRow = 0; iSubRow < iScale; iSubRow++)
+			{
+				boolean bRowEdge = iSubRow == iScale - 1;
+				int iOut = (y * iScale + iSubRow) * iOutWidth;
+				
+				for (int x = 0; x < iWidth; x++)
+				{
+					int iColour = iInput[y * iWidth + x];
+					int iDark = darken(iColour);
+					
+					for (int iSubColumn = 0; iSubColumn < iScale; iSubColumn++)
+					{
+						boolean bEdge = bRowEdge || (maskType == MaskType.GRID && iSubColumn == iScale - 1);
+						iOutput[iOut++] = bEdge ? iDark : iColour;
+					}
+				}
+			}
+		}
+	}
+	
+	private int darken(int iColour)
+	{
+		int iR = (((iColour >> 16) & 0xFF) * iBrightness) >> 8;
+		int iG = (((iColour >> 8) & 0xFF) * iBrightness) >> 8;
+		int iB = ((iColour & 0xFF) * iBrightness) >> 8;
+		return 0xFF000000 | (iR << 16) | (iG << 8) | iB;
+	}
+}
@@ -0,0 +1,101 @@
+/**
+ * Filter to scale pixel art by 2 or 3 with the Scale2x/Scale3x (AdvMAME) rules
+ * Each pixel is split into 2x2 or 3x3, and corners take the colour of their neighbours where an edge runs through them,
+ * so diagonal lines are smoothed without blurring any colours
+ */
+
+package com.szymon.gameboy.output.filters;
+
+public class ScaleNxFilter implements Filter
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private final int iScale;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public ScaleNxFilter(int iScaleIn)
+	{
+		if (iScaleIn != 2 && iScaleIn != 3)
+		{
+			throw new IllegalArgumentException("ScaleNx only scales by 2 or 3, not " + iScaleIn);
+		}
+		
+		iScale = iScaleIn;
+	}
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	@Override
+	public int getScale()
+	{
+		return iScale;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	@Override
+	public void apply(int[] iInput, int iWidth, int iHeight, int[] iOutput, int iStartRow, int iEndRow)
+	{
+		int iOutWidth = iWidth * iScale;
+		
+		for (int y = iStartRow; y < iEndRow; y++)
+		{
+			//the neighbours are clamped at the edges of the frame
+			int iUp = Math.max(y - 1, 0) * iWidth;
+			int iRow = y * iWidth;
+			int iDown = Math.min(y + 1, iHeight - 1) * iWidth;
+			
+			for (int x = 0; x < iWidth; x++)
+			{
+				int iLeft = Math.max(x - 1, 0);
+				int iRight = Math.min(x + 1, iWidth - 1);
+				
+				//A B C
+				//D E F
+				//G H I
+				int A = iInput[iUp + iLeft];
+				int B = iInput[iUp + x];
+				int C = iInput[iUp + iRight];
+				int D = iInput[iRow + iLeft];
+				int E = iInput[iRow + x];
+				int F = iInput[iRow + iRight];
+				int G = iInput[iDown + iLeft];
+				int H = iInput[iDown + x];
+				int I = iInput[iDown + iRight];
+				
+				int iOut = y * iScale * iOutWidth + x * iScale;
+				
+				if (iScale == 2)
+				{
+					boolean bEdge = B != H && D != F;
+					iOutput[iOut] = bEdge && D == B ? D : E;
+					iOutput[iOut + 1] = bEdge && B == F ? F : E;
+					iOutput[iOut + iOutWidth] = bEdge && D == H ? D : E;
+					iOutput[iOut + iOutWidth + 1] = bEdge && H == F ? F : E;
+				}
+				else
+				{
+					boolean bEdge = B != H && D != F;
+					int iRow1 = iOut;
+					int iRow2 = iOut + iOutWidth;
+					int iRow3 = iOut + iOutWidth * 2;
+					
+					iOutput[iRow1] = bEdge && D == B ? D : E;
+					iOutput[iRow1 + 1] = bEdge && ((D == B && E != C) || (B == F && E != A)) ? B : E;
+					iOutput[iRow1 + 2] = bEdge && B == F ? F : E;
+					iOutput[iRow2] = bEdge && ((D == B && E != G) || (D == H && E != A)) ? D : E;
+					iOutput[iRow2 + 1] = E;
+					iOutput[iRow2 + 2] = bEdge && ((B == F && E != I) || (H == F && E != C)) ? F : E;
+					iOutput[iRow3] = bEdge && D == H ? D : E;
+					iOutput[iRow3 + 1] = bEdge && ((D == H && E != I) || (H == F && E != G)) ? H : E;
+					iOutput[iRow3 + 2] = bEdge && H == F ? F : E;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,117 @@
+/**
+ * Filter to scale by 2 with the xBR (scale by rules) edge detection
+ * For each corner of a pixel, the colour differences along the two diagonals through it are weighed up
+ * over a 5x5 neighbourhood, and if an edge runs across the corner it is blended towards the closer neighbour
+ * This is the first level of xBR, which smooths edges at 45 degrees
+ */
+
+package com.szymon.gameboy.output.filters;
+
+public class XBRFilter implements Filter
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private final int iSCALE = 2;
+	
+	// ---------------------------------------------
+	// getters
+	// ---------------------------------------------
+	@Override
+	public int getScale()
+	{
+		return iSCALE;
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	@Override
+	public void apply(int[] iInput, int iWidth, int iHeight, int[] iOutput, int iStartRow, int iEndRow)
+	{
+		int iOutWidth = iWidth * iSCALE;
+		
+		for (int y = iStartRow; y < iEndRow; y++)
+		{
+			for (int x = 0; x < iWidth; x++)
+			{
+				int iOut = y * iSCALE * iOutWidth + x * iSCALE;
+				
+				//each corner is the bottom right corner of the neighbourhood flipped in x and/or y
+				iOutput[iOut] = corner(iInput, iWidth, iHeight, x, y, -1, -1);
+				iOutput[iOut + 1] = corner(iInput, iWidth, iHeight, x, y, 1, -1);
+				iOutput[iOut + iOutWidth] = corner(iInput, iWidth, iHeight, x, y, -1, 1);
+				iOutput[iOut + iOutWidth + 1] = corner(iInput, iWidth, iHeight, x, y, 1, 1);
+			}
+		}
+	}
+	
+	//works out the colour of one corner of the pixel at (x, y), the corner being in the direction (iDX, iDY)
+	//named as for the bottom right corner:
+	//   A1 B1 C1
+	//A0 A  B  C  C4
+	//D0 D  E  F  F4
+	//G0 G  H  I  I4
+	//   G5 H5 I5
+	private int corner(int[] iInput, int iWidth, int iHeight, int x, int y, int iDX, int iDY)
+	{
+		int E = pixel(iInput, iWidth, iHeight, x, y);
+		int F = pixel(iInput, iWidth, iHeight, x + iDX, y);
+		int H = pixel(iInput, iWidth, iHeight, x, y + iDY);
+		
+		if (E == F || E == H)
+		{
+			return E;
+		}
+		
+		int B = pixel(iInput, iWidth, iHeight, x, y - iDY);
+		int C = pixel(iInput, iWidth, iHeight, x + iDX, y - iDY);
+		int D = pixel(iInput, iWidth, iHeight, x - iDX, y);
+		int G = pixel(iInput, iWidth, iHeight, x - iDX, y + iDY);
+		int I = pixel(iInput, iWidth, iHeight, x + iDX, y + iDY);
+		int F4 = pixel(iInput, iWidth, iHeight, x + iDX * 2, y);
+		int I4 = pixel(iInput, iWidth, iHeight, x + iDX * 2, y + iDY);
+		int H5 = pixel(iInput, iWidth, iHeight, x, y + iDY * 2);
+		int I5 = pixel(iInput, iWidth, iHeight, x + iDX, y + iDY * 2);
+		
+		//the weight of an edge along each diagonal, the smaller one is the edge that runs through the corner
+		int iAcross = distance(E, C) + distance(E, G) + distance(I, F4) + distance(I, H5) + 4 * distance(H, F);
+		int iAlong = distance(H, D) + distance(H, I5) + distance(F, I4) + distance(F, B) + 4 * distance(E, I);
+		
+		if (iAcross >= iAlong)
+		{
+			return E;
+		}
+		
+		int iNew = distance(E, F) <= distance(E, H) ? F : H;
+		return blend(E, iNew);
+	}
+	
+	//gets a pixel, clamped to the edges of the frame
+	private int pixel(int[] iInput, int iWidth, int iHeight, int x, int y)
+	{
+		x = Math.min(Math.max(x, 0), iWidth - 1);
+		y = Math.min(Math.max(y, 0), iHeight - 1);
+		return iInput[y * iWidth + x];
+	}
+	
+	//the difference between two colours in YUV, weighted towards brightness as in xBR
+	private int distance(int iColour1, int iColour2)
+	{
+		int iR = ((iColour1 >> 16) & 0xFF) - ((iColour2 >> 16) & 0xFF);
+		int iG = ((iColour1 >> 8) & 0xFF) - ((iColour2 >> 8) & 0xFF);
+		int iB = (iColour1 & 0xFF) - (iColour2 & 0xFF);
+		
+		int iY = Math.abs(299 * iR + 587 * iG + 114 * iB);
+		int iU = Math.abs(-169 * iR - 331 * iG + 500 * iB);
+		int iV = Math.abs(500 * iR - 419 * iG - 81 * iB);
+		
+		return (48 * iY + 7 * iU + 6 * iV) / 1000;
+	}
+	
+	//mixes two colours half and half
+	private int blend(int iColour1, int iColour2)
+	{
+		return 0xFF000000 | (((iColour1 & 0xFEFEFE) >>> 1) + ((iColour2 & 0xFEFEFE) >>> 1));
+	}
+}
@@ -0,0 +1,267 @@
+/**
+ * Class to watch (and, as the player, control) an emulator through the stream server
+ * The frames are rebuilt from the rows sent and shown scaled up, and the keys are sent back as joypad input
+ * The keys are the same as the emulator's own screen: WASD for the D-Pad, O and P for B and A, K and L for Select and Start
+ */
+
+package com.szymon.gameboy.output.stream;
+
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+
+import com.szymon.gameboy.output.recording.PackedCodec;
+
+public class StreamClient extends JPanel implements Runnable
+{
+	// ---------------------------------------------
+	// class variables
+	// ---------------------------------------------
+	private static final long serialVersionUID = -2771584907265126409L;
+	
+	private final int iSCALE_FACTOR = 3;
+	private final int iMAX_MESSAGE = 1 << 20;	//anything larger than this is not from a real server
+	
+	private final String szHost;
+	private final int iPort;
+	private volatile OutputStream output;
+	
+	private JFrame frame;
+	private final BufferedImage image;
+	private final int[] iPixels;
+	
+	//the frame as it has been rebuilt so far
+	private final byte[] u8Packed;
+	private final byte[] u8Shades;
+	private final int[] iColours;
+	
+	private volatile int iButtons;
+	private boolean bPlayer;
+	private long lFrames;
+	private long lBytes;
+	
+	// ---------------------------------------------
+	// constructors
+	// ---------------------------------------------
+	public StreamClient(String szHostIn, int iPortIn)
+	{
+		szHost = szHostIn;
+		iPort = iPortIn;
+		
+		image = new BufferedImage(StreamProtocol.iWIDTH, StreamProtocol.iHEIGHT, BufferedImage.TYPE_INT_RGB);
+		iPixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		u8Packed = new byte[PackedCodec.iPACKED_SIZE];
+		u8Shades = new byte[StreamProtocol.iWIDTH * StreamProtocol.iHEIGHT];
+		iColours = new int[4];
+		
+		setPreferredSize(new Dimension(StreamProtocol.iWIDTH * iSCALE_FACTOR, StreamProtocol.iHEIGHT * iSCALE_FACTOR));
+		frame = new JFrame("Stream " + szHost + ":" + iPort);
+		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		frame.getContentPane().add(this);
+		frame.addKeyListener(new KeyAdapter()
+		{
+			@Override
+			public void keyPressed(KeyEvent e)
+			{
+				setButton(e.getKeyCode(), true);
+			}
+			
+			@Override
+			public void keyReleased(KeyEvent e)
+			{
+				setButton(e.getKeyCode(), false);
+			}
+		});
+		frame.pack();
+		frame.setResizable(false);
+		frame.setLocationRelativeTo(null);
+		frame.setVisible(true);
+	}
+	
+	// ---------------------------------------------
+	// methods
+	// ---------------------------------------------
+	@Override
+	protected void paintComponent(Graphics g)
+	{
+		super.paintComponent(g);
+		synchronized (image)
+		{
+			g.drawImage(image, 0, 0, getWidth(), getHeight(), null);
+		}
+	}
+	
+	//updates the held buttons from the key, sending them if they have changed
+	private void setButton(int iKeyCode, boolean bPressed)
+	{
+		int iButton;
+		switch (iKeyCode)
+		{
+			case KeyEvent.VK_W:
+				iButton = StreamProtocol.iBUTTON_UP;
+				break;
+			case KeyEvent.VK_A:
+				iButton = StreamProtocol.iBUTTON_LEFT;
+				break;
+			case KeyEvent.VK_S:
+				iButton = StreamProtocol.iBUTTON_DOWN;
+				break;
+			case KeyEvent.VK_D:
+				iButton = StreamProtocol.iBUTTON_RIGHT;
+				break;
+			case KeyEvent.VK_O:
+				iButton = StreamProtocol.iBUTTON_B;
+				break;
+			case KeyEvent.VK_P:
+				iButton = StreamProtocol.iBUTTON_A;
+				break;
+			case KeyEvent.VK_K:
+				iButton = StreamProtocol.iBUTTON_SELECT;
+				break;
+			case KeyEvent.VK_L:
+				iButton = StreamProtocol.iBUTTON_START;
+				break;
+			default:
+				return;
+		}
+		
+		int iNewButtons = bPressed ? iButtons | iButton : iButtons & ~iButton;
+		if (iNewButtons == iButtons)
+		{
+			return;
+		}
+		iButtons = iNewButtons;
+		
+		//the key events come on the Swing thread, which only writes a few bytes, so it can write to the socket itself
+		OutputStream out = output;
+		if (out != null)
+		{
+			try
+			{
+				synchronized (out)
+				{
+					out.write(StreamProtocol.makeByteMessage(StreamProtocol.iINPUT, iNewButtons).array());
+					out.flush();
+				}
+			}
+			catch (IOException e)
+			{
+				System.err.println("Could not send input: " + e.getMessage());
+			}
+		}
+	}
+	
+	//connects, then reads messages until the server goes away
+	@Override
+	public void run()
+	{
+		try (Socket socket = new Socket(szHost, iPort))
+		{
+			socket.setTcpNoDelay(true);
+			output = socket.getOutputStream();
+			DataInputStream input = new DataInputStream(socket.getInputStream());
+			
+			byte[] u8Hello = new byte[StreamProtocol.iHELLO_SIZE];
+			input.readFully(u8Hello);
+			if (ByteBuffer.wrap(u8Hello).getInt() != StreamProtocol.iMAGIC)
+			{
+				System.err.println(szHost + ":" + iPort + " is not a stream server");
+				return;
+			}
+			
+			byte[] u8Body = new byte[StreamProtocol.iMAX_FRAME_MESSAGE];
+			long lLastTime = System.nanoTime();
+			long lLastFrames = 0;
+			long lLastBytes = 0;
+			while (true)
+			{
+				int iType = input.readUnsignedByte();
+				int iLength = input.readInt();
+				if (iLength < 0 || iLength > iMAX_MESSAGE)
+				{
+					System.err.println("Bad message from the server");
+					return;
+				}
+				if (iLength > u8Body.length)
+				{
+					u8Body = new byte[iLength];
+				}
+				input.readFully(u8Body, 0, iLength);
+				lBytes += StreamProtocol.iMESSAGE_HEADER_SIZE + iLength;
+				
+				if (iType == StreamProtocol.iFRAME)
+				{
+					if (StreamProtocol.decodeFrame(u8Body, iLength, u8Packed, iColours) < 0)
+					{
+						System.err.println("Bad frame from the server");
+						return;
+					}
+					showFrame();
+					lFrames++;
+				}
+				else if (iType == StreamProtocol.iROLE && iLength >= 1)
+				{
+					bPlayer = u8Body[0] == StreamProtocol.iROLE_PLAYER;
+				}
+				
+				//the title shows how many frames and how much data came in over the last second
+				long lNow = System.nanoTime();
+				if (lNow - lLastTime >= 1000000000L)
+				{
+					String szTitle = String.format("Stream %s:%d (%s) - %d fps, %.1f KB/s", szHost, iPort, bPlayer ? "player" : "spectator",
+							lFrames - lLastFrames, (lBytes - lLastBytes) / 1024.0);
+					SwingUtilities.invokeLater(() -> frame.setTitle(szTitle));
+					lLastTime = lNow;
+					lLastFrames = lFrames;
+					lLastBytes = lBytes;
+				}
+			}
+		}
+		catch (EOFException e)
+		{
+			System.out.println("The server closed the stream");
+		}
+		catch (IOException e)
+		{
+			System.err.println("Stream error: " + e.getMessage());
+		}
+	}
+	
+	//turns the rebuilt frame into colours, and repaints
+	private void showFrame()
+	{
+		PackedCodec.unpack(u8Packed, u8Shades);
+		synchronized (image)
+		{
+			for (int i = 0; i < u8Shades.length; i++)
+			{
+				iPixels[i] = iColours[u8Shades[i]];
+			}
+		}
+		repaint();
+	}
+	
+	//arguments are optionally the host, then the port
+	public static void main(String[] args)
+	{
+		String szHost = args.length > 0 ? args[0] : "localhost";
+		int iPort = args.length > 1 ? Integer.parseInt(args[1]) : StreamServer.iDEFAULT_PORT;
+		
+		StreamClient client = new StreamClient(szHost, iPort);
+		Thread reader = new Thread(client, "StreamClient");
+		reader.start();
+	}
+}
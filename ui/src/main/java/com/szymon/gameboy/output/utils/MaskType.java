@@ -0,0 +1,11 @@
+/**
+ * Enum to represent the patterns the LCD mask filter can darken
+ */
+
+package com.szymon.gameboy.output.utils;
+
+public enum MaskType 
+{
+	GRID,		//the gaps between the LCD's pixels, in both directions
+	SCANLINES;	//only the gaps between rows, like a CRT
+}